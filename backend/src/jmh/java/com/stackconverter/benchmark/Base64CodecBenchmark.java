@@ -0,0 +1,65 @@
+package com.stackconverter.benchmark;
+
+import com.stackconverter.service.base64.Base64Codec;
+import com.stackconverter.service.base64.Base64Codecs;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code java.util.Base64} versus the Vector API codec, per variant and payload size.
+ * Results are reported as throughput of source bytes (encode) / characters (decode).
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+@State(Scope.Benchmark)
+public class Base64CodecBenchmark {
+
+    @Param({"1024", "65536", "16777216"})
+    public int size;
+
+    @Param({"basic", "mime"})
+    public String variant;
+
+    private Base64Codec jdk;
+    private Base64Codec vector;
+    private byte[] data;
+    private byte[] encoded;
+
+    @Setup
+    public void setUp() {
+        Base64Codecs codecs = new Base64Codecs("auto", 0);
+        if (!codecs.vectorAvailable()) throw new IllegalStateException("Vector codec unavailable on this JVM");
+
+        jdk = codecs.codec("jdk", variant);
+        vector = codecs.codec("vector", variant);
+
+        data = new byte[size];
+        new Random(42).nextBytes(data);
+        encoded = jdk.encode(data);
+    }
+
+    @Benchmark
+    public byte[] jdkEncode() {
+        return jdk.encode(data);
+    }
+
+    @Benchmark
+    public byte[] vectorEncode() {
+        return vector.encode(data);
+    }
+
+    @Benchmark
+    public byte[] jdkDecode() {
+        return jdk.decode(encoded);
+    }
+
+    @Benchmark
+    public byte[] vectorDecode() {
+        return vector.decode(encoded);
+    }
+}
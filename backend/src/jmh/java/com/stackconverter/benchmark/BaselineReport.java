@@ -0,0 +1,144 @@
+package com.stackconverter.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Compares a JMH JSON result ({@code -rf json}) with a saved baseline and exits with
+ * status 1 when any benchmark got slower than the threshold allows.
+ * <p>
+ * Benchmarks are matched by name and parameters; those only present on one side are
+ * listed but never fail the run. Throughput scores regress when they drop, time scores
+ * when they grow. Allocation per operation ({@code gc.alloc.rate.norm}, from
+ * {@code -prof gc}) is reported alongside but not checked. Without a baseline file,
+ * the current result is saved as the baseline.
+ * <pre>
+ *   BaselineReport &lt;result.json&gt; &lt;baseline.json&gt; [threshold-percent]
+ * </pre>
+ */
+public final class BaselineReport {
+
+    private record Score(double value, String unit, boolean higherIsBetter, Double allocBytes) {}
+
+    private BaselineReport() {}
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: BaselineReport <result.json> <baseline.json> [threshold-percent]");
+            System.exit(2);
+        }
+        Path result = Path.of(args[0]);
+        Path baseline = Path.of(args[1]);
+        double threshold = args.length > 2 ? Double.parseDouble(args[2]) : 10;
+
+        if (!Files.exists(result)) {
+            System.err.println("No benchmark result at " + result + "; run the benchmarks first");
+            System.exit(2);
+        }
+        if (!Files.exists(baseline)) {
+            Files.createDirectories(baseline.toAbsolutePath().getParent());
+            Files.copy(result, baseline, StandardCopyOption.REPLACE_EXISTING);
+            System.out.println("No baseline yet; saved " + result + " as " + baseline);
+            return;
+        }
+
+        Map<String, Score> current = read(result);
+        Map<String, Score> previous = read(baseline);
+
+        int width = 9;
+        for (String name : current.keySet()) width = Math.max(width, name.length());
+        for (String name : previous.keySet()) width = Math.max(width, name.length());
+        String row = "%-" + width + "s %14s %14s %9s %22s  %s%s%n";
+
+        List<String> regressions = new ArrayList<>();
+        System.out.printf(Locale.ROOT, row, "Benchmark", "Baseline", "Current", "Change", "Alloc B/op", "Unit", "");
+
+        for (Map.Entry<String, Score> entry : current.entrySet()) {
+            String name = entry.getKey();
+            Score now = entry.getValue();
+            Score before = previous.get(name);
+
+            if (before == null || !before.unit().equals(now.unit())) {
+                System.out.printf(Locale.ROOT, row, name, "-", score(now), "new", alloc(null, now), now.unit(), "");
+                continue;
+            }
+
+            double change = (now.value() - before.value()) / before.value() * 100;
+            double slowdown = now.higherIsBetter() ? -change : change;
+            boolean regressed = slowdown > threshold;
+            if (regressed) regressions.add(name);
+
+            System.out.printf(Locale.ROOT, row, name, score(before), score(now),
+                    String.format(Locale.ROOT, "%+.1f%%", change), alloc(before, now), now.unit(),
+                    regressed ? "  REGRESSION" : "");
+        }
+
+        for (String name : previous.keySet()) {
+            if (!current.containsKey(name)) {
+                System.out.printf(Locale.ROOT, row, name, score(previous.get(name)), "not run", "", "", "", "");
+            }
+        }
+
+        if (!regressions.isEmpty()) {
+            System.out.printf(Locale.ROOT, "%n%d benchmark(s) regressed by more than %.1f%%:%n",
+                    regressions.size(), threshold);
+            regressions.forEach(name -> System.out.println("  " + name));
+            System.exit(1);
+        }
+        System.out.printf(Locale.ROOT, "%nNo regressions beyond %.1f%%%n", threshold);
+    }
+
+    // "benchmark.Class.method {param=value, ...}" → primary score
+    private static Map<String, Score> read(Path file) throws IOException {
+        Map<String, Score> scores = new LinkedHashMap<>();
+        for (JsonNode run : new ObjectMapper().readTree(file.toFile())) {
+            StringBuilder name = new StringBuilder(run.path("benchmark").asText()
+                    .replace("com.stackconverter.benchmark.", ""));
+
+            Map<String, String> params = new TreeMap<>();
+            for (Iterator<Map.Entry<String, JsonNode>> it = run.path("params").fields(); it.hasNext(); ) {
+                Map.Entry<String, JsonNode> param = it.next();
+                params.put(param.getKey(), param.getValue().asText());
+            }
+            if (!params.isEmpty()) name.append(' ').append(params);
+
+            JsonNode primary = run.path("primaryMetric");
+            String unit = primary.path("scoreUnit").asText();
+
+            Double allocBytes = null;
+            for (Iterator<Map.Entry<String, JsonNode>> it = run.path("secondaryMetrics").fields(); it.hasNext(); ) {
+                Map.Entry<String, JsonNode> metric = it.next();
+                // Older JMH versions prefix profiler metrics with "·"
+                if (metric.getKey().replace("·", "").equals("gc.alloc.rate.norm")) {
+                    allocBytes = metric.getValue().path("score").asDouble();
+                }
+            }
+
+            scores.put(name.toString(), new Score(primary.path("score").asDouble(), unit,
+                    run.path("mode").asText().equals("thrpt"), allocBytes));
+        }
+        return scores;
+    }
+
+    private static String score(Score score) {
+        return String.format(Locale.ROOT, "%.3f", score.value());
+    }
+
+    private static String alloc(Score before, Score now) {
+        if (now.allocBytes() == null) return "-";
+        if (before == null || before.allocBytes() == null) return String.format(Locale.ROOT, "%.0f", now.allocBytes());
+        return String.format(Locale.ROOT, "%.0f -> %.0f", before.allocBytes(), now.allocBytes());
+    }
+}
@@ -0,0 +1,61 @@
+package com.stackconverter.benchmark;
+
+import com.stackconverter.service.exec.ConversionExecutor;
+import com.stackconverter.service.hash.BatchHasher;
+import com.stackconverter.service.hash.DigestEngine;
+import com.stackconverter.service.hash.HashAlgorithm;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Batch hashing throughput in lines per second (one operation = one input line),
+ * for e-mail-like identifiers hashed with SHA-256 or HMAC-SHA256.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@OperationsPerInvocation(BatchHasherBenchmark.LINES)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BatchHasherBenchmark {
+
+    static final int LINES = 100_000;
+
+    @Param({"", "secret"})
+    public String key;
+
+    @Param({"ndjson", "csv"})
+    public String output;
+
+    private ConversionExecutor executor;
+    private BatchHasher hasher;
+    private byte[] input;
+
+    @Setup
+    public void setUp() {
+        executor = new ConversionExecutor(0, 256);
+        hasher = new BatchHasher(new DigestEngine(0), executor, 65536, 0);
+
+        StringBuilder lines = new StringBuilder();
+        for (int i = 0; i < LINES; i++) lines.append("user").append(i).append("@example.com\n");
+        input = lines.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @TearDown
+    public void tearDown() {
+        executor.destroy();
+    }
+
+    @Benchmark
+    public void hashLines() throws Exception {
+        hasher.write(new ByteArrayInputStream(input), HashAlgorithm.SHA_256,
+                key.isEmpty() ? null : key.getBytes(StandardCharsets.UTF_8),
+                output.equals("csv") ? BatchHasher.Format.CSV : BatchHasher.Format.NDJSON,
+                OutputStream.nullOutputStream());
+    }
+}
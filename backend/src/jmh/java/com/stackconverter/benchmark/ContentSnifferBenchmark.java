@@ -0,0 +1,63 @@
+package com.stackconverter.benchmark;
+
+import com.stackconverter.service.sniff.ContentSniffer;
+import com.stackconverter.service.sniff.FileType;
+import com.stackconverter.service.sniff.StandardFormats;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * File type detection of decoded Base64 uploads (formerly {@code detectFileExtension}):
+ * binary signatures, a ZIP container resolved through its central directory, and the
+ * text / CSV fallback that scans the head.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ContentSnifferBenchmark {
+
+    @Param({"pdf", "png", "xlsx", "csv", "unknown"})
+    public String type;
+
+    private ContentSniffer sniffer;
+    private byte[] content;
+
+    @Setup
+    public void setUp() throws Exception {
+        sniffer = new ContentSniffer(List.of(new StandardFormats()), 4096, 16384);
+
+        byte[] noise = new byte[256 * 1024];
+        new Random(42).nextBytes(noise);
+
+        content = switch (type) {
+            case "pdf" -> withPrefix("%PDF-1.7\n".getBytes(StandardCharsets.US_ASCII), noise);
+            case "png" -> withPrefix(new byte[]{(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'}, noise);
+            case "xlsx" -> Datasets.workbook("xlsx", 2000, 10);
+            case "csv" -> Datasets.csv(2000, 10, true);
+            default -> noise;
+        };
+
+        FileType detected = sniffer.sniff(content);
+        if (!type.equals("unknown") && !detected.extension().equals("." + type)) {
+            throw new IllegalStateException("Expected " + type + " but detected " + detected);
+        }
+    }
+
+    @Benchmark
+    public FileType sniff() {
+        return sniffer.sniff(content);
+    }
+
+    private static byte[] withPrefix(byte[] prefix, byte[] rest) {
+        byte[] bytes = rest.clone();
+        System.arraycopy(prefix, 0, bytes, 0, prefix.length);
+        return bytes;
+    }
+}
@@ -0,0 +1,65 @@
+package com.stackconverter.benchmark;
+
+import com.stackconverter.service.csv.CsvReader;
+import com.stackconverter.service.csv.CsvRecord;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CSV parsing (formerly {@code parseCsvLine}) over generated files of {@code rows} ×
+ * {@code columns}, with and without quoted fields. {@code next} only tokenizes;
+ * {@code strings} also materializes every field, as the in-memory converters do.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CsvReaderBenchmark {
+
+    @Param({"10000", "100000"})
+    public int rows;
+
+    @Param({"5", "25"})
+    public int columns;
+
+    @Param({"false", "true"})
+    public boolean quoted;
+
+    private byte[] csv;
+
+    @Setup
+    public void setUp() {
+        csv = Datasets.csv(rows, columns, quoted);
+    }
+
+    @Benchmark
+    public long next() throws Exception {
+        long fields = 0;
+        try (CsvReader reader = open()) {
+            while (reader.next()) fields += reader.record().size();
+        }
+        return fields;
+    }
+
+    @Benchmark
+    public long strings() throws Exception {
+        long chars = 0;
+        try (CsvReader reader = open()) {
+            while (reader.next()) {
+                CsvRecord record = reader.record();
+                for (int i = 0; i < record.size(); i++) chars += record.get(i).length();
+            }
+        }
+        return chars;
+    }
+
+    private CsvReader open() {
+        return new CsvReader(new InputStreamReader(new ByteArrayInputStream(csv), StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,127 @@
+package com.stackconverter.benchmark;
+
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+/**
+ * Deterministic inputs for the conversion benchmarks, so results stay comparable
+ * between runs and against a saved baseline.
+ */
+final class Datasets {
+
+    private static final String[] WORDS = {
+            "alpha", "beta", "gamma", "delta", "epsilon", "zeta", "eta", "theta", "iota", "kappa"
+    };
+
+    private Datasets() {}
+
+    /**
+     * CSV text with a header row, alternating text and numeric columns. With
+     * {@code quoted}, every third text field contains a delimiter and a quote.
+     */
+    static byte[] csv(int rows, int columns, boolean quoted) {
+        Random random = new Random(42);
+        StringBuilder sb = new StringBuilder();
+        for (int c = 0; c < columns; c++) {
+            if (c > 0) sb.append(',');
+            sb.append("column").append(c);
+        }
+        sb.append('\n');
+
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < columns; c++) {
+                if (c > 0) sb.append(',');
+                if (c % 2 == 1) {
+                    sb.append(random.nextInt(1_000_000)).append('.').append(random.nextInt(100));
+                } else if (quoted && (r + c) % 3 == 0) {
+                    sb.append("\"").append(WORDS[random.nextInt(WORDS.length)])
+                      .append(", \"\"").append(r).append("\"\"\"");
+                } else {
+                    sb.append(WORDS[random.nextInt(WORDS.length)]).append('-').append(r);
+                }
+            }
+            sb.append('\n');
+        }
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * A one-sheet workbook shaped like {@link #csv}, as {@code xlsx} or {@code xls} bytes.
+     */
+    static byte[] workbook(String format, int rows, int columns) throws IOException {
+        Random random = new Random(42);
+        try (Workbook workbook = format.equals("xls") ? new HSSFWorkbook() : new SXSSFWorkbook(100)) {
+            Sheet sheet = workbook.createSheet("Sheet1");
+
+            Row header = sheet.createRow(0);
+            for (int c = 0; c < columns; c++) header.createCell(c).setCellValue("column" + c);
+
+            for (int r = 0; r < rows; r++) {
+                Row row = sheet.createRow(r + 1);
+                for (int c = 0; c < columns; c++) {
+                    if (c % 2 == 1) {
+                        row.createCell(c).setCellValue(random.nextInt(1_000_000) + random.nextInt(100) / 100.0);
+                    } else {
+                        row.createCell(c).setCellValue(WORDS[random.nextInt(WORDS.length)] + "-" + r);
+                    }
+                }
+            }
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            workbook.write(out);
+            if (workbook instanceof SXSSFWorkbook streaming) streaming.dispose();
+            return out.toByteArray();
+        }
+    }
+
+    /**
+     * About {@code payloadKb} of JSON: {@code {"catalog": {"item": [...]}}} where each item
+     * nests {@code depth} levels of {@code {"@id", "name", "price", "child"}} objects.
+     */
+    static byte[] json(int depth, int payloadKb) {
+        StringBuilder sb = new StringBuilder("{\"catalog\":{\"item\":[");
+        for (int i = 0; sb.length() < payloadKb * 1024; i++) {
+            if (i > 0) sb.append(',');
+            jsonItem(sb, i, depth);
+        }
+        return sb.append("]}}").toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void jsonItem(StringBuilder sb, int id, int depth) {
+        sb.append("{\"@id\":\"").append(id).append("\",")
+          .append("\"name\":\"").append(WORDS[id % WORDS.length]).append(' ').append(id).append("\",")
+          .append("\"price\":\"").append(id % 100).append(".99\"");
+        if (depth > 1) {
+            sb.append(",\"child\":");
+            jsonItem(sb, id, depth - 1);
+        }
+        sb.append('}');
+    }
+
+    /**
+     * The XML counterpart of {@link #json}: {@code <catalog><item id="...">...</item>...</catalog>}.
+     */
+    static byte[] xml(int depth, int payloadKb) {
+        StringBuilder sb = new StringBuilder("<catalog>");
+        for (int i = 0; sb.length() < payloadKb * 1024; i++) {
+            xmlItem(sb, "item", i, depth);
+        }
+        return sb.append("</catalog>").toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void xmlItem(StringBuilder sb, String tag, int id, int depth) {
+        sb.append('<').append(tag).append(" id=\"").append(id).append("\">")
+          .append("<name>").append(WORDS[id % WORDS.length]).append(' ').append(id).append("</name>")
+          .append("<price>").append(id % 100).append(".99</price>");
+        if (depth > 1) xmlItem(sb, "child", id, depth - 1);
+        sb.append("</").append(tag).append('>');
+    }
+}
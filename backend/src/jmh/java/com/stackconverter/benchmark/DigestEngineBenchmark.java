@@ -0,0 +1,54 @@
+package com.stackconverter.benchmark;
+
+import com.stackconverter.service.hash.DigestEngine;
+import com.stackconverter.service.hash.HashAlgorithm;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Text hashing as {@code /api/hash/generate} does it: the former
+ * {@code getInstance} + {@code String.format("%02x")} code versus {@link DigestEngine}.
+ * Run with {@code -prof gc} and compare {@code gc.alloc.rate.norm} (bytes per call).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DigestEngineBenchmark {
+
+    @Param({"MD5", "SHA-256", "SHA-512"})
+    public String algorithm;
+
+    private final String input = "The quick brown fox jumps over the lazy dog";
+
+    private DigestEngine engine;
+    private HashAlgorithm hashAlgorithm;
+
+    @Setup
+    public void setUp() {
+        engine = new DigestEngine(0);
+        hashAlgorithm = HashAlgorithm.of(algorithm);
+    }
+
+    @Benchmark
+    public String formatPerByte() throws Exception {
+        MessageDigest digest = MessageDigest.getInstance(algorithm);
+        byte[] hashBytes = digest.digest(input.getBytes(StandardCharsets.UTF_8));
+
+        StringBuilder hexString = new StringBuilder();
+        for (byte b : hashBytes) {
+            hexString.append(String.format("%02x", b));
+        }
+        return hexString.toString();
+    }
+
+    @Benchmark
+    public String pooledHexFormat() {
+        return engine.digestHex(hashAlgorithm, input);
+    }
+}
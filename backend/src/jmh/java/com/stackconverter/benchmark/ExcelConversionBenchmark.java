@@ -0,0 +1,136 @@
+package com.stackconverter.benchmark;
+
+import com.stackconverter.service.csv.CsvReader;
+import com.stackconverter.service.csv.CsvRecord;
+import com.stackconverter.service.excel.ExcelFormat;
+import com.stackconverter.service.excel.StreamingExcelConverter;
+import com.stackconverter.service.exec.ConversionExecutor;
+import org.apache.poi.ss.usermodel.*;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code /api/convert} over generated sheets of {@code rows} × {@code columns}:
+ * the in-memory POI paths of {@code excel-to-csv} / {@code csv-to-excel} versus
+ * {@link StreamingExcelConverter}. Run with {@code -prof gc} to compare allocation per conversion.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ExcelConversionBenchmark {
+
+    @Param({"1000", "20000"})
+    public int rows;
+
+    @Param({"5", "25"})
+    public int columns;
+
+    @Param({"xlsx", "xls"})
+    public String format;
+
+    private ConversionExecutor executor;
+    private StreamingExcelConverter converter;
+    private byte[] workbook;
+    private Path workbookFile;
+    private ExcelFormat workbookFormat;
+    private byte[] csv;
+
+    @Setup
+    public void setUp() throws Exception {
+        executor = new ConversionExecutor(0, 256);
+        converter = new StreamingExcelConverter(executor, 100, true);
+
+        workbook = Datasets.workbook(format, rows, columns);
+        workbookFile = Files.createTempFile("stackconverter-bench-", "." + format);
+        Files.write(workbookFile, workbook);
+        workbookFormat = ExcelFormat.detect(workbookFile);
+
+        csv = Datasets.csv(rows, columns, false);
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        executor.destroy();
+        Files.deleteIfExists(workbookFile);
+    }
+
+    @Benchmark
+    public byte[] excelToCsvInMemory() throws Exception {
+        // FileConvertController#excelToCsv
+        try (Workbook book = WorkbookFactory.create(new ByteArrayInputStream(workbook))) {
+            StringBuilder out = new StringBuilder();
+            for (Row row : book.getSheetAt(0)) {
+                int lastCol = row.getLastCellNum();
+                for (int i = 0; i < lastCol; i++) {
+                    Cell cell = row.getCell(i);
+                    if (cell != null) {
+                        switch (cell.getCellType()) {
+                            case STRING -> out.append(escapeCsv(cell.getStringCellValue()));
+                            case NUMERIC -> out.append(cell.getNumericCellValue());
+                            case BOOLEAN -> out.append(cell.getBooleanCellValue());
+                            case FORMULA -> out.append(cell.getCellFormula());
+                            default -> {}
+                        }
+                    }
+                    if (i < lastCol - 1) out.append(",");
+                }
+                out.append("\n");
+            }
+            return out.toString().getBytes(StandardCharsets.UTF_8);
+        }
+    }
+
+    @Benchmark
+    public long excelToCsvStreaming() throws Exception {
+        return converter.writeFirstSheetAsCsv(workbookFile, workbookFormat, OutputStream.nullOutputStream());
+    }
+
+    @Benchmark
+    public byte[] csvToExcelInMemory() throws Exception {
+        // FileConvertController#csvToExcel
+        try (Workbook book = new XSSFWorkbook(); CsvReader reader = openCsv()) {
+            Sheet sheet = book.createSheet("Sheet1");
+            int rowIndex = 0;
+            while (reader.next()) {
+                CsvRecord record = reader.record();
+                Row row = sheet.createRow(rowIndex++);
+                for (int col = 0; col < record.size(); col++) {
+                    row.createCell(col).setCellValue(record.get(col));
+                }
+            }
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            book.write(out);
+            return out.toByteArray();
+        }
+    }
+
+    @Benchmark
+    public long csvToExcelStreaming() throws Exception {
+        try (CsvReader reader = openCsv()) {
+            return converter.writeCsvAsXlsx(reader, OutputStream.nullOutputStream());
+        }
+    }
+
+    private CsvReader openCsv() {
+        return new CsvReader(new InputStreamReader(new ByteArrayInputStream(csv), StandardCharsets.UTF_8));
+    }
+
+    private static String escapeCsv(String value) {
+        if (value.contains(",") || value.contains("\"") || value.contains("\n")) {
+            return "\"" + value.replace("\"", "\"\"") + "\"";
+        }
+        return value;
+    }
+}
@@ -0,0 +1,55 @@
+package com.stackconverter.benchmark;
+
+import com.stackconverter.service.xml.StreamingJsonXmlConverter;
+import com.stackconverter.service.xml.StreamingJsonXmlConverter.JsonLayout;
+import com.stackconverter.service.xml.StreamingJsonXmlConverter.XmlLayout;
+import com.stackconverter.service.xml.XmlInfrastructure;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.OutputStream;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code json-to-xml} and {@code xml-to-json} as the streaming endpoints run them:
+ * the validating first pass, then the conversion pass. Generated catalogues vary in
+ * nesting depth and total payload size.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JsonXmlBenchmark {
+
+    @Param({"1", "8", "32"})
+    public int depth;
+
+    @Param({"16", "1024"})
+    public int payloadKb;
+
+    private StreamingJsonXmlConverter converter;
+    private byte[] json;
+    private byte[] xml;
+
+    @Setup
+    public void setUp() {
+        converter = new StreamingJsonXmlConverter(new XmlInfrastructure(0));
+        json = Datasets.json(depth, payloadKb);
+        xml = Datasets.xml(depth, payloadKb);
+    }
+
+    @Benchmark
+    public void jsonToXml() throws Exception {
+        JsonLayout layout = converter.inspectJson(new ByteArrayInputStream(json));
+        converter.writeJsonAsXml(new ByteArrayInputStream(json), layout, OutputStream.nullOutputStream());
+    }
+
+    @Benchmark
+    public void xmlToJson() throws Exception {
+        XmlLayout layout = converter.inspectXml(new ByteArrayInputStream(xml), Set.of());
+        converter.writeXmlAsJson(new ByteArrayInputStream(xml), layout, OutputStream.nullOutputStream());
+    }
+}
@@ -0,0 +1,90 @@
+package com.stackconverter.benchmark;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.EncodeHintType;
+import com.google.zxing.MultiFormatWriter;
+import com.google.zxing.common.BitMatrix;
+import com.stackconverter.service.qr.QrCodeRenderer;
+import com.stackconverter.service.qr.QrSpec;
+import org.openjdk.jmh.annotations.*;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * QR rendering across output sizes: the former per-pixel {@code setRGB} loop versus
+ * {@link QrCodeRenderer}'s row-copy raster (RGB for JPEG, 1-bit indexed for PNG).
+ * The {@code *Image} benchmarks stop at the raster; the {@code *Png} ones include encoding.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class QrRenderBenchmark {
+
+    private static final String TEXT = "https://example.com/products/12345?ref=qr&campaign=spring";
+
+    @Param({"100", "300", "1000", "2000", "4000"})
+    public int size;
+
+    private QrCodeRenderer renderer;
+    private QrSpec png;
+    private QrSpec jpeg;
+
+    @Setup
+    public void setUp() {
+        renderer = new QrCodeRenderer(4);
+        png = QrSpec.of(TEXT, "png", size, "#000000", "#FFFFFF");
+        jpeg = QrSpec.of(TEXT, "jpeg", size, "#000000", "#FFFFFF");
+    }
+
+    @Benchmark
+    public BufferedImage perPixelImage() throws Exception {
+        return legacyImage();
+    }
+
+    @Benchmark
+    public BufferedImage rgbRasterImage() throws Exception {
+        return renderer.renderImage(jpeg);
+    }
+
+    @Benchmark
+    public BufferedImage indexedRasterImage() throws Exception {
+        return renderer.renderImage(png);
+    }
+
+    @Benchmark
+    public byte[] perPixelPng() throws Exception {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        ImageIO.write(legacyImage(), "png", baos);
+        return baos.toByteArray();
+    }
+
+    @Benchmark
+    public byte[] indexedRasterPng() throws Exception {
+        return renderer.render(png);
+    }
+
+    // The controller's rendering loop before QrCodeRenderer
+    private BufferedImage legacyImage() throws Exception {
+        Color darkColor = Color.decode("#000000");
+        Color lightColor = Color.decode("#FFFFFF");
+
+        BitMatrix matrix = new MultiFormatWriter().encode(TEXT, BarcodeFormat.QR_CODE, size, size,
+                Map.of(EncodeHintType.CHARACTER_SET, "UTF-8", EncodeHintType.MARGIN, 1));
+
+        BufferedImage image = new BufferedImage(size, size, BufferedImage.TYPE_INT_RGB);
+        for (int x = 0; x < size; x++) {
+            for (int y = 0; y < size; y++) {
+                image.setRGB(x, y, matrix.get(x, y) ? darkColor.getRGB() : lightColor.getRGB());
+            }
+        }
+        return image;
+    }
+}
@@ -0,0 +1,85 @@
+package com.stackconverter.benchmark;
+
+import com.stackconverter.service.xml.XmlInfrastructure;
+import org.openjdk.jmh.annotations.*;
+import org.w3c.dom.Document;
+
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.transform.OutputKeys;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamResult;
+import java.io.ByteArrayInputStream;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parse + pretty-print round trip as done by {@code JsonXmlController}, with factories
+ * looked up per call (the old code path) versus the pooled {@link XmlInfrastructure}.
+ * <p>
+ * Sample-time mode, so the report includes p0.99 next to the mean. Run with
+ * {@code -t 8} or similar to see the pools under contention.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class XmlInfrastructureBenchmark {
+
+    @Param({"1", "10", "100"})
+    public int payloadKb;
+
+    private byte[] payload;
+    private XmlInfrastructure xml;
+
+    @Setup
+    public void setUp() {
+        StringBuilder sb = new StringBuilder("<catalog>");
+        for (int i = 0; sb.length() < payloadKb * 1024; i++) {
+            sb.append("<item id=\"").append(i).append("\">")
+              .append("<name>Item ").append(i).append("</name>")
+              .append("<price>").append(i % 100).append(".99</price>")
+              .append("</item>");
+        }
+        payload = sb.append("</catalog>").toString().getBytes(StandardCharsets.UTF_8);
+
+        xml = new XmlInfrastructure(0);
+    }
+
+    @Benchmark
+    public String freshFactories() throws Exception {
+        DocumentBuilderFactory dbf = DocumentBuilderFactory.newInstance();
+        dbf.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
+        dbf.setFeature("http://xml.org/sax/features/external-general-entities", false);
+        dbf.setFeature("http://xml.org/sax/features/external-parameter-entities", false);
+        DocumentBuilder db = dbf.newDocumentBuilder();
+        Document doc = db.parse(new ByteArrayInputStream(payload));
+
+        Transformer t = TransformerFactory.newInstance().newTransformer();
+        t.setOutputProperty(OutputKeys.INDENT, "yes");
+        t.setOutputProperty("{http://xml.apache.org/xslt}indent-amount", "4");
+        t.setOutputProperty(OutputKeys.OMIT_XML_DECLARATION, "no");
+        t.setOutputProperty(OutputKeys.METHOD, "xml");
+
+        StringWriter sw = new StringWriter();
+        t.transform(new DOMSource(doc), new StreamResult(sw));
+        return sw.toString();
+    }
+
+    @Benchmark
+    public String pooled() throws Exception {
+        Document doc = xml.withDocumentBuilder(db -> db.parse(new ByteArrayInputStream(payload)));
+
+        StringWriter sw = new StringWriter();
+        xml.withPrettyTransformer(t -> {
+            t.transform(new DOMSource(doc), new StreamResult(sw));
+            return null;
+        });
+        return sw.toString();
+    }
+}
@@ -0,0 +1,62 @@
+package com.stackconverter.config;
+
+import org.springframework.core.MethodParameter;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.method.support.AsyncHandlerMethodReturnValueHandler;
+import org.springframework.web.method.support.ModelAndViewContainer;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBodyReturnValueHandler;
+
+import java.util.concurrent.Callable;
+
+/**
+ * Streams {@code ResponseEntity<?>} results whose body turns out to be a
+ * {@link StreamingResponseBody}.
+ * <p>
+ * Spring only recognises streaming bodies from the declared type
+ * ({@code ResponseEntity<StreamingResponseBody>}), but handlers here return either a
+ * stream or a plain error body. Being an {@link AsyncHandlerMethodReturnValueHandler},
+ * this one is asked about the actual value before the regular handlers, which would
+ * otherwise look for a message converter for the lambda.
+ */
+class StreamingResponseEntityHandler implements AsyncHandlerMethodReturnValueHandler {
+
+    private final StreamingResponseBodyReturnValueHandler delegate = new StreamingResponseBodyReturnValueHandler();
+
+    @Override
+    public boolean isAsyncReturnValue(Object returnValue, MethodParameter returnType) {
+        return returnValue instanceof ResponseEntity<?> entity && entity.getBody() instanceof StreamingResponseBody;
+    }
+
+    @Override
+    public boolean supportsReturnType(MethodParameter returnType) {
+        return ResponseEntity.class.isAssignableFrom(returnType.getParameterType());
+    }
+
+    @Override
+    public void handleReturnValue(Object returnValue, MethodParameter returnType,
+                                  ModelAndViewContainer mavContainer, NativeWebRequest webRequest) throws Exception {
+        // Bodies holding resources, such as an admission slot, are closed when the request is
+        // over: completed, failed or timed out, whether or not the body ever ran
+        if (((ResponseEntity<?>) returnValue).getBody() instanceof AutoCloseable resources) {
+            try {
+                WebAsyncUtils.getAsyncManager(webRequest).registerCallableInterceptor(resources,
+                        new CallableProcessingInterceptor() {
+                            @Override
+                            public <T> void afterCompletion(NativeWebRequest request, Callable<T> task) throws Exception {
+                                resources.close();
+                            }
+                        });
+                delegate.handleReturnValue(returnValue, returnType, mavContainer, webRequest);
+            } catch (Exception e) {
+                resources.close();
+                throw e;
+            }
+            return;
+        }
+        delegate.handleReturnValue(returnValue, returnType, mavContainer, webRequest);
+    }
+}
@@ -1,20 +1,51 @@
 package com.stackconverter.controller;
 
+import com.stackconverter.service.base64.Base64Codec;
+import com.stackconverter.service.base64.Base64Codecs;
+import com.stackconverter.service.base64.ChunkedBase64Codec;
+import com.stackconverter.service.base64.StreamingBase64Codec;
+import com.stackconverter.service.base64.StreamingBase64Codec.Base64Layout;
+import com.stackconverter.service.metrics.ConversionMetrics;
+import com.stackconverter.service.metrics.ConversionMetrics.Stage;
+import com.stackconverter.service.sniff.ContentSniffer;
+import com.stackconverter.service.sniff.FileType;
+import com.stackconverter.service.upload.Upload;
+import com.stackconverter.service.upload.UploadSpool;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.util.Base64;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipInputStream;
 
 @RestController
 @RequestMapping("/api/base64")
 public class Base64Controller {
 
+    private static final byte[] DATA_URI_MARKER = "base64".getBytes(StandardCharsets.US_ASCII);
+
+    private final Base64Codecs codecs;
+    private final ChunkedBase64Codec chunkedCodec;
+    private final StreamingBase64Codec streamingCodec;
+    private final ContentSniffer sniffer;
+    private final UploadSpool uploads;
+    private final ConversionMetrics metrics;
+
+    public Base64Controller(Base64Codecs codecs, ChunkedBase64Codec chunkedCodec, StreamingBase64Codec streamingCodec,
+                            ContentSniffer sniffer, UploadSpool uploads, ConversionMetrics metrics) {
+        this.codecs = codecs;
+        this.chunkedCodec = chunkedCodec;
+        this.streamingCodec = streamingCodec;
+        this.sniffer = sniffer;
+        this.uploads = uploads;
+        this.metrics = metrics;
+    }
+
     // Response Records (Java 21)
     public record EncodeResponse(String encoded) {}
     public record DecodeResponse(String decoded) {}
@@ -32,6 +63,7 @@ public class Base64Controller {
             return ResponseEntity.ok(new EncodeResponse(encoded));
 
         } catch (Exception e) {
+            metrics.error("base64/encode", e);
             return ResponseEntity.status(500)
                     .body(new ErrorResponse("Encoding failed: " + e.getMessage()));
         }
@@ -49,6 +81,7 @@ public class Base64Controller {
             return ResponseEntity.ok(new DecodeResponse(decoded));
 
         } catch (Exception e) {
+            metrics.error("base64/decode", e);
             return ResponseEntity.status(400)
                     .body(new ErrorResponse("Invalid Base64 string"));
         }
@@ -57,19 +90,37 @@ public class Base64Controller {
     // ============================================================
     // 1️⃣ FILE → BASE64 (.txt)
     // ============================================================
+    // codec: auto | jdk | vector, variant: basic | url | mime
     @PostMapping("/file/encode")
-    public ResponseEntity<?> encodeFile(@RequestParam("file") MultipartFile file) {
+    public ResponseEntity<?> encodeFile(
+            @RequestParam("file") MultipartFile file,
+            @RequestParam(required = false) String codec,
+            @RequestParam(defaultValue = "basic") String variant) {
+        Base64Codec base64;
+        try {
+            base64 = codecs.codec(codec, variant);
+        } catch (IllegalArgumentException e) {
+            metrics.error("base64/file/encode", e);
+            return ResponseEntity.badRequest().body(e.getMessage().getBytes());
+        }
+
         try {
-            byte[] bytes = file.getBytes();
-            String encoded = Base64.getEncoder().encodeToString(bytes);
+            // Large uploads are mapped, not copied; the output is written chunk by chunk
+            Upload upload = uploads.open(file);
+            StreamingResponseBody body = out -> {
+                try (upload) {
+                    chunkedCodec.encode(upload.content(), base64, out);
+                }
+            };
 
             return ResponseEntity.ok()
                     .header(HttpHeaders.CONTENT_DISPOSITION,
                             "attachment; filename=\"encoded_base64.txt\"")
                     .contentType(MediaType.TEXT_PLAIN)
-                    .body(encoded.getBytes(StandardCharsets.UTF_8));
+                    .body(metrics.write("base64/file/encode", body));
 
         } catch (Exception e) {
+            metrics.error("base64/file/encode", e);
             return ResponseEntity.status(500)
                     .body(("Error encoding file: " + e.getMessage()).getBytes());
         }
@@ -80,189 +131,152 @@ public class Base64Controller {
     // 2️⃣ BASE64 → ORIGINAL FILE (CSV/Excel/Binary detection)
     // ============================================================
     @PostMapping("/file/decode")
-    public ResponseEntity<?> decodeBase64File(@RequestParam("file") MultipartFile file) {
+    public ResponseEntity<?> decodeBase64File(
+            @RequestParam("file") MultipartFile file,
+            @RequestParam(required = false) String codec,
+            @RequestParam(defaultValue = "basic") String variant) {
+        Base64Codec base64;
         try {
-            String base64Content = new String(file.getBytes(), StandardCharsets.UTF_8).trim();
-
-            // Strip common prefixes like data:*;base64,
-            if (base64Content.contains(",")) {
-                String[] parts = base64Content.split(",", 2);
-                if (parts[0].contains("base64")) {
-                    base64Content = parts[1];
-                }
-            }
-
-            byte[] decodedBytes = Base64.getDecoder().decode(base64Content);
+            base64 = codecs.codec(codec, variant);
+        } catch (IllegalArgumentException e) {
+            metrics.error("base64/file/decode", e);
+            return ResponseEntity.badRequest().body(e.getMessage().getBytes());
+        }
 
-            // Detect file extension
-            String extension = detectFileExtension(decodedBytes);
-            String filename = "decoded_output" + extension;
+        Upload decoded = null;
+        try (Upload upload = uploads.open(file)) {
+            ByteBuffer payload = base64Payload(upload.content());
+            // Decoded onto the heap or, for large uploads, into a mapped spool file
+            decoded = metrics.time("base64/file/decode", Stage.TRANSFORM, () -> uploads.spool(
+                    payload.remaining() / 4 * 3, out -> chunkedCodec.decode(payload, base64, out)));
 
-            // Detect MIME
-            String contentType = guessMime(extension);
+            // Detect file type from the first / last few KB
+            FileType type = sniffer.sniff(decoded.content());
+            String filename = "decoded_output" + type.extension();
 
             String cdHeader = "attachment; filename=\"" + filename +
                     "\"; filename*=UTF-8''" + filename;
 
+            Upload result = decoded;
+            StreamingResponseBody body = out -> {
+                try (result) {
+                    result.writeTo(out);
+                }
+            };
+
             return ResponseEntity.ok()
                     .header(HttpHeaders.CONTENT_DISPOSITION, cdHeader)
-                    .contentType(MediaType.parseMediaType(contentType))
-                    .body(decodedBytes);
+                    .contentType(MediaType.parseMediaType(type.mimeType()))
+                    .contentLength(result.size())
+                    .body(metrics.write("base64/file/decode", body));
 
         } catch (IllegalArgumentException e) {
+            if (decoded != null) decoded.close();
+            metrics.error("base64/file/decode", e);
             return ResponseEntity.badRequest()
                     .body(("Invalid Base64 content").getBytes());
 
         } catch (Exception e) {
+            if (decoded != null) decoded.close();
+            metrics.error("base64/file/decode", e);
             return ResponseEntity.status(500)
                     .body(("Error decoding Base64 file: " + e.getMessage()).getBytes());
         }
     }
 
-
-    // ============================================================
-    // 🔍 FILE TYPE DETECTION (CSV + Excel + Guru Binary Scan)
-    // ============================================================
-    private String detectFileExtension(byte[] bytes) {
-
-        // 1️⃣ CSV / TXT detection (high accuracy)
-        if (looksLikeText(bytes)) {
-            String text = new String(bytes, StandardCharsets.UTF_8);
-
-            // CSV heuristic
-            if (looksLikeCSV(text)) return ".csv";
-
-            return ".txt"; // fallback instead of .bin
-        }
-
-        // 2️⃣ Excel XLSX → ZIP-based, contains xl/workbook.xml
-        if (isXLSX(bytes)) return ".xlsx";
-
-        // 3️⃣ Excel XLS (old binary)
-        if (startsWith(bytes, new byte[]{
-                (byte) 0xD0, (byte) 0xCF, 0x11, (byte) 0xE0, (byte) 0xA1, (byte) 0xB1, 0x1A, (byte) 0xE1
-        }, 0)) {
-            return ".xls";
+    // The text without surrounding whitespace and a data:*;base64, prefix, like String.trim / split
+    private static ByteBuffer base64Payload(ByteBuffer text) {
+        int start = text.position();
+        int end = text.limit();
+        while (start < end && (text.get(start) & 0xFF) <= ' ') start++;
+        while (end > start && (text.get(end - 1) & 0xFF) <= ' ') end--;
+
+        for (int i = start; i < end; i++) {
+            if (text.get(i) == ',') {
+                if (contains(text, start, i, DATA_URI_MARKER)) start = i + 1;
+                break;
+            }
         }
+        return text.slice(start, end - start);
+    }
 
-        // 4️⃣ Binary formats (Guru scan up to 512 bytes)
-        int limit = Math.min(bytes.length, 512);
-
-        for (int offset = 0; offset < limit; offset++) {
-
-            // JPG
-            if (startsWith(bytes, new byte[]{(byte) 0xFF, (byte) 0xD8}, offset))
-                return ".jpg";
-
-            // PNG
-            if (startsWith(bytes, new byte[]{(byte) 0x89, 0x50, 0x4E, 0x47}, offset))
-                return ".png";
-
-            // GIF
-            if (startsWith(bytes, "GIF89a".getBytes(), offset) ||
-                    startsWith(bytes, "GIF87a".getBytes(), offset))
-                return ".gif";
-
-            // PDF
-            if (startsWith(bytes, "%PDF".getBytes(), offset))
-                return ".pdf";
-
-            // ZIP container (docx/xlsx/pptx)
-            if (startsWith(bytes, new byte[]{0x50, 0x4B, 0x03, 0x04}, offset))
-                return ".zip";
-
-            // MP3
-            if (startsWith(bytes, new byte[]{(byte) 0xFF, (byte) 0xFB}, offset))
-                return ".mp3";
-
-            // MP4 ("ftyp")
-            if (offset + 8 < limit &&
-                    bytes[offset + 4] == 'f' &&
-                    bytes[offset + 5] == 't' &&
-                    bytes[offset + 6] == 'y' &&
-                    bytes[offset + 7] == 'p')
-                return ".mp4";
+    private static boolean contains(ByteBuffer text, int from, int to, byte[] word) {
+        ByteBuffer wanted = ByteBuffer.wrap(word);
+        for (int i = from; i <= to - word.length; i++) {
+            if (text.slice(i, word.length).equals(wanted)) return true;
         }
-
-        // Default fallback
-        return ".txt"; // NOT .bin
+        return false;
     }
 
 
     // ============================================================
-    // TEXT DETECTION
+    // 1️⃣b FILE → BASE64 (streaming)
     // ============================================================
-    private boolean looksLikeText(byte[] bytes) {
-        int printable = 0, total = Math.min(bytes.length, 2048);
-
-        for (int i = 0; i < total; i++) {
-            byte b = bytes[i];
+    @PostMapping("/file/encode/stream")
+    public ResponseEntity<?> encodeFileStreaming(@RequestParam("file") MultipartFile file) {
+        try {
+            InputStream in = file.getInputStream();
+            StreamingResponseBody body = out -> {
+                try (in) {
+                    streamingCodec.encode(in, out);
+                }
+            };
 
-            if (b == '\n' || b == '\r' || b == '\t' || b == 32) {
-                printable++;
-                continue;
-            }
+            return ResponseEntity.ok()
+                    .header(HttpHeaders.CONTENT_DISPOSITION,
+                            "attachment; filename=\"encoded_base64.txt\"")
+                    .contentType(MediaType.TEXT_PLAIN)
+                    .body(metrics.write("base64/file/encode/stream", body));
 
-            if (b >= 32 && b <= 126) {
-                printable++;
-            }
+        } catch (Exception e) {
+            metrics.error("base64/file/encode/stream", e);
+            return ResponseEntity.status(500)
+                    .body(("Error encoding file: " + e.getMessage()).getBytes());
         }
-
-        return ((double) printable / total) > 0.90;
-    }
-
-    private boolean looksLikeCSV(String text) {
-        return text.contains(",") && text.contains("\n") && !text.contains("{") && !text.contains("<");
     }
 
 
     // ============================================================
-    // XLSX DETECTION (ZIP with xl/workbook.xml)
+    // 2️⃣b BASE64 → ORIGINAL FILE (streaming)
     // ============================================================
-    private boolean isXLSX(byte[] bytes) {
-        try (ZipInputStream zin = new ZipInputStream(new java.io.ByteArrayInputStream(bytes))) {
-            ZipEntry entry;
-
-            while ((entry = zin.getNextEntry()) != null) {
-                String name = entry.getName().toLowerCase();
-
-                if (name.equals("[content_types].xml")) continue;
+    @PostMapping("/file/decode/stream")
+    public ResponseEntity<?> decodeBase64FileStreaming(@RequestParam("file") MultipartFile file) {
+        try {
+            // First pass: validate, locate the payload and decode just enough to detect the type
+            Base64Layout layout;
+            layout = metrics.time("base64/file/decode/stream", Stage.PARSE, () -> {
+                try (InputStream in = file.getInputStream()) {
+                    return streamingCodec.inspect(in, sniffer.headSize(), sniffer.tailSize());
+                }
+            });
 
-                if (name.equals("xl/workbook.xml") || name.startsWith("xl/worksheets/"))
-                    return true;
-            }
-        } catch (Exception ignored) {}
+            FileType type = sniffer.sniff(layout.sample());
+            String filename = "decoded_output" + type.extension();
 
-        return false;
-    }
+            String cdHeader = "attachment; filename=\"" + filename +
+                    "\"; filename*=UTF-8''" + filename;
 
+            InputStream in = file.getInputStream();
+            StreamingResponseBody body = out -> {
+                try (in) {
+                    streamingCodec.decode(in, layout, out);
+                }
+            };
 
-    // ============================================================
-    // MIME TYPE MAP
-    // ============================================================
-    private String guessMime(String ext) {
-        return switch (ext) {
-            case ".png" -> "image/png";
-            case ".jpg" -> "image/jpeg";
-            case ".gif" -> "image/gif";
-            case ".pdf" -> "application/pdf";
-            case ".xlsx" -> "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet";
-            case ".xls" -> "application/vnd.ms-excel";
-            case ".csv" -> "text/csv";
-            default -> "text/plain";
-        };
-    }
+            return ResponseEntity.ok()
+                    .header(HttpHeaders.CONTENT_DISPOSITION, cdHeader)
+                    .contentType(MediaType.parseMediaType(type.mimeType()))
+                    .body(metrics.write("base64/file/decode/stream", body));
 
+        } catch (IllegalArgumentException e) {
+            metrics.error("base64/file/decode/stream", e);
+            return ResponseEntity.badRequest()
+                    .body(("Invalid Base64 content").getBytes());
 
-    // ============================================================
-    // Helper
-    // ============================================================
-    private boolean startsWith(byte[] data, byte[] signature, int offset) {
-        if (data.length < offset + signature.length) return false;
-        for (int i = 0; i < signature.length; i++) {
-            if (data[offset + i] != signature[i]) return false;
+        } catch (Exception e) {
+            metrics.error("base64/file/decode/stream", e);
+            return ResponseEntity.status(500)
+                    .body(("Error decoding Base64 file: " + e.getMessage()).getBytes());
         }
-        return true;
     }
-
 }
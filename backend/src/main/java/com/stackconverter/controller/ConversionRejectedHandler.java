@@ -0,0 +1,25 @@
+package com.stackconverter.controller;
+
+import com.stackconverter.service.exec.ConversionRejectedException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+import java.nio.charset.StandardCharsets;
+
+// Conversion pool saturated: tell the client when to come back instead of queueing
+@RestControllerAdvice
+public class ConversionRejectedHandler {
+
+    // Plain text, like the errors of the streaming endpoints that admit conversions
+    @ExceptionHandler(ConversionRejectedException.class)
+    public ResponseEntity<byte[]> rejected(ConversionRejectedException e) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.retryAfterSeconds()))
+                .contentType(MediaType.TEXT_PLAIN)
+                .body(e.getMessage().getBytes(StandardCharsets.UTF_8));
+    }
+}
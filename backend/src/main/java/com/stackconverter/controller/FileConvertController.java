@@ -1,5 +1,20 @@
 package com.stackconverter.controller;
 
+import com.stackconverter.service.columnar.ArrowCompression;
+import com.stackconverter.service.columnar.ArrowExporter;
+import com.stackconverter.service.columnar.TableProfile;
+import com.stackconverter.service.csv.CsvReader;
+import com.stackconverter.service.csv.CsvRecord;
+import com.stackconverter.service.excel.ExcelFormat;
+import com.stackconverter.service.excel.StreamingExcelConverter;
+import com.stackconverter.service.exec.ConversionAdmission;
+import com.stackconverter.service.exec.ConversionAdmission.Permit;
+import com.stackconverter.service.json.JsonArrayFlattener;
+import com.stackconverter.service.json.JsonTableSchema;
+import com.stackconverter.service.json.LateColumns;
+import com.stackconverter.service.metrics.ConversionMetrics;
+import com.stackconverter.service.metrics.ConversionMetrics.Stage;
+import com.fasterxml.jackson.core.JsonProcessingException;
 import org.apache.poi.ss.usermodel.*;
 import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.springframework.http.ResponseEntity;
@@ -7,65 +22,268 @@ import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.io.*;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.List;
-import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/convert")
 public class FileConvertController {
 
+    private final StreamingExcelConverter streamingExcel;
+    private final ArrowExporter arrowExporter;
+    private final JsonArrayFlattener jsonFlattener;
+    private final ConversionAdmission admission;
+    private final ConversionMetrics metrics;
+
+    public FileConvertController(StreamingExcelConverter streamingExcel, ArrowExporter arrowExporter,
+                                 JsonArrayFlattener jsonFlattener, ConversionAdmission admission,
+                                 ConversionMetrics metrics) {
+        this.streamingExcel = streamingExcel;
+        this.arrowExporter = arrowExporter;
+        this.jsonFlattener = jsonFlattener;
+        this.admission = admission;
+        this.metrics = metrics;
+    }
+
     /**
      * -----------------------------------------------------------
      *  Excel → CSV Converter
      * -----------------------------------------------------------
      */
     @PostMapping("/excel-to-csv")
-    public ResponseEntity<byte[]> convertExcelToCsv(@RequestParam("file") MultipartFile file) {
-        try (Workbook workbook = WorkbookFactory.create(file.getInputStream())) {
+    public ResponseEntity<byte[]> convertExcelToCsv(@RequestParam("file") MultipartFile file) throws Exception {
+        try (Permit permit = admission.admit()) {
+            return permit.call(() -> excelToCsv(file));
+        }
+    }
+
+    private ResponseEntity<byte[]> excelToCsv(MultipartFile file) {
+        try (Workbook workbook = metrics.time("excel-to-csv", Stage.PARSE,
+                () -> WorkbookFactory.create(file.getInputStream()))) {
 
             Sheet sheet = workbook.getSheetAt(0);
-            StringBuilder csv = new StringBuilder();
-
-            for (Row row : sheet) {
-                int lastCol = row.getLastCellNum();
-
-                for (int i = 0; i < lastCol; i++) {
-                    Cell cell = row.getCell(i);
-
-                    if (cell != null) {
-                        switch (cell.getCellType()) {
-                            case STRING -> csv.append(escapeCsv(cell.getStringCellValue()));
-                            case NUMERIC -> csv.append(cell.getNumericCellValue());
-                            case BOOLEAN -> csv.append(cell.getBooleanCellValue());
-                            case FORMULA -> csv.append(cell.getCellFormula());
-                            default -> csv.append("");
-                        }
-                    } else {
-                        csv.append("");
-                    }
+            String csv = metrics.time("excel-to-csv", Stage.TRANSFORM, () -> sheetToCsv(sheet));
+            byte[] csvBytes = metrics.time("excel-to-csv", Stage.SERIALIZE,
+                    () -> csv.getBytes(StandardCharsets.UTF_8));
 
-                    // Add comma except for the last column
-                    if (i < lastCol - 1) csv.append(",");
+            return ResponseEntity.ok()
+                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=converted.csv")
+                    .contentType(MediaType.parseMediaType("text/csv"))
+                    .body(csvBytes);
+
+        } catch (Exception e) {
+            metrics.error("excel-to-csv", e);
+            return ResponseEntity.status(500)
+                    .body(("Error converting Excel to CSV: " + e.getMessage()).getBytes());
+        }
+    }
+
+    private String sheetToCsv(Sheet sheet) {
+        StringBuilder csv = new StringBuilder();
+        long rows = 0;
+
+        for (Row row : sheet) {
+            int lastCol = row.getLastCellNum();
+
+            for (int i = 0; i < lastCol; i++) {
+                Cell cell = row.getCell(i);
+
+                if (cell != null) {
+                    switch (cell.getCellType()) {
+                        case STRING -> csv.append(escapeCsv(cell.getStringCellValue()));
+                        case NUMERIC -> csv.append(cell.getNumericCellValue());
+                        case BOOLEAN -> csv.append(cell.getBooleanCellValue());
+                        case FORMULA -> csv.append(cell.getCellFormula());
+                        default -> csv.append("");
+                    }
+                } else {
+                    csv.append("");
                 }
-                csv.append("\n");
+
+                // Add comma except for the last column
+                if (i < lastCol - 1) csv.append(",");
             }
+            csv.append("\n");
+            rows++;
+        }
+        metrics.rows("excel-to-csv", rows);
+        return csv.toString();
+    }
 
-            byte[] csvBytes = csv.toString().getBytes(StandardCharsets.UTF_8);
+    /**
+     * -----------------------------------------------------------
+     *  Excel → CSV Converter (streaming)
+     * -----------------------------------------------------------
+     * Reads the first sheet with the SAX / HSSF event APIs and writes rows
+     * straight to the response, so large workbooks never sit on the heap.
+     */
+    @PostMapping("/excel-to-csv/stream")
+    public ResponseEntity<?> convertExcelToCsvStreaming(@RequestParam("file") MultipartFile file) {
+        Permit permit = admission.admit();
+        Path spooled = null;
+        try {
+            spooled = Files.createTempFile("stackconverter-", ".workbook");
+            file.transferTo(spooled);
+            ExcelFormat format = ExcelFormat.detect(spooled);
+
+            Path workbook = spooled;
+            StreamingResponseBody body = out -> {
+                try {
+                    metrics.rows("excel-to-csv/stream", streamingExcel.writeFirstSheetAsCsv(workbook, format, out));
+                } catch (IOException e) {
+                    throw e;
+                } catch (Exception e) {
+                    throw new IOException("Error converting Excel to CSV: " + e.getMessage(), e);
+                } finally {
+                    Files.deleteIfExists(workbook);
+                }
+            };
 
             return ResponseEntity.ok()
                     .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=converted.csv")
                     .contentType(MediaType.parseMediaType("text/csv"))
-                    .body(csvBytes);
+                    .body(permit.stream(metrics.write("excel-to-csv/stream", body)));
+
+        } catch (Exception e) {
+            metrics.error("excel-to-csv/stream", e);
+            permit.close();
+            deleteQuietly(spooled);
+            return ResponseEntity.status(500)
+                    .body(("Error converting Excel to CSV: " + e.getMessage()).getBytes());
+        }
+    }
+
+    /**
+     * -----------------------------------------------------------
+     *  Excel → CSV Converter (all / selected sheets as ZIP)
+     * -----------------------------------------------------------
+     * {@code sheets} takes sheet names or 0-based indexes, comma separated;
+     * omit it to export every sheet.
+     */
+    @PostMapping("/excel-to-csv/sheets")
+    public ResponseEntity<?> convertExcelSheetsToCsvZip(
+            @RequestParam("file") MultipartFile file,
+            @RequestParam(required = false) String sheets
+    ) {
+        Permit permit = admission.admit();
+        Path spooled = null;
+        try {
+            spooled = Files.createTempFile("stackconverter-", ".workbook");
+            file.transferTo(spooled);
+            ExcelFormat format = ExcelFormat.detect(spooled);
+
+            Path uploaded = spooled;
+            List<Integer> selected = StreamingExcelConverter.resolveSheets(
+                    permit.call(() -> metrics.time("excel-to-csv/sheets", Stage.PARSE,
+                            () -> streamingExcel.sheetNames(uploaded, format))), sheets);
+
+            Path workbook = spooled;
+            StreamingResponseBody body = out -> {
+                try {
+                    metrics.rows("excel-to-csv/sheets",
+                            streamingExcel.writeSheetsAsCsvZip(workbook, format, selected, out));
+                } catch (IOException e) {
+                    throw e;
+                } catch (Exception e) {
+                    throw new IOException("Error converting Excel to CSV: " + e.getMessage(), e);
+                } finally {
+                    Files.deleteIfExists(workbook);
+                }
+            };
+
+            return ResponseEntity.ok()
+                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=converted-sheets.zip")
+                    .contentType(MediaType.parseMediaType("application/zip"))
+                    .body(permit.stream(metrics.write("excel-to-csv/sheets", body)));
+
+        } catch (IllegalArgumentException e) {
+            metrics.error("excel-to-csv/sheets", e);
+            permit.close();
+            deleteQuietly(spooled);
+            return ResponseEntity.badRequest()
+                    .body(("Error converting Excel to CSV: " + e.getMessage()).getBytes());
 
         } catch (Exception e) {
+            metrics.error("excel-to-csv/sheets", e);
+            permit.close();
+            deleteQuietly(spooled);
             return ResponseEntity.status(500)
                     .body(("Error converting Excel to CSV: " + e.getMessage()).getBytes());
         }
     }
 
+    /**
+     * -----------------------------------------------------------
+     *  Excel → Arrow IPC stream (columnar, first sheet)
+     * -----------------------------------------------------------
+     * A first pass infers column types from the POI cell types and collects
+     * dictionaries for repeated strings; the second streams record batches.
+     * {@code header}: whether the first row holds the column names,
+     * {@code compression}: none | zstd (default from configuration).
+     */
+    @PostMapping("/excel-to-arrow")
+    public ResponseEntity<?> convertExcelToArrow(
+            @RequestParam("file") MultipartFile file,
+            @RequestParam(defaultValue = "true") boolean header,
+            @RequestParam(required = false) String compression
+    ) {
+        Permit permit = admission.admit();
+        Path spooled = null;
+        try {
+            ArrowCompression codec = arrowExporter.compression(compression);
+            spooled = Files.createTempFile("stackconverter-", ".workbook");
+            file.transferTo(spooled);
+            ExcelFormat format = ExcelFormat.detect(spooled);
+
+            Path workbook = spooled;
+            TableProfile profile = permit.call(() -> metrics.time("excel-to-arrow", Stage.PARSE,
+                    () -> arrowExporter.profileSheet(workbook, format, header)));
+
+            StreamingResponseBody body = out -> {
+                try {
+                    metrics.rows("excel-to-arrow", arrowExporter.writeSheet(workbook, format, profile, codec, out));
+                } catch (IOException e) {
+                    throw e;
+                } catch (Exception e) {
+                    throw new IOException("Error converting Excel to Arrow: " + e.getMessage(), e);
+                } finally {
+                    Files.deleteIfExists(workbook);
+                }
+            };
+
+            return ResponseEntity.ok()
+                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=converted.arrows")
+                    .contentType(MediaType.parseMediaType(ArrowExporter.MEDIA_TYPE))
+                    .body(permit.stream(metrics.write("excel-to-arrow", body)));
+
+        } catch (IllegalArgumentException e) {
+            metrics.error("excel-to-arrow", e);
+            permit.close();
+            deleteQuietly(spooled);
+            return ResponseEntity.badRequest()
+                    .body(("Error converting Excel to Arrow: " + e.getMessage()).getBytes());
+
+        } catch (Exception e) {
+            metrics.error("excel-to-arrow", e);
+            permit.close();
+            deleteQuietly(spooled);
+            return ResponseEntity.status(500)
+                    .body(("Error converting Excel to Arrow: " + e.getMessage()).getBytes());
+        }
+    }
+
+    private void deleteQuietly(Path path) {
+        if (path == null) return;
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException ignored) {}
+    }
+
     /**
      * Escape CSV fields properly
      */
@@ -83,27 +301,39 @@ public class FileConvertController {
      * -----------------------------------------------------------
      */
     @PostMapping("/csv-to-excel")
-    public ResponseEntity<byte[]> convertCsvToExcel(@RequestParam("file") MultipartFile file) {
-        try (Workbook workbook = new XSSFWorkbook()) {
-            Sheet sheet = workbook.createSheet("Sheet1");
+    public ResponseEntity<byte[]> convertCsvToExcel(
+            @RequestParam("file") MultipartFile file,
+            @RequestParam(defaultValue = ",") String delimiter
+    ) throws Exception {
+        try (Permit permit = admission.admit()) {
+            return permit.call(() -> csvToExcel(file, delimiter));
+        }
+    }
 
-            // Read CSV lines
-            List<String> lines = new BufferedReader(
-                    new InputStreamReader(file.getInputStream(), StandardCharsets.UTF_8)
-            ).lines().collect(Collectors.toList());
+    private ResponseEntity<byte[]> csvToExcel(MultipartFile file, String delimiter) {
+        try (Workbook workbook = new XSSFWorkbook();
+             CsvReader csv = openCsv(file, delimiter)) {
+            Sheet sheet = workbook.createSheet("Sheet1");
 
-            int rowIndex = 0;
-            for (String line : lines) {
-                Row row = sheet.createRow(rowIndex++);
-                String[] values = parseCsvLine(line);
+            int rows = metrics.time("csv-to-excel", Stage.TRANSFORM, () -> {
+                int rowIndex = 0;
+                while (csv.next()) {
+                    CsvRecord record = csv.record();
+                    Row row = sheet.createRow(rowIndex++);
 
-                for (int col = 0; col < values.length; col++) {
-                    row.createCell(col).setCellValue(values[col]);
+                    for (int col = 0; col < record.size(); col++) {
+                        row.createCell(col).setCellValue(record.get(col));
+                    }
                 }
-            }
+                return rowIndex;
+            });
+            metrics.rows("csv-to-excel", rows);
 
             ByteArrayOutputStream out = new ByteArrayOutputStream();
-            workbook.write(out);
+            metrics.time("csv-to-excel", Stage.SERIALIZE, () -> {
+                workbook.write(out);
+                return null;
+            });
 
             return ResponseEntity.ok()
                     .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=converted.xlsx")
@@ -112,31 +342,187 @@ public class FileConvertController {
                     .body(out.toByteArray());
 
         } catch (Exception e) {
+            metrics.error("csv-to-excel", e);
             return ResponseEntity.status(500)
                     .body(("Error converting CSV to Excel: " + e.getMessage()).getBytes());
         }
     }
 
     /**
-     * Proper CSV parsing that handles quotes & commas inside values.
+     * -----------------------------------------------------------
+     *  CSV → Excel Converter (streaming)
+     * -----------------------------------------------------------
+     * Records are parsed lazily and written through an SXSSF row window
+     * directly into the response, continuing on a new sheet past a sheet's
+     * row limit. There is no first pass: a record wider than a sheet fails
+     * the stream where it occurs.
      */
-    private String[] parseCsvLine(String line) {
-        List<String> tokens = new java.util.ArrayList<>();
-        StringBuilder sb = new StringBuilder();
-        boolean inQuotes = false;
-
-        for (char c : line.toCharArray()) {
-            if (c == '\"') {
-                inQuotes = !inQuotes; // flip flag
-            } else if (c == ',' && !inQuotes) {
-                tokens.add(sb.toString());
-                sb.setLength(0);
-            } else {
-                sb.append(c);
-            }
+    @PostMapping("/csv-to-excel/stream")
+    public ResponseEntity<?> convertCsvToExcelStreaming(
+            @RequestParam("file") MultipartFile file,
+            @RequestParam(defaultValue = ",") String delimiter
+    ) {
+        Permit permit = admission.admit();
+        try {
+            CsvReader csv = openCsv(file, delimiter);
+
+            StreamingResponseBody body = out -> {
+                try (csv) {
+                    metrics.rows("csv-to-excel/stream", streamingExcel.writeCsvAsXlsx(csv, out));
+                }
+            };
+
+            return ResponseEntity.ok()
+                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=converted.xlsx")
+                    .contentType(MediaType.parseMediaType(
+                            "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet"))
+                    .body(permit.stream(metrics.write("csv-to-excel/stream", body)));
+
+        } catch (IllegalArgumentException e) {
+            metrics.error("csv-to-excel/stream", e);
+            permit.close();
+            return ResponseEntity.badRequest()
+                    .body(("Error converting CSV to Excel: " + e.getMessage()).getBytes());
+
+        } catch (Exception e) {
+            metrics.error("csv-to-excel/stream", e);
+            permit.close();
+            return ResponseEntity.status(500)
+                    .body(("Error converting CSV to Excel: " + e.getMessage()).getBytes());
         }
+    }
+
+    /**
+     * -----------------------------------------------------------
+     *  CSV → Arrow IPC stream (columnar)
+     * -----------------------------------------------------------
+     * Same two passes as Excel → Arrow; field types are inferred from the
+     * text (integer, decimal, true / false, else string).
+     */
+    @PostMapping("/csv-to-arrow")
+    public ResponseEntity<?> convertCsvToArrow(
+            @RequestParam("file") MultipartFile file,
+            @RequestParam(defaultValue = ",") String delimiter,
+            @RequestParam(defaultValue = "true") boolean header,
+            @RequestParam(required = false) String compression
+    ) {
+        Permit permit = admission.admit();
+        try {
+            ArrowCompression codec = arrowExporter.compression(compression);
+            TableProfile profile = permit.call(() -> metrics.time("csv-to-arrow", Stage.PARSE, () -> {
+                try (CsvReader csv = openCsv(file, delimiter)) {
+                    return arrowExporter.profileCsv(csv, header);
+                }
+            }));
+
+            CsvReader csv = openCsv(file, delimiter);
+            StreamingResponseBody body = out -> {
+                try (csv) {
+                    metrics.rows("csv-to-arrow", arrowExporter.writeCsv(csv, profile, codec, out));
+                }
+            };
+
+            return ResponseEntity.ok()
+                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=converted.arrows")
+                    .contentType(MediaType.parseMediaType(ArrowExporter.MEDIA_TYPE))
+                    .body(permit.stream(metrics.write("csv-to-arrow", body)));
+
+        } catch (IllegalArgumentException e) {
+            metrics.error("csv-to-arrow", e);
+            permit.close();
+            return ResponseEntity.badRequest()
+                    .body(("Error converting CSV to Arrow: " + e.getMessage()).getBytes());
+
+        } catch (Exception e) {
+            metrics.error("csv-to-arrow", e);
+            permit.close();
+            return ResponseEntity.status(500)
+                    .body(("Error converting CSV to Arrow: " + e.getMessage()).getBytes());
+        }
+    }
+
+    /**
+     * -----------------------------------------------------------
+     *  JSON array → CSV / Excel (streaming, flattened)
+     * -----------------------------------------------------------
+     * One row per record, nested objects as dotted columns. The first pass
+     * validates the array and infers the columns from the first {@code sample}
+     * records (0 = all); {@code late}: ignore | extra | fail decides what happens
+     * to fields first seen after them. Both default from configuration.
+     */
+    @PostMapping("/json-to-csv")
+    public ResponseEntity<?> convertJsonToCsv(
+            @RequestParam("file") MultipartFile file,
+            @RequestParam(required = false) Integer sample,
+            @RequestParam(required = false) String late
+    ) {
+        return convertJsonArray("json-to-csv", file, sample, late, false);
+    }
+
+    @PostMapping("/json-to-excel")
+    public ResponseEntity<?> convertJsonToExcel(
+            @RequestParam("file") MultipartFile file,
+            @RequestParam(required = false) Integer sample,
+            @RequestParam(required = false) String late
+    ) {
+        return convertJsonArray("json-to-excel", file, sample, late, true);
+    }
+
+    private ResponseEntity<?> convertJsonArray(String name, MultipartFile file, Integer sample, String late,
+                                               boolean xlsx) {
+        Permit permit = admission.admit();
+        JsonTableSchema schema;
+        try {
+            int sampleRecords = jsonFlattener.sample(sample);
+            LateColumns lateColumns = jsonFlattener.lateColumns(late);
+            schema = permit.call(() -> metrics.time(name, Stage.PARSE, () -> {
+                try (InputStream in = file.getInputStream()) {
+                    return jsonFlattener.inspect(in, sampleRecords, lateColumns);
+                }
+            }));
+            if (xlsx) JsonArrayFlattener.checkSheetLimits(schema);
+
+        } catch (IllegalArgumentException | JsonProcessingException e) {
+            metrics.error(name, e);
+            permit.close();
+            return ResponseEntity.badRequest()
+                    .body(("Invalid JSON array: " + e.getMessage()).getBytes());
+
+        } catch (Exception e) {
+            metrics.error(name, e);
+            permit.close();
+            return ResponseEntity.status(500)
+                    .body(("Error converting JSON: " + e.getMessage()).getBytes());
+        }
+
+        try {
+            InputStream in = file.getInputStream();
+            StreamingResponseBody body = out -> {
+                try (in) {
+                    metrics.rows(name, xlsx
+                            ? jsonFlattener.writeXlsx(in, schema, out)
+                            : jsonFlattener.writeCsv(in, schema, out));
+                }
+            };
+
+            return ResponseEntity.ok()
+                    .header(HttpHeaders.CONTENT_DISPOSITION,
+                            "attachment; filename=" + (xlsx ? "converted.xlsx" : "converted.csv"))
+                    .contentType(MediaType.parseMediaType(xlsx
+                            ? "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet"
+                            : "text/csv"))
+                    .body(permit.stream(metrics.write(name, body)));
+
+        } catch (Exception e) {
+            metrics.error(name, e);
+            permit.close();
+            return ResponseEntity.status(500)
+                    .body(("Error converting JSON: " + e.getMessage()).getBytes());
+        }
+    }
 
-        tokens.add(sb.toString());
-        return tokens.toArray(new String[0]);
+    private CsvReader openCsv(MultipartFile file, String delimiter) throws IOException {
+        char separator = CsvReader.delimiterOf(delimiter);
+        return new CsvReader(new InputStreamReader(file.getInputStream(), StandardCharsets.UTF_8), separator);
     }
 }
@@ -1,61 +1,197 @@
 package com.stackconverter.controller;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.stackconverter.service.exec.ConversionAdmission;
+import com.stackconverter.service.exec.ConversionAdmission.Permit;
+import com.stackconverter.service.hash.BatchHasher;
+import com.stackconverter.service.hash.DigestEngine;
+import com.stackconverter.service.hash.FileHasher;
+import com.stackconverter.service.hash.FileHasher.FileDigests;
+import com.stackconverter.service.hash.HashAlgorithm;
+import com.stackconverter.service.metrics.ConversionMetrics;
+import com.stackconverter.service.metrics.ConversionMetrics.Stage;
+import com.stackconverter.service.upload.Upload;
+import com.stackconverter.service.upload.UploadSpool;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.core.io.InputStreamSource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
-import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/hash")
 public class HashController {
 
+    private final DigestEngine digestEngine;
+    private final FileHasher fileHasher;
+    private final BatchHasher batchHasher;
+    private final UploadSpool uploads;
+    private final ConversionAdmission admission;
+    private final ConversionMetrics metrics;
+
+    public HashController(DigestEngine digestEngine, FileHasher fileHasher, BatchHasher batchHasher,
+                          UploadSpool uploads, ConversionAdmission admission, ConversionMetrics metrics) {
+        this.digestEngine = digestEngine;
+        this.fileHasher = fileHasher;
+        this.batchHasher = batchHasher;
+        this.uploads = uploads;
+        this.admission = admission;
+        this.metrics = metrics;
+    }
+
     @GetMapping("/generate")
     public ResponseEntity<?> generateHash(
             @RequestParam String input,
             @RequestParam(defaultValue = "sha256") String algorithm
     ) {
         try {
-            String normalizedAlgo = normalizeAlgorithm(algorithm);
-            String hash = hashString(input, normalizedAlgo);
+            HashAlgorithm normalizedAlgo = HashAlgorithm.messageDigest(algorithm);
+            String hash = digestEngine.digestHex(normalizedAlgo, input);
 
             return ResponseEntity.ok()
-                    .body(new HashResponse(normalizedAlgo.toUpperCase(Locale.ROOT), hash));
+                    .body(new HashResponse(normalizedAlgo.displayName(), hash));
 
         } catch (Exception e) {
+            metrics.error("hash", e);
             return ResponseEntity.badRequest()
                     .body(new ErrorResponse("Invalid algorithm or server error."));
         }
     }
 
-    // Utility to generate hash
-    private String hashString(String input, String algorithm) throws Exception {
-        MessageDigest digest = MessageDigest.getInstance(algorithm);
-        byte[] hashBytes = digest.digest(input.getBytes(StandardCharsets.UTF_8));
+    // File checksums: several algorithms in one read
+    // algorithms: comma-separated (md5, sha1, sha256, sha384, sha512, crc32c)
+    // mode: sequential (standard digests) | tree (leaves hashed in parallel, see FileHasher)
+    @PostMapping("/file")
+    public ResponseEntity<?> hashFile(
+            @RequestParam("file") MultipartFile file,
+            @RequestParam(defaultValue = "sha256") String algorithms,
+            @RequestParam(defaultValue = "sequential") String mode
+    ) throws Exception {
+        List<HashAlgorithm> selected;
+        boolean tree;
+        try {
+            selected = HashAlgorithm.listOf(algorithms);
+            tree = switch (mode.toLowerCase(Locale.ROOT)) {
+                case "sequential" -> false;
+                case "tree" -> true;
+                default -> throw new IllegalArgumentException("mode must be sequential or tree");
+            };
+        } catch (IllegalArgumentException e) {
+            metrics.error("hash/file", e);
+            return ResponseEntity.badRequest().body(new ErrorResponse(e.getMessage()));
+        }
 
-        // convert bytes to hex
-        StringBuilder hexString = new StringBuilder();
-        for (byte b : hashBytes) {
-            hexString.append(String.format("%02x", b));
+        try (Permit permit = admission.admit()) {
+            return permit.call(() -> hashUpload(file, selected, tree));
         }
+    }
 
-        return hexString.toString();
+    private ResponseEntity<?> hashUpload(MultipartFile file, List<HashAlgorithm> selected, boolean tree) {
+        // Hashed in place: on the heap for small uploads, mapped from the spool file for large ones
+        try (Upload upload = uploads.open(file)) {
+            FileDigests result = metrics.time("hash/file", Stage.TRANSFORM, () -> tree
+                    ? fileHasher.hashTree(upload.content(), selected)
+                    : fileHasher.hash(upload.content(), selected));
+
+            Map<String, String> hashes = new LinkedHashMap<>();
+            result.digests().forEach((algorithm, digest) ->
+                    hashes.put(algorithm.displayName(), HexFormat.of().formatHex(digest)));
+
+            return ResponseEntity.ok(new FileHashResponse(
+                    file.getOriginalFilename(), result.size(), tree ? "tree" : "sequential",
+                    tree ? fileHasher.leafSize() : null, hashes));
+
+        } catch (Exception e) {
+            metrics.error("hash/file", e);
+            return ResponseEntity.status(500)
+                    .body(new ErrorResponse("Error hashing file: " + e.getMessage()));
+        }
     }
 
-    // Normalize algorithm names (MD5/md5 → MD5)
-    private String normalizeAlgorithm(String algo) {
-        algo = algo.toLowerCase(Locale.ROOT);
-        return switch (algo) {
-            case "md5" -> "MD5";
-            case "sha1", "sha-1" -> "SHA-1";
-            case "sha256", "sha-256" -> "SHA-256";
-            case "sha384", "sha-384" -> "SHA-384";
-            case "sha512", "sha-512" -> "SHA-512";
-            default -> throw new IllegalArgumentException("Unsupported algorithm");
-        };
+    // Batch hashing: one value per line → NDJSON / CSV of {input, hash}, streamed in input order
+    // key: optional HMAC key (UTF-8); output: ndjson | csv
+    @PostMapping(value = "/batch", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<?> hashBatchFile(
+            @RequestParam("file") MultipartFile file,
+            @RequestParam(defaultValue = "sha256") String algorithm,
+            @RequestParam(required = false) String key,
+            @RequestParam(defaultValue = "ndjson") String output
+    ) {
+        return hashBatch(file, algorithm, key, output);
+    }
+
+    // Same, with the lines as the raw request body (read while results are streamed back)
+    @PostMapping(value = "/batch", consumes = {MediaType.TEXT_PLAIN_VALUE, MediaType.APPLICATION_OCTET_STREAM_VALUE})
+    public ResponseEntity<?> hashBatchBody(
+            HttpServletRequest request,
+            @RequestParam(defaultValue = "sha256") String algorithm,
+            @RequestParam(required = false) String key,
+            @RequestParam(defaultValue = "ndjson") String output
+    ) {
+        // Read on the pool as it arrives, so a slow upload holds its slot until it is all in
+        return hashBatch(request::getInputStream, algorithm, key, output);
+    }
+
+    private ResponseEntity<?> hashBatch(InputStreamSource input, String algorithm, String key, String output) {
+        HashAlgorithm selected;
+        BatchHasher.Format format;
+        byte[] hmacKey = key != null ? key.getBytes(StandardCharsets.UTF_8) : null;
+        try {
+            selected = HashAlgorithm.of(algorithm);
+            format = switch (output.toLowerCase(Locale.ROOT)) {
+                case "ndjson" -> BatchHasher.Format.NDJSON;
+                case "csv" -> BatchHasher.Format.CSV;
+                default -> throw new IllegalArgumentException("output must be ndjson or csv");
+            };
+            BatchHasher.validate(selected, hmacKey);
+        } catch (IllegalArgumentException e) {
+            metrics.error("hash/batch", e);
+            return ResponseEntity.badRequest().body(new ErrorResponse(e.getMessage()));
+        }
+
+        Permit permit = admission.admit();
+        try {
+            InputStream in = input.getInputStream();
+            StreamingResponseBody body = out -> {
+                try (in) {
+                    batchHasher.write(in, selected, hmacKey, format, out);
+                } catch (IOException e) {
+                    throw e;
+                } catch (Exception e) {
+                    throw new IOException("Error hashing batch: " + e.getMessage(), e);
+                }
+            };
+
+            boolean csv = format == BatchHasher.Format.CSV;
+            return ResponseEntity.ok()
+                    .header(HttpHeaders.CONTENT_DISPOSITION,
+                            "attachment; filename=\"hashes." + (csv ? "csv" : "ndjson") + "\"")
+                    .contentType(csv ? MediaType.parseMediaType("text/csv") : MediaType.APPLICATION_NDJSON)
+                    .body(permit.stream(metrics.write("hash/batch", body)));
+
+        } catch (Exception e) {
+            metrics.error("hash/batch", e);
+            permit.close();
+            return ResponseEntity.status(500)
+                    .body(new ErrorResponse("Error hashing batch: " + e.getMessage()));
+        }
     }
 
     // Response classes
     record HashResponse(String algorithm, String hash) {}
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    record FileHashResponse(String fileName, long size, String mode, Integer leafSize, Map<String, String> hashes) {}
     record ErrorResponse(String error) {}
 }
@@ -0,0 +1,127 @@
+package com.stackconverter.controller;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.stackconverter.service.job.ConversionJob;
+import com.stackconverter.service.job.ConversionJobs;
+import com.stackconverter.service.job.JobConversions;
+import com.stackconverter.service.job.JobOutput;
+import com.stackconverter.service.job.JobStatus;
+import com.stackconverter.service.job.JobTask;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.net.URI;
+import java.time.Instant;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+
+@RestController
+@RequestMapping("/api/jobs")
+public class JobController {
+
+    private final ConversionJobs jobs;
+    private final JobConversions conversions;
+
+    public JobController(ConversionJobs jobs, JobConversions conversions) {
+        this.jobs = jobs;
+        this.conversions = conversions;
+    }
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    record JobView(String id, String type, String lane, String status, long inputBytes, long bytesRead,
+                   long rows, Integer percent, Long resultBytes, String error, Instant createdAt,
+                   Instant startedAt, Instant finishedAt, String resultUrl) {
+
+        static JobView of(ConversionJob job) {
+            boolean succeeded = job.status() == JobStatus.SUCCEEDED;
+            return new JobView(job.id(), job.type(), job.lane().name().toLowerCase(Locale.ROOT),
+                    job.status().name().toLowerCase(Locale.ROOT), job.inputBytes(),
+                    job.progress().bytesRead(), job.progress().rowsDone(),
+                    succeeded ? Integer.valueOf(100) : job.progress().percent(),
+                    succeeded ? job.resultBytes() : null, job.error(),
+                    job.created(), job.started(), job.finished(),
+                    succeeded ? "/api/jobs/" + job.id() + "/result" : null);
+        }
+    }
+
+    // =====================================================================================
+    // Submit: spool the upload, queue it and answer 202 right away
+    // =====================================================================================
+    // type: excel-to-csv | csv-to-excel | json-to-xml | xml-to-json | base64-encode | base64-decode
+    @PostMapping
+    public ResponseEntity<?> submit(
+            @RequestParam("file") MultipartFile file,
+            @RequestParam String type,
+            @RequestParam(defaultValue = ",") String delimiter) {
+        JobTask task;
+        try {
+            task = conversions.task(type, delimiter);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+
+        try {
+            ConversionJob job = jobs.submit(type, file, task);
+            return ResponseEntity.accepted()
+                    .location(URI.create("/api/jobs/" + job.id()))
+                    .body(JobView.of(job));
+
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).body(Map.of("error", e.getMessage()));
+
+        } catch (IOException e) {
+            return ResponseEntity.status(500).body(Map.of("error", "Error spooling upload: " + e.getMessage()));
+        }
+    }
+
+    // Status and progress: bytes read (with percent) for streamed inputs, rows for workbooks
+    @GetMapping("/{id}")
+    public ResponseEntity<?> status(@PathVariable String id) {
+        Optional<ConversionJob> job = jobs.find(id);
+        if (job.isEmpty()) return unknown(id);
+        return ResponseEntity.ok(JobView.of(job.get()));
+    }
+
+    @GetMapping("/{id}/result")
+    public ResponseEntity<?> result(@PathVariable String id) {
+        Optional<ConversionJob> found = jobs.find(id);
+        if (found.isEmpty()) return unknown(id);
+
+        ConversionJob job = found.get();
+        return switch (job.status()) {
+            case SUCCEEDED -> {
+                JobOutput output = job.output();
+                yield ResponseEntity.ok()
+                        .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + output.filename() + "\"")
+                        .contentType(MediaType.parseMediaType(output.contentType()))
+                        .contentLength(job.resultBytes())
+                        .body(new FileSystemResource(job.result()));
+            }
+            case FAILED -> ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(Map.of("error", "Job failed: " + job.error()));
+            case CANCELLED -> ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(Map.of("error", "Job was cancelled"));
+            default -> ResponseEntity.status(HttpStatus.CONFLICT)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .body(Map.of("error", "Job is " + job.status().name().toLowerCase(Locale.ROOT)));
+        };
+    }
+
+    // Cancels a queued / running job; either way the job and its files are gone afterwards
+    @DeleteMapping("/{id}")
+    public ResponseEntity<?> delete(@PathVariable String id) {
+        if (!jobs.remove(id)) return unknown(id);
+        return ResponseEntity.noContent().build();
+    }
+
+    private static ResponseEntity<?> unknown(String id) {
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", "Unknown job: " + id));
+    }
+}
@@ -3,14 +3,20 @@ package com.stackconverter.controller;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.*;
+import com.stackconverter.service.exec.ConversionAdmission;
+import com.stackconverter.service.exec.ConversionAdmission.Permit;
+import com.stackconverter.service.metrics.ConversionMetrics;
+import com.stackconverter.service.metrics.ConversionMetrics.Stage;
+import com.stackconverter.service.xml.StreamingJsonXmlConverter;
+import com.stackconverter.service.xml.StreamingJsonXmlConverter.JsonLayout;
+import com.stackconverter.service.xml.StreamingJsonXmlConverter.XmlLayout;
+import com.stackconverter.service.xml.XmlInfrastructure;
 import org.springframework.http.*;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.w3c.dom.*;
 
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.transform.*;
 import javax.xml.transform.dom.DOMSource;
 import javax.xml.transform.stream.StreamResult;
 
@@ -23,8 +29,17 @@ import java.util.*;
 public class JsonXmlController {
 
     private final ObjectMapper mapper = new ObjectMapper();
-
-    public JsonXmlController() {
+    private final XmlInfrastructure xml;
+    private final StreamingJsonXmlConverter streamingConverter;
+    private final ConversionAdmission admission;
+    private final ConversionMetrics metrics;
+
+    public JsonXmlController(XmlInfrastructure xml, StreamingJsonXmlConverter streamingConverter,
+                             ConversionAdmission admission, ConversionMetrics metrics) {
+        this.xml = xml;
+        this.streamingConverter = streamingConverter;
+        this.admission = admission;
+        this.metrics = metrics;
         mapper.writerWithDefaultPrettyPrinter(); // Pretty JSON
     }
 
@@ -32,10 +47,16 @@ public class JsonXmlController {
     // 1️⃣ JSON → XML  (pretty formatted + correct attributes)
     // =====================================================================================
     @PostMapping("/json-to-xml")
-    public ResponseEntity<?> jsonToXml(@RequestParam("file") MultipartFile file) {
+    public ResponseEntity<?> jsonToXml(@RequestParam("file") MultipartFile file) throws Exception {
+        try (Permit permit = admission.admit()) {
+            return permit.call(() -> convertJsonToXml(file));
+        }
+    }
+
+    private ResponseEntity<?> convertJsonToXml(MultipartFile file) {
         try {
-            String jsonText = new String(file.getBytes(), StandardCharsets.UTF_8);
-            JsonNode rootNode = mapper.readTree(jsonText);
+            JsonNode rootNode = metrics.time("json-to-xml", Stage.PARSE,
+                    () -> mapper.readTree(new String(file.getBytes(), StandardCharsets.UTF_8)));
 
             // Determine root element
             String rootName = "root";
@@ -47,17 +68,16 @@ public class JsonXmlController {
             }
 
             // Create XML DOM document
-            DocumentBuilderFactory dbf = DocumentBuilderFactory.newInstance();
-            secureXml(dbf);
-            DocumentBuilder db = dbf.newDocumentBuilder();
-            Document doc = db.newDocument();
+            Document doc = xml.newDocument();
 
             // Build XML recursively
-            Element rootElem = buildXml(doc, rootName, content);
-            doc.appendChild(rootElem);
+            String elementName = rootName;
+            JsonNode elementContent = content;
+            metrics.time("json-to-xml", Stage.TRANSFORM,
+                    () -> doc.appendChild(buildXml(doc, elementName, elementContent)));
 
             // Convert DOM to pretty XML string
-            String prettyXml = toPrettyXml(doc);
+            String prettyXml = metrics.time("json-to-xml", Stage.SERIALIZE, () -> toPrettyXml(doc));
 
             return ResponseEntity.ok()
                     .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"converted.xml\"")
@@ -65,12 +85,55 @@ public class JsonXmlController {
                     .body(prettyXml.getBytes(StandardCharsets.UTF_8));
 
         } catch (Exception e) {
+            metrics.error("json-to-xml", e);
             return ResponseEntity.badRequest()
                     .body(("Invalid JSON: " + e.getMessage()).getBytes());
         }
     }
 
 
+    // =====================================================================================
+    // 1️⃣b JSON → XML  (streaming, same mapping rules)
+    // =====================================================================================
+    @PostMapping("/json-to-xml/stream")
+    public ResponseEntity<?> jsonToXmlStreaming(@RequestParam("file") MultipartFile file) throws Exception {
+        Permit permit = admission.admit();
+        JsonLayout layout;
+        try {
+            layout = permit.call(() -> metrics.time("json-to-xml/stream", Stage.PARSE, () -> {
+                try (InputStream in = file.getInputStream()) {
+                    return streamingConverter.inspectJson(in);
+                }
+            }));
+        } catch (Exception e) {
+            metrics.error("json-to-xml/stream", e);
+            permit.close();
+            return ResponseEntity.badRequest()
+                    .body(("Invalid JSON: " + e.getMessage()).getBytes());
+        }
+
+        try {
+            InputStream in = file.getInputStream();
+            StreamingResponseBody body = out -> {
+                try (in) {
+                    streamingConverter.writeJsonAsXml(in, layout, out);
+                }
+            };
+
+            return ResponseEntity.ok()
+                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"converted.xml\"")
+                    .contentType(MediaType.APPLICATION_XML)
+                    .body(permit.stream(metrics.write("json-to-xml/stream", body)));
+
+        } catch (Exception e) {
+            metrics.error("json-to-xml/stream", e);
+            permit.close();
+            return ResponseEntity.status(500)
+                    .body(("Error converting JSON to XML: " + e.getMessage()).getBytes());
+        }
+    }
+
+
     // Build XML element recursively
     private Element buildXml(Document doc, String tag, JsonNode node) {
         Element elem = doc.createElement(tag);
@@ -125,14 +188,11 @@ public class JsonXmlController {
 
     // Pretty-print XML from Document
     private String toPrettyXml(Document doc) throws Exception {
-        Transformer t = TransformerFactory.newInstance().newTransformer();
-        t.setOutputProperty(OutputKeys.INDENT, "yes");
-        t.setOutputProperty("{http://xml.apache.org/xslt}indent-amount", "4");
-        t.setOutputProperty(OutputKeys.OMIT_XML_DECLARATION, "no");
-        t.setOutputProperty(OutputKeys.METHOD, "xml");
-
         StringWriter sw = new StringWriter();
-        t.transform(new DOMSource(doc), new StreamResult(sw));
+        xml.withPrettyTransformer(t -> {
+            t.transform(new DOMSource(doc), new StreamResult(sw));
+            return null;
+        });
         return sw.toString();
     }
 
@@ -141,20 +201,26 @@ public class JsonXmlController {
     // 2️⃣ XML → JSON  (pretty formatted + correct @attribute + #text)
     // =====================================================================================
     @PostMapping("/xml-to-json")
-    public ResponseEntity<?> xmlToJson(@RequestParam("file") MultipartFile file) {
+    public ResponseEntity<?> xmlToJson(@RequestParam("file") MultipartFile file) throws Exception {
+        try (Permit permit = admission.admit()) {
+            return permit.call(() -> convertXmlToJson(file));
+        }
+    }
+
+    private ResponseEntity<?> convertXmlToJson(MultipartFile file) {
         try {
             String xmlText = new String(file.getBytes(), StandardCharsets.UTF_8);
 
-            DocumentBuilderFactory dbf = DocumentBuilderFactory.newInstance();
-            secureXml(dbf);
-            DocumentBuilder db = dbf.newDocumentBuilder();
-            Document doc = db.parse(new ByteArrayInputStream(xmlText.getBytes()));
+            Document doc = metrics.time("xml-to-json", Stage.PARSE, () -> xml.withDocumentBuilder(
+                    db -> db.parse(new ByteArrayInputStream(xmlText.getBytes()))));
 
             Element root = doc.getDocumentElement();
             ObjectNode jsonRoot = mapper.createObjectNode();
-            jsonRoot.set(root.getNodeName(), elementToJson(root));
+            metrics.time("xml-to-json", Stage.TRANSFORM,
+                    () -> jsonRoot.set(root.getNodeName(), elementToJson(root)));
 
-            String prettyJson = mapper.writerWithDefaultPrettyPrinter().writeValueAsString(jsonRoot);
+            String prettyJson = metrics.time("xml-to-json", Stage.SERIALIZE,
+                    () -> mapper.writerWithDefaultPrettyPrinter().writeValueAsString(jsonRoot));
 
             return ResponseEntity.ok()
                     .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"converted.json\"")
@@ -162,12 +228,64 @@ public class JsonXmlController {
                     .body(prettyJson.getBytes(StandardCharsets.UTF_8));
 
         } catch (Exception e) {
+            metrics.error("xml-to-json", e);
             return ResponseEntity.badRequest()
                     .body(("Invalid XML: " + e.getMessage()).getBytes());
         }
     }
 
 
+    // =====================================================================================
+    // 2️⃣b XML → JSON  (streaming, same mapping rules)
+    // =====================================================================================
+    @PostMapping("/xml-to-json/stream")
+    public ResponseEntity<?> xmlToJsonStreaming(@RequestParam("file") MultipartFile file,
+                                                @RequestParam(value = "arrays", required = false) String arrays) {
+        // Element names the caller wants as arrays even when they occur only once
+        Set<String> arrayNames = new HashSet<>();
+        if (arrays != null) {
+            for (String name : arrays.split(",")) {
+                if (!name.isBlank()) arrayNames.add(name.trim());
+            }
+        }
+
+        Permit permit = admission.admit();
+        XmlLayout layout;
+        try {
+            layout = permit.call(() -> metrics.time("xml-to-json/stream", Stage.PARSE, () -> {
+                try (InputStream in = file.getInputStream()) {
+                    return streamingConverter.inspectXml(in, arrayNames);
+                }
+            }));
+        } catch (Exception e) {
+            metrics.error("xml-to-json/stream", e);
+            permit.close();
+            return ResponseEntity.badRequest()
+                    .body(("Invalid XML: " + e.getMessage()).getBytes());
+        }
+
+        try {
+            InputStream in = file.getInputStream();
+            StreamingResponseBody body = out -> {
+                try (in) {
+                    streamingConverter.writeXmlAsJson(in, layout, out);
+                }
+            };
+
+            return ResponseEntity.ok()
+                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"converted.json\"")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(permit.stream(metrics.write("xml-to-json/stream", body)));
+
+        } catch (Exception e) {
+            metrics.error("xml-to-json/stream", e);
+            permit.close();
+            return ResponseEntity.status(500)
+                    .body(("Error converting XML to JSON: " + e.getMessage()).getBytes());
+        }
+    }
+
+
     // Convert XML Element into JSON
     private JsonNode elementToJson(Element elem) {
         ObjectNode json = mapper.createObjectNode();
@@ -216,14 +334,4 @@ public class JsonXmlController {
 
         return json;
     }
-
-
-    // Secure XML parser
-    private void secureXml(DocumentBuilderFactory dbf) {
-        try {
-            dbf.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
-            dbf.setFeature("http://xml.org/sax/features/external-general-entities", false);
-            dbf.setFeature("http://xml.org/sax/features/external-parameter-entities", false);
-        } catch (Exception ignored) {}
-    }
 }
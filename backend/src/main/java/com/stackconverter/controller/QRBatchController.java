@@ -0,0 +1,102 @@
+package com.stackconverter.controller;
+
+import com.stackconverter.service.exec.ConversionAdmission;
+import com.stackconverter.service.exec.ConversionAdmission.Permit;
+import com.stackconverter.service.metrics.ConversionMetrics;
+import com.stackconverter.service.metrics.ConversionMetrics.Stage;
+import com.stackconverter.service.qr.QrBatchService;
+import com.stackconverter.service.qr.QrSpec;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+@RestController
+@RequestMapping("/api/qr")
+public class QRBatchController {
+
+    private final QrBatchService batchService;
+    private final ConversionAdmission admission;
+    private final ConversionMetrics metrics;
+
+    public QRBatchController(QrBatchService batchService, ConversionAdmission admission, ConversionMetrics metrics) {
+        this.batchService = batchService;
+        this.admission = admission;
+        this.metrics = metrics;
+    }
+
+
+    // =====================================================================================
+    // Batch QR: JSON array / CSV of payloads → ZIP of images or NDJSON of base64
+    // =====================================================================================
+    @PostMapping("/batch")
+    public ResponseEntity<?> generateBatch(
+            @RequestParam("file") MultipartFile file,
+            @RequestParam(defaultValue = "png") String format,
+            @RequestParam(defaultValue = "300") int size,
+            @RequestParam(defaultValue = "#000000") String darkColorHex,
+            @RequestParam(defaultValue = "#FFFFFF") String lightColorHex,
+            @RequestParam(defaultValue = "zip") String output
+    ) {
+        QrSpec style;
+        try {
+            if (!output.equals("zip") && !output.equals("ndjson")) {
+                throw new IllegalArgumentException("output must be zip or ndjson");
+            }
+            style = QrSpec.of("", format, size, darkColorHex, lightColorHex);
+            QrBatchService.requireWritableFormat(style.format());
+        } catch (Exception e) {
+            metrics.error("qr/batch", e);
+            return ResponseEntity.badRequest()
+                    .body(("Invalid batch: " + e.getMessage()).getBytes());
+        }
+
+        Permit permit = admission.admit();
+        try {
+            // First pass: reject malformed or oversized batches before anything is rendered
+            permit.call(() -> metrics.time("qr/batch", Stage.PARSE, () -> {
+                try (InputStream in = file.getInputStream()) {
+                    return batchService.countItems(in);
+                }
+            }));
+        } catch (Exception e) {
+            metrics.error("qr/batch", e);
+            permit.close();
+            return ResponseEntity.badRequest()
+                    .body(("Invalid batch: " + e.getMessage()).getBytes());
+        }
+
+        try {
+            InputStream in = file.getInputStream();
+            boolean zip = output.equals("zip");
+
+            StreamingResponseBody body = out -> {
+                try (in) {
+                    if (zip) batchService.writeZip(in, style, out);
+                    else batchService.writeNdjson(in, style, out);
+                } catch (IOException e) {
+                    throw e;
+                } catch (Exception e) {
+                    throw new IOException("Error generating QR batch: " + e.getMessage(), e);
+                }
+            };
+
+            return ResponseEntity.ok()
+                    .header(HttpHeaders.CONTENT_DISPOSITION,
+                            "attachment; filename=\"qr-codes." + (zip ? "zip" : "ndjson") + "\"")
+                    .contentType(zip ? MediaType.parseMediaType("application/zip") : MediaType.APPLICATION_NDJSON)
+                    .body(permit.stream(metrics.write("qr/batch", body)));
+
+        } catch (Exception e) {
+            metrics.error("qr/batch", e);
+            permit.close();
+            return ResponseEntity.status(500)
+                    .body(("Error generating QR batch: " + e.getMessage()).getBytes());
+        }
+    }
+}
@@ -1,25 +1,37 @@
 package com.stackconverter.controller;
 
-import com.google.zxing.BarcodeFormat;
-import com.google.zxing.EncodeHintType;
-import com.google.zxing.MultiFormatWriter;
-import com.google.zxing.common.BitMatrix;
-
-import java.awt.*;
-import java.awt.image.BufferedImage;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.stackconverter.service.exec.ConversionAdmission;
+import com.stackconverter.service.exec.ConversionAdmission.Permit;
+import com.stackconverter.service.exec.ConversionRejectedException;
+import com.stackconverter.service.metrics.ConversionMetrics;
+import com.stackconverter.service.metrics.ConversionMetrics.Stage;
+import com.stackconverter.service.qr.QrCodeService;
+import com.stackconverter.service.qr.QrImage;
+import com.stackconverter.service.qr.QrSpec;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import javax.imageio.ImageIO;
-import java.io.ByteArrayOutputStream;
 import java.util.Base64;
-import java.util.HashMap;
 import java.util.Map;
 
 @RestController
 @RequestMapping("/api/qr")
 public class QRCodeController {
 
+    private final QrCodeService qrCodeService;
+    private final ConversionAdmission admission;
+    private final ConversionMetrics metrics;
+
+    public QRCodeController(QrCodeService qrCodeService, ConversionAdmission admission,
+                            ConversionMetrics metrics) {
+        this.qrCodeService = qrCodeService;
+        this.admission = admission;
+        this.metrics = metrics;
+    }
+
 
     @GetMapping("/image")
     public ResponseEntity<byte[]> generateQr(
@@ -27,45 +39,32 @@ public class QRCodeController {
             @RequestParam(defaultValue = "png") String format,
             @RequestParam(defaultValue = "300") int size,
             @RequestParam(defaultValue = "#000000") String darkColorHex,
-            @RequestParam(defaultValue = "#FFFFFF") String lightColorHex
+            @RequestParam(defaultValue = "#FFFFFF") String lightColorHex,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch
     ) {
         try {
-
-            // Convert HEX → Color
-            Color darkColor = Color.decode(darkColorHex);
-            Color lightColor = Color.decode(lightColorHex);
-
-            Map<EncodeHintType, Object> hints = Map.of(
-                    EncodeHintType.CHARACTER_SET, "UTF-8",
-                    EncodeHintType.MARGIN, 1
-            );
-
-            BitMatrix matrix = new MultiFormatWriter().encode(
-                    text, BarcodeFormat.QR_CODE, size, size, hints
-            );
-
-            BufferedImage image = new BufferedImage(size, size, BufferedImage.TYPE_INT_RGB);
-
-            for (int x = 0; x < size; x++) {
-                for (int y = 0; y < size; y++) {
-                    boolean bit = matrix.get(x, y);
-                    image.setRGB(x, y, bit ? darkColor.getRGB() : lightColor.getRGB());
-                }
+            QrSpec spec = QrSpec.of(text, format, size, darkColorHex, lightColorHex);
+
+            // Client / CDN already has these exact bytes: no need to look them up or render them
+            String etag = qrCodeService.etag(spec);
+            if (matches(ifNoneMatch, etag)) {
+                return ResponseEntity
+                        .status(HttpStatus.NOT_MODIFIED)
+                        .eTag(etag)
+                        .build();
             }
 
-            ByteArrayOutputStream baos = new ByteArrayOutputStream();
-
-            format = format.toLowerCase();
-            if (format.equals("jpg")) format = "jpeg";
-
-            ImageIO.write(image, format, baos);
-
+            QrImage image = image(spec);
             return ResponseEntity
                     .ok()
-                    .header("Content-Type", "image/" + format)
-                    .body(baos.toByteArray());
+                    .header("Content-Type", image.contentType())
+                    .eTag(image.etag())
+                    .body(image.bytes());
 
+        } catch (ConversionRejectedException e) {
+            throw e;
         } catch (Exception e) {
+            metrics.error("qr/image", e);
             return ResponseEntity
                     .badRequest()
                     .body(("Error generating QR: " + e.getMessage()).getBytes());
@@ -82,48 +81,62 @@ public class QRCodeController {
             @RequestParam(defaultValue = "#FFFFFF") String lightColorHex
     ) {
         try {
-            Color darkColor = Color.decode(darkColorHex);
-            Color lightColor = Color.decode(lightColorHex);
-
-            Map<EncodeHintType, Object> hints = Map.of(
-                    EncodeHintType.CHARACTER_SET, "UTF-8",
-                    EncodeHintType.MARGIN, 1
-            );
-
-            BitMatrix matrix = new MultiFormatWriter().encode(
-                    text, BarcodeFormat.QR_CODE, size, size, hints
-            );
-
-            BufferedImage image = new BufferedImage(size, size, BufferedImage.TYPE_INT_RGB);
-
-            for (int x = 0; x < size; x++) {
-                for (int y = 0; y < size; y++) {
-                    boolean bit = matrix.get(x, y);
-                    image.setRGB(x, y, bit ? darkColor.getRGB() : lightColor.getRGB());
-                }
-            }
-
-            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            QrImage image = image(QrSpec.of(text, format, size, darkColorHex, lightColorHex));
 
-            if (format.equals("jpg")) format = "jpeg";
-
-            ImageIO.write(image, format, baos);
-
-            String base64 = Base64.getEncoder().encodeToString(baos.toByteArray());
+            String base64 = Base64.getEncoder().encodeToString(image.bytes());
 
             return Map.of(
                     "text", text,
-                    "format", format,
+                    "format", image.format(),
                     "size", size,
                     "darkColor", darkColorHex,
                     "lightColor", lightColorHex,
                     "imageBase64", base64
             );
 
+        } catch (ConversionRejectedException e) {
+            throw e;
         } catch (Exception e) {
+            metrics.error("qr/base64", e);
             return Map.of("error", "Error generating QR: " + e.getMessage());
         }
     }
 
 
+    @GetMapping("/cache")
+    public Map<String, Object> cacheStats() {
+        CacheStats stats = qrCodeService.stats();
+        return Map.of(
+                "hits", stats.hitCount(),
+                "misses", stats.missCount(),
+                "hitRate", stats.hitRate(),
+                "evictions", stats.evictionCount(),
+                "entries", qrCodeService.size(),
+                "bytes", qrCodeService.weightBytes()
+        );
+    }
+
+
+    // Cache hits are served right away; only rendering goes through admission
+    private QrImage image(QrSpec spec) throws Exception {
+        QrImage cached = qrCodeService.cached(spec);
+        if (cached != null) return cached;
+
+        try (Permit permit = admission.admit()) {
+            return permit.call(() -> metrics.time("qr", Stage.TRANSFORM, () -> qrCodeService.render(spec)));
+        }
+    }
+
+
+    // If-None-Match: "a", W/"b", *
+    private static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) return false;
+
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) tag = tag.substring(2);
+            if (tag.equals("*") || tag.equals(etag)) return true;
+        }
+        return false;
+    }
 }
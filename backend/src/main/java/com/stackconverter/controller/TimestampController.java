@@ -1,9 +1,20 @@
 package com.stackconverter.controller;
 
+import com.stackconverter.service.csv.CsvReader;
+import com.stackconverter.service.metrics.ConversionMetrics;
+import com.stackconverter.service.time.BatchTimestampConverter;
+import com.stackconverter.service.time.TimestampConversion;
+import com.stackconverter.service.time.TimestampFormats;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.time.Instant;
-import java.time.ZoneId;
 import java.time.ZonedDateTime;
 import java.util.Map;
 
@@ -12,25 +23,106 @@ import java.util.Map;
 @RequestMapping("/api/timestamp")
 public class TimestampController {
 
+    private final TimestampFormats formats;
+    private final BatchTimestampConverter batchConverter;
+    private final ConversionMetrics metrics;
+
+    public TimestampController(TimestampFormats formats, BatchTimestampConverter batchConverter,
+                               ConversionMetrics metrics) {
+        this.formats = formats;
+        this.batchConverter = batchConverter;
+        this.metrics = metrics;
+    }
+
+    // zone: defaults to the server's zone, pattern: DateTimeFormatter pattern
     @GetMapping("/to-date")
-    public Map<String, Object> convertUnixToDate(@RequestParam long unix) {
+    public Map<String, Object> convertUnixToDate(
+            @RequestParam long unix,
+            @RequestParam(required = false) String zone,
+            @RequestParam(required = false) String pattern) {
         Instant instant = Instant.ofEpochSecond(unix);
-        ZonedDateTime dateTime = instant.atZone(ZoneId.systemDefault());
+        ZonedDateTime dateTime = instant.atZone(TimestampFormats.zone(zone));
 
         return Map.of(
                 "unix", unix,
-                "readable", dateTime.toString()
+                "readable", pattern == null ? dateTime.toString() : formats.formatter(pattern).format(dateTime)
         );
     }
 
+    // pattern / zone: parse dateTime with a custom pattern, in zone if it has no offset
     @GetMapping("/to-unix")
-    public Map<String, Object> convertDateToUnix(@RequestParam String dateTime) {
-        ZonedDateTime parsed = ZonedDateTime.parse(dateTime);
-        long unix = parsed.toEpochSecond();
+    public Map<String, Object> convertDateToUnix(
+            @RequestParam String dateTime,
+            @RequestParam(required = false) String pattern,
+            @RequestParam(required = false) String zone) {
+        long unix = pattern == null
+                ? ZonedDateTime.parse(dateTime).toEpochSecond()
+                : Instant.from(formats.formatter(pattern).withZone(TimestampFormats.zone(zone)).parse(dateTime))
+                        .getEpochSecond();
 
         return Map.of(
                 "input", dateTime,
                 "unix", unix
         );
     }
+
+    // =====================================================================================
+    // Batch: CSV timestamp columns (epoch seconds / millis / text) → one representation
+    // =====================================================================================
+    // columns: names or 0-based indexes, from: auto | seconds | millis | text,
+    // to: text | seconds | millis, invalid: keep | empty
+    @PostMapping("/batch")
+    public ResponseEntity<?> convertBatch(
+            @RequestParam("file") MultipartFile file,
+            @RequestParam(defaultValue = "0") String columns,
+            @RequestParam(defaultValue = "true") boolean header,
+            @RequestParam(defaultValue = ",") String delimiter,
+            @RequestParam(defaultValue = "auto") String from,
+            @RequestParam(required = false) String inputPattern,
+            @RequestParam(defaultValue = "UTC") String inputZone,
+            @RequestParam(defaultValue = "text") String to,
+            @RequestParam(required = false) String pattern,
+            @RequestParam(defaultValue = "UTC") String zone,
+            @RequestParam(defaultValue = "keep") String invalid
+    ) {
+        char separator;
+        TimestampConversion conversion;
+        int[] selected;
+        try {
+            separator = CsvReader.delimiterOf(delimiter);
+            conversion = TimestampConversion.of(formats, from, inputPattern, inputZone, to, pattern, zone, invalid);
+            try (InputStream in = file.getInputStream()) {
+                selected = batchConverter.columns(in, separator, columns, header);
+            }
+        } catch (IllegalArgumentException e) {
+            metrics.error("timestamp/batch", e);
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (IOException e) {
+            metrics.error("timestamp/batch", e);
+            return ResponseEntity.status(500).body(Map.of("error", "Error reading file: " + e.getMessage()));
+        }
+
+        try {
+            InputStream in = file.getInputStream();
+            StreamingResponseBody body = out -> {
+                try (in) {
+                    metrics.rows("timestamp/batch",
+                            batchConverter.write(in, separator, header, selected, conversion, out));
+                } catch (IOException e) {
+                    throw e;
+                } catch (Exception e) {
+                    throw new IOException("Error converting timestamps: " + e.getMessage(), e);
+                }
+            };
+
+            return ResponseEntity.ok()
+                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"converted_timestamps.csv\"")
+                    .contentType(MediaType.parseMediaType("text/csv"))
+                    .body(metrics.write("timestamp/batch", body));
+
+        } catch (Exception e) {
+            metrics.error("timestamp/batch", e);
+            return ResponseEntity.status(500).body(Map.of("error", "Error converting timestamps: " + e.getMessage()));
+        }
+    }
 }
@@ -1,18 +1,35 @@
 package com.stackconverter.controller;
 
+import com.stackconverter.service.metrics.ConversionMetrics;
+import com.stackconverter.service.metrics.ConversionMetrics.Stage;
+import com.stackconverter.service.url.StreamingUrlCodec;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.InputStream;
 import java.net.URLDecoder;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
 import java.util.Base64;
+import java.util.Locale;
 import java.util.Map;
 
 @RestController
 @RequestMapping("/api/url")
 public class UrlEncodeController {
 
+    private final StreamingUrlCodec codec;
+    private final ConversionMetrics metrics;
+
+    public UrlEncodeController(StreamingUrlCodec codec, ConversionMetrics metrics) {
+        this.codec = codec;
+        this.metrics = metrics;
+    }
+
     // --- URL ENCODE ---
     @GetMapping("/encode")
     public Map<String, Object> urlEncode(@RequestParam String input) {
@@ -27,8 +44,78 @@ public class UrlEncodeController {
             String decoded = URLDecoder.decode(input, StandardCharsets.UTF_8);
             return Map.of("input", input, "decoded", decoded);
         } catch (Exception e) {
+            metrics.error("url/decode", e);
             return Map.of("error", "Invalid URL encoded input");
         }
     }
 
+    // --- URL ENCODE (file, streamed) ---
+    // mode: lines (each line is a value, line breaks kept) | whole (the file is one value)
+    @PostMapping("/encode/file")
+    public ResponseEntity<?> urlEncodeFile(
+            @RequestParam("file") MultipartFile file,
+            @RequestParam(defaultValue = "lines") String mode) {
+        String normalized = mode.toLowerCase(Locale.ROOT);
+        if (!normalized.equals("lines") && !normalized.equals("whole")) {
+            return ResponseEntity.badRequest().body(Map.of("error", "mode must be lines or whole"));
+        }
+
+        try {
+            InputStream in = file.getInputStream();
+            boolean lines = normalized.equals("lines");
+            StreamingResponseBody body = out -> {
+                try (in) {
+                    codec.encode(in, out, lines);
+                }
+            };
+
+            return ResponseEntity.ok()
+                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"encoded.txt\"")
+                    .contentType(MediaType.TEXT_PLAIN)
+                    .body(metrics.write("url/encode/file", body));
+
+        } catch (Exception e) {
+            metrics.error("url/encode/file", e);
+            return ResponseEntity.status(500).body(Map.of("error", "Error encoding file: " + e.getMessage()));
+        }
+    }
+
+    // --- URL DECODE (file, streamed; line breaks pass through) ---
+    @PostMapping("/decode/file")
+    public ResponseEntity<?> urlDecodeFile(@RequestParam("file") MultipartFile file) {
+        try {
+            // First pass: reject malformed escapes before anything is written
+            metrics.time("url/decode/file", Stage.PARSE, () -> {
+                try (InputStream in = file.getInputStream()) {
+                    codec.validate(in);
+                }
+                return null;
+            });
+        } catch (IllegalArgumentException e) {
+            metrics.error("url/decode/file", e);
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            metrics.error("url/decode/file", e);
+            return ResponseEntity.status(500).body(Map.of("error", "Error decoding file: " + e.getMessage()));
+        }
+
+        try {
+            InputStream in = file.getInputStream();
+            StreamingResponseBody body = out -> {
+                try (in) {
+                    codec.decode(in, out);
+                }
+            };
+
+            return ResponseEntity.ok()
+                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"decoded.txt\"")
+                    .contentType(MediaType.TEXT_PLAIN)
+                    .body(metrics.write("url/decode/file", body));
+
+        } catch (Exception e) {
+            metrics.error("url/decode/file", e);
+            return ResponseEntity.status(500).body(Map.of("error", "Error decoding file: " + e.getMessage()));
+        }
+    }
+
 }
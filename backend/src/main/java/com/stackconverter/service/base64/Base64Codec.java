@@ -0,0 +1,15 @@
+package com.stackconverter.service.base64;
+
+/**
+ * Whole-array Base64 encoding and decoding for one {@link Base64Variant}.
+ * Implementations produce exactly what {@link java.util.Base64} produces and reject
+ * what it rejects, with an {@link IllegalArgumentException}.
+ */
+public interface Base64Codec {
+
+    Base64Variant variant();
+
+    byte[] encode(byte[] src);
+
+    byte[] decode(byte[] src);
+}
@@ -0,0 +1,65 @@
+package com.stackconverter.service.base64;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+
+/**
+ * Picks a {@link Base64Codec} per request: {@code jdk} ({@link java.util.Base64}),
+ * {@code vector} (SIMD, {@link VectorBase64}) or {@code auto} (vector when available).
+ * <p>
+ * The vector codec needs the incubating {@code jdk.incubator.vector} module
+ * ({@code --add-modules jdk.incubator.vector}) and 128-bit or wider vectors.
+ * Without them every request falls back to the JDK codec.
+ */
+@Component
+public class Base64Codecs {
+
+    private static final String VECTOR_MODULE = "jdk.incubator.vector";
+
+    private final String defaultCodec;
+    private final int vectorMinBytes;
+    private final boolean vectorAvailable;
+
+    public Base64Codecs(
+            @Value("${stackconverter.base64.codec:auto}") String defaultCodec,
+            @Value("${stackconverter.base64.vector-min-bytes:524288}") int vectorMinBytes) {
+        this.defaultCodec = defaultCodec;
+        this.vectorMinBytes = vectorMinBytes;
+        this.vectorAvailable = detectVectorSupport();
+        codec(defaultCodec, "basic"); // fail fast on a misconfigured default
+    }
+
+    public boolean vectorAvailable() {
+        return vectorAvailable;
+    }
+
+    /**
+     * @param codec   {@code auto}, {@code jdk} or {@code vector}; {@code null} for the configured default
+     * @param variant {@code basic}, {@code url} or {@code mime}
+     * @throws IllegalArgumentException for unknown names
+     */
+    public Base64Codec codec(String codec, String variant) {
+        Base64Variant flavour = Base64Variant.of(variant);
+        String name = (codec != null ? codec : defaultCodec).toLowerCase(Locale.ROOT);
+
+        return switch (name) {
+            case "jdk" -> new JdkBase64Codec(flavour);
+            case "auto", "vector" -> vectorAvailable
+                    ? new VectorBase64Codec(flavour, name.equals("auto") ? vectorMinBytes : 0)
+                    : new JdkBase64Codec(flavour);
+            default -> throw new IllegalArgumentException("Unknown Base64 codec: " + codec);
+        };
+    }
+
+    private static boolean detectVectorSupport() {
+        // VectorBase64 must not even be loaded when the module is missing
+        if (ModuleLayer.boot().findModule(VECTOR_MODULE).isEmpty()) return false;
+        try {
+            return VectorBase64.isSupported();
+        } catch (LinkageError e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.stackconverter.service.base64;
+
+import java.util.Base64;
+import java.util.Locale;
+
+/**
+ * The Base64 flavours of {@link java.util.Base64}: RFC 4648 basic and URL-safe
+ * alphabets, and RFC 2045 MIME (76-character lines separated by CRLF).
+ * All of them pad their output.
+ */
+public enum Base64Variant {
+
+    BASIC(Base64.getEncoder(), Base64.getDecoder()),
+    URL(Base64.getUrlEncoder(), Base64.getUrlDecoder()),
+    MIME(Base64.getMimeEncoder(), Base64.getMimeDecoder());
+
+    private final Base64.Encoder encoder;
+    private final Base64.Decoder decoder;
+
+    Base64Variant(Base64.Encoder encoder, Base64.Decoder decoder) {
+        this.encoder = encoder;
+        this.decoder = decoder;
+    }
+
+    public Base64.Encoder jdkEncoder() {
+        return encoder;
+    }
+
+    public Base64.Decoder jdkDecoder() {
+        return decoder;
+    }
+
+    /**
+     * @throws IllegalArgumentException for anything but basic, url or mime
+     */
+    public static Base64Variant of(String name) {
+        return switch (name.toLowerCase(Locale.ROOT)) {
+            case "basic" -> BASIC;
+            case "url" -> URL;
+            case "mime" -> MIME;
+            default -> throw new IllegalArgumentException("Unknown Base64 variant: " + name);
+        };
+    }
+}
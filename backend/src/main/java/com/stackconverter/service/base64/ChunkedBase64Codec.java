@@ -0,0 +1,113 @@
+package com.stackconverter.service.base64;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Runs a {@link Base64Codec} over a {@link ByteBuffer}, typically a mapped upload, one
+ * chunk at a time: each chunk is copied onto the heap, converted and written out, so a
+ * call holds about two chunks however large the payload is.
+ * <p>
+ * Encoding cuts the input at multiples of 57 bytes, which are whole 4-character quanta
+ * and, for MIME, whole 76-character lines; the line break between chunks is written
+ * here. Decoding cuts after a multiple of four Base64 characters (for MIME, line breaks
+ * and other ignored bytes do not count). A chunk ending in padding must be the last
+ * one with Base64 characters, so output and rejections match decoding the whole text.
+ */
+@Component
+public class ChunkedBase64Codec {
+
+    private static final int MIME_LINE_BYTES = 57;
+    private static final byte[] CRLF = {'\r', '\n'};
+
+    private static final boolean[] SYMBOLS = new boolean[256];
+    static {
+        for (byte b : "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/="
+                .getBytes(StandardCharsets.US_ASCII)) {
+            SYMBOLS[b] = true;
+        }
+    }
+
+    private final int chunkBytes;
+    private final int chunkChars;
+
+    public ChunkedBase64Codec(@Value("${stackconverter.base64.chunk-size:1048576}") int chunkSize) {
+        if (chunkSize < MIME_LINE_BYTES) {
+            throw new IllegalArgumentException("stackconverter.base64.chunk-size must be at least " + MIME_LINE_BYTES);
+        }
+        this.chunkBytes = chunkSize / MIME_LINE_BYTES * MIME_LINE_BYTES;
+        this.chunkChars = chunkBytes / 3 * 4;
+    }
+
+    /**
+     * Write the remaining bytes of {@code src} to {@code out} as Base64 text.
+     * {@code src} itself is not moved and {@code out} is left open.
+     */
+    public void encode(ByteBuffer src, Base64Codec codec, OutputStream out) throws IOException {
+        ByteBuffer in = src.duplicate();
+        boolean mime = codec.variant() == Base64Variant.MIME;
+        byte[] chunk = new byte[Math.min(chunkBytes, in.remaining())];
+
+        while (in.hasRemaining()) {
+            if (in.remaining() < chunk.length) chunk = new byte[in.remaining()];
+            if (mime && in.position() > src.position()) out.write(CRLF);
+            in.get(chunk);
+            out.write(codec.encode(chunk));
+        }
+    }
+
+    /**
+     * Decode the remaining Base64 text of {@code src} to {@code out}.
+     * {@code src} itself is not moved and {@code out} is left open.
+     *
+     * @throws IllegalArgumentException where {@code codec.decode} of the whole text would;
+     *                                  what precedes the bad chunk has been written by then
+     */
+    public void decode(ByteBuffer src, Base64Codec codec, OutputStream out) throws IOException {
+        ByteBuffer in = src.duplicate();
+        boolean mime = codec.variant() == Base64Variant.MIME;
+        byte[] chunk = new byte[0];
+
+        while (in.hasRemaining()) {
+            int length = mime ? mimeChunkLength(in) : Math.min(chunkChars, in.remaining());
+            if (length != chunk.length) chunk = new byte[length];
+            in.get(chunk);
+            out.write(codec.decode(chunk));
+
+            if (chunk[length - 1] == '=' && in.hasRemaining()) {
+                // The payload ended with this chunk: only what the decoder ignores may follow
+                if (!mime || hasAlphabet(in)) throw new IllegalArgumentException("Input byte array has incorrect ending byte");
+                return;
+            }
+        }
+    }
+
+    // Up to just after the last complete quantum within chunkChars bytes (or the first one
+    // beyond, if there is none), or everything left
+    private int mimeChunkLength(ByteBuffer in) {
+        int start = in.position();
+        int end = start + Math.min(chunkChars, in.remaining());
+        if (end == in.limit()) return end - start;
+
+        int symbols = 0;
+        int cut = 0;
+        for (int i = start; i < in.limit(); i++) {
+            if (i >= end && cut > 0) break;
+            if (SYMBOLS[in.get(i) & 0xFF] && ++symbols % 4 == 0) cut = i + 1 - start;
+        }
+        return cut > 0 ? cut : in.remaining();
+    }
+
+    private static boolean hasAlphabet(ByteBuffer in) {
+        for (int i = in.position(); i < in.limit(); i++) {
+            byte b = in.get(i);
+            if (b != '=' && SYMBOLS[b & 0xFF]) return true;
+        }
+        return false;
+    }
+}
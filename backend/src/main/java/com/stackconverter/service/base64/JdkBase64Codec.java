@@ -0,0 +1,17 @@
+package com.stackconverter.service.base64;
+
+/**
+ * {@link java.util.Base64} itself; the reference the other codecs are checked against.
+ */
+record JdkBase64Codec(Base64Variant variant) implements Base64Codec {
+
+    @Override
+    public byte[] encode(byte[] src) {
+        return variant.jdkEncoder().encode(src);
+    }
+
+    @Override
+    public byte[] decode(byte[] src) {
+        return variant.jdkDecoder().decode(src);
+    }
+}
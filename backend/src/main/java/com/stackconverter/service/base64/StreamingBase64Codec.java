@@ -0,0 +1,206 @@
+package com.stackconverter.service.base64;
+
+import com.stackconverter.service.sniff.ContentSample;
+import org.springframework.stereotype.Component;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+
+/**
+ * Base64 file encoding and decoding between streams, holding only a few KB per call.
+ * <p>
+ * Encoding pipes the input through {@link Base64.Encoder#wrap(OutputStream)}.
+ * Decoding takes two passes: {@link #inspect} validates the text and locates the
+ * payload (skipping surrounding whitespace and a {@code data:...;base64,} prefix
+ * found in a small lookahead window), and {@link #decode} then feeds exactly that
+ * range through {@link Base64.Decoder#wrap(InputStream)}. Invalid input is therefore
+ * rejected before any output has been written.
+ */
+@Component
+public class StreamingBase64Codec {
+
+    /** How far into the input a data-URI prefix ({@code data:...;base64,}) is looked for. */
+    private static final int PREFIX_LOOKAHEAD = 1024;
+
+    private static final int BUFFER_SIZE = 8 * 1024;
+
+    private static final boolean[] ALPHABET = new boolean[256];
+    static {
+        for (byte b : "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/"
+                .getBytes(StandardCharsets.US_ASCII)) {
+            ALPHABET[b] = true;
+        }
+    }
+
+    /**
+     * Where the Base64 payload sits in the uploaded text.
+     *
+     * @param offset bytes before the first Base64 character (whitespace, data-URI prefix)
+     * @param length number of Base64 characters, padding included
+     * @param sample the first and last decoded bytes, for content sniffing
+     */
+    public record Base64Layout(long offset, long length, ContentSample sample) {}
+
+    /**
+     * Stream {@code in} to {@code out} as Base64 text. {@code out} is left open.
+     */
+    public void encode(InputStream in, OutputStream out) throws IOException {
+        // Closing the wrapper writes the final quantum; keep the response stream itself open
+        try (OutputStream base64 = Base64.getEncoder().wrap(new FilterOutputStream(out) {
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                out.write(b, off, len);
+            }
+
+            @Override
+            public void close() throws IOException {
+                flush();
+            }
+        })) {
+            in.transferTo(base64);
+        }
+    }
+
+    /**
+     * Scan Base64 text once without keeping it, accepting what
+     * {@code Base64.getDecoder().decode(text.trim())} accepts after an optional
+     * data-URI prefix.
+     *
+     * @param headSize number of leading decoded bytes to sample
+     * @param tailSize number of trailing decoded bytes to sample
+     * @throws IllegalArgumentException if the text is not valid Base64
+     */
+    public Base64Layout inspect(InputStream in, int headSize, int tailSize) throws IOException {
+        byte[] buf = new byte[BUFFER_SIZE];
+        int n = in.readNBytes(buf, 0, Math.min(PREFIX_LOOKAHEAD, buf.length));
+
+        // Leading whitespace, then an optional "<anything with base64>," prefix
+        int start = 0;
+        while (start < n && (buf[start] & 0xFF) <= ' ') start++;
+        for (int i = start; i < n; i++) {
+            if (buf[i] == ',') {
+                if (!new String(buf, start, i - start, StandardCharsets.US_ASCII).contains("base64")) {
+                    throw new IllegalArgumentException("Invalid Base64 content");
+                }
+                start = i + 1;
+                break;
+            }
+        }
+        // Whitespace after a data-URI prefix is not trimmed by the in-memory decoder either
+
+        long offset = start;
+        long length = 0;
+        int padding = 0;
+        long trailingWhitespace = 0;
+
+        // Enough Base64 characters to decode headSize bytes
+        byte[] head = new byte[(headSize + 2) / 3 * 4];
+        int headLength = 0;
+
+        // The last Base64 characters seen, with room to start the tail on a 4-character quantum
+        byte[] tail = new byte[(tailSize + 2) / 3 * 4 + 4];
+        int tailPosition = 0;
+
+        int from = start;
+        while (n > 0) {
+            for (int i = from; i < n; i++) {
+                int b = buf[i] & 0xFF;
+
+                if (b <= ' ') {
+                    trailingWhitespace++;
+                    continue;
+                }
+                // Anything after whitespace means the whitespace was inside the payload
+                if (trailingWhitespace > 0) throw new IllegalArgumentException("Invalid Base64 content");
+
+                if (b == '=') {
+                    if (++padding > 2) throw new IllegalArgumentException("Invalid Base64 content");
+                } else if (!ALPHABET[b] || padding > 0) {
+                    throw new IllegalArgumentException("Invalid Base64 content");
+                } else if (headLength < head.length) {
+                    head[headLength++] = (byte) b;
+                }
+                tail[tailPosition] = (byte) b;
+                if (++tailPosition == tail.length) tailPosition = 0;
+                length++;
+            }
+            n = in.read(buf);
+            from = 0;
+        }
+
+        long dataChars = length - padding;
+        boolean validPadding = padding == 0 ? dataChars % 4 != 1 : length % 4 == 0 && dataChars % 4 == 4 - padding;
+        if (!validPadding) throw new IllegalArgumentException("Invalid Base64 content");
+
+        // Either whole quanta, or the complete (validated) payload
+        byte[] decodedHead = Base64.getDecoder().decode(Arrays.copyOf(head, headLength));
+        if (decodedHead.length > headSize) decodedHead = Arrays.copyOf(decodedHead, headSize);
+
+        byte[] decodedTail = Base64.getDecoder().decode(lastQuanta(tail, tailPosition, length));
+        if (decodedTail.length > tailSize) {
+            decodedTail = Arrays.copyOfRange(decodedTail, decodedTail.length - tailSize, decodedTail.length);
+        }
+
+        long decodedLength = dataChars / 4 * 3 + (dataChars % 4 == 0 ? 0 : dataChars % 4 - 1);
+
+        return new Base64Layout(offset, length, new ContentSample(decodedHead, decodedTail, decodedLength));
+    }
+
+    // The ring's characters from the first quantum boundary it still holds, in order
+    private static byte[] lastQuanta(byte[] ring, int position, long length) {
+        long available = Math.min(length, ring.length);
+        long from = (length - available + 3) / 4 * 4;
+        int count = (int) (length - from);
+
+        byte[] chars = new byte[count];
+        int start = Math.floorMod(position - count, ring.length);
+        int first = Math.min(count, ring.length - start);
+        System.arraycopy(ring, start, chars, 0, first);
+        System.arraycopy(ring, 0, chars, first, count - first);
+        return chars;
+    }
+
+    /**
+     * Decode the payload located by {@link #inspect} from a fresh stream over the same text.
+     * {@code out} is left open.
+     */
+    public void decode(InputStream in, Base64Layout layout, OutputStream out) throws IOException {
+        in.skipNBytes(layout.offset());
+        Base64.getDecoder().wrap(new BoundedInputStream(in, layout.length())).transferTo(out);
+    }
+
+    /**
+     * Reads at most {@code remaining} bytes, so trailing whitespace never reaches the decoder.
+     */
+    private static final class BoundedInputStream extends InputStream {
+
+        private final InputStream in;
+        private long remaining;
+
+        BoundedInputStream(InputStream in, long limit) {
+            this.in = in;
+            this.remaining = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (remaining <= 0) return -1;
+            int b = in.read();
+            if (b >= 0) remaining--;
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (remaining <= 0) return -1;
+            int n = in.read(b, off, (int) Math.min(len, remaining));
+            if (n > 0) remaining -= n;
+            return n;
+        }
+    }
+}
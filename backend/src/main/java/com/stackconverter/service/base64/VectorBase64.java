@@ -0,0 +1,256 @@
+package com.stackconverter.service.base64;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorShuffle;
+import jdk.incubator.vector.VectorSpecies;
+
+import java.util.Arrays;
+import java.util.function.IntUnaryOperator;
+
+import static jdk.incubator.vector.VectorOperators.EQ;
+import static jdk.incubator.vector.VectorOperators.GE;
+import static jdk.incubator.vector.VectorOperators.LE;
+import static jdk.incubator.vector.VectorOperators.LSHL;
+import static jdk.incubator.vector.VectorOperators.LSHR;
+
+/**
+ * Base64 on the Vector API ({@code jdk.incubator.vector}), for payloads large
+ * enough that per-byte table lookups dominate.
+ * <p>
+ * Each step encodes {@code 3/4·L} bytes into {@code L} characters, {@code L} being the
+ * preferred byte vector length: a shuffle spreads every 3-byte group over a 32-bit
+ * lane, shifts and masks split it into four 6-bit indices, and compares map index
+ * ranges to their ASCII offsets. Decoding runs the same steps backwards and leaves
+ * the vector loop at the first block holding anything but alphabet characters.
+ * Line breaks, padding and errors are handled by scalar code, deferring to
+ * {@link java.util.Base64} for the final quantum so that results and rejections
+ * match it exactly.
+ * <p>
+ * Only load this class after checking that the module is in the boot layer; see
+ * {@link Base64Codecs}.
+ */
+final class VectorBase64 {
+
+    private static final VectorSpecies<Byte> BYTES = ByteVector.SPECIES_PREFERRED;
+    private static final int LANES = BYTES.length();
+    private static final int BLOCK_BYTES = LANES / 4 * 3;
+
+    private static final int MIME_LINE_BYTES = 57;
+
+    // Byte i of a lane holds source byte 2 - i of its group: big-endian 24-bit value per int lane
+    private static final VectorShuffle<Byte> SPREAD = shuffle(lane -> lane % 4 == 3 ? 0 : lane / 4 * 3 + 2 - lane % 4);
+    // The reverse: three bytes out of every int lane, packed at the front
+    private static final VectorShuffle<Byte> PACK = shuffle(lane -> lane < BLOCK_BYTES ? lane / 3 * 4 + 2 - lane % 3 : 0);
+
+    private static final byte[] BASIC_ALPHABET =
+            "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/".getBytes();
+    private static final byte[] URL_ALPHABET =
+            "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_".getBytes();
+
+    private static final int INVALID = -1;
+    private static final int PADDING = -2;
+    private static final int[] BASIC_VALUES = values(BASIC_ALPHABET);
+    private static final int[] URL_VALUES = values(URL_ALPHABET);
+
+    private VectorBase64() {}
+
+    /** Whether the hardware has vectors wide enough to pay off (at least 128 bits). */
+    static boolean isSupported() {
+        return BYTES.vectorBitSize() >= 128;
+    }
+
+    static byte[] encode(byte[] src, Base64Variant variant) {
+        boolean url = variant == Base64Variant.URL;
+        byte[] alphabet = url ? URL_ALPHABET : BASIC_ALPHABET;
+        int chars = (int) Math.min(Integer.MAX_VALUE, (src.length + 2L) / 3 * 4);
+
+        if (variant != Base64Variant.MIME) {
+            byte[] dst = new byte[chars];
+            encodeRange(src, 0, src.length, dst, 0, url, alphabet);
+            return dst;
+        }
+
+        int lines = chars == 0 ? 0 : (chars - 1) / 76;
+        byte[] dst = new byte[chars + 2 * lines];
+        int dp = 0;
+        for (int sp = 0; sp < src.length; sp += MIME_LINE_BYTES) {
+            if (sp > 0) {
+                dst[dp++] = '\r';
+                dst[dp++] = '\n';
+            }
+            int end = Math.min(src.length, sp + MIME_LINE_BYTES);
+            dp = encodeRange(src, sp, end, dst, dp, false, alphabet);
+        }
+        return dst;
+    }
+
+    static byte[] decode(byte[] src, Base64Variant variant) {
+        boolean url = variant == Base64Variant.URL;
+        boolean mime = variant == Base64Variant.MIME;
+        int[] values = url ? URL_VALUES : BASIC_VALUES;
+
+        byte[] dst = new byte[mime ? src.length / 4 * 3 + 3 : exactDecodedLength(src)];
+        int sp = 0;
+        int dp = 0;
+        int bits = 0;
+        int shift = 18;
+        int quantumStart = 0;
+
+        while (sp < src.length) {
+            if (shift == 18) {
+                int consumed = decodeBlocks(src, sp, dst, dp, url);
+                sp += consumed;
+                dp += consumed / 4 * 3;
+                if (sp == src.length) break;
+                quantumStart = sp;
+            }
+
+            int value = values[src[sp] & 0xFF];
+            if (value < 0) {
+                if (value == INVALID && mime) {
+                    sp++;
+                    continue;
+                }
+                // Padding or an illegal character: the JDK settles the rest, including its error
+                return finish(src, quantumStart, dst, dp, variant);
+            }
+            sp++;
+
+            bits |= value << shift;
+            shift -= 6;
+            if (shift < 0) {
+                dst[dp++] = (byte) (bits >> 16);
+                dst[dp++] = (byte) (bits >> 8);
+                dst[dp++] = (byte) bits;
+                bits = 0;
+                shift = 18;
+            }
+        }
+
+        // An incomplete last quantum without padding
+        if (shift != 18) return finish(src, quantumStart, dst, dp, variant);
+        return dp == dst.length ? dst : Arrays.copyOf(dst, dp);
+    }
+
+    private static byte[] finish(byte[] src, int from, byte[] dst, int dp, Base64Variant variant) {
+        byte[] rest = variant.jdkDecoder().decode(Arrays.copyOfRange(src, from, src.length));
+        if (dp + rest.length > dst.length) dst = Arrays.copyOf(dst, dp + rest.length);
+        System.arraycopy(rest, 0, dst, dp, rest.length);
+        dp += rest.length;
+        return dp == dst.length ? dst : Arrays.copyOf(dst, dp);
+    }
+
+    // Decoded size of valid basic / URL input, as the JDK computes it
+    private static int exactDecodedLength(byte[] src) {
+        int length = src.length;
+        if (length > 0 && src[length - 1] == '=') {
+            length--;
+            if (length > 0 && src[length - 1] == '=') length--;
+        }
+        return (int) (length * 3L / 4);
+    }
+
+    // Encodes src[sp, end) with padding; returns the new output position
+    private static int encodeRange(byte[] src, int sp, int end, byte[] dst, int dp, boolean url, byte[] alphabet) {
+        while (sp + LANES <= src.length && end - sp >= BLOCK_BYTES) {
+            encodeBlock(src, sp, dst, dp, url);
+            sp += BLOCK_BYTES;
+            dp += LANES;
+        }
+
+        for (; end - sp >= 3; sp += 3) {
+            int bits = (src[sp] & 0xFF) << 16 | (src[sp + 1] & 0xFF) << 8 | (src[sp + 2] & 0xFF);
+            dst[dp++] = alphabet[bits >>> 18];
+            dst[dp++] = alphabet[bits >>> 12 & 0x3F];
+            dst[dp++] = alphabet[bits >>> 6 & 0x3F];
+            dst[dp++] = alphabet[bits & 0x3F];
+        }
+
+        if (sp < end) {
+            int b0 = src[sp] & 0xFF;
+            dst[dp++] = alphabet[b0 >> 2];
+            if (sp + 1 == end) {
+                dst[dp++] = alphabet[(b0 << 4) & 0x3F];
+                dst[dp++] = '=';
+            } else {
+                int b1 = src[sp + 1] & 0xFF;
+                dst[dp++] = alphabet[(b0 << 4) & 0x3F | b1 >> 4];
+                dst[dp++] = alphabet[(b1 << 2) & 0x3F];
+            }
+            dst[dp++] = '=';
+        }
+        return dp;
+    }
+
+    // Reads LANES bytes at sp (only the first BLOCK_BYTES are encoded), writes LANES characters
+    private static void encodeBlock(byte[] src, int sp, byte[] dst, int dp, boolean url) {
+        IntVector groups = ByteVector.fromArray(BYTES, src, sp).rearrange(SPREAD).reinterpretAsInts();
+
+        // Four 6-bit indices per lane, first character in the lowest byte
+        ByteVector indices = groups.lanewise(LSHR, 18).and(0x3F)
+                .or(groups.lanewise(LSHR, 4).and(0x3F00))
+                .or(groups.lanewise(LSHL, 10).and(0x3F0000))
+                .or(groups.lanewise(LSHL, 24).and(0x3F000000))
+                .reinterpretAsBytes();
+
+        ByteVector offsets = ByteVector.broadcast(BYTES, (byte) 'A')
+                .blend((byte) ('a' - 26), indices.compare(GE, (byte) 26))
+                .blend((byte) ('0' - 52), indices.compare(GE, (byte) 52))
+                .blend((byte) ((url ? '-' : '+') - 62), indices.compare(EQ, (byte) 62))
+                .blend((byte) ((url ? '_' : '/') - 63), indices.compare(EQ, (byte) 63));
+
+        indices.add(offsets).intoArray(dst, dp);
+    }
+
+    // Decodes whole blocks of alphabet characters; returns the number of characters consumed
+    private static int decodeBlocks(byte[] src, int start, byte[] dst, int dp, boolean url) {
+        byte plus = (byte) (url ? '-' : '+');
+        byte slash = (byte) (url ? '_' : '/');
+
+        int sp = start;
+        while (sp + LANES <= src.length && dp + LANES <= dst.length) {
+            ByteVector chars = ByteVector.fromArray(BYTES, src, sp);
+
+            VectorMask<Byte> upper = chars.compare(GE, (byte) 'A').and(chars.compare(LE, (byte) 'Z'));
+            VectorMask<Byte> lower = chars.compare(GE, (byte) 'a').and(chars.compare(LE, (byte) 'z'));
+            VectorMask<Byte> digit = chars.compare(GE, (byte) '0').and(chars.compare(LE, (byte) '9'));
+            VectorMask<Byte> is62 = chars.compare(EQ, plus);
+            VectorMask<Byte> is63 = chars.compare(EQ, slash);
+            if (!upper.or(lower).or(digit).or(is62).or(is63).allTrue()) break;
+
+            ByteVector offsets = ByteVector.broadcast(BYTES, (byte) -'A')
+                    .blend((byte) (26 - 'a'), lower)
+                    .blend((byte) (52 - '0'), digit)
+                    .blend((byte) (62 - plus), is62)
+                    .blend((byte) (63 - slash), is63);
+            IntVector values = chars.add(offsets).reinterpretAsInts();
+
+            // Back to one big-endian 24-bit group per lane
+            IntVector groups = values.and(0x3F).lanewise(LSHL, 18)
+                    .or(values.and(0x3F00).lanewise(LSHL, 4))
+                    .or(values.lanewise(LSHR, 10).and(0xFC0))
+                    .or(values.lanewise(LSHR, 24));
+
+            groups.reinterpretAsBytes().rearrange(PACK).intoArray(dst, dp);
+            sp += LANES;
+            dp += BLOCK_BYTES;
+        }
+        return sp - start;
+    }
+
+    private static VectorShuffle<Byte> shuffle(IntUnaryOperator lane) {
+        int[] indices = new int[LANES];
+        for (int i = 0; i < LANES; i++) indices[i] = lane.applyAsInt(i);
+        return VectorShuffle.fromArray(BYTES, indices, 0);
+    }
+
+    private static int[] values(byte[] alphabet) {
+        int[] values = new int[256];
+        Arrays.fill(values, INVALID);
+        for (int i = 0; i < alphabet.length; i++) values[alphabet[i]] = i;
+        values['='] = PADDING;
+        return values;
+    }
+}
@@ -0,0 +1,22 @@
+package com.stackconverter.service.base64;
+
+/**
+ * {@link VectorBase64} for payloads of at least {@code minBytes}, the JDK codec below
+ * that, where setting up vectors costs more than it saves.
+ */
+record VectorBase64Codec(Base64Variant variant, int minBytes) implements Base64Codec {
+
+    @Override
+    public byte[] encode(byte[] src) {
+        return src.length >= minBytes
+                ? VectorBase64.encode(src, variant)
+                : variant.jdkEncoder().encode(src);
+    }
+
+    @Override
+    public byte[] decode(byte[] src) {
+        return src.length >= minBytes
+                ? VectorBase64.decode(src, variant)
+                : variant.jdkDecoder().decode(src);
+    }
+}
@@ -0,0 +1,209 @@
+package com.stackconverter.service.columnar;
+
+import com.stackconverter.service.columnar.TableProfile.Column;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.vector.BigIntVector;
+import org.apache.arrow.vector.BitVector;
+import org.apache.arrow.vector.FieldVector;
+import org.apache.arrow.vector.Float8Vector;
+import org.apache.arrow.vector.IntVector;
+import org.apache.arrow.vector.TimeStampMilliVector;
+import org.apache.arrow.vector.VarCharVector;
+import org.apache.arrow.vector.VectorSchemaRoot;
+import org.apache.arrow.vector.dictionary.Dictionary;
+import org.apache.arrow.vector.dictionary.DictionaryProvider;
+import org.apache.arrow.vector.ipc.ArrowStreamWriter;
+import org.apache.arrow.vector.ipc.message.IpcOption;
+import org.apache.arrow.vector.types.pojo.ArrowType;
+import org.apache.arrow.vector.types.pojo.DictionaryEncoding;
+import org.apache.arrow.vector.types.pojo.Field;
+import org.apache.arrow.vector.types.pojo.FieldType;
+import org.apache.arrow.vector.types.pojo.Schema;
+import org.apache.poi.ss.usermodel.DateUtil;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Writes the rows of a profiled table as an Arrow IPC stream: the schema and every
+ * dictionary first, then a record batch each {@code batchRows} rows, its buffers
+ * compressed with the given codec. Only the current batch and the dictionaries are
+ * held in (off-heap) Arrow memory.
+ */
+final class ArrowBatchWriter implements AutoCloseable {
+
+    private static final ArrowType DICTIONARY_INDEX = new ArrowType.Int(32, true);
+
+    /** Parses a non-empty value into row {@code row} of the column's vector. */
+    private interface Setter {
+        void set(int row, String value);
+    }
+
+    private final BufferAllocator allocator;
+    private final List<Dictionary> dictionaries = new ArrayList<>();
+    private final VectorSchemaRoot root;
+    private final ArrowStreamWriter writer;
+    private final Setter[] setters;
+    private final int batchRows;
+
+    private boolean inHeader;
+    private int row;
+    private long rows;
+
+    ArrowBatchWriter(BufferAllocator parent, TableProfile profile, int batchRows, ArrowCompression compression,
+                     OutputStream out) throws IOException {
+        this.allocator = parent.newChildAllocator("arrow-export", 0, Long.MAX_VALUE);
+        this.batchRows = batchRows;
+        this.inHeader = profile.header();
+
+        try {
+            DictionaryProvider.MapDictionaryProvider provider = new DictionaryProvider.MapDictionaryProvider();
+            List<Column> columns = profile.columns();
+            List<Field> fields = new ArrayList<>(columns.size());
+            for (int i = 0; i < columns.size(); i++) {
+                Column column = columns.get(i);
+                if (column.distinct != null) {
+                    DictionaryEncoding encoding = new DictionaryEncoding(i, false, (ArrowType.Int) DICTIONARY_INDEX);
+                    Dictionary dictionary = new Dictionary(dictionaryVector(column), encoding);
+                    dictionaries.add(dictionary);
+                    provider.put(dictionary);
+                    fields.add(new Field(column.name, new FieldType(true, DICTIONARY_INDEX, encoding), null));
+                } else {
+                    fields.add(Field.nullable(column.name, column.typeOrString().arrowType()));
+                }
+            }
+
+            this.root = VectorSchemaRoot.create(new Schema(fields), allocator);
+            root.allocateNew();
+            this.setters = new Setter[columns.size()];
+            for (int i = 0; i < columns.size(); i++) setters[i] = setter(columns.get(i), root.getVector(i));
+
+            this.writer = new ArrowStreamWriter(root, provider, unclosable(out), IpcOption.DEFAULT,
+                    compression.factory(), compression.codec(), Optional.empty());
+            writer.start();
+        } catch (IOException | RuntimeException e) {
+            close();
+            throw e;
+        }
+    }
+
+    void cell(int column, String value) {
+        if (inHeader || value.isEmpty() || column >= setters.length) return;
+        setters[column].set(row, value);
+    }
+
+    void endRow() throws IOException {
+        if (inHeader) {
+            inHeader = false;
+            return;
+        }
+        rows++;
+        if (++row == batchRows) flush();
+    }
+
+    /**
+     * Write the last batch and the end-of-stream marker.
+     *
+     * @return data rows written
+     */
+    long finish() throws IOException {
+        flush();
+        writer.end();
+        return rows;
+    }
+
+    private void flush() throws IOException {
+        if (row == 0) return;
+        root.setRowCount(row);
+        writer.writeBatch();
+        // Keeps the buffers, zeroes validity: unset cells of the next batch are null
+        for (FieldVector vector : root.getFieldVectors()) vector.reset();
+        row = 0;
+    }
+
+    private VarCharVector dictionaryVector(Column column) {
+        VarCharVector vector = new VarCharVector(column.name, allocator);
+        vector.allocateNew(column.distinct.size());
+        for (Map.Entry<String, Integer> value : column.distinct.entrySet()) {
+            vector.setSafe(value.getValue(), value.getKey().getBytes(StandardCharsets.UTF_8));
+        }
+        vector.setValueCount(column.distinct.size());
+        return vector;
+    }
+
+    private static Setter setter(Column column, FieldVector vector) {
+        if (column.distinct != null) {
+            Map<String, Integer> indexes = column.distinct;
+            IntVector codes = (IntVector) vector;
+            return (row, value) -> codes.setSafe(row, indexes.get(value));
+        }
+        return switch (column.typeOrString()) {
+            case BOOLEAN -> {
+                BitVector bits = (BitVector) vector;
+                yield (row, value) -> bits.setSafe(row, Boolean.parseBoolean(value) ? 1 : 0);
+            }
+            case INT64 -> {
+                BigIntVector longs = (BigIntVector) vector;
+                yield (row, value) -> longs.setSafe(row, parseLong(value));
+            }
+            case FLOAT64 -> {
+                Float8Vector doubles = (Float8Vector) vector;
+                yield (row, value) -> doubles.setSafe(row, Double.parseDouble(value));
+            }
+            case TIMESTAMP -> {
+                TimeStampMilliVector timestamps = (TimeStampMilliVector) vector;
+                yield (row, value) -> timestamps.setSafe(row, DateUtil.getLocalDateTime(Double.parseDouble(value))
+                        .toInstant(ZoneOffset.UTC).toEpochMilli());
+            }
+            case STRING -> {
+                VarCharVector strings = (VarCharVector) vector;
+                yield (row, value) -> strings.setSafe(row, value.getBytes(StandardCharsets.UTF_8));
+            }
+        };
+    }
+
+    // CSV integers as they are, workbook numbers as their double text ("42.0")
+    private static long parseLong(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '.' || c == 'e' || c == 'E') return (long) Double.parseDouble(value);
+        }
+        return Long.parseLong(value);
+    }
+
+    // Closing the Arrow writer must leave the response open
+    private static WritableByteChannel unclosable(OutputStream out) {
+        WritableByteChannel channel = Channels.newChannel(out);
+        return new WritableByteChannel() {
+            @Override
+            public int write(ByteBuffer src) throws IOException {
+                return channel.write(src);
+            }
+
+            @Override
+            public boolean isOpen() {
+                return true;
+            }
+
+            @Override
+            public void close() {}
+        };
+    }
+
+    @Override
+    public void close() {
+        if (writer != null) writer.close();
+        if (root != null) root.close();
+        for (Dictionary dictionary : dictionaries) dictionary.getVector().close();
+        allocator.close();
+    }
+}
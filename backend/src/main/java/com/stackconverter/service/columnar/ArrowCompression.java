@@ -0,0 +1,45 @@
+package com.stackconverter.service.columnar;
+
+import org.apache.arrow.compression.CommonsCompressionFactory;
+import org.apache.arrow.vector.compression.CompressionCodec;
+import org.apache.arrow.vector.compression.CompressionUtil.CodecType;
+import org.apache.arrow.vector.compression.NoCompressionCodec;
+
+import java.util.Locale;
+
+/**
+ * Record batch buffer compression of the IPC stream. Readers decompress transparently
+ * (pyarrow 2.0+, Arrow Java with arrow-compression); {@code none} suits readers without it.
+ * LZ4 is left out: the pure-Java frame compressor stalls on large repetitive buffers.
+ */
+public enum ArrowCompression {
+
+    NONE(CodecType.NO_COMPRESSION),
+    ZSTD(CodecType.ZSTD);
+
+    private final CodecType codec;
+
+    ArrowCompression(CodecType codec) {
+        this.codec = codec;
+    }
+
+    CodecType codec() {
+        return codec;
+    }
+
+    // The commons factory only knows the real codecs
+    CompressionCodec.Factory factory() {
+        return this == NONE ? NoCompressionCodec.Factory.INSTANCE : CommonsCompressionFactory.INSTANCE;
+    }
+
+    /**
+     * @throws IllegalArgumentException for anything but none or zstd
+     */
+    public static ArrowCompression of(String name) {
+        return switch (name.toLowerCase(Locale.ROOT)) {
+            case "none" -> NONE;
+            case "zstd" -> ZSTD;
+            default -> throw new IllegalArgumentException("Unknown Arrow compression: " + name);
+        };
+    }
+}
@@ -0,0 +1,159 @@
+package com.stackconverter.service.columnar;
+
+import com.stackconverter.service.csv.CsvReader;
+import com.stackconverter.service.csv.CsvRecord;
+import com.stackconverter.service.excel.ExcelFormat;
+import com.stackconverter.service.excel.SheetRowHandler;
+import com.stackconverter.service.excel.StreamingExcelConverter;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.RootAllocator;
+import org.apache.poi.ss.usermodel.CellType;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Path;
+
+/**
+ * Exports the first sheet of a workbook, or a CSV file, as an Apache Arrow IPC stream
+ * ({@value #MEDIA_TYPE}), readable by pyarrow, Polars, DuckDB, Spark and the like.
+ * <p>
+ * The table is read twice. {@link #profileSheet Profiling} infers each column's type,
+ * from the POI cell types of a workbook or from the text of a CSV field: booleans,
+ * 64-bit integers, doubles, timestamps (date-formatted numbers) and strings, widening
+ * to double or string on conflicts. It also collects the distinct values of text
+ * columns, which are dictionary encoded when their values repeat. Writing then streams
+ * record batches of {@code batch-rows} rows, ZSTD-compressed by default. Blank cells
+ * and empty fields are nulls.
+ */
+@Service
+public class ArrowExporter implements DisposableBean {
+
+    public static final String MEDIA_TYPE = "application/vnd.apache.arrow.stream";
+
+    private final StreamingExcelConverter streamingExcel;
+    /** Created on first export: without java.nio opened it fails, and should only fail the export. */
+    private BufferAllocator allocator;
+    private final int batchRows;
+    private final int maxDictionarySize;
+    private final ArrowCompression defaultCompression;
+
+    public ArrowExporter(
+            StreamingExcelConverter streamingExcel,
+            @Value("${stackconverter.arrow.batch-rows:65536}") int batchRows,
+            @Value("${stackconverter.arrow.max-dictionary-size:65536}") int maxDictionarySize,
+            @Value("${stackconverter.arrow.compression:zstd}") String defaultCompression) {
+        if (batchRows <= 0) throw new IllegalArgumentException("stackconverter.arrow.batch-rows must be positive");
+        this.streamingExcel = streamingExcel;
+        this.batchRows = batchRows;
+        this.maxDictionarySize = maxDictionarySize;
+        this.defaultCompression = ArrowCompression.of(defaultCompression);
+    }
+
+    /**
+     * @param name {@code none} or {@code zstd}; {@code null} for the configured default
+     * @throws IllegalArgumentException for unknown names
+     */
+    public ArrowCompression compression(String name) {
+        return name != null ? ArrowCompression.of(name) : defaultCompression;
+    }
+
+    /**
+     * First pass over the first sheet of a spooled workbook.
+     *
+     * @param header whether the first row holds column names
+     */
+    public TableProfile profileSheet(Path workbook, ExcelFormat format, boolean header) throws Exception {
+        TableProfile profile = new TableProfile(header, maxDictionarySize);
+        streamingExcel.readFirstSheet(workbook, format, new SheetRowHandler() {
+            @Override
+            public void cell(int column, String value) {
+                cell(column, value, CellType.STRING, false);
+            }
+
+            @Override
+            public void cell(int column, String value, CellType type, boolean date) {
+                profile.add(column, value, ColumnType.of(value, type, date));
+            }
+
+            @Override
+            public void endRow() {
+                profile.endRow();
+            }
+        });
+        profile.finish();
+        return profile;
+    }
+
+    /**
+     * Second pass: write the sheet profiled by {@link #profileSheet} to {@code out}, left open.
+     *
+     * @return data rows written
+     */
+    public long writeSheet(Path workbook, ExcelFormat format, TableProfile profile, ArrowCompression compression,
+                           OutputStream out) throws Exception {
+        try (ArrowBatchWriter writer = new ArrowBatchWriter(allocator(), profile, batchRows, compression, out)) {
+            streamingExcel.readFirstSheet(workbook, format, new SheetRowHandler() {
+                @Override
+                public void cell(int column, String value) {
+                    writer.cell(column, value);
+                }
+
+                @Override
+                public void endRow() throws IOException {
+                    writer.endRow();
+                }
+            });
+            return writer.finish();
+        }
+    }
+
+    /**
+     * First pass over CSV records.
+     *
+     * @param header whether the first record holds column names
+     */
+    public TableProfile profileCsv(CsvReader csv, boolean header) throws IOException {
+        TableProfile profile = new TableProfile(header, maxDictionarySize);
+        while (csv.next()) {
+            CsvRecord record = csv.record();
+            for (int i = 0; i < record.size(); i++) {
+                String value = record.get(i);
+                profile.add(i, value, ColumnType.of(value));
+            }
+            profile.endRow();
+        }
+        profile.finish();
+        return profile;
+    }
+
+    /**
+     * Second pass: write the records profiled by {@link #profileCsv}, from a fresh reader
+     * over the same input, to {@code out}, left open.
+     *
+     * @return data rows written
+     */
+    public long writeCsv(CsvReader csv, TableProfile profile, ArrowCompression compression, OutputStream out)
+            throws IOException {
+        try (ArrowBatchWriter writer = new ArrowBatchWriter(allocator(), profile, batchRows, compression, out)) {
+            while (csv.next()) {
+                CsvRecord record = csv.record();
+                for (int i = 0; i < record.size(); i++) writer.cell(i, record.get(i));
+                writer.endRow();
+            }
+            return writer.finish();
+        }
+    }
+
+    private synchronized BufferAllocator allocator() {
+        if (allocator == null) allocator = new RootAllocator();
+        return allocator;
+    }
+
+    @Override
+    public synchronized void destroy() {
+        if (allocator != null) allocator.close();
+    }
+}
@@ -0,0 +1,106 @@
+package com.stackconverter.service.columnar;
+
+import org.apache.arrow.vector.types.FloatingPointPrecision;
+import org.apache.arrow.vector.types.TimeUnit;
+import org.apache.arrow.vector.types.pojo.ArrowType;
+import org.apache.poi.ss.usermodel.CellType;
+
+/**
+ * Arrow type of an exported column, inferred from the kinds of its non-blank values.
+ */
+enum ColumnType {
+
+    BOOLEAN(ArrowType.Bool.INSTANCE),
+    INT64(new ArrowType.Int(64, true)),
+    FLOAT64(new ArrowType.FloatingPoint(FloatingPointPrecision.DOUBLE)),
+    /** Local date-time of a date-formatted Excel number, without a time zone. */
+    TIMESTAMP(new ArrowType.Timestamp(TimeUnit.MILLISECOND, null)),
+    STRING(ArrowType.Utf8.INSTANCE);
+
+    // Largest magnitude up to which every integer is exactly representable as a double
+    private static final double MAX_EXACT_INTEGER = 0x1p53;
+
+    private final ArrowType arrowType;
+
+    ColumnType(ArrowType arrowType) {
+        this.arrowType = arrowType;
+    }
+
+    ArrowType arrowType() {
+        return arrowType;
+    }
+
+    /** The narrowest type holding values of both; integers widen to doubles, anything else to strings. */
+    ColumnType widen(ColumnType other) {
+        if (this == other) return this;
+        if ((this == INT64 && other == FLOAT64) || (this == FLOAT64 && other == INT64)) return FLOAT64;
+        return STRING;
+    }
+
+    /**
+     * Kind of a workbook cell value, {@code null} if it is blank. Formulas and errors are text.
+     */
+    static ColumnType of(String value, CellType type, boolean date) {
+        if (value.isEmpty()) return null;
+        return switch (type) {
+            case NUMERIC -> date ? TIMESTAMP : isInteger(Double.parseDouble(value)) ? INT64 : FLOAT64;
+            case BOOLEAN -> BOOLEAN;
+            default -> STRING;
+        };
+    }
+
+    /**
+     * Kind of a CSV field, {@code null} if it is empty: integers, decimal numbers
+     * (optionally with an exponent), {@code true} / {@code false} in any case, else text.
+     */
+    static ColumnType of(String value) {
+        if (value.isEmpty()) return null;
+        if (value.equalsIgnoreCase("true") || value.equalsIgnoreCase("false")) return BOOLEAN;
+        return switch (numberKind(value)) {
+            case 1 -> value.length() <= 18 || fitsLong(value) ? INT64 : FLOAT64;
+            case 2 -> FLOAT64;
+            default -> STRING;
+        };
+    }
+
+    static boolean isInteger(double value) {
+        return value == Math.rint(value) && Math.abs(value) <= MAX_EXACT_INTEGER;
+    }
+
+    // 1: [+-]digits, 2: [+-]digits with a fraction and / or exponent, 0: anything else
+    private static int numberKind(String value) {
+        int i = value.charAt(0) == '-' || value.charAt(0) == '+' ? 1 : 0;
+        int digits = 0;
+        boolean decimal = false;
+        for (; i < value.length() && value.charAt(i) != 'e' && value.charAt(i) != 'E'; i++) {
+            char c = value.charAt(i);
+            if (c >= '0' && c <= '9') {
+                digits++;
+            } else if (c == '.' && !decimal) {
+                decimal = true;
+            } else {
+                return 0;
+            }
+        }
+        if (digits == 0) return 0;
+        if (i == value.length()) return decimal ? 2 : 1;
+
+        // Exponent
+        i++;
+        if (i < value.length() && (value.charAt(i) == '-' || value.charAt(i) == '+')) i++;
+        if (i == value.length()) return 0;
+        for (; i < value.length(); i++) {
+            if (value.charAt(i) < '0' || value.charAt(i) > '9') return 0;
+        }
+        return 2;
+    }
+
+    private static boolean fitsLong(String value) {
+        try {
+            Long.parseLong(value);
+            return true;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+}
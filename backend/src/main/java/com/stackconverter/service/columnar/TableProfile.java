@@ -0,0 +1,112 @@
+package com.stackconverter.service.columnar;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * What the first pass over a table found: column names, the type of each column and,
+ * for text columns whose values repeat, their distinct values as a dictionary.
+ * <p>
+ * Distinct values are only collected up to {@code maxDictionarySize} per column, so
+ * a profile stays small however many rows the table has.
+ */
+public final class TableProfile {
+
+    static final class Column {
+
+        String name;
+        /** {@code null} while only blanks have been seen. */
+        ColumnType type;
+        long values;
+        /** Distinct values in first-seen order with their index; {@code null} once there are too many. */
+        Map<String, Integer> distinct = new LinkedHashMap<>();
+
+        ColumnType typeOrString() {
+            return type != null ? type : ColumnType.STRING;
+        }
+
+        /** Dictionary encoded: text whose values are repeated at least once on average. */
+        boolean dictionary() {
+            return type == ColumnType.STRING && distinct != null && 2L * distinct.size() <= values;
+        }
+    }
+
+    private final boolean header;
+    private final int maxDictionarySize;
+    private final List<Column> columns = new ArrayList<>();
+    private final List<String> headerNames = new ArrayList<>();
+    private boolean inHeader;
+    private long rows;
+
+    TableProfile(boolean header, int maxDictionarySize) {
+        this.header = header;
+        this.maxDictionarySize = maxDictionarySize;
+        this.inHeader = header;
+    }
+
+    /** Whether the first row holds the column names rather than data. */
+    public boolean header() {
+        return header;
+    }
+
+    /** Data rows, the header not included. */
+    public long rows() {
+        return rows;
+    }
+
+    public List<String> columnNames() {
+        return columns.stream().map(column -> column.name).toList();
+    }
+
+    List<Column> columns() {
+        return columns;
+    }
+
+    void add(int index, String value, ColumnType kind) {
+        if (inHeader) {
+            while (headerNames.size() <= index) headerNames.add("");
+            headerNames.set(index, value.strip());
+            return;
+        }
+        while (columns.size() <= index) columns.add(new Column());
+        if (kind == null) return;
+
+        Column column = columns.get(index);
+        column.values++;
+        column.type = column.type == null ? kind : column.type.widen(kind);
+        if (column.distinct != null) {
+            column.distinct.putIfAbsent(value, column.distinct.size());
+            if (column.distinct.size() > maxDictionarySize) column.distinct = null;
+        }
+    }
+
+    void endRow() {
+        if (inHeader) {
+            inHeader = false;
+        } else {
+            rows++;
+        }
+    }
+
+    // Header names where given and unique, column_<n> otherwise
+    void finish() {
+        while (columns.size() < headerNames.size()) columns.add(new Column());
+
+        Set<String> used = new HashSet<>();
+        for (int i = 0; i < columns.size(); i++) {
+            String name = i < headerNames.size() && !headerNames.get(i).isEmpty()
+                    ? headerNames.get(i)
+                    : "column_" + (i + 1);
+            String unique = name;
+            for (int n = 2; !used.add(unique); n++) unique = name + "_" + n;
+
+            Column column = columns.get(i);
+            column.name = unique;
+            if (!column.dictionary()) column.distinct = null;
+        }
+    }
+}
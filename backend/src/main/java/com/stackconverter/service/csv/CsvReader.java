@@ -0,0 +1,183 @@
+package com.stackconverter.service.csv;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * RFC 4180 CSV reader working directly over a {@link Reader}.
+ * <p>
+ * The input is scanned in a fixed char buffer and runs of ordinary characters are
+ * copied into the reused {@link CsvRecord} in one go, so parsing a record allocates
+ * nothing once the buffers have grown to the widest record seen.
+ * <p>
+ * Supported beyond the basics: quoted fields spanning line breaks, {@code ""}
+ * escapes, {@code \n} / {@code \r\n} / {@code \r} line endings, a custom delimiter
+ * and a leading UTF-8 byte order mark. A quote inside an unquoted field, or text
+ * after a closing quote, is kept as literal text rather than rejected.
+ */
+public class CsvReader implements Closeable {
+
+    /**
+     * Callback invoked for each record; the record is only valid during the call.
+     */
+    @FunctionalInterface
+    public interface RecordHandler {
+        void onRecord(CsvRecord record) throws IOException;
+    }
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final char BOM = '\uFEFF';
+
+    private final Reader in;
+    private final char delimiter;
+    private final char[] buf = new char[BUFFER_SIZE];
+    private int pos;
+    private int limit;
+
+    private final CsvRecord record = new CsvRecord();
+    private long recordNumber;
+    private boolean started;
+    private boolean skipLf;
+
+    public CsvReader(Reader in) {
+        this(in, ',');
+    }
+
+    public CsvReader(Reader in, char delimiter) {
+        if (delimiter == '"' || delimiter == '\n' || delimiter == '\r') {
+            throw new IllegalArgumentException("Invalid CSV delimiter");
+        }
+        this.in = in;
+        this.delimiter = delimiter;
+    }
+
+    /**
+     * Resolve a delimiter request parameter: a single character, or {@code tab} / {@code \t}.
+     */
+    public static char delimiterOf(String value) {
+        if (value == null || value.isEmpty()) return ',';
+        if (value.equalsIgnoreCase("tab") || value.equals("\\t")) return '\t';
+        if (value.length() != 1) throw new IllegalArgumentException("Unsupported delimiter: " + value);
+        return value.charAt(0);
+    }
+
+    /**
+     * Push every remaining record through {@code handler}.
+     */
+    public void read(RecordHandler handler) throws IOException {
+        while (next()) {
+            handler.onRecord(record);
+        }
+    }
+
+    /**
+     * Advance to the next record.
+     *
+     * @return {@code false} once the input is exhausted
+     */
+    public boolean next() throws IOException {
+        if (!started) {
+            started = true;
+            if (fill() && buf[pos] == BOM) pos++;
+        }
+        if (skipLf) {
+            skipLf = false;
+            if ((pos < limit || fill()) && buf[pos] == '\n') pos++;
+        }
+        if (pos >= limit && !fill()) return false;
+
+        record.clear(++recordNumber);
+        boolean quoted = false;
+        boolean afterQuote = false;
+        boolean fieldStart = true;
+
+        while (true) {
+            if (pos >= limit && !fill()) {
+                if (quoted) {
+                    throw new IOException("Unterminated quoted field in CSV record " + recordNumber);
+                }
+                record.endField();
+                return true;
+            }
+
+            if (quoted) {
+                int start = pos;
+                while (pos < limit && buf[pos] != '"') pos++;
+                record.append(buf, start, pos - start);
+                if (pos < limit) {
+                    pos++;
+                    quoted = false;
+                    afterQuote = true;
+                }
+                continue;
+            }
+
+            char c = buf[pos];
+
+            if (afterQuote) {
+                afterQuote = false;
+                if (c == '"') {
+                    // "" inside a quoted field is an escaped quote
+                    record.append('"');
+                    pos++;
+                    quoted = true;
+                    continue;
+                }
+            }
+
+            if (c == delimiter) {
+                pos++;
+                record.endField();
+                fieldStart = true;
+                continue;
+            }
+            if (c == '\n' || c == '\r') {
+                pos++;
+                skipLf = c == '\r';
+                record.endField();
+                return true;
+            }
+            if (c == '"' && fieldStart) {
+                pos++;
+                quoted = true;
+                fieldStart = false;
+                continue;
+            }
+
+            int start = pos;
+            while (pos < limit) {
+                char d = buf[pos];
+                if (d == delimiter || d == '\n' || d == '\r') break;
+                pos++;
+            }
+            record.append(buf, start, pos - start);
+            fieldStart = false;
+        }
+    }
+
+    /** The current record, valid until the next call to {@link #next()}. */
+    public CsvRecord record() {
+        return record;
+    }
+
+    private boolean fill() throws IOException {
+        int n;
+        do {
+            n = in.read(buf, 0, buf.length);
+        } while (n == 0);
+
+        if (n < 0) {
+            pos = limit = 0;
+            return false;
+        }
+        pos = 0;
+        limit = n;
+        return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
@@ -0,0 +1,89 @@
+package com.stackconverter.service.csv;
+
+import java.util.Arrays;
+
+/**
+ * One parsed CSV record, backed by buffers that {@link CsvReader} reuses for every record.
+ * <p>
+ * An instance is only valid until the reader moves on; copy values out with
+ * {@link #get(int)} or {@link #toArray()} if they need to outlive the callback.
+ */
+public final class CsvRecord {
+
+    private char[] chars = new char[256];
+    private int length;
+
+    // ends[i] = exclusive end offset of field i inside chars
+    private int[] ends = new int[16];
+    private int size;
+
+    private long number;
+
+    CsvRecord() {}
+
+    /** Number of fields in this record. */
+    public int size() {
+        return size;
+    }
+
+    /** 1-based position of this record in the input. */
+    public long number() {
+        return number;
+    }
+
+    public String get(int index) {
+        if (index < 0 || index >= size) throw new IndexOutOfBoundsException(index);
+        int start = index == 0 ? 0 : ends[index - 1];
+        return new String(chars, start, ends[index] - start);
+    }
+
+    public int length(int index) {
+        if (index < 0 || index >= size) throw new IndexOutOfBoundsException(index);
+        return ends[index] - (index == 0 ? 0 : ends[index - 1]);
+    }
+
+    /**
+     * Copy field {@code index} into {@code dst} at {@code offset} without creating a string;
+     * {@code dst} needs room for {@link #length(int)} chars.
+     */
+    public void getChars(int index, char[] dst, int offset) {
+        if (index < 0 || index >= size) throw new IndexOutOfBoundsException(index);
+        int start = index == 0 ? 0 : ends[index - 1];
+        System.arraycopy(chars, start, dst, offset, ends[index] - start);
+    }
+
+    public String[] toArray() {
+        String[] values = new String[size];
+        for (int i = 0; i < size; i++) values[i] = get(i);
+        return values;
+    }
+
+    void clear(long number) {
+        this.number = number;
+        length = 0;
+        size = 0;
+    }
+
+    void append(char[] src, int offset, int count) {
+        if (count == 0) return;
+        ensureCapacity(length + count);
+        System.arraycopy(src, offset, chars, length, count);
+        length += count;
+    }
+
+    void append(char c) {
+        ensureCapacity(length + 1);
+        chars[length++] = c;
+    }
+
+    void endField() {
+        if (size == ends.length) ends = Arrays.copyOf(ends, size * 2);
+        ends[size++] = length;
+    }
+
+    private void ensureCapacity(int required) {
+        if (required > chars.length) {
+            chars = Arrays.copyOf(chars, Math.max(required, chars.length * 2));
+        }
+    }
+}
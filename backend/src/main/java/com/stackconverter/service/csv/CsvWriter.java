@@ -0,0 +1,115 @@
+package com.stackconverter.service.csv;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Minimal CSV writer that appends fields straight into the underlying {@link Writer}.
+ * <p>
+ * Fields are quoted only when they contain the delimiter, a quote or a line break,
+ * so plain values never allocate an intermediate copy.
+ */
+public class CsvWriter implements Flushable, Closeable {
+
+    private final Writer out;
+    private final char delimiter;
+    private boolean firstField = true;
+
+    public CsvWriter(Writer out) {
+        this(out, ',');
+    }
+
+    public CsvWriter(Writer out, char delimiter) {
+        this.out = out;
+        this.delimiter = delimiter;
+    }
+
+    /**
+     * Append one field to the current record. {@code null} is written as an empty field.
+     */
+    public void field(String value) throws IOException {
+        if (!firstField) out.write(delimiter);
+        firstField = false;
+
+        if (value == null || value.isEmpty()) return;
+
+        if (needsQuoting(value)) {
+            out.write('"');
+            int start = 0;
+            for (int i = 0; i < value.length(); i++) {
+                if (value.charAt(i) == '"') {
+                    out.write(value, start, i - start + 1);
+                    out.write('"');
+                    start = i + 1;
+                }
+            }
+            out.write(value, start, value.length() - start);
+            out.write('"');
+        } else {
+            out.write(value);
+        }
+    }
+
+    /**
+     * Append {@code length} chars of {@code value} starting at {@code offset} as one field.
+     */
+    public void field(char[] value, int offset, int length) throws IOException {
+        if (!firstField) out.write(delimiter);
+        firstField = false;
+
+        if (length == 0) return;
+
+        if (needsQuoting(value, offset, length)) {
+            out.write('"');
+            int start = offset;
+            int end = offset + length;
+            for (int i = offset; i < end; i++) {
+                if (value[i] == '"') {
+                    out.write(value, start, i - start + 1);
+                    out.write('"');
+                    start = i + 1;
+                }
+            }
+            out.write(value, start, end - start);
+            out.write('"');
+        } else {
+            out.write(value, offset, length);
+        }
+    }
+
+    /**
+     * Terminate the current record.
+     */
+    public void endRecord() throws IOException {
+        out.write('\n');
+        firstField = true;
+    }
+
+    private boolean needsQuoting(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == delimiter || c == '"' || c == '\n' || c == '\r') return true;
+        }
+        return false;
+    }
+
+    private boolean needsQuoting(char[] value, int offset, int length) {
+        for (int i = offset; i < offset + length; i++) {
+            char c = value[i];
+            if (c == delimiter || c == '"' || c == '\n' || c == '\r') return true;
+        }
+        return false;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+}
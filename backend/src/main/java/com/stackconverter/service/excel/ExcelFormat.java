@@ -0,0 +1,31 @@
+package com.stackconverter.service.excel;
+
+import org.apache.poi.poifs.filesystem.FileMagic;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Spreadsheet container formats supported by the streaming readers.
+ */
+public enum ExcelFormat {
+
+    /** Legacy BIFF8 workbook inside an OLE2 container. */
+    XLS,
+
+    /** Office Open XML workbook (ZIP container). */
+    XLSX;
+
+    /**
+     * Detect the workbook format from the file's magic bytes.
+     *
+     * @throws IllegalArgumentException if the file is not an Excel workbook
+     */
+    public static ExcelFormat detect(Path file) throws IOException {
+        return switch (FileMagic.valueOf(file.toFile())) {
+            case OLE2 -> XLS;
+            case OOXML -> XLSX;
+            default -> throw new IllegalArgumentException("Unsupported spreadsheet format");
+        };
+    }
+}
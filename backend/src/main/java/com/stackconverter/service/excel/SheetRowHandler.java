@@ -0,0 +1,28 @@
+package com.stackconverter.service.excel;
+
+import org.apache.poi.ss.usermodel.CellType;
+
+import java.io.IOException;
+
+/**
+ * Receives the cells of a sheet row by row while it is being read.
+ * <p>
+ * Cells arrive in column order and gaps are reported as empty values,
+ * so implementations can write each value as soon as it is seen.
+ */
+public interface SheetRowHandler {
+
+    void cell(int column, String value) throws IOException;
+
+    /**
+     * Same, with the cell's POI type: {@link CellType#BLANK} for gaps and
+     * {@link CellType#FORMULA} for formulas (whose value is the formula text).
+     * {@code date} tells whether a numeric cell has a date format.
+     * Readers call this one; handlers that only need the text keep the default.
+     */
+    default void cell(int column, String value, CellType type, boolean date) throws IOException {
+        cell(column, value);
+    }
+
+    void endRow() throws IOException;
+}
@@ -0,0 +1,362 @@
+package com.stackconverter.service.excel;
+
+import com.stackconverter.service.csv.CsvReader;
+import com.stackconverter.service.csv.CsvRecord;
+import com.stackconverter.service.csv.CsvWriter;
+import com.stackconverter.service.exec.ConversionExecutor;
+import com.stackconverter.service.zip.ZipEntryNames;
+import org.apache.poi.ss.SpreadsheetVersion;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Converts workbooks without building the full POI object model.
+ * <p>
+ * Workbooks being read must already be spooled to disk: both event readers need
+ * random access to the container, but only the current row is ever held in memory.
+ * Workbooks being written go through SXSSF with a bounded row window.
+ */
+@Service
+public class StreamingExcelConverter {
+
+    private final XlsSheetReader xlsReader = new XlsSheetReader();
+
+    private final ConversionExecutor executor;
+    private final int rowAccessWindow;
+    private final boolean compressTempFiles;
+
+    public StreamingExcelConverter(
+            ConversionExecutor executor,
+            @Value("${stackconverter.excel.sxssf.row-access-window:100}") int rowAccessWindow,
+            @Value("${stackconverter.excel.sxssf.compress-temp-files:true}") boolean compressTempFiles) {
+        this.executor = executor;
+        this.rowAccessWindow = rowAccessWindow;
+        this.compressTempFiles = compressTempFiles;
+    }
+
+    /**
+     * Names of all sheets in workbook order.
+     */
+    public List<String> sheetNames(Path workbook, ExcelFormat format) throws Exception {
+        return switch (format) {
+            case XLSX -> {
+                try (XlsxSheetReader reader = new XlsxSheetReader(workbook)) {
+                    yield reader.sheetNames();
+                }
+            }
+            case XLS -> XlsSheetReader.sheetNames(workbook);
+        };
+    }
+
+    /**
+     * Resolve a comma separated list of sheet names or 0-based indexes against {@code sheetNames}.
+     * An empty selection means every sheet.
+     *
+     * @return distinct sheet indexes in workbook order
+     * @throws IllegalArgumentException if a requested sheet does not exist
+     */
+    public static List<Integer> resolveSheets(List<String> sheetNames, String selection) {
+        if (selection == null || selection.isBlank()) {
+            List<Integer> all = new ArrayList<>();
+            for (int i = 0; i < sheetNames.size(); i++) all.add(i);
+            return all;
+        }
+
+        SortedSet<Integer> indexes = new TreeSet<>();
+        for (String token : selection.split(",")) {
+            String wanted = token.trim();
+            if (wanted.isEmpty()) continue;
+
+            // An exact sheet name wins over an index, so a sheet called "2" can still be picked
+            int index = sheetNames.indexOf(wanted);
+            if (index < 0 && wanted.chars().allMatch(Character::isDigit)) {
+                index = Integer.parseInt(wanted);
+            }
+            if (index < 0 || index >= sheetNames.size()) {
+                throw new IllegalArgumentException("Unknown sheet: " + wanted);
+            }
+            indexes.add(index);
+        }
+        return new ArrayList<>(indexes);
+    }
+
+    /**
+     * Write the first sheet of {@code workbook} as UTF-8 CSV into {@code out}.
+     *
+     * @return number of rows written
+     */
+    public long writeFirstSheetAsCsv(Path workbook, ExcelFormat format, OutputStream out) throws Exception {
+        return writeFirstSheetAsCsv(workbook, format, out, new LongAdder());
+    }
+
+    /**
+     * Same, counting rows into {@code rows} as they are written so progress can be followed.
+     *
+     * @return number of rows written
+     */
+    public long writeFirstSheetAsCsv(Path workbook, ExcelFormat format, OutputStream out, LongAdder rows)
+            throws Exception {
+        long before = rows.sum();
+        CsvWriter csv = csvWriter(out);
+        readFirstSheet(workbook, format, csvRows(csv, rows));
+        csv.flush();
+        return rows.sum() - before;
+    }
+
+    /**
+     * Push every row of the first sheet through {@code handler}.
+     */
+    public void readFirstSheet(Path workbook, ExcelFormat format, SheetRowHandler handler) throws Exception {
+        switch (format) {
+            case XLSX -> {
+                try (XlsxSheetReader reader = new XlsxSheetReader(workbook)) {
+                    if (!reader.sheetNames().isEmpty()) reader.readSheet(0, handler);
+                }
+            }
+            case XLS -> xlsReader.readFirstSheet(workbook, handler);
+        }
+    }
+
+    /**
+     * Write the selected sheets as a ZIP stream with one CSV entry per sheet.
+     * <p>
+     * .xlsx sheets are separate parts of the package and are converted in parallel on
+     * the conversion pool, each into its own temp file, then copied into the ZIP in
+     * workbook order. .xls sheets share one record stream and are written in a single pass.
+     *
+     * @return number of rows written, over all sheets
+     */
+    public long writeSheetsAsCsvZip(Path workbook, ExcelFormat format, List<Integer> sheets,
+                                    OutputStream out) throws Exception {
+        ZipOutputStream zip = new ZipOutputStream(out);
+        ZipEntryNames entryNames = new ZipEntryNames(".csv", "sheet");
+        LongAdder rows = new LongAdder();
+
+        switch (format) {
+            case XLSX -> writeXlsxSheets(workbook, sheets, zip, entryNames, rows);
+            case XLS -> writeXlsSheets(workbook, sheets, zip, entryNames, rows);
+        }
+
+        zip.finish();
+        zip.flush();
+        return rows.sum();
+    }
+
+    private void writeXlsxSheets(Path workbook, List<Integer> sheets, ZipOutputStream zip,
+                                 ZipEntryNames entryNames, LongAdder rows) throws Exception {
+        List<Path> csvFiles = new ArrayList<>();
+        List<SheetTask> tasks = new ArrayList<>();
+
+        try (XlsxSheetReader reader = new XlsxSheetReader(workbook)) {
+            try {
+                for (int index : sheets) {
+                    Path csvFile = Files.createTempFile("stackconverter-sheet-", ".csv");
+                    csvFiles.add(csvFile);
+
+                    SheetTask task = new SheetTask(() -> {
+                        try (CsvWriter csv = csvWriter(Files.newOutputStream(csvFile))) {
+                            reader.readSheet(index, csvRows(csv, rows));
+                        }
+                    });
+                    tasks.add(task);
+                    task.future = executor.submit(task);
+                }
+
+                for (int i = 0; i < sheets.size(); i++) {
+                    await(tasks.get(i).future);
+
+                    zip.putNextEntry(new ZipEntry(entryNames.next(reader.sheetNames().get(sheets.get(i)))));
+                    Files.copy(csvFiles.get(i), zip);
+                    zip.closeEntry();
+                    Files.deleteIfExists(csvFiles.get(i));
+                }
+            } finally {
+                // Before the reader closes the package and the temp files go
+                for (SheetTask task : tasks) task.stop();
+            }
+        } finally {
+            for (Path csvFile : csvFiles) Files.deleteIfExists(csvFile);
+        }
+    }
+
+    /**
+     * One sheet conversion on the pool that can be stopped for good: {@link #stop} either
+     * keeps it from starting or waits until it has finished. {@code Future.cancel} alone
+     * only interrupts a running task and returns at once.
+     */
+    private static final class SheetTask implements Callable<Void> {
+
+        interface Work {
+            void run() throws Exception;
+        }
+
+        private final Work work;
+        private final AtomicBoolean claimed = new AtomicBoolean();
+        private final CountDownLatch done = new CountDownLatch(1);
+        Future<Void> future;
+
+        SheetTask(Work work) {
+            this.work = work;
+        }
+
+        @Override
+        public Void call() throws Exception {
+            if (!claimed.compareAndSet(false, true)) return null;
+            try {
+                work.run();
+                return null;
+            } finally {
+                done.countDown();
+            }
+        }
+
+        void stop() {
+            if (future != null) future.cancel(true);
+            if (claimed.compareAndSet(false, true)) return;
+
+            boolean interrupted = false;
+            while (true) {
+                try {
+                    done.await();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) Thread.currentThread().interrupt();
+        }
+    }
+
+    private void writeXlsSheets(Path workbook, List<Integer> sheets, ZipOutputStream zip,
+                                ZipEntryNames entryNames, LongAdder rows) throws IOException {
+        Set<Integer> selected = new HashSet<>(sheets);
+
+        xlsReader.readSheets(workbook, new XlsSheetReader.SheetVisitor() {
+            private CsvWriter csv;
+
+            @Override
+            public SheetRowHandler startSheet(int index, String name) throws IOException {
+                if (!selected.contains(index)) return null;
+
+                zip.putNextEntry(new ZipEntry(entryNames.next(name)));
+                // Never closed: closing the writer would close the ZIP stream
+                csv = csvWriter(zip);
+                return csvRows(csv, rows);
+            }
+
+            @Override
+            public void endSheet(int index) throws IOException {
+                csv.flush();
+                zip.closeEntry();
+            }
+        });
+    }
+
+    private static void await(Future<?> result) throws Exception {
+        try {
+            result.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception cause) throw cause;
+            throw e;
+        }
+    }
+
+    private static CsvWriter csvWriter(OutputStream out) {
+        return new CsvWriter(new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8)));
+    }
+
+    private static SheetRowHandler csvRows(CsvWriter csv, LongAdder rows) {
+        return new SheetRowHandler() {
+            @Override
+            public void cell(int column, String value) throws IOException {
+                csv.field(value);
+            }
+
+            @Override
+            public void endRow() throws IOException {
+                csv.endRecord();
+                rows.increment();
+            }
+        };
+    }
+
+    /**
+     * An empty SXSSF workbook with the configured row window and temp file compression.
+     * The caller must {@link SXSSFWorkbook#dispose() dispose} and close it.
+     */
+    public SXSSFWorkbook newStreamingWorkbook() {
+        return new SXSSFWorkbook(null, rowAccessWindow, compressTempFiles);
+    }
+
+    /** Columns a sheet can hold. */
+    public static final int MAX_COLUMNS = SpreadsheetVersion.EXCEL2007.getMaxColumns();
+
+    /**
+     * Write every record of {@code csv} into an .xlsx on {@code out}. Records beyond a
+     * sheet's 1,048,576 rows continue on Sheet2, Sheet3 and so on.
+     * <p>
+     * Only the last {@code row-access-window} rows stay on the heap; older rows are
+     * flushed to a (optionally gzip-compressed) temp file and copied into the ZIP
+     * when the workbook is written.
+     *
+     * @return number of rows written
+     * @throws IllegalArgumentException if a record has more than {@link #MAX_COLUMNS} fields
+     */
+    public long writeCsvAsXlsx(CsvReader csv, OutputStream out) throws IOException {
+        return writeCsvAsXlsx(csv, out, SpreadsheetVersion.EXCEL2007.getMaxRows());
+    }
+
+    long writeCsvAsXlsx(CsvReader csv, OutputStream out, int rowsPerSheet) throws IOException {
+        SXSSFWorkbook workbook = newStreamingWorkbook();
+        try {
+            Sheet sheet = workbook.createSheet("Sheet1");
+
+            long rows = 0;
+            int rowIndex = 0;
+            while (csv.next()) {
+                CsvRecord record = csv.record();
+                if (record.size() > MAX_COLUMNS) {
+                    throw new IllegalArgumentException("Record " + (rows + 1) + " has " + record.size()
+                            + " fields, more than the " + MAX_COLUMNS + " columns of a sheet");
+                }
+                if (rowIndex == rowsPerSheet) {
+                    sheet = workbook.createSheet("Sheet" + (workbook.getNumberOfSheets() + 1));
+                    rowIndex = 0;
+                }
+                Row row = sheet.createRow(rowIndex++);
+                rows++;
+
+                for (int col = 0; col < record.size(); col++) {
+                    row.createCell(col).setCellValue(record.get(col));
+                }
+            }
+
+            workbook.write(out);
+            out.flush();
+            return rows;
+        } finally {
+            workbook.dispose();
+            workbook.close();
+        }
+    }
+}
@@ -0,0 +1,245 @@
+package com.stackconverter.service.excel;
+
+import org.apache.poi.hssf.eventusermodel.EventWorkbookBuilder.SheetRecordCollectingListener;
+import org.apache.poi.hssf.eventusermodel.FormatTrackingHSSFListener;
+import org.apache.poi.hssf.eventusermodel.HSSFEventFactory;
+import org.apache.poi.hssf.eventusermodel.HSSFListener;
+import org.apache.poi.hssf.eventusermodel.HSSFRequest;
+import org.apache.poi.hssf.eventusermodel.MissingRecordAwareHSSFListener;
+import org.apache.poi.hssf.eventusermodel.dummyrecord.LastCellOfRowDummyRecord;
+import org.apache.poi.hssf.model.HSSFFormulaParser;
+import org.apache.poi.hssf.record.*;
+import org.apache.poi.poifs.filesystem.POIFSFileSystem;
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.ss.usermodel.FormulaError;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * HSSF event-model reader for legacy .xls sheets.
+ * <p>
+ * Records are pushed through a listener one at a time; nothing but the shared
+ * string table is retained between rows. All sheets live in a single BIFF stream,
+ * so they are visited one after another in a single pass.
+ */
+class XlsSheetReader {
+
+    /**
+     * Called as the pass reaches each worksheet.
+     */
+    interface SheetVisitor {
+
+        /** @return the handler for this sheet's rows, or {@code null} to skip the sheet */
+        SheetRowHandler startSheet(int index, String name) throws IOException;
+
+        void endSheet(int index) throws IOException;
+    }
+
+    /**
+     * Names of the worksheets in workbook order. Chart and macro sheets are left out,
+     * as {@link #readSheets} does, so indexes match between the two.
+     */
+    static List<String> sheetNames(Path workbook) throws IOException {
+        List<String> names = new ArrayList<>();
+        Substreams substreams = new Substreams();
+
+        try (POIFSFileSystem fs = new POIFSFileSystem(workbook.toFile(), true)) {
+            HSSFRequest request = new HSSFRequest();
+            // A BOF record's type is only known by reading up to it, so this is a full pass
+            request.addListenerForAllRecords(record -> {
+                String name = substreams.worksheetStarting(record);
+                if (name != null) names.add(name);
+            });
+            new HSSFEventFactory().processWorkbookEvents(request, fs);
+        }
+        return names;
+    }
+
+    /**
+     * Follows the BIFF substreams: workbook globals, then one per {@link BoundSheetRecord}
+     * in BOF position order. Charts embedded in a worksheet open nested BOF / EOF pairs
+     * inside its substream.
+     */
+    static final class Substreams {
+
+        private final List<BoundSheetRecord> boundSheets = new ArrayList<>();
+        private BoundSheetRecord[] orderedSheets;
+        private int depth;
+        // -1 while in the workbook globals
+        private int substream = -2;
+
+        /** @return the sheet name if {@code record} starts a worksheet substream, else {@code null} */
+        String worksheetStarting(org.apache.poi.hssf.record.Record record) {
+            switch (record) {
+                case BoundSheetRecord sheet -> boundSheets.add(sheet);
+                case BOFRecord bof -> {
+                    if (depth++ > 0) return null;
+                    substream++;
+                    if (bof.getType() != BOFRecord.TYPE_WORKSHEET) return null;
+
+                    if (orderedSheets == null) orderedSheets = BoundSheetRecord.orderByBofPosition(boundSheets);
+                    return substream >= 0 && substream < orderedSheets.length
+                            ? orderedSheets[substream].getSheetname()
+                            : "Sheet" + (substream + 1);
+                }
+                case EOFRecord ignored -> depth--;
+                default -> { }
+            }
+            return null;
+        }
+
+        /** Whether the last record ended a top-level substream. */
+        boolean atTopLevel() {
+            return depth == 0;
+        }
+    }
+
+    void readFirstSheet(Path workbook, SheetRowHandler handler) throws IOException {
+        readSheets(workbook, new SheetVisitor() {
+            @Override
+            public SheetRowHandler startSheet(int index, String name) {
+                return index == 0 ? handler : null;
+            }
+
+            @Override
+            public void endSheet(int index) {}
+        });
+    }
+
+    void readSheets(Path workbook, SheetVisitor visitor) throws IOException {
+        try (POIFSFileSystem fs = new POIFSFileSystem(workbook.toFile(), true)) {
+            RecordListener listener = new RecordListener(visitor);
+            FormatTrackingHSSFListener formats =
+                    new FormatTrackingHSSFListener(new MissingRecordAwareHSSFListener(listener));
+            SheetRecordCollectingListener workbookBuilder = new SheetRecordCollectingListener(formats);
+            listener.workbookBuilder = workbookBuilder;
+            listener.formats = formats;
+
+            HSSFRequest request = new HSSFRequest();
+            request.addListenerForAllRecords(workbookBuilder);
+
+            try {
+                new HSSFEventFactory().processWorkbookEvents(request, fs);
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        }
+    }
+
+    private static final class RecordListener implements HSSFListener {
+
+        private final SheetVisitor visitor;
+        private SheetRecordCollectingListener workbookBuilder;
+        private FormatTrackingHSSFListener formats;
+        private final Substreams substreams = new Substreams();
+        private SSTRecord sst;
+
+        private int sheetIndex = -1;
+        private boolean inSheet;
+        private SheetRowHandler handler;
+        private int nextColumn;
+        // Row of the cells written since the last endRow, -1 if none
+        private int openRow = -1;
+
+        RecordListener(SheetVisitor visitor) {
+            this.visitor = visitor;
+        }
+
+        @Override
+        public void processRecord(org.apache.poi.hssf.record.Record record) {
+            try {
+                handle(record);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private void handle(org.apache.poi.hssf.record.Record record) throws IOException {
+            String worksheet = substreams.worksheetStarting(record);
+            if (worksheet != null) {
+                startSheet(worksheet);
+                return;
+            }
+
+            switch (record) {
+                case EOFRecord ignored -> {
+                    if (inSheet && substreams.atTopLevel()) {
+                        inSheet = false;
+                        endRow();
+                        if (handler != null) visitor.endSheet(sheetIndex);
+                        handler = null;
+                    }
+                }
+                case SSTRecord sstRecord -> sst = sstRecord;
+                case LastCellOfRowDummyRecord end -> {
+                    // Rows without any cells are skipped, like the usermodel row iterator does.
+                    // At a row block boundary the marker can come after the next row's cells.
+                    if (end.getRow() == openRow) endRow();
+                }
+                case CellValueRecordInterface cell -> {
+                    if (handler != null) writeCell(cell, valueOf(record));
+                }
+                default -> { }
+            }
+        }
+
+        private void startSheet(String name) throws IOException {
+            sheetIndex++;
+            inSheet = true;
+            nextColumn = 0;
+            openRow = -1;
+            handler = visitor.startSheet(sheetIndex, name);
+        }
+
+        private void endRow() throws IOException {
+            if (openRow < 0) return;
+            handler.endRow();
+            openRow = -1;
+            nextColumn = 0;
+        }
+
+        private void writeCell(CellValueRecordInterface cell, String value) throws IOException {
+            if (openRow >= 0 && cell.getRow() != openRow) endRow();
+            openRow = cell.getRow();
+
+            int column = cell.getColumn();
+            while (nextColumn < column) handler.cell(nextColumn++, "", CellType.BLANK, false);
+            CellType type = typeOf(cell);
+            boolean date = type == CellType.NUMERIC
+                    && DateUtil.isADateFormat(formats.getFormatIndex(cell), formats.getFormatString(cell));
+            handler.cell(column, value, type, date);
+            nextColumn = column + 1;
+        }
+
+        private static CellType typeOf(CellValueRecordInterface cell) {
+            return switch (cell) {
+                case NumberRecord ignored -> CellType.NUMERIC;
+                case LabelSSTRecord ignored -> CellType.STRING;
+                case LabelRecord ignored -> CellType.STRING;
+                case BoolErrRecord be when be.isBoolean() -> CellType.BOOLEAN;
+                case BoolErrRecord ignored -> CellType.ERROR;
+                case FormulaRecord ignored -> CellType.FORMULA;
+                default -> CellType.BLANK;
+            };
+        }
+
+        private String valueOf(org.apache.poi.hssf.record.Record record) {
+            return switch (record) {
+                case NumberRecord num -> String.valueOf(num.getValue());
+                case LabelSSTRecord label -> sst.getString(label.getSSTIndex()).getString();
+                case LabelRecord label -> label.getValue();
+                // As Cell.getBooleanCellValue() appends in the in-memory converter
+                case BoolErrRecord be when be.isBoolean() -> String.valueOf(be.getBooleanValue());
+                case BoolErrRecord be -> "ERROR:" + FormulaError.forInt(be.getErrorValue()).getString();
+                case FormulaRecord formula -> HSSFFormulaParser.toFormulaString(
+                        workbookBuilder.getStubHSSFWorkbook(), formula.getParsedExpression());
+                default -> "";
+            };
+        }
+    }
+}
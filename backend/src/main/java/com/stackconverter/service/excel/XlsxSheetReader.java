@@ -0,0 +1,202 @@
+package com.stackconverter.service.excel;
+
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.openxml4j.opc.PackagePart;
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFCellStyle;
+import org.apache.poi.xssf.usermodel.XSSFComment;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * SAX based reader for .xlsx sheets.
+ * <p>
+ * Only the shared strings table and styles are loaded up front; sheet XML is
+ * parsed as a stream, so heap use does not grow with the number of rows.
+ * <p>
+ * Once open, different sheets may be read concurrently: sheet parts are separate
+ * ZIP entries, the shared tables are only read and each sheet gets its own formatter.
+ */
+class XlsxSheetReader implements Closeable {
+
+    private final OPCPackage pkg;
+    private final ReadOnlySharedStringsTable strings;
+    private final StylesTable styles;
+    private final List<String> sheetNames = new ArrayList<>();
+    private final List<PackagePart> sheetParts = new ArrayList<>();
+    // Style index → whether its number format is a date, shared by concurrent sheet readers
+    private final Map<Integer, Boolean> dateStyles = new ConcurrentHashMap<>();
+
+    XlsxSheetReader(Path workbook) throws Exception {
+        this.pkg = OPCPackage.open(workbook.toFile(), PackageAccess.READ);
+        try {
+            this.strings = new ReadOnlySharedStringsTable(pkg, false);
+            XSSFReader reader = new XSSFReader(pkg);
+            this.styles = reader.getStylesTable();
+
+            XSSFReader.SheetIterator sheets = (XSSFReader.SheetIterator) reader.getSheetsData();
+            while (sheets.hasNext()) {
+                // next() opens the part; only its name and location are needed here
+                sheets.next().close();
+                sheetNames.add(sheets.getSheetName());
+                sheetParts.add(sheets.getSheetPart());
+            }
+        } catch (Exception e) {
+            pkg.revert();
+            throw e;
+        }
+    }
+
+    List<String> sheetNames() {
+        return sheetNames;
+    }
+
+    void readSheet(int index, SheetRowHandler handler) throws Exception {
+        try (InputStream sheet = sheetParts.get(index).getInputStream()) {
+            XMLReader parser = XMLHelper.newXMLReader();
+            parser.setContentHandler(new TypedSheetHandler(new RowAdapter(handler)));
+            parser.parse(new InputSource(sheet));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Writes numbers the same way {@code Cell.getNumericCellValue()} does in the
+     * in-memory converter, instead of applying the cell's display format.
+     * DataFormatter caches formats in plain maps, so each sheet gets its own.
+     */
+    private static DataFormatter rawValues() {
+        return new DataFormatter() {
+            @Override
+            public String formatRawCellContents(double value, int formatIndex, String formatString) {
+                return String.valueOf(value);
+            }
+        };
+    }
+
+    @Override
+    public void close() {
+        // Opened read-only: revert releases the file without trying to save
+        pkg.revert();
+    }
+
+    /**
+     * Notes each cell's {@code t} (type) and {@code s} (style) attributes and whether it has
+     * a formula, which POI's handler does not pass on, before letting it parse the cell.
+     */
+    private final class TypedSheetHandler extends XSSFSheetXMLHandler {
+
+        private final RowAdapter adapter;
+
+        TypedSheetHandler(RowAdapter adapter) {
+            super(styles, null, strings, adapter, rawValues(), true);
+            this.adapter = adapter;
+        }
+
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes attributes)
+                throws SAXException {
+            switch (localName) {
+                case "c" -> {
+                    CellType type = switch (String.valueOf(attributes.getValue("t"))) {
+                        case "b" -> CellType.BOOLEAN;
+                        case "e" -> CellType.ERROR;
+                        case "s", "inlineStr", "str", "d" -> CellType.STRING;
+                        default -> CellType.NUMERIC;
+                    };
+                    String style = attributes.getValue("s");
+                    adapter.type = type;
+                    adapter.date = type == CellType.NUMERIC && style != null && isDateStyle(Integer.parseInt(style));
+                }
+                case "f" -> adapter.type = CellType.FORMULA;
+                default -> { }
+            }
+            super.startElement(uri, localName, qName, attributes);
+        }
+
+        private boolean isDateStyle(int index) {
+            return dateStyles.computeIfAbsent(index, i -> {
+                XSSFCellStyle style = styles.getStyleAt(i);
+                return style != null && DateUtil.isADateFormat(style.getDataFormat(), style.getDataFormatString());
+            });
+        }
+    }
+
+    /**
+     * Bridges POI's cell-reference callbacks to column-indexed {@link SheetRowHandler} calls.
+     */
+    private static final class RowAdapter implements XSSFSheetXMLHandler.SheetContentsHandler {
+
+        private final SheetRowHandler handler;
+        private int nextColumn;
+        // Of the cell being parsed, set by TypedSheetHandler
+        private CellType type = CellType.NUMERIC;
+        private boolean date;
+
+        RowAdapter(SheetRowHandler handler) {
+            this.handler = handler;
+        }
+
+        @Override
+        public void startRow(int rowNum) {
+            nextColumn = 0;
+        }
+
+        @Override
+        public void endRow(int rowNum) {
+            try {
+                handler.endRow();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public void cell(String cellReference, String formattedValue, XSSFComment comment) {
+            int column = cellReference == null ? nextColumn : columnOf(cellReference);
+            try {
+                // Fill skipped cells so column positions are preserved
+                while (nextColumn < column) handler.cell(nextColumn++, "", CellType.BLANK, false);
+                String value = formattedValue == null ? "" : formattedValue;
+                // POI's handler writes TRUE / FALSE; the in-memory converter true / false
+                if (type == CellType.BOOLEAN) value = String.valueOf(value.equals("TRUE"));
+                handler.cell(column, value, type, date);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            nextColumn = column + 1;
+        }
+
+        // "AB12" → 27 without allocating a CellReference per cell
+        private static int columnOf(String ref) {
+            int col = 0;
+            for (int i = 0; i < ref.length(); i++) {
+                char c = ref.charAt(i);
+                if (c < 'A' || c > 'Z') break;
+                col = col * 26 + (c - 'A' + 1);
+            }
+            return col - 1;
+        }
+    }
+}
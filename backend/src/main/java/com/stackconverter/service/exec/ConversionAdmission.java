@@ -0,0 +1,221 @@
+package com.stackconverter.service.exec;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Runs whole CPU-heavy conversions on a bounded pool of platform threads and turns
+ * requests away once it is saturated, instead of queueing them without limit.
+ * <p>
+ * Requests are handled on virtual threads ({@code spring.threads.virtual.enabled}),
+ * which park cheaply while an upload trickles in but share one carrier thread per
+ * core: a conversion crunching on one would pin its carrier and starve every other
+ * request, {@code /health} included. Handlers therefore {@link #admit()} heavy work
+ * here and park until it is done. Streamed responses are converted here too, but sent
+ * from the request thread, so slow clients do not hold the pool.
+ * <p>
+ * At most {@code threads} conversions run and {@code max-queued} wait. Beyond that
+ * {@link #admit()} fails fast with a {@link ConversionRejectedException} carrying a
+ * retry delay estimated from recent conversion times.
+ * <p>
+ * Separate from {@link ConversionExecutor}: conversions running here hand their
+ * pieces to that pool and wait for them, which could deadlock on a shared pool.
+ */
+@Component
+public class ConversionAdmission implements DisposableBean {
+
+    private static final long MAX_RETRY_AFTER_SECONDS = 60;
+
+    private final ThreadPoolExecutor pool;
+    private final Semaphore slots;
+    private final int threads;
+    private final int maxQueued;
+    private final long spillThreshold;
+    private final Counter rejected;
+
+    // Moving average of conversion times; lost updates between threads are harmless
+    private volatile double meanNanos = TimeUnit.SECONDS.toNanos(1);
+
+    public ConversionAdmission(
+            @Value("${stackconverter.admission.threads:0}") int threads,
+            @Value("${stackconverter.admission.max-queued:32}") int maxQueued,
+            @Value("${stackconverter.admission.spill-threshold:4MB}") DataSize spillThreshold,
+            MeterRegistry registry) {
+        if (maxQueued < 0) throw new IllegalArgumentException("stackconverter.admission.max-queued must not be negative");
+        this.threads = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        this.maxQueued = maxQueued;
+        this.spillThreshold = spillThreshold.toBytes();
+        // Unbounded queue, but never more than threads + maxQueued tasks thanks to the slots
+        this.pool = new ThreadPoolExecutor(
+                this.threads, this.threads, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(),
+                new CustomizableThreadFactory("cpu-"));
+        this.slots = new Semaphore(this.threads + maxQueued);
+
+        // executor.active / executor.queued / executor.completed{name="admission"}
+        new ExecutorServiceMetrics(pool, "admission", List.of()).bindTo(registry);
+        this.rejected = Counter.builder("stackconverter.admission.rejected")
+                .description("Conversions turned away with 429")
+                .register(registry);
+    }
+
+    /**
+     * Reserve a running or waiting slot without blocking.
+     *
+     * @throws ConversionRejectedException if every slot is taken
+     */
+    public Permit admit() {
+        if (!slots.tryAcquire()) {
+            rejected.increment();
+            throw new ConversionRejectedException(retryAfterSeconds());
+        }
+        return new Permit();
+    }
+
+    /** Conversions running or waiting. */
+    public int inFlight() {
+        return threads + maxQueued - slots.availablePermits();
+    }
+
+    // Roughly when the current backlog will have drained
+    private long retryAfterSeconds() {
+        double backlog = meanNanos * (1 + (double) maxQueued / threads);
+        long seconds = (long) Math.ceil(backlog / TimeUnit.SECONDS.toNanos(1));
+        return Math.max(1, Math.min(MAX_RETRY_AFTER_SECONDS, seconds));
+    }
+
+    @Override
+    public void destroy() {
+        pool.shutdownNow();
+    }
+
+    /**
+     * One admitted conversion. Closing it gives the slot back; {@link #stream} does so
+     * itself once the response has been converted.
+     */
+    public final class Permit implements AutoCloseable {
+
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Permit() {}
+
+        /**
+         * Run {@code work} on the pool and wait for it, rethrowing whatever it throws.
+         */
+        public <T> T call(Callable<T> work) throws Exception {
+            Future<T> result = pool.submit(() -> {
+                long start = System.nanoTime();
+                try {
+                    return work.call();
+                } finally {
+                    double elapsed = System.nanoTime() - start;
+                    meanNanos += (elapsed - meanNanos) / 8;
+                }
+            });
+            try {
+                return result.get();
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof Exception cause) throw cause;
+                throw e;
+            } catch (InterruptedException e) {
+                result.cancel(true);
+                throw e;
+            }
+        }
+
+        /**
+         * Convert {@code body} on the pool while the request thread that Spring hands the
+         * returned body to sends it. The slot is released as soon as the conversion is
+         * done: a slow client only holds its own request thread, with whatever it has not
+         * read yet buffered on the heap and then in a temp file.
+         * <p>
+         * {@code body} runs after the handler has returned, when the multipart upload may
+         * already be cleaned up: open whatever it reads before returning. Validate the
+         * upload in a first pass through {@link #call} beforehand, so errors can still be
+         * answered with a status code instead of a broken stream.
+         * <p>
+         * Spring may never run the returned body, for instance when the request times out
+         * or fails first. Whoever serves it must therefore {@link StreamedConversion#close
+         * close} it once the request is over.
+         */
+        public StreamedConversion stream(StreamingResponseBody body) {
+            return new StreamedConversion(this, body);
+        }
+
+        @Override
+        public void close() {
+            if (released.compareAndSet(false, true)) slots.release();
+        }
+    }
+
+    /**
+     * A response converted on the pool by {@link Permit#stream}. Closing it when the
+     * request is over gives the slot back if the conversion never started, and makes a
+     * conversion still running fail on its next write.
+     */
+    public final class StreamedConversion implements StreamingResponseBody, AutoCloseable {
+
+        private final Permit permit;
+        private final StreamingResponseBody body;
+        private final ResponseSpill spill = new ResponseSpill(spillThreshold);
+        private final AtomicBoolean started = new AtomicBoolean();
+        private volatile Future<?> converting;
+
+        private StreamedConversion(Permit permit, StreamingResponseBody body) {
+            this.permit = permit;
+            this.body = body;
+        }
+
+        @Override
+        public void writeTo(OutputStream out) throws IOException {
+            converting = pool.submit(() -> {
+                if (!started.compareAndSet(false, true)) return;
+                long start = System.nanoTime();
+                try (permit; OutputStream converted = spill.output()) {
+                    body.writeTo(converted);
+                    converted.flush();
+                    spill.finish(null);
+                } catch (Throwable e) {
+                    spill.finish(e);
+                } finally {
+                    double elapsed = System.nanoTime() - start;
+                    meanNanos += (elapsed - meanNanos) / 8;
+                }
+            });
+            try {
+                spill.drainTo(out);
+            } finally {
+                close();
+            }
+        }
+
+        @Override
+        public void close() {
+            // Still queued, or never submitted: it will never run now, so give its slot back here
+            if (started.compareAndSet(false, true)) permit.close();
+            // Running: its next write fails. Interrupts are a bonus; most parsers ignore them
+            spill.abandon();
+            Future<?> running = converting;
+            if (running != null) running.cancel(true);
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.stackconverter.service.exec;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounded worker pool for CPU-heavy pieces of a conversion (sheets, chunks, batch items).
+ * <p>
+ * Sized to the number of cores by default. When the queue is full the submitting
+ * thread runs the task itself, which throttles producers instead of growing the queue.
+ * <p>
+ * Deliberately not exposed as an {@code Executor} bean so it does not replace
+ * Spring Boot's application task executor used for async MVC responses.
+ */
+@Component
+public class ConversionExecutor implements DisposableBean {
+
+    private final ThreadPoolExecutor pool;
+
+    public ConversionExecutor(
+            @Value("${stackconverter.conversion.pool-size:0}") int poolSize,
+            @Value("${stackconverter.conversion.queue-capacity:256}") int queueCapacity) {
+        int threads = poolSize > 0 ? poolSize : Runtime.getRuntime().availableProcessors();
+        this.pool = new ThreadPoolExecutor(
+                threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                new CustomizableThreadFactory("convert-"),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    public <T> Future<T> submit(Callable<T> task) {
+        return pool.submit(task);
+    }
+
+    /** Number of worker threads. */
+    public int parallelism() {
+        return pool.getMaximumPoolSize();
+    }
+
+    @Override
+    public void destroy() {
+        pool.shutdownNow();
+    }
+}
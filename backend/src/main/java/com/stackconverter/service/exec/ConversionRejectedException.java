@@ -0,0 +1,19 @@
+package com.stackconverter.service.exec;
+
+/**
+ * Thrown when {@link ConversionAdmission} has no running or waiting slot left; the
+ * request should be answered with 429 and a {@code Retry-After} header.
+ */
+public class ConversionRejectedException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public ConversionRejectedException(long retryAfterSeconds) {
+        super("Server busy, retry in " + retryAfterSeconds + " s");
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long retryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
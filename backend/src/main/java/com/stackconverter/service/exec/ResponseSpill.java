@@ -0,0 +1,201 @@
+package com.stackconverter.service.exec;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+
+/**
+ * Hands a response from the thread converting it to the thread sending it, without
+ * ever making the converting thread wait for the client.
+ * <p>
+ * Up to {@code memoryLimit} bytes queue on the heap; once the reader falls that far
+ * behind, the rest goes to a temp file it catches up from. The file is deleted when
+ * the reader is done.
+ */
+final class ResponseSpill {
+
+    private static final int CHUNK = 64 * 1024;
+
+    private final long memoryLimit;
+    private final ArrayDeque<byte[]> chunks = new ArrayDeque<>();
+    private long queuedBytes;
+
+    // Once opened, everything after the queued chunks goes through the file
+    private FileChannel file;
+    private long fileWritten;
+    private long fileRead;
+
+    private boolean finished;
+    private Throwable failure;
+    // Also read without the lock, so the writer notices on every write, not every chunk
+    private volatile boolean abandoned;
+
+    ResponseSpill(long memoryLimit) {
+        this.memoryLimit = memoryLimit;
+    }
+
+    /**
+     * The writing side. {@code close()} does not {@link #finish} it. Once the reader is
+     * {@link #abandon abandoned}, every write fails.
+     */
+    OutputStream output() {
+        return new OutputStream() {
+            private byte[] chunk = new byte[CHUNK];
+            private int length;
+
+            @Override
+            public void write(int b) throws IOException {
+                if (abandoned) throw new IOException("Client went away");
+                if (length == chunk.length) flush();
+                chunk[length++] = (byte) b;
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                if (abandoned) throw new IOException("Client went away");
+                while (len > 0) {
+                    if (length == chunk.length) flush();
+                    int n = Math.min(len, chunk.length - length);
+                    System.arraycopy(b, off, chunk, length, n);
+                    length += n;
+                    off += n;
+                    len -= n;
+                }
+            }
+
+            @Override
+            public void flush() throws IOException {
+                if (length == 0) return;
+                byte[] full = length == chunk.length ? chunk : Arrays.copyOf(chunk, length);
+                boolean queued = append(full);
+                if (queued && full == chunk) chunk = new byte[CHUNK];
+                length = 0;
+            }
+
+            @Override
+            public void close() throws IOException {
+                flush();
+            }
+        };
+    }
+
+    // True if the chunk was queued as is, false if it was copied to the file
+    private boolean append(byte[] chunk) throws IOException {
+        FileChannel target;
+        long position;
+        synchronized (this) {
+            if (abandoned) throw new IOException("Client went away");
+            if (file == null && queuedBytes + chunk.length <= memoryLimit) {
+                chunks.add(chunk);
+                queuedBytes += chunk.length;
+                notifyAll();
+                return true;
+            }
+            if (file == null) file = openFile();
+            target = file;
+            position = fileWritten;
+        }
+        // Only this thread writes, and only past what the reader may read
+        ByteBuffer buffer = ByteBuffer.wrap(chunk);
+        while (buffer.hasRemaining()) position += target.write(buffer, position);
+        synchronized (this) {
+            fileWritten = position;
+            notifyAll();
+        }
+        return false;
+    }
+
+    private static FileChannel openFile() throws IOException {
+        Path path = Files.createTempFile("stackconverter-response-", ".part");
+        return FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE,
+                StandardOpenOption.DELETE_ON_CLOSE);
+    }
+
+    /** End of the response; {@code failure} is rethrown by the reader after what came before it. */
+    synchronized void finish(Throwable failure) {
+        this.finished = true;
+        this.failure = failure;
+        notifyAll();
+    }
+
+    /**
+     * Copy everything written to {@code out} until the writing side finishes, then drop
+     * whatever is left. Writes after that fail, which stops a conversion whose client
+     * went away.
+     */
+    void drainTo(OutputStream out) throws IOException {
+        ByteBuffer buffer = null;
+        try {
+            while (true) {
+                byte[] chunk = null;
+                FileChannel source = null;
+                long position = 0, available = 0;
+                synchronized (this) {
+                    while (chunks.isEmpty() && fileRead == fileWritten && !finished && !abandoned) {
+                        try {
+                            wait();
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            throw new InterruptedIOException();
+                        }
+                    }
+                    if (abandoned) {
+                        throw new IOException("Response abandoned");
+                    } else if (!chunks.isEmpty()) {
+                        chunk = chunks.poll();
+                        queuedBytes -= chunk.length;
+                    } else if (fileRead < fileWritten) {
+                        source = file;
+                        position = fileRead;
+                        available = fileWritten - fileRead;
+                    } else if (failure instanceof IOException e) {
+                        throw e;
+                    } else if (failure != null) {
+                        throw new IOException(failure.getMessage(), failure);
+                    } else {
+                        return;
+                    }
+                }
+
+                if (chunk != null) {
+                    out.write(chunk);
+                    continue;
+                }
+                if (buffer == null) buffer = ByteBuffer.allocate(CHUNK);
+                buffer.clear().limit((int) Math.min(CHUNK, available));
+                int n = source.read(buffer, position);
+                synchronized (this) {
+                    fileRead += n;
+                }
+                out.write(buffer.array(), 0, n);
+            }
+        } finally {
+            abandon();
+        }
+    }
+
+    /** Drop everything not read yet; later writes fail, and so does a reader still waiting. */
+    void abandon() {
+        FileChannel spilled;
+        synchronized (this) {
+            abandoned = true;
+            chunks.clear();
+            queuedBytes = 0;
+            spilled = file;
+            notifyAll();
+        }
+        // Deletes the file; a write still in progress fails with ClosedChannelException
+        try {
+            if (spilled != null) spilled.close();
+        } catch (IOException e) {
+            // The channel is unusable either way, and nothing else refers to the file
+        }
+    }
+}
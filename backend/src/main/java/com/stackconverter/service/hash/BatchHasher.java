@@ -0,0 +1,272 @@
+package com.stackconverter.service.hash;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.stackconverter.service.csv.CsvWriter;
+import com.stackconverter.service.exec.ConversionExecutor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32C;
+
+/**
+ * Hashes (or HMACs) every line of a newline-delimited upload and streams one result
+ * per line, in input order.
+ * <p>
+ * Input is cut into chunks of whole lines. Each chunk is hashed and already formatted
+ * on the conversion pool, at most {@code max-in-flight} chunks at a time, and the
+ * writer only copies finished chunks out in order. Results therefore start flowing
+ * while the upload is still being read, and memory stays bounded by the window.
+ * <p>
+ * Lines are hashed as raw bytes (UTF-8 as uploaded) without a trailing {@code \r};
+ * blank lines are skipped.
+ */
+@Service
+public class BatchHasher {
+
+    public enum Format { NDJSON, CSV }
+
+    /** Hashes one line at a time; one instance per chunk, so it need not be thread-safe. */
+    @FunctionalInterface
+    private interface LineHasher {
+        /** @return number of digest bytes written to {@code out} */
+        int hash(byte[] data, int offset, int length, byte[] out) throws GeneralSecurityException;
+    }
+
+    private record Chunk(byte[] data, int length) {}
+
+    private static final byte[] HEX_DIGITS = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+
+    private final DigestEngine digests;
+    private final ConversionExecutor executor;
+    private final int chunkSize;
+    private final int maxInFlight;
+
+    private final JsonFactory jsonFactory = new JsonFactory();
+
+    public BatchHasher(
+            DigestEngine digests,
+            ConversionExecutor executor,
+            @Value("${stackconverter.hash.batch.chunk-size:65536}") int chunkSize,
+            @Value("${stackconverter.hash.batch.max-in-flight:0}") int maxInFlight) {
+        if (chunkSize <= 0) throw new IllegalArgumentException("stackconverter.hash.batch.chunk-size must be positive");
+        this.digests = digests;
+        this.executor = executor;
+        this.chunkSize = chunkSize;
+        this.maxInFlight = maxInFlight > 0 ? maxInFlight : 2 * executor.parallelism();
+    }
+
+    /**
+     * Check the algorithm / key combination before anything is streamed.
+     *
+     * @param hmacKey {@code null} for plain hashing
+     * @throws IllegalArgumentException if the algorithm has no HMAC or the key is empty
+     */
+    public static void validate(HashAlgorithm algorithm, byte[] hmacKey) {
+        if (hmacKey == null) return;
+        if (algorithm.hmacName() == null) {
+            throw new IllegalArgumentException("HMAC is not available for " + algorithm.displayName());
+        }
+        if (hmacKey.length == 0) throw new IllegalArgumentException("HMAC key must not be empty");
+    }
+
+    /**
+     * Stream {@code input,hash} results for every line of {@code in} to {@code out}:
+     * NDJSON objects or CSV records after an {@code input,hash} header.
+     *
+     * @param hmacKey {@code null} for plain hashing
+     */
+    public void write(InputStream in, HashAlgorithm algorithm, byte[] hmacKey, Format format, OutputStream out)
+            throws Exception {
+        validate(algorithm, hmacKey);
+        Mac hmac = hmacKey != null ? newMac(algorithm, hmacKey) : null;
+
+        if (format == Format.CSV) out.write("input,hash\n".getBytes(StandardCharsets.US_ASCII));
+
+        LineChunks chunks = new LineChunks(in, chunkSize);
+        ArrayDeque<Future<byte[]>> window = new ArrayDeque<>();
+        try {
+            Chunk chunk;
+            while ((chunk = chunks.next()) != null) {
+                Chunk current = chunk;
+                window.add(executor.submit(() -> hashChunk(current, algorithm, hmac, format)));
+
+                if (window.size() >= maxInFlight) out.write(await(window.poll()));
+            }
+            while (!window.isEmpty()) out.write(await(window.poll()));
+        } finally {
+            for (Future<byte[]> pending : window) pending.cancel(true);
+        }
+        out.flush();
+    }
+
+    // Runs on a worker: hashes and formats all lines of the chunk
+    private byte[] hashChunk(Chunk chunk, HashAlgorithm algorithm, Mac hmac, Format format) throws Exception {
+        if (hmac != null) {
+            Mac mac = (Mac) hmac.clone();
+            return formatChunk(chunk, format, (data, offset, length, out) -> {
+                mac.update(data, offset, length);
+                mac.doFinal(out, 0);
+                return mac.getMacLength();
+            });
+        }
+        if (algorithm == HashAlgorithm.CRC32C) {
+            CRC32C crc = new CRC32C();
+            return formatChunk(chunk, format, (data, offset, length, out) -> {
+                crc.reset();
+                crc.update(data, offset, length);
+                System.arraycopy(Crc32c.toBytes((int) crc.getValue()), 0, out, 0, 4);
+                return 4;
+            });
+        }
+        return digests.withDigest(algorithm, (MessageDigest digest) -> formatChunk(chunk, format,
+                (data, offset, length, out) -> {
+                    digest.update(data, offset, length);
+                    return digest.digest(out, 0, out.length);
+                }));
+    }
+
+    private byte[] formatChunk(Chunk chunk, Format format, LineHasher hasher) throws Exception {
+        byte[] data = chunk.data();
+        byte[] digest = new byte[64];
+        byte[] hex = new byte[128];
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(chunk.length() * 3);
+
+        JsonGenerator json = null;
+        CsvWriter csv = null;
+        if (format == Format.NDJSON) {
+            json = jsonFactory.createGenerator(buffer);
+            json.setRootValueSeparator(null);
+        } else {
+            csv = new CsvWriter(new OutputStreamWriter(buffer, StandardCharsets.UTF_8));
+        }
+
+        int start = 0;
+        while (start < chunk.length()) {
+            int end = start;
+            while (end < chunk.length() && data[end] != '\n') end++;
+            int next = end + 1;
+            if (end > start && data[end - 1] == '\r') end--;
+
+            if (end > start) {
+                int hexLength = toHex(digest, hasher.hash(data, start, end - start, digest), hex);
+                if (json != null) {
+                    json.writeStartObject();
+                    json.writeFieldName("input");
+                    json.writeUTF8String(data, start, end - start);
+                    json.writeFieldName("hash");
+                    json.writeRawUTF8String(hex, 0, hexLength);
+                    json.writeEndObject();
+                    json.writeRaw('\n');
+                } else {
+                    csv.field(new String(data, start, end - start, StandardCharsets.UTF_8));
+                    csv.field(new String(hex, 0, hexLength, StandardCharsets.US_ASCII));
+                    csv.endRecord();
+                }
+            }
+            start = next;
+        }
+
+        if (json != null) json.close();
+        else csv.close();
+        return buffer.toByteArray();
+    }
+
+    private static int toHex(byte[] bytes, int length, byte[] out) {
+        for (int i = 0; i < length; i++) {
+            out[2 * i] = HEX_DIGITS[(bytes[i] >> 4) & 0xF];
+            out[2 * i + 1] = HEX_DIGITS[bytes[i] & 0xF];
+        }
+        return 2 * length;
+    }
+
+    private static Mac newMac(HashAlgorithm algorithm, byte[] key) throws GeneralSecurityException {
+        Mac mac = Mac.getInstance(algorithm.hmacName());
+        mac.init(new SecretKeySpec(key, algorithm.hmacName()));
+        return mac;
+    }
+
+    private static <T> T await(Future<T> result) throws Exception {
+        try {
+            return result.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception cause) throw cause;
+            throw e;
+        }
+    }
+
+    /**
+     * Reads the upload in blocks cut after the last line break, carrying the partial
+     * last line over to the next block. Blocks grow only for lines longer than a block.
+     */
+    private static final class LineChunks {
+
+        private final InputStream in;
+        private final int chunkSize;
+        private byte[] carry = new byte[0];
+        private int carryLength;
+        private boolean first = true;
+        private boolean eof;
+
+        LineChunks(InputStream in, int chunkSize) {
+            this.in = in;
+            this.chunkSize = chunkSize;
+        }
+
+        Chunk next() throws IOException {
+            byte[] data = new byte[Math.max(chunkSize, 2 * carryLength)];
+            System.arraycopy(carry, 0, data, 0, carryLength);
+            int length = carryLength;
+            int searched = 0;
+
+            while (true) {
+                while (!eof && length < data.length) {
+                    int read = in.read(data, length, data.length - length);
+                    if (read < 0) eof = true;
+                    else length += read;
+                }
+                if (first) {
+                    first = false;
+                    // UTF-8 byte order mark, not part of the first value
+                    if (length >= 3 && (data[0] & 0xFF) == 0xEF && (data[1] & 0xFF) == 0xBB && (data[2] & 0xFF) == 0xBF) {
+                        System.arraycopy(data, 3, data, 0, length - 3);
+                        length -= 3;
+                        continue;
+                    }
+                }
+
+                if (eof) {
+                    carryLength = 0;
+                    return length > 0 ? new Chunk(data, length) : null;
+                }
+
+                int cut = length - 1;
+                while (cut >= searched && data[cut] != '\n') cut--;
+                if (cut >= searched) {
+                    carryLength = length - cut - 1;
+                    if (carry.length < carryLength) carry = new byte[Math.max(carryLength, chunkSize / 4)];
+                    System.arraycopy(data, cut + 1, carry, 0, carryLength);
+                    return new Chunk(data, cut + 1);
+                }
+
+                // A single line longer than the block
+                searched = length;
+                data = Arrays.copyOf(data, data.length * 2);
+            }
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.stackconverter.service.hash;
+
+/**
+ * Joins CRC32C values of consecutive pieces into the CRC32C of the whole, so pieces
+ * can be checksummed in parallel (the zlib {@code crc32_combine} method, with the
+ * Castagnoli polynomial).
+ */
+final class Crc32c {
+
+    // Reflected Castagnoli polynomial
+    private static final int POLYNOMIAL = 0x82F63B78;
+
+    private Crc32c() {}
+
+    /**
+     * @param first  CRC32C of the first piece
+     * @param second CRC32C of the second piece
+     * @param secondLength length of the second piece in bytes
+     * @return CRC32C of both pieces one after the other
+     */
+    static int combine(int first, int second, long secondLength) {
+        if (secondLength <= 0) return first;
+
+        // Operator for one zero bit, then squared into operators for 2, 4, 8, ... zero bits
+        int[] odd = new int[32];
+        int[] even = new int[32];
+        odd[0] = POLYNOMIAL;
+        for (int n = 1, row = 1; n < 32; n++, row <<= 1) odd[n] = row;
+        square(even, odd);
+        square(odd, even);
+
+        // Append secondLength zero bytes to the first CRC, one bit of the length at a time
+        int crc = first;
+        long remaining = secondLength;
+        do {
+            square(even, odd);
+            if ((remaining & 1) != 0) crc = times(even, crc);
+            remaining >>= 1;
+            if (remaining == 0) break;
+
+            square(odd, even);
+            if ((remaining & 1) != 0) crc = times(odd, crc);
+            remaining >>= 1;
+        } while (remaining != 0);
+
+        return crc ^ second;
+    }
+
+    /** Big-endian bytes, as CRC values are usually printed. */
+    static byte[] toBytes(int crc) {
+        return new byte[]{(byte) (crc >>> 24), (byte) (crc >>> 16), (byte) (crc >>> 8), (byte) crc};
+    }
+
+    private static int times(int[] matrix, int vector) {
+        int sum = 0;
+        for (int i = 0; vector != 0; i++, vector >>>= 1) {
+            if ((vector & 1) != 0) sum ^= matrix[i];
+        }
+        return sum;
+    }
+
+    private static void square(int[] result, int[] matrix) {
+        for (int n = 0; n < 32; n++) result[n] = times(matrix, matrix[n]);
+    }
+}
@@ -0,0 +1,79 @@
+package com.stackconverter.service.hash;
+
+import com.stackconverter.service.pool.ObjectPool;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.EnumMap;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.zip.CRC32C;
+
+/**
+ * One-shot hashing of small inputs with pooled {@link MessageDigest}s.
+ * <p>
+ * Each algorithm is looked up through the security providers once; pooled instances
+ * are clones of that prototype and are {@link MessageDigest#reset() reset} on return,
+ * so a call costs the input bytes, the digest and its hex string.
+ */
+@Component
+public class DigestEngine {
+
+    private static final HexFormat HEX = HexFormat.of();
+
+    private final Map<HashAlgorithm, ObjectPool<MessageDigest>> digests = new EnumMap<>(HashAlgorithm.class);
+
+    public DigestEngine(@Value("${stackconverter.hash.digest-pool-size:0}") int poolSize) {
+        int capacity = poolSize > 0 ? poolSize : 2 * Runtime.getRuntime().availableProcessors();
+
+        for (HashAlgorithm algorithm : HashAlgorithm.values()) {
+            if (algorithm == HashAlgorithm.CRC32C) continue;
+            MessageDigest prototype = newDigest(algorithm);
+            digests.put(algorithm, new ObjectPool<>(capacity, () -> copyOf(prototype), MessageDigest::reset));
+        }
+    }
+
+    /**
+     * Run {@code work} with a pooled digest, e.g. to hash many values in a row.
+     * The digest must be left without pending input.
+     */
+    public <R, E extends Exception> R withDigest(
+            HashAlgorithm algorithm, ObjectPool.Work<MessageDigest, R, E> work) throws E {
+        if (algorithm == HashAlgorithm.CRC32C) throw new IllegalArgumentException("CRC32C is not a MessageDigest");
+        return digests.get(algorithm).with(work);
+    }
+
+    public byte[] digest(HashAlgorithm algorithm, byte[] input) {
+        if (algorithm == HashAlgorithm.CRC32C) {
+            CRC32C crc = new CRC32C();
+            crc.update(input);
+            return Crc32c.toBytes((int) crc.getValue());
+        }
+        return digests.get(algorithm).with(digest -> digest.digest(input));
+    }
+
+    /** Lower-case hex digest of the UTF-8 bytes of {@code input}. */
+    public String digestHex(HashAlgorithm algorithm, String input) {
+        return HEX.formatHex(digest(algorithm, input.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static MessageDigest newDigest(HashAlgorithm algorithm) {
+        try {
+            return MessageDigest.getInstance(algorithm.displayName());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // The prototype is never used itself, so cloning it concurrently is safe
+    private static MessageDigest copyOf(MessageDigest prototype) {
+        try {
+            return (MessageDigest) prototype.clone();
+        } catch (CloneNotSupportedException e) {
+            return newDigest(HashAlgorithm.of(prototype.getAlgorithm()));
+        }
+    }
+}
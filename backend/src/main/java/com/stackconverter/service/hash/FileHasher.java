@@ -0,0 +1,274 @@
+package com.stackconverter.service.hash;
+
+import com.stackconverter.service.exec.ConversionExecutor;
+import com.stackconverter.service.hash.HashAlgorithm.Hasher;
+import com.stackconverter.service.pool.ObjectPool;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/**
+ * Computes several checksums of an upload in a single read.
+ * <p>
+ * {@link #hash Sequential} mode reads into two pooled direct buffers in turn: while
+ * one is being filled, every requested algorithm consumes the other, each on its own
+ * conversion worker when more than one is requested. Results are the standard digests.
+ * <p>
+ * {@link #hashTree Tree} mode cuts the upload into fixed-size leaves and hashes
+ * leaves concurrently, so a single algorithm can use every core. A digest's tree
+ * result is the digest of its leaf digests concatenated in order, which only
+ * matches other tree results with the same leaf size. CRC32C leaves are combined
+ * arithmetically, so CRC32C is identical in both modes.
+ * <p>
+ * Both modes also take a {@link ByteBuffer}, such as a mapped upload, which is hashed
+ * in place without read buffers.
+ */
+@Service
+public class FileHasher {
+
+    /**
+     * @param size    bytes read
+     * @param digests per algorithm, in the requested order
+     */
+    public record FileDigests(long size, Map<HashAlgorithm, byte[]> digests) {}
+
+    private record Leaf(long length, byte[][] digests) {}
+
+    private final ConversionExecutor executor;
+    private final ObjectPool<ByteBuffer> buffers;
+    private final ObjectPool<ByteBuffer> leafBuffers;
+    private final int leafSize;
+    private final int maxLeavesInFlight;
+
+    public FileHasher(
+            ConversionExecutor executor,
+            @Value("${stackconverter.hash.buffer-size:262144}") int bufferSize,
+            @Value("${stackconverter.hash.tree.leaf-size:4194304}") int leafSize) {
+        if (bufferSize <= 0 || leafSize <= 0) throw new IllegalArgumentException("Hash buffer sizes must be positive");
+
+        this.executor = executor;
+        this.leafSize = leafSize;
+        this.maxLeavesInFlight = executor.parallelism() + 1;
+        this.buffers = new ObjectPool<>(2 * executor.parallelism(),
+                () -> ByteBuffer.allocateDirect(bufferSize), ByteBuffer::clear);
+        this.leafBuffers = new ObjectPool<>(maxLeavesInFlight,
+                () -> ByteBuffer.allocateDirect(leafSize), ByteBuffer::clear);
+    }
+
+    /** Leaf size used by {@link #hashTree}. */
+    public int leafSize() {
+        return leafSize;
+    }
+
+    /**
+     * Standard digests of everything {@code in} delivers.
+     */
+    public FileDigests hash(InputStream in, List<HashAlgorithm> algorithms) throws Exception {
+        List<Hasher> hashers = algorithms.stream().map(HashAlgorithm::newHasher).toList();
+        boolean parallel = hashers.size() > 1 && executor.parallelism() > 1;
+
+        ReadableByteChannel channel = Channels.newChannel(in);
+        ByteBuffer[] pair = {buffers.borrow(), buffers.borrow()};
+        List<Future<Void>> pending = List.of();
+        long size = 0;
+
+        try {
+            for (int turn = 0; ; turn ^= 1) {
+                ByteBuffer buffer = pair[turn];
+                buffer.clear();
+                int read = fill(channel, buffer);
+                // The other buffer is free again once its hashers are done
+                awaitAll(pending);
+                pending = List.of();
+                if (read == 0) break;
+
+                buffer.flip();
+                size += read;
+                if (parallel) {
+                    pending = new ArrayList<>(hashers.size());
+                    for (Hasher hasher : hashers) {
+                        pending.add(executor.submit(() -> {
+                            hasher.update(buffer.duplicate());
+                            return null;
+                        }));
+                    }
+                } else {
+                    for (Hasher hasher : hashers) hasher.update(buffer.duplicate());
+                }
+            }
+        } catch (Exception e) {
+            // Workers may still be reading the buffers: do not hand them out again
+            for (Future<Void> future : pending) future.cancel(true);
+            throw e;
+        }
+        buffers.release(pair[0]);
+        buffers.release(pair[1]);
+
+        Map<HashAlgorithm, byte[]> digests = new LinkedHashMap<>();
+        for (int i = 0; i < hashers.size(); i++) digests.put(algorithms.get(i), hashers.get(i).digest());
+        return new FileDigests(size, digests);
+    }
+
+    /**
+     * Standard digests of the remaining bytes of {@code content}, e.g. a mapped upload,
+     * read in place: every requested algorithm consumes the whole buffer, each on its
+     * own conversion worker when more than one is requested.
+     */
+    public FileDigests hash(ByteBuffer content, List<HashAlgorithm> algorithms) throws Exception {
+        List<Hasher> hashers = algorithms.stream().map(HashAlgorithm::newHasher).toList();
+
+        if (hashers.size() > 1 && executor.parallelism() > 1) {
+            List<Future<Void>> pending = new ArrayList<>(hashers.size());
+            try {
+                for (Hasher hasher : hashers) {
+                    pending.add(executor.submit(() -> {
+                        hasher.update(content.duplicate());
+                        return null;
+                    }));
+                }
+                awaitAll(pending);
+            } finally {
+                for (Future<Void> future : pending) future.cancel(true);
+            }
+        } else {
+            for (Hasher hasher : hashers) hasher.update(content.duplicate());
+        }
+
+        Map<HashAlgorithm, byte[]> digests = new LinkedHashMap<>();
+        for (int i = 0; i < hashers.size(); i++) digests.put(algorithms.get(i), hashers.get(i).digest());
+        return new FileDigests(content.remaining(), digests);
+    }
+
+    /**
+     * Tree digests of everything {@code in} delivers, leaves hashed in parallel.
+     * At most {@code parallelism + 1} leaves are buffered at a time.
+     */
+    public FileDigests hashTree(InputStream in, List<HashAlgorithm> algorithms) throws Exception {
+        ReadableByteChannel channel = Channels.newChannel(in);
+        return hashTree(() -> {
+            ByteBuffer buffer = leafBuffers.borrow();
+            if (fill(channel, buffer) == 0) {
+                leafBuffers.release(buffer);
+                return null;
+            }
+            buffer.flip();
+            // The buffer goes back to the pool only if hashing completed
+            return () -> {
+                Leaf leaf = hashLeaf(buffer, algorithms);
+                leafBuffers.release(buffer);
+                return leaf;
+            };
+        }, algorithms);
+    }
+
+    /**
+     * Tree digests of the remaining bytes of {@code content}, leaves sliced from it in
+     * place and hashed in parallel; same results as for a stream of the same bytes.
+     */
+    public FileDigests hashTree(ByteBuffer content, List<HashAlgorithm> algorithms) throws Exception {
+        ByteBuffer rest = content.duplicate();
+        return hashTree(() -> {
+            if (!rest.hasRemaining()) return null;
+            ByteBuffer leaf = rest.slice(rest.position(), Math.min(leafSize, rest.remaining()));
+            rest.position(rest.position() + leaf.remaining());
+            return () -> hashLeaf(leaf, algorithms);
+        }, algorithms);
+    }
+
+    // The next leaf to hash, or null after the last one
+    private interface LeafSource {
+        Callable<Leaf> next() throws IOException;
+    }
+
+    private FileDigests hashTree(LeafSource leaves, List<HashAlgorithm> algorithms) throws Exception {
+        List<Hasher> roots = algorithms.stream()
+                .map(algorithm -> algorithm == HashAlgorithm.CRC32C ? null : algorithm.newHasher())
+                .toList();
+        int crc = 0;
+        long size = 0;
+
+        ArrayDeque<Future<Leaf>> window = new ArrayDeque<>();
+        try {
+            for (Callable<Leaf> leaf = leaves.next(); leaf != null; leaf = leaves.next()) {
+                window.add(executor.submit(leaf));
+
+                while (window.size() >= maxLeavesInFlight || (!window.isEmpty() && window.peek().isDone())) {
+                    Leaf done = await(window.poll());
+                    crc = addLeaf(roots, crc, done);
+                    size += done.length();
+                }
+            }
+            while (!window.isEmpty()) {
+                Leaf done = await(window.poll());
+                crc = addLeaf(roots, crc, done);
+                size += done.length();
+            }
+        } finally {
+            for (Future<Leaf> leaf : window) leaf.cancel(true);
+        }
+
+        Map<HashAlgorithm, byte[]> digests = new LinkedHashMap<>();
+        for (int i = 0; i < algorithms.size(); i++) {
+            Hasher root = roots.get(i);
+            digests.put(algorithms.get(i), root != null ? root.digest() : Crc32c.toBytes(crc));
+        }
+        return new FileDigests(size, digests);
+    }
+
+    // Runs on a worker
+    private static Leaf hashLeaf(ByteBuffer buffer, List<HashAlgorithm> algorithms) {
+        byte[][] digests = new byte[algorithms.size()][];
+        for (int i = 0; i < digests.length; i++) {
+            Hasher hasher = algorithms.get(i).newHasher();
+            hasher.update(buffer.duplicate());
+            digests[i] = hasher.digest();
+        }
+        return new Leaf(buffer.remaining(), digests);
+    }
+
+    private static int addLeaf(List<Hasher> roots, int crc, Leaf leaf) {
+        for (int i = 0; i < roots.size(); i++) {
+            Hasher root = roots.get(i);
+            if (root != null) {
+                root.update(ByteBuffer.wrap(leaf.digests()[i]));
+            } else {
+                crc = Crc32c.combine(crc, ByteBuffer.wrap(leaf.digests()[i]).getInt(), leaf.length());
+            }
+        }
+        return crc;
+    }
+
+    // Reads until the buffer is full or the stream ends; returns the number of bytes read
+    private static int fill(ReadableByteChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+            // keep reading
+        }
+        return buffer.position();
+    }
+
+    private static void awaitAll(List<Future<Void>> futures) throws Exception {
+        for (Future<Void> future : futures) await(future);
+    }
+
+    private static <T> T await(Future<T> future) throws Exception {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception cause) throw cause;
+            throw e;
+        }
+    }
+}
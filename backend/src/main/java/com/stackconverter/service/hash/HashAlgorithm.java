@@ -0,0 +1,135 @@
+package com.stackconverter.service.hash;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.zip.CRC32C;
+
+/**
+ * Checksums offered for file hashing: the {@link MessageDigest}s of the text hash
+ * endpoint plus CRC32C.
+ */
+public enum HashAlgorithm {
+
+    MD5("MD5", "HmacMD5"),
+    SHA_1("SHA-1", "HmacSHA1"),
+    SHA_256("SHA-256", "HmacSHA256"),
+    SHA_384("SHA-384", "HmacSHA384"),
+    SHA_512("SHA-512", "HmacSHA512"),
+    CRC32C("CRC32C", null);
+
+    private final String displayName;
+    private final String hmacName;
+
+    HashAlgorithm(String displayName, String hmacName) {
+        this.displayName = displayName;
+        this.hmacName = hmacName;
+    }
+
+    /** Standard name, also the {@link MessageDigest} algorithm name for digests. */
+    public String displayName() {
+        return displayName;
+    }
+
+    /** {@link javax.crypto.Mac} algorithm name, {@code null} if there is no HMAC over it. */
+    public String hmacName() {
+        return hmacName;
+    }
+
+    /**
+     * @throws IllegalArgumentException for unsupported names
+     */
+    public static HashAlgorithm of(String name) {
+        return parse(name.trim(), name);
+    }
+
+    /**
+     * The names the text hash endpoint has always taken: a {@link MessageDigest}, with
+     * no surrounding whitespace.
+     *
+     * @throws IllegalArgumentException for anything else, CRC32C included
+     */
+    public static HashAlgorithm messageDigest(String name) {
+        HashAlgorithm algorithm = parse(name, name);
+        if (algorithm == CRC32C) throw new IllegalArgumentException("Unsupported algorithm: " + name);
+        return algorithm;
+    }
+
+    private static HashAlgorithm parse(String key, String name) {
+        return switch (key.toLowerCase(Locale.ROOT)) {
+            case "md5" -> MD5;
+            case "sha1", "sha-1" -> SHA_1;
+            case "sha256", "sha-256" -> SHA_256;
+            case "sha384", "sha-384" -> SHA_384;
+            case "sha512", "sha-512" -> SHA_512;
+            case "crc32c", "crc-32c" -> CRC32C;
+            default -> throw new IllegalArgumentException("Unsupported algorithm: " + name);
+        };
+    }
+
+    /**
+     * Parse a comma-separated list, dropping duplicates and keeping the given order.
+     *
+     * @throws IllegalArgumentException for unsupported names or an empty list
+     */
+    public static List<HashAlgorithm> listOf(String names) {
+        List<HashAlgorithm> algorithms = new ArrayList<>();
+        for (String name : names.split(",")) {
+            if (name.isBlank()) continue;
+            HashAlgorithm algorithm = of(name);
+            if (!algorithms.contains(algorithm)) algorithms.add(algorithm);
+        }
+        if (algorithms.isEmpty()) throw new IllegalArgumentException("No algorithm given");
+        return algorithms;
+    }
+
+    Hasher newHasher() {
+        if (this == CRC32C) return new Crc32cHasher();
+        try {
+            return new DigestHasher(MessageDigest.getInstance(displayName));
+        } catch (NoSuchAlgorithmException e) {
+            // All of them are required on every Java platform
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /** Incremental hash state of one algorithm. */
+    interface Hasher {
+
+        /** Consume the buffer's remaining bytes. */
+        void update(ByteBuffer data);
+
+        byte[] digest();
+    }
+
+    private record DigestHasher(MessageDigest messageDigest) implements Hasher {
+
+        @Override
+        public void update(ByteBuffer data) {
+            messageDigest.update(data);
+        }
+
+        @Override
+        public byte[] digest() {
+            return messageDigest.digest();
+        }
+    }
+
+    private static final class Crc32cHasher implements Hasher {
+
+        private final CRC32C crc = new CRC32C();
+
+        @Override
+        public void update(ByteBuffer data) {
+            crc.update(data);
+        }
+
+        @Override
+        public byte[] digest() {
+            return Crc32c.toBytes((int) crc.getValue());
+        }
+    }
+}
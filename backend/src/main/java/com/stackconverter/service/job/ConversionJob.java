@@ -0,0 +1,143 @@
+package com.stackconverter.service.job;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.concurrent.Future;
+
+/**
+ * A submitted conversion: its spooled files, scheduling state and progress.
+ * State changes come from {@link ConversionJobs} only; readers see a consistent
+ * status through the volatile fields.
+ */
+public final class ConversionJob {
+
+    private final String id;
+    private final String type;
+    private final JobLane lane;
+    private final long inputBytes;
+    private final Path input;
+    private final Path result;
+    private final Instant created = Instant.now();
+    private final JobProgress progress = new JobProgress();
+
+    private volatile JobStatus status = JobStatus.QUEUED;
+    private volatile Instant started;
+    private volatile Instant finished;
+    private volatile JobOutput output;
+    private volatile long resultBytes;
+    private volatile String error;
+    private volatile Future<?> task;
+
+    ConversionJob(String id, String type, JobLane lane, long inputBytes, Path input, Path result) {
+        this.id = id;
+        this.type = type;
+        this.lane = lane;
+        this.inputBytes = inputBytes;
+        this.input = input;
+        this.result = result;
+    }
+
+    public String id() {
+        return id;
+    }
+
+    public String type() {
+        return type;
+    }
+
+    public JobLane lane() {
+        return lane;
+    }
+
+    public long inputBytes() {
+        return inputBytes;
+    }
+
+    public JobStatus status() {
+        return status;
+    }
+
+    public JobProgress progress() {
+        return progress;
+    }
+
+    public Instant created() {
+        return created;
+    }
+
+    public Instant started() {
+        return started;
+    }
+
+    public Instant finished() {
+        return finished;
+    }
+
+    /** Set once the job has {@link JobStatus#SUCCEEDED}. */
+    public JobOutput output() {
+        return output;
+    }
+
+    public long resultBytes() {
+        return resultBytes;
+    }
+
+    /** What the job keeps on disk: its input until it finishes, then its result. */
+    long diskBytes() {
+        return status.finished() ? resultBytes : inputBytes;
+    }
+
+    /** Set once the job has {@link JobStatus#FAILED}. */
+    public String error() {
+        return error;
+    }
+
+    /** The result file; only complete once the job has {@link JobStatus#SUCCEEDED}. */
+    public Path result() {
+        return result;
+    }
+
+    Path input() {
+        return input;
+    }
+
+    void schedule(Future<?> task) {
+        this.task = task;
+    }
+
+    synchronized boolean start() {
+        if (status != JobStatus.QUEUED) return false;
+        started = Instant.now();
+        status = JobStatus.RUNNING;
+        return true;
+    }
+
+    synchronized void succeed(JobOutput output, long resultBytes) {
+        if (status.finished()) return;
+        this.output = output;
+        this.resultBytes = resultBytes;
+        finish(JobStatus.SUCCEEDED);
+    }
+
+    synchronized void fail(String error) {
+        if (status.finished()) return;
+        this.error = error;
+        finish(JobStatus.FAILED);
+    }
+
+    /**
+     * @return {@code false} if the job had already finished
+     */
+    synchronized boolean cancel() {
+        if (status.finished()) return false;
+        // Never runs if still queued; interrupted if running
+        if (task != null) task.cancel(true);
+        finish(JobStatus.CANCELLED);
+        return true;
+    }
+
+    private void finish(JobStatus status) {
+        this.finished = Instant.now();
+        this.status = status;
+    }
+}
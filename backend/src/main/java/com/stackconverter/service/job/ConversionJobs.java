@@ -0,0 +1,260 @@
+package com.stackconverter.service.job;
+
+import com.stackconverter.service.exec.ConversionRejectedException;
+import com.stackconverter.service.metrics.ConversionMetrics;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Conversions that run in the background instead of inside the request.
+ * <p>
+ * The upload is spooled to {@code dir} and the job is queued on a {@link JobScheduler};
+ * the result is written to a file next to it, to be downloaded while the job is kept.
+ * Finished jobs are dropped {@code ttl} after finishing, and sooner, oldest first, once
+ * the directory would hold more than {@code max-bytes}: kept results, the inputs of
+ * queued and running jobs, and uploads being spooled. Uploads that still do not fit are
+ * turned away like those finding the queue full, before they are copied. Jobs live in
+ * memory only: leftover files from a previous run are deleted at startup.
+ */
+@Service
+public class ConversionJobs implements DisposableBean {
+
+    private static final long CLEANUP_INTERVAL_SECONDS = 60;
+
+    private final Map<String, ConversionJob> jobs = new ConcurrentHashMap<>();
+    private final Path dir;
+    private final Duration ttl;
+    private final long maxBytes;
+    private final long interactiveMaxBytes;
+    private final JobScheduler scheduler;
+    private final ConversionMetrics metrics;
+    // Uploads being spooled, not yet counted through their job; guarded by this lock
+    private final Object space = new Object();
+    private long reservedBytes;
+    private final ScheduledExecutorService cleaner =
+            Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("job-cleanup-"));
+
+    public ConversionJobs(
+            @Value("${stackconverter.jobs.dir:${java.io.tmpdir}/stackconverter-jobs}") Path dir,
+            @Value("${stackconverter.jobs.ttl:1h}") Duration ttl,
+            @Value("${stackconverter.jobs.max-bytes:10737418240}") long maxBytes,
+            @Value("${stackconverter.jobs.threads:0}") int threads,
+            @Value("${stackconverter.jobs.max-queued:64}") int maxQueued,
+            @Value("${stackconverter.jobs.interactive-max-bytes:8388608}") long interactiveMaxBytes,
+            @Value("${stackconverter.jobs.interactive-reserved:1}") int interactiveReserved,
+            ConversionMetrics metrics,
+            MeterRegistry registry) throws IOException {
+        if (maxQueued < 0) throw new IllegalArgumentException("stackconverter.jobs.max-queued must not be negative");
+        this.dir = dir;
+        this.ttl = ttl;
+        this.maxBytes = maxBytes;
+        this.interactiveMaxBytes = interactiveMaxBytes;
+        this.metrics = metrics;
+        // One per core, but always a worker left for bulk jobs past the reserved ones
+        this.scheduler = new JobScheduler(
+                threads > 0 ? threads : Math.max(Runtime.getRuntime().availableProcessors(), interactiveReserved + 1),
+                interactiveReserved, maxQueued);
+
+        Files.createDirectories(dir);
+        try (DirectoryStream<Path> leftovers = Files.newDirectoryStream(dir, "*.{in,out}")) {
+            for (Path file : leftovers) Files.deleteIfExists(file);
+        }
+
+        for (JobLane lane : JobLane.values()) {
+            String tag = lane.name().toLowerCase(Locale.ROOT);
+            Gauge.builder("stackconverter.jobs.queued", scheduler, s -> s.queued(lane))
+                    .description("Jobs waiting for a worker")
+                    .tag("lane", tag)
+                    .register(registry);
+            Gauge.builder("stackconverter.jobs.running", scheduler, s -> s.running(lane))
+                    .description("Jobs being converted")
+                    .tag("lane", tag)
+                    .register(registry);
+        }
+        Gauge.builder("stackconverter.jobs.result.bytes", this, ConversionJobs::resultBytes)
+                .description("Disk used by kept job results")
+                .baseUnit("bytes")
+                .register(registry);
+
+        cleaner.scheduleWithFixedDelay(this::cleanUp,
+                CLEANUP_INTERVAL_SECONDS, CLEANUP_INTERVAL_SECONDS, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Spool {@code file} and queue {@code task} on it.
+     *
+     * @param type conversion name, reported back in the job status
+     * @throws ConversionRejectedException if the queue is full, or the upload does not fit
+     *         in {@code max-bytes} until running jobs are done
+     * @throws IllegalArgumentException if the upload alone is larger than {@code max-bytes}
+     */
+    public ConversionJob submit(String type, MultipartFile file, JobTask task) throws IOException {
+        long uploadBytes = file.getSize();
+        if (uploadBytes > maxBytes) {
+            throw new IllegalArgumentException("Upload of " + uploadBytes + " bytes is larger than the "
+                    + maxBytes + " bytes kept for jobs");
+        }
+        // Turn the upload away before copying it if it would be rejected anyway
+        scheduler.checkQueue();
+        reserve(uploadBytes);
+
+        String id = UUID.randomUUID().toString();
+        Path input = dir.resolve(id + ".in");
+        ConversionJob job;
+        try {
+            file.transferTo(input);
+
+            long size = Files.size(input);
+            JobLane lane = size <= interactiveMaxBytes ? JobLane.INTERACTIVE : JobLane.BULK;
+            job = new ConversionJob(id, type, lane, size, input, dir.resolve(id + ".out"));
+            jobs.put(id, job);
+        } catch (IOException | RuntimeException e) {
+            deleteQuietly(input);
+            throw e;
+        } finally {
+            // Counted through the job from here on
+            release(uploadBytes);
+        }
+
+        try {
+            scheduler.submit(job, () -> run(job, task));
+        } catch (ConversionRejectedException e) {
+            jobs.remove(id);
+            Files.deleteIfExists(input);
+            throw e;
+        }
+        return job;
+    }
+
+    private void reserve(long bytes) {
+        synchronized (space) {
+            if (!makeRoom(reservedBytes + bytes)) throw new ConversionRejectedException(scheduler.retryAfterSeconds());
+            reservedBytes += bytes;
+        }
+    }
+
+    private void release(long bytes) {
+        synchronized (space) {
+            reservedBytes -= bytes;
+        }
+    }
+
+    public Optional<ConversionJob> find(String id) {
+        return Optional.ofNullable(jobs.get(id));
+    }
+
+    /**
+     * Cancel the job if it has not finished, and delete it with its files.
+     *
+     * @return {@code false} if there is no such job
+     */
+    public boolean remove(String id) {
+        ConversionJob job = jobs.remove(id);
+        if (job == null) return false;
+
+        scheduler.remove(job);
+        job.cancel();
+        // A running job deletes them again once it stops, in case it was still writing
+        deleteFiles(job);
+        return true;
+    }
+
+    private void run(ConversionJob job, JobTask task) {
+        if (!job.start()) return;
+
+        try {
+            JobOutput output;
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(job.result()))) {
+                output = task.run(job.input(), out, job.progress());
+            }
+            job.succeed(output, Files.size(job.result()));
+            if (job.progress().rowsDone() > 0) metrics.rows("job/" + job.type(), job.progress().rowsDone());
+
+        } catch (Exception e) {
+            if (job.status() != JobStatus.CANCELLED) metrics.error("job/" + job.type(), e);
+            job.fail(e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName());
+
+        } finally {
+            deleteQuietly(job.input());
+            if (job.status() != JobStatus.SUCCEEDED) deleteQuietly(job.result());
+            // Removed while running
+            if (!jobs.containsKey(job.id())) deleteFiles(job);
+        }
+    }
+
+    // Expired jobs first, then the oldest results until the rest fits in maxBytes
+    void cleanUp() {
+        Instant expiry = Instant.now().minus(ttl);
+        for (ConversionJob job : jobs.values()) {
+            if (job.finished() != null && job.finished().isBefore(expiry)) remove(job.id());
+        }
+
+        synchronized (space) {
+            makeRoom(reservedBytes);
+        }
+    }
+
+    // Drop the oldest results until the jobs and extra bytes fit in maxBytes; false if they cannot
+    private boolean makeRoom(long extra) {
+        long total = extra;
+        for (ConversionJob job : jobs.values()) total += job.diskBytes();
+        if (total <= maxBytes) return true;
+
+        List<ConversionJob> finished = jobs.values().stream()
+                .filter(job -> job.status() == JobStatus.SUCCEEDED)
+                .sorted(Comparator.comparing(ConversionJob::finished))
+                .toList();
+        for (ConversionJob job : finished) {
+            if (total <= maxBytes) break;
+            if (remove(job.id())) total -= job.resultBytes();
+        }
+        return total <= maxBytes;
+    }
+
+    private long resultBytes() {
+        long total = 0;
+        for (ConversionJob job : jobs.values()) total += job.resultBytes();
+        return total;
+    }
+
+    private void deleteFiles(ConversionJob job) {
+        deleteQuietly(job.input());
+        deleteQuietly(job.result());
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException ignored) {}
+    }
+
+    @Override
+    public void destroy() {
+        cleaner.shutdownNow();
+        scheduler.shutdown();
+    }
+}
@@ -0,0 +1,118 @@
+package com.stackconverter.service.job;
+
+import com.stackconverter.service.base64.StreamingBase64Codec;
+import com.stackconverter.service.base64.StreamingBase64Codec.Base64Layout;
+import com.stackconverter.service.csv.CsvReader;
+import com.stackconverter.service.excel.ExcelFormat;
+import com.stackconverter.service.excel.StreamingExcelConverter;
+import com.stackconverter.service.sniff.ContentSniffer;
+import com.stackconverter.service.sniff.FileType;
+import com.stackconverter.service.xml.StreamingJsonXmlConverter;
+import com.stackconverter.service.xml.StreamingJsonXmlConverter.JsonLayout;
+import com.stackconverter.service.xml.StreamingJsonXmlConverter.XmlLayout;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The conversions available as jobs, built on the same streaming converters as the
+ * {@code /stream} endpoints. Conversions that validate their input first read it twice.
+ */
+@Component
+public class JobConversions {
+
+    public static final List<String> TYPES = List.of(
+            "excel-to-csv", "csv-to-excel", "json-to-xml", "xml-to-json", "base64-encode", "base64-decode");
+
+    private final StreamingExcelConverter streamingExcel;
+    private final StreamingJsonXmlConverter streamingJsonXml;
+    private final StreamingBase64Codec streamingBase64;
+    private final ContentSniffer sniffer;
+
+    public JobConversions(StreamingExcelConverter streamingExcel, StreamingJsonXmlConverter streamingJsonXml,
+                          StreamingBase64Codec streamingBase64, ContentSniffer sniffer) {
+        this.streamingExcel = streamingExcel;
+        this.streamingJsonXml = streamingJsonXml;
+        this.streamingBase64 = streamingBase64;
+        this.sniffer = sniffer;
+    }
+
+    /**
+     * @param delimiter CSV delimiter, for {@code csv-to-excel}
+     * @throws IllegalArgumentException for an unknown type or delimiter
+     */
+    public JobTask task(String type, String delimiter) {
+        return switch (type) {
+            case "excel-to-csv" -> (input, out, progress) -> {
+                streamingExcel.writeFirstSheetAsCsv(input, ExcelFormat.detect(input), out, progress.rows());
+                return new JobOutput("text/csv", "converted.csv");
+            };
+            case "csv-to-excel" -> {
+                char separator = CsvReader.delimiterOf(delimiter);
+                yield (input, out, progress) -> {
+                    progress.expectBytes(Files.size(input));
+                    try (CsvReader csv = new CsvReader(new InputStreamReader(
+                            open(input, progress), StandardCharsets.UTF_8), separator)) {
+                        progress.rows().add(streamingExcel.writeCsvAsXlsx(csv, out));
+                    }
+                    return new JobOutput(
+                            "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet", "converted.xlsx");
+                };
+            }
+            case "json-to-xml" -> (input, out, progress) -> {
+                progress.expectBytes(2 * Files.size(input));
+                JsonLayout layout;
+                try (InputStream in = open(input, progress)) {
+                    layout = streamingJsonXml.inspectJson(in);
+                }
+                try (InputStream in = open(input, progress)) {
+                    streamingJsonXml.writeJsonAsXml(in, layout, out);
+                }
+                return new JobOutput("application/xml", "converted.xml");
+            };
+            case "xml-to-json" -> (input, out, progress) -> {
+                progress.expectBytes(2 * Files.size(input));
+                XmlLayout layout;
+                try (InputStream in = open(input, progress)) {
+                    layout = streamingJsonXml.inspectXml(in, Set.of());
+                }
+                try (InputStream in = open(input, progress)) {
+                    streamingJsonXml.writeXmlAsJson(in, layout, out);
+                }
+                return new JobOutput("application/json", "converted.json");
+            };
+            case "base64-encode" -> (input, out, progress) -> {
+                progress.expectBytes(Files.size(input));
+                try (InputStream in = open(input, progress)) {
+                    streamingBase64.encode(in, out);
+                }
+                return new JobOutput("text/plain", "encoded_base64.txt");
+            };
+            case "base64-decode" -> (input, out, progress) -> {
+                progress.expectBytes(2 * Files.size(input));
+                Base64Layout layout;
+                try (InputStream in = open(input, progress)) {
+                    layout = streamingBase64.inspect(in, sniffer.headSize(), sniffer.tailSize());
+                }
+                FileType fileType = sniffer.sniff(layout.sample());
+                try (InputStream in = open(input, progress)) {
+                    streamingBase64.decode(in, layout, out);
+                }
+                return new JobOutput(fileType.mimeType(), "decoded_output" + fileType.extension());
+            };
+            default -> throw new IllegalArgumentException(
+                    "Unknown job type: " + type + " (expected one of " + String.join(", ", TYPES) + ")");
+        };
+    }
+
+    private static InputStream open(Path input, JobProgress progress) throws IOException {
+        return progress.track(Files.newInputStream(input));
+    }
+}
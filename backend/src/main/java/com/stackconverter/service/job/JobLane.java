@@ -0,0 +1,13 @@
+package com.stackconverter.service.job;
+
+/**
+ * Scheduling class of a job, chosen from its upload size.
+ */
+public enum JobLane {
+
+    /** Small uploads a user is waiting on; always served first. */
+    INTERACTIVE,
+
+    /** Large uploads; never allowed to take every worker. */
+    BULK
+}
@@ -0,0 +1,8 @@
+package com.stackconverter.service.job;
+
+/**
+ * What a finished job produced, for the download response.
+ *
+ * @param filename suggested file name for {@code Content-Disposition}
+ */
+public record JobOutput(String contentType, String filename) {}
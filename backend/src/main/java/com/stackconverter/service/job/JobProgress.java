@@ -0,0 +1,72 @@
+package com.stackconverter.service.job;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Live progress of a job, updated by the converter thread and read by status polls.
+ * <p>
+ * Converters that stream their input report bytes through {@link #track}; those that
+ * know rows count them in {@link #rows()}. A conversion reading its input twice (a
+ * validating pass, then the real one) expects twice the upload size.
+ */
+public final class JobProgress {
+
+    private final LongAdder bytesRead = new LongAdder();
+    private final LongAdder rows = new LongAdder();
+    private volatile long bytesExpected;
+
+    /** Total input bytes the conversion will read, over all passes. */
+    public void expectBytes(long bytes) {
+        this.bytesExpected = bytes;
+    }
+
+    /** Count what is read from {@code in}. */
+    public InputStream track(InputStream in) {
+        return new FilterInputStream(in) {
+            @Override
+            public int read() throws IOException {
+                int b = super.read();
+                if (b >= 0) bytesRead.increment();
+                return b;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                int n = super.read(b, off, len);
+                if (n > 0) bytesRead.add(n);
+                return n;
+            }
+
+            @Override
+            public long skip(long n) throws IOException {
+                long skipped = super.skip(n);
+                bytesRead.add(skipped);
+                return skipped;
+            }
+        };
+    }
+
+    public LongAdder rows() {
+        return rows;
+    }
+
+    public long rowsDone() {
+        return rows.sum();
+    }
+
+    public long bytesRead() {
+        return bytesRead.sum();
+    }
+
+    /**
+     * @return 0–100, or {@code null} when the conversion does not report bytes
+     */
+    public Integer percent() {
+        long expected = bytesExpected;
+        if (expected <= 0) return null;
+        return (int) Math.min(100, bytesRead.sum() * 100 / expected);
+    }
+}
@@ -0,0 +1,151 @@
+package com.stackconverter.service.job;
+
+import com.stackconverter.service.exec.ConversionRejectedException;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.util.ArrayDeque;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs jobs on a fixed set of worker threads from two FIFO lanes.
+ * <p>
+ * A free worker always takes the oldest interactive job first. Bulk jobs only start
+ * while fewer than {@code threads - reserved} of them are running, so however many
+ * large uploads are waiting, {@code reserved} workers stay available to small ones.
+ * At most {@code max-queued} jobs wait over both lanes; beyond that submissions are
+ * rejected with a retry delay estimated from recent job times.
+ */
+final class JobScheduler {
+
+    private static final long MAX_RETRY_AFTER_SECONDS = 300;
+
+    private record Entry(ConversionJob job, FutureTask<Void> task) {}
+
+    private final ThreadPoolExecutor workers;
+    private final int threads;
+    private final int bulkThreads;
+    private final int maxQueued;
+
+    private final Map<JobLane, ArrayDeque<Entry>> queues = new EnumMap<>(JobLane.class);
+    private final Map<JobLane, Integer> running = new EnumMap<>(JobLane.class);
+
+    // Moving average of job times; lost updates between threads are harmless
+    private volatile double meanNanos = TimeUnit.SECONDS.toNanos(10);
+
+    /**
+     * @throws IllegalArgumentException unless {@code 0 <= reserved < threads}, as bulk
+     *         jobs need at least one worker
+     */
+    JobScheduler(int threads, int reserved, int maxQueued) {
+        if (reserved < 0 || reserved >= threads) {
+            throw new IllegalArgumentException("stackconverter.jobs.interactive-reserved must be at least 0 and less than "
+                    + threads + " job threads");
+        }
+        this.threads = threads;
+        this.bulkThreads = threads - reserved;
+        this.maxQueued = maxQueued;
+        // Never more than threads tasks handed over at once, see dispatch()
+        this.workers = new ThreadPoolExecutor(
+                threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(),
+                new CustomizableThreadFactory("job-"));
+
+        for (JobLane lane : JobLane.values()) {
+            queues.put(lane, new ArrayDeque<>());
+            running.put(lane, 0);
+        }
+    }
+
+    /**
+     * Queue {@code work} for {@code job}; cancelling the job cancels it.
+     *
+     * @throws ConversionRejectedException if {@code max-queued} jobs are already waiting
+     */
+    synchronized void submit(ConversionJob job, Runnable work) {
+        checkQueue();
+
+        FutureTask<Void> task = new FutureTask<>(() -> {
+            long start = System.nanoTime();
+            try {
+                work.run();
+            } finally {
+                double elapsed = System.nanoTime() - start;
+                meanNanos += (elapsed - meanNanos) / 8;
+            }
+        }, null);
+        job.schedule(task);
+        queues.get(job.lane()).add(new Entry(job, task));
+        dispatch();
+    }
+
+    /**
+     * Fail the way {@link #submit} would if it were called now, before the caller has
+     * done any work for the job. Not binding: another submission may still take the
+     * last place in between.
+     *
+     * @throws ConversionRejectedException if {@code max-queued} jobs are already waiting
+     */
+    synchronized void checkQueue() {
+        if (queued() >= maxQueued) throw new ConversionRejectedException(retryAfterSeconds());
+    }
+
+    /** Drop {@code job} if it is still waiting. */
+    synchronized void remove(ConversionJob job) {
+        queues.get(job.lane()).removeIf(entry -> entry.job() == job);
+    }
+
+    synchronized int queued(JobLane lane) {
+        return queues.get(lane).size();
+    }
+
+    synchronized int running(JobLane lane) {
+        return running.get(lane);
+    }
+
+    private int queued() {
+        int queued = 0;
+        for (ArrayDeque<Entry> queue : queues.values()) queued += queue.size();
+        return queued;
+    }
+
+    // Called with the lock held
+    private void dispatch() {
+        while (running.get(JobLane.INTERACTIVE) + running.get(JobLane.BULK) < threads) {
+            Entry next = queues.get(JobLane.INTERACTIVE).poll();
+            if (next == null && running.get(JobLane.BULK) < bulkThreads) next = queues.get(JobLane.BULK).poll();
+            if (next == null) return;
+
+            JobLane lane = next.job().lane();
+            FutureTask<Void> task = next.task();
+            running.merge(lane, 1, Integer::sum);
+            workers.execute(() -> {
+                try {
+                    task.run();
+                } finally {
+                    done(lane);
+                }
+            });
+        }
+    }
+
+    private synchronized void done(JobLane lane) {
+        running.merge(lane, -1, Integer::sum);
+        dispatch();
+    }
+
+    // Roughly when the current backlog will have drained
+    long retryAfterSeconds() {
+        double backlog = meanNanos * (1 + (double) maxQueued / threads);
+        long seconds = (long) Math.ceil(backlog / TimeUnit.SECONDS.toNanos(1));
+        return Math.max(1, Math.min(MAX_RETRY_AFTER_SECONDS, seconds));
+    }
+
+    void shutdown() {
+        workers.shutdownNow();
+    }
+}
@@ -0,0 +1,18 @@
+package com.stackconverter.service.job;
+
+import java.io.OutputStream;
+import java.nio.file.Path;
+
+/**
+ * One conversion run as a job: reads the spooled upload and writes the result.
+ */
+@FunctionalInterface
+public interface JobTask {
+
+    /**
+     * @param input    the spooled upload; may be opened more than once
+     * @param out      the result file; left open
+     * @param progress where to report rows / bytes done
+     */
+    JobOutput run(Path input, OutputStream out, JobProgress progress) throws Exception;
+}
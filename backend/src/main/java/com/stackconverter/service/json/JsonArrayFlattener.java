@@ -0,0 +1,387 @@
+package com.stackconverter.service.json;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.stackconverter.service.csv.CsvWriter;
+import com.stackconverter.service.excel.StreamingExcelConverter;
+import org.apache.poi.ss.SpreadsheetVersion;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Token-streaming conversion of a top-level JSON array of records into a table
+ * (CSV, or a single-sheet .xlsx).
+ * <p>
+ * Records are flattened to one row each: nested objects become dotted column paths
+ * ({@code {"a":{"b":1}}} → {@code a.b}), arrays are kept as compact JSON text, nulls
+ * are empty cells and a record that is not an object fills a {@code value} column.
+ * <p>
+ * Like the JSON ⇄ XML converter this runs in two passes over the upload. The first
+ * validates the whole array and infers the columns from the first {@code sample}
+ * records; the second replays the records straight into the writer. Paths first seen
+ * after the sample are handled by the {@link LateColumns} policy. Memory is bounded by
+ * one record plus the schema, never by the size of the array.
+ */
+@Service
+public class JsonArrayFlattener {
+
+    /** Column of records that are scalars or arrays rather than objects. */
+    public static final String VALUE_COLUMN = "value";
+
+    private static final double MAX_EXACT_INTEGER = 0x1p53;
+
+    private final JsonFactory jsonFactory = new JsonFactory();
+    private final StreamingExcelConverter streamingExcel;
+    private final int defaultSample;
+    private final LateColumns defaultLateColumns;
+    private final int maxColumns;
+
+    public JsonArrayFlattener(
+            StreamingExcelConverter streamingExcel,
+            @Value("${stackconverter.json-table.sample-records:1000}") int defaultSample,
+            @Value("${stackconverter.json-table.late-columns:extra}") String defaultLateColumns,
+            @Value("${stackconverter.json-table.max-columns:16384}") int maxColumns) {
+        this.streamingExcel = streamingExcel;
+        this.defaultSample = defaultSample;
+        this.defaultLateColumns = LateColumns.of(defaultLateColumns);
+        this.maxColumns = maxColumns;
+    }
+
+    /**
+     * @param name {@code ignore}, {@code extra} or {@code fail}; {@code null} for the configured default
+     * @throws IllegalArgumentException for unknown names
+     */
+    public LateColumns lateColumns(String name) {
+        return name != null ? LateColumns.of(name) : defaultLateColumns;
+    }
+
+    /**
+     * @param sample records to infer the columns from, 0 for all; {@code null} for the configured default
+     */
+    public int sample(Integer sample) {
+        if (sample == null) return defaultSample;
+        if (sample < 0) throw new IllegalArgumentException("sample must not be negative");
+        return sample;
+    }
+
+    // =====================================================================================
+    // Pass 1: validate and infer the columns
+    // =====================================================================================
+
+    /**
+     * Read the JSON array in {@code in} completely, collecting the column paths of the
+     * first {@code sample} records (all of them if 0). With {@link LateColumns#FAIL}
+     * every later record is flattened too and checked against those columns.
+     *
+     * @throws IOException              on malformed JSON
+     * @throws IllegalArgumentException if the document is not an array, a later record
+     *                                  has a new path under {@code FAIL}, or there are
+     *                                  more than {@code max-columns} columns
+     */
+    public JsonTableSchema inspect(InputStream in, int sample, LateColumns lateColumns) throws IOException {
+        try (JsonParser p = jsonFactory.createParser(in)) {
+            if (p.nextToken() != JsonToken.START_ARRAY) {
+                throw new IllegalArgumentException("Expected a JSON array of records");
+            }
+
+            Set<String> columns = new LinkedHashSet<>();
+            Flattener flattener = new Flattener(p, false);
+            long records = 0;
+
+            JsonToken t;
+            while ((t = p.nextToken()) != JsonToken.END_ARRAY) {
+                if (t == null) throw new IOException("Unexpected end of JSON input");
+
+                if (sample == 0 || records < sample) {
+                    flattener.flatten((path, kind, text) -> {
+                        if (columns.add(path) && columns.size() > maxColumns) {
+                            throw new IllegalArgumentException("More than " + maxColumns + " columns");
+                        }
+                    });
+                } else if (lateColumns == LateColumns.FAIL) {
+                    long record = records;
+                    flattener.flatten((path, kind, text) -> {
+                        if (!columns.contains(path)) {
+                            throw new IllegalArgumentException("Record " + record + " has column '" + path
+                                    + "' not found in the first " + sample + " records");
+                        }
+                    });
+                } else {
+                    // Still tokenized, so syntax errors surface here
+                    p.skipChildren();
+                }
+                records++;
+            }
+
+            if (p.nextToken() != null) throw new IllegalArgumentException("Unexpected content after the JSON array");
+            return new JsonTableSchema(List.copyOf(columns), lateColumns, records);
+        }
+    }
+
+    // =====================================================================================
+    // Pass 2: one row per record
+    // =====================================================================================
+
+    /**
+     * Write the array inspected by {@link #inspect} as UTF-8 CSV with a header row.
+     *
+     * @return data rows written
+     */
+    public long writeCsv(InputStream in, JsonTableSchema schema, OutputStream out) throws IOException {
+        CsvWriter csv = new CsvWriter(new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8)));
+        for (String name : schema.header()) csv.field(name);
+        csv.endRecord();
+
+        long rows = readRecords(in, schema, record -> {
+            for (int i = 0; i < record.values.length; i++) csv.field(record.values[i]);
+            if (schema.lateColumns() == LateColumns.EXTRA) csv.field(record.extraJson());
+            csv.endRecord();
+        });
+        csv.flush();
+        return rows;
+    }
+
+    /**
+     * Write the array inspected by {@link #inspect} as a single-sheet .xlsx with a header
+     * row. Numbers and booleans become numeric and boolean cells; integers beyond 2^53,
+     * which a double cannot hold exactly, stay text.
+     *
+     * @return data rows written
+     * @throws IllegalArgumentException if the table exceeds the sheet limits
+     */
+    public long writeXlsx(InputStream in, JsonTableSchema schema, OutputStream out) throws IOException {
+        checkSheetLimits(schema);
+
+        SXSSFWorkbook workbook = streamingExcel.newStreamingWorkbook();
+        try {
+            Sheet sheet = workbook.createSheet("Sheet1");
+            Row header = sheet.createRow(0);
+            List<String> names = schema.header();
+            for (int i = 0; i < names.size(); i++) header.createCell(i).setCellValue(names.get(i));
+
+            long rows = readRecords(in, schema, new RecordSink() {
+                private int rowIndex = 1;
+
+                @Override
+                public void accept(FlatRecord record) throws IOException {
+                    Row row = sheet.createRow(rowIndex++);
+                    for (int i = 0; i < record.values.length; i++) {
+                        if (record.values[i] != null) setCell(row.createCell(i), record.kinds[i], record.values[i]);
+                    }
+                    if (schema.lateColumns() == LateColumns.EXTRA && !record.extra.isEmpty()) {
+                        row.createCell(record.values.length).setCellValue(record.extraJson());
+                    }
+                }
+            });
+
+            workbook.write(out);
+            out.flush();
+            return rows;
+        } finally {
+            workbook.dispose();
+            workbook.close();
+        }
+    }
+
+    /**
+     * @throws IllegalArgumentException if the header plus records, or the columns, do not fit a sheet
+     */
+    public static void checkSheetLimits(JsonTableSchema schema) {
+        SpreadsheetVersion excel = SpreadsheetVersion.EXCEL2007;
+        if (schema.records() + 1 > excel.getMaxRows()) {
+            throw new IllegalArgumentException(schema.records() + " records do not fit in one sheet ("
+                    + (excel.getMaxRows() - 1) + " rows after the header)");
+        }
+        if (schema.header().size() > excel.getMaxColumns()) {
+            throw new IllegalArgumentException(schema.header().size() + " columns do not fit in one sheet ("
+                    + excel.getMaxColumns() + ")");
+        }
+    }
+
+    private static void setCell(Cell cell, JsonToken kind, String text) {
+        switch (kind) {
+            case VALUE_NUMBER_INT -> {
+                double value = Double.parseDouble(text);
+                if (Math.abs(value) <= MAX_EXACT_INTEGER) {
+                    cell.setCellValue(value);
+                } else {
+                    cell.setCellValue(text);
+                }
+            }
+            case VALUE_NUMBER_FLOAT -> {
+                double value = Double.parseDouble(text);
+                if (Double.isFinite(value)) {
+                    cell.setCellValue(value);
+                } else {
+                    cell.setCellValue(text);
+                }
+            }
+            case VALUE_TRUE -> cell.setCellValue(true);
+            case VALUE_FALSE -> cell.setCellValue(false);
+            default -> cell.setCellValue(text);
+        }
+    }
+
+    private interface RecordSink {
+        void accept(FlatRecord record) throws IOException;
+    }
+
+    private long readRecords(InputStream in, JsonTableSchema schema, RecordSink sink) throws IOException {
+        try (JsonParser p = jsonFactory.createParser(in)) {
+            p.nextToken();
+            Flattener flattener = new Flattener(p, true);
+            FlatRecord record = new FlatRecord(schema);
+
+            long rows = 0;
+            JsonToken t;
+            while ((t = p.nextToken()) != JsonToken.END_ARRAY && t != null) {
+                record.clear();
+                flattener.flatten(record::put);
+                sink.accept(record);
+                rows++;
+            }
+            return rows;
+        }
+    }
+
+    // =====================================================================================
+    // Flattening
+    // =====================================================================================
+
+    /** Receives the leaves of one record. {@code text} is {@code null} unless values are captured. */
+    private interface LeafSink {
+        void leaf(String path, JsonToken kind, String text) throws IOException;
+    }
+
+    /**
+     * Walks one record with the parser, reporting each scalar or array under its dotted path.
+     * Keys that contain dots are not escaped, so {@code {"a.b":1}} and {@code {"a":{"b":1}}}
+     * share a column.
+     */
+    private final class Flattener {
+
+        private final JsonParser p;
+        private final boolean captureValues;
+        private final StringBuilder path = new StringBuilder();
+        private final StringWriter arrayText = new StringWriter();
+
+        Flattener(JsonParser p, boolean captureValues) {
+            this.p = p;
+            this.captureValues = captureValues;
+        }
+
+        // Parser is positioned on the first token of the record and left on its last
+        void flatten(LeafSink sink) throws IOException {
+            path.setLength(0);
+            value(sink);
+        }
+
+        private void value(LeafSink sink) throws IOException {
+            JsonToken t = p.currentToken();
+            switch (t) {
+                case START_OBJECT -> {
+                    while (p.nextToken() == JsonToken.FIELD_NAME) {
+                        int length = path.length();
+                        if (length > 0) path.append('.');
+                        path.append(p.currentName());
+                        p.nextToken();
+                        value(sink);
+                        path.setLength(length);
+                    }
+                }
+                case START_ARRAY -> {
+                    String text = null;
+                    if (captureValues) {
+                        arrayText.getBuffer().setLength(0);
+                        try (JsonGenerator json = jsonFactory.createGenerator(arrayText)) {
+                            json.copyCurrentStructure(p);
+                        }
+                        text = arrayText.toString();
+                    } else {
+                        p.skipChildren();
+                    }
+                    sink.leaf(currentPath(), t, text);
+                }
+                case VALUE_NULL -> { }
+                default -> sink.leaf(currentPath(), t, captureValues ? p.getText() : null);
+            }
+        }
+
+        private String currentPath() {
+            return path.isEmpty() ? VALUE_COLUMN : path.toString();
+        }
+    }
+
+    /**
+     * Leaves of the current record laid out by column; paths outside the schema go to
+     * {@code extra} under {@link LateColumns#EXTRA} and are dropped otherwise.
+     */
+    private final class FlatRecord {
+
+        private final Map<String, Integer> indexes = new HashMap<>();
+        private final boolean keepExtra;
+        final String[] values;
+        final JsonToken[] kinds;
+        final Map<String, String> extra = new LinkedHashMap<>();
+        final Map<String, JsonToken> extraKinds = new HashMap<>();
+
+        FlatRecord(JsonTableSchema schema) {
+            List<String> columns = schema.columns();
+            for (int i = 0; i < columns.size(); i++) indexes.put(columns.get(i), i);
+            this.keepExtra = schema.lateColumns() == LateColumns.EXTRA;
+            this.values = new String[columns.size()];
+            this.kinds = new JsonToken[columns.size()];
+        }
+
+        void clear() {
+            Arrays.fill(values, null);
+            extra.clear();
+            extraKinds.clear();
+        }
+
+        void put(String path, JsonToken kind, String text) {
+            Integer index = indexes.get(path);
+            if (index != null) {
+                values[index] = text;
+                kinds[index] = kind;
+            } else if (keepExtra) {
+                extra.put(path, text);
+                extraKinds.put(path, kind);
+            }
+        }
+
+        // {"path": value, ...} with numbers, booleans and arrays as they were in the input
+        String extraJson() throws IOException {
+            if (extra.isEmpty()) return null;
+            StringWriter text = new StringWriter();
+            try (JsonGenerator json = jsonFactory.createGenerator(text)) {
+                json.writeStartObject();
+                for (Map.Entry<String, String> field : extra.entrySet()) {
+                    json.writeFieldName(field.getKey());
+                    if (extraKinds.get(field.getKey()) == JsonToken.VALUE_STRING) {
+                        json.writeString(field.getValue());
+                    } else {
+                        json.writeRawValue(field.getValue());
+                    }
+                }
+                json.writeEndObject();
+            }
+            return text.toString();
+        }
+    }
+}
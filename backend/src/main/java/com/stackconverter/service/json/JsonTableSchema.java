@@ -0,0 +1,24 @@
+package com.stackconverter.service.json;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Result of the inspection pass over a JSON array.
+ *
+ * @param columns     flattened field paths of the sampled records, in first-seen order
+ * @param lateColumns policy for paths outside {@code columns}
+ * @param records     records in the whole array
+ */
+public record JsonTableSchema(List<String> columns, LateColumns lateColumns, long records) {
+
+    public static final String EXTRA_COLUMN = "_extra";
+
+    /** Column names as written in the header row. */
+    public List<String> header() {
+        if (lateColumns != LateColumns.EXTRA) return columns;
+        List<String> header = new ArrayList<>(columns);
+        header.add(EXTRA_COLUMN);
+        return header;
+    }
+}
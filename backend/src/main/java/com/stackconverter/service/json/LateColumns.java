@@ -0,0 +1,28 @@
+package com.stackconverter.service.json;
+
+import java.util.Locale;
+
+/**
+ * What happens to a field path that is not among the columns inferred from the sample.
+ */
+public enum LateColumns {
+
+    /** Dropped. */
+    IGNORE,
+    /** Kept as a JSON object of path → value in a trailing {@value JsonTableSchema#EXTRA_COLUMN} column. */
+    EXTRA,
+    /** The conversion is rejected before any output is written. */
+    FAIL;
+
+    /**
+     * @throws IllegalArgumentException for anything but ignore, extra or fail
+     */
+    public static LateColumns of(String name) {
+        return switch (name.toLowerCase(Locale.ROOT)) {
+            case "ignore" -> IGNORE;
+            case "extra" -> EXTRA;
+            case "fail" -> FAIL;
+            default -> throw new IllegalArgumentException("Unknown late column policy: " + name);
+        };
+    }
+}
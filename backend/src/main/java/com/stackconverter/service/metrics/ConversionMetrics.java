@@ -0,0 +1,102 @@
+package com.stackconverter.service.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.util.Locale;
+
+/**
+ * Conversion-level meters, on top of the per-endpoint {@code http.server.requests}
+ * timers Spring Boot records by itself:
+ * <ul>
+ *   <li>{@code stackconverter.conversion.stage}: time per conversion and stage</li>
+ *   <li>{@code stackconverter.conversion.rows}: CSV / Excel rows processed</li>
+ *   <li>{@code stackconverter.conversion.errors}: failures by exception type, including
+ *       those the controllers turn into 4xx / 5xx bodies</li>
+ * </ul>
+ * Conversions are named after their endpoint, e.g. {@code excel-to-csv} or
+ * {@code json-to-xml/stream}.
+ */
+@Component
+public class ConversionMetrics {
+
+    public enum Stage {
+        /** Reading and validating the input. */
+        PARSE,
+        /** Building the output model. */
+        TRANSFORM,
+        /** Encoding the output into bytes. */
+        SERIALIZE,
+        /** Streaming the response, which interleaves all of the above. */
+        WRITE;
+
+        String tag() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    @FunctionalInterface
+    public interface Work<T, E extends Exception> {
+        T run() throws E;
+    }
+
+    private final MeterRegistry registry;
+
+    public ConversionMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    /**
+     * Run {@code work} and record its duration, whether it succeeds or not.
+     */
+    public <T, E extends Exception> T time(String conversion, Stage stage, Work<T, E> work) throws E {
+        Timer.Sample sample = Timer.start(registry);
+        try {
+            return work.run();
+        } finally {
+            sample.stop(Timer.builder("stackconverter.conversion.stage")
+                    .description("Time spent per conversion stage")
+                    .tag("conversion", conversion)
+                    .tag("stage", stage.tag())
+                    .register(registry));
+        }
+    }
+
+    public void rows(String conversion, long rows) {
+        Counter.builder("stackconverter.conversion.rows")
+                .description("CSV / Excel rows processed")
+                .tag("conversion", conversion)
+                .register(registry)
+                .increment(rows);
+    }
+
+    public void error(String conversion, Throwable error) {
+        Counter.builder("stackconverter.conversion.errors")
+                .description("Failed conversions by exception type")
+                .tag("conversion", conversion)
+                .tag("exception", error.getClass().getSimpleName())
+                .register(registry)
+                .increment();
+    }
+
+    /**
+     * Time {@code body} as the {@link Stage#WRITE} stage and count what it throws.
+     */
+    public StreamingResponseBody write(String conversion, StreamingResponseBody body) {
+        return out -> {
+            try {
+                time(conversion, Stage.WRITE, () -> {
+                    body.writeTo(out);
+                    return null;
+                });
+            } catch (IOException | RuntimeException e) {
+                error(conversion, e);
+                throw e;
+            }
+        };
+    }
+}
@@ -0,0 +1,73 @@
+package com.stackconverter.service.pool;
+
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Small bounded pool for objects that are expensive to create and not thread-safe
+ * (parsers, transformers, digests).
+ * <p>
+ * Borrowing never blocks: when the pool is empty a new instance is created, and
+ * instances returned to a full pool are dropped. The most recently returned instance
+ * is handed out first so a few hot instances serve most requests.
+ * <p>
+ * Preferred over {@code ThreadLocal} caching because request threads are not
+ * guaranteed to be long-lived platform threads.
+ */
+public class ObjectPool<T> {
+
+    /**
+     * Work done with a borrowed instance.
+     */
+    @FunctionalInterface
+    public interface Work<T, R, E extends Exception> {
+        R apply(T instance) throws E;
+    }
+
+    private final LinkedBlockingDeque<T> idle;
+    private final Supplier<? extends T> factory;
+    private final Consumer<? super T> reset;
+
+    /**
+     * @param capacity maximum number of idle instances kept
+     * @param factory  creates a new instance when none is idle
+     * @param reset    restores an instance to its initial state before it is reused
+     */
+    public ObjectPool(int capacity, Supplier<? extends T> factory, Consumer<? super T> reset) {
+        this.idle = new LinkedBlockingDeque<>(capacity);
+        this.factory = factory;
+        this.reset = reset;
+    }
+
+    public T borrow() {
+        T instance = idle.pollFirst();
+        return instance != null ? instance : factory.get();
+    }
+
+    public void release(T instance) {
+        try {
+            reset.accept(instance);
+        } catch (RuntimeException e) {
+            // Could not be restored to a clean state: let it go
+            return;
+        }
+        idle.offerFirst(instance);
+    }
+
+    /**
+     * Run {@code work} with a borrowed instance and return it to the pool afterwards.
+     * Instances are not returned if {@code work} fails, in case they were left half-used.
+     */
+    public <R, E extends Exception> R with(Work<? super T, R, E> work) throws E {
+        T instance = borrow();
+        R result = work.apply(instance);
+        release(instance);
+        return result;
+    }
+
+    /** Number of idle instances currently held. */
+    public int idle() {
+        return idle.size();
+    }
+}
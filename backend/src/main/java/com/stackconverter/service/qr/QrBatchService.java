@@ -0,0 +1,357 @@
+package com.stackconverter.service.qr;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.stackconverter.service.csv.CsvReader;
+import com.stackconverter.service.csv.CsvRecord;
+import com.stackconverter.service.csv.CsvWriter;
+import com.stackconverter.service.exec.ConversionExecutor;
+import com.stackconverter.service.zip.ZipEntryNames;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.ImageIO;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Renders many QR codes with shared styling in one request.
+ * <p>
+ * Items are read lazily from a JSON array or CSV upload and rendered on the
+ * conversion pool, at most {@code max-in-flight} at a time. Results are written in
+ * input order; the next item is only read once the oldest result has been written,
+ * so a slow client throttles rendering and memory stays bounded by the window,
+ * not by the batch size.
+ * <p>
+ * Batch output bypasses {@link QrCodeService}'s cache: catalogue payloads are
+ * mostly unique and would only evict the hot single-image entries.
+ */
+@Service
+public class QrBatchService {
+
+    /**
+     * One payload of a batch.
+     *
+     * @param index 0-based position in the upload
+     * @param name  optional file name (without extension) for the ZIP entry
+     */
+    public record QrBatchItem(int index, String name, String text) {}
+
+    private record Rendered(QrBatchItem item, byte[] image, long crc, String error) {}
+
+    @FunctionalInterface
+    private interface ResultSink {
+        void write(Rendered result) throws IOException;
+    }
+
+    private final QrCodeRenderer renderer;
+    private final ConversionExecutor executor;
+    private final int maxItems;
+    private final int maxInFlight;
+
+    private final JsonFactory jsonFactory = new JsonFactory();
+
+    public QrBatchService(
+            QrCodeRenderer renderer,
+            ConversionExecutor executor,
+            @Value("${stackconverter.qr.batch.max-items:100000}") int maxItems,
+            @Value("${stackconverter.qr.batch.max-in-flight:0}") int maxInFlight) {
+        this.renderer = renderer;
+        this.executor = executor;
+        this.maxItems = maxItems;
+        this.maxInFlight = maxInFlight > 0 ? maxInFlight : 2 * executor.parallelism();
+    }
+
+    /**
+     * Reject styling that would fail for every item.
+     *
+     * @throws IllegalArgumentException if no ImageIO writer exists for the format
+     */
+    public static void requireWritableFormat(String format) {
+        if (!ImageIO.getImageWritersByFormatName(format).hasNext()) {
+            throw new IllegalArgumentException("Unsupported image format: " + format);
+        }
+    }
+
+    /**
+     * Read the whole upload once without rendering, checking syntax and size.
+     *
+     * @return number of items
+     * @throws IOException              on malformed JSON / CSV
+     * @throws IllegalArgumentException if the batch exceeds {@code max-items}
+     */
+    public int countItems(InputStream in) throws IOException {
+        try (ItemReader items = ItemReader.open(in, jsonFactory)) {
+            int count = 0;
+            while (items.next() != null) {
+                if (++count > maxItems) {
+                    throw new IllegalArgumentException("Batch exceeds " + maxItems + " items");
+                }
+            }
+            return count;
+        }
+    }
+
+    /**
+     * Write one image per item into a ZIP on {@code out}. Items that cannot be encoded
+     * are listed in a trailing {@code errors.csv} entry.
+     * <p>
+     * If the batch itself fails part way (the upload cannot be read, or the client goes
+     * away), rendering stops: items still in flight are dropped, and the partial output
+     * ends without {@code errors.csv} or the ZIP central directory.
+     *
+     * @param style styling shared by all items; its text is ignored
+     */
+    public void writeZip(InputStream in, QrSpec style, OutputStream out) throws Exception {
+        ZipOutputStream zip = new ZipOutputStream(out);
+        ZipEntryNames entryNames = new ZipEntryNames(extensionOf(style.format()), "qr");
+
+        Path errorsFile = Files.createTempFile("stackconverter-qr-errors-", ".csv");
+        try (CsvWriter errors = new CsvWriter(Files.newBufferedWriter(errorsFile))) {
+            boolean[] anyErrors = {false};
+
+            try (ItemReader items = ItemReader.open(in, jsonFactory)) {
+                render(items, style, result -> {
+                    QrBatchItem item = result.item();
+                    if (result.error() != null) {
+                        if (!anyErrors[0]) {
+                            errors.field("index");
+                            errors.field("text");
+                            errors.field("error");
+                            errors.endRecord();
+                            anyErrors[0] = true;
+                        }
+                        errors.field(String.valueOf(item.index()));
+                        errors.field(item.text());
+                        errors.field(result.error());
+                        errors.endRecord();
+                        return;
+                    }
+
+                    // Images are already compressed: store them, deflating again only costs CPU
+                    ZipEntry entry = new ZipEntry(entryNames.next(
+                            item.name() != null ? item.name() : "qr-" + (item.index() + 1)));
+                    entry.setMethod(ZipEntry.STORED);
+                    entry.setSize(result.image().length);
+                    entry.setCrc(result.crc());
+
+                    zip.putNextEntry(entry);
+                    zip.write(result.image());
+                    zip.closeEntry();
+                });
+            }
+
+            errors.flush();
+            if (anyErrors[0]) {
+                zip.putNextEntry(new ZipEntry("errors.csv"));
+                Files.copy(errorsFile, zip);
+                zip.closeEntry();
+            }
+        } finally {
+            Files.deleteIfExists(errorsFile);
+        }
+
+        zip.finish();
+        zip.flush();
+    }
+
+    /**
+     * Write one JSON object per line per item, shaped like the {@code /api/qr/base64}
+     * response, or with an {@code error} field instead of {@code imageBase64}. As with
+     * {@link #writeZip}, a batch that fails part way ends after the last line written.
+     *
+     * @param style styling shared by all items; its text is ignored
+     */
+    public void writeNdjson(InputStream in, QrSpec style, OutputStream out) throws Exception {
+        JsonGenerator json = jsonFactory.createGenerator(out);
+        json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        // Lines are terminated explicitly below; no extra space between root values
+        json.setRootValueSeparator(null);
+
+        try (ItemReader items = ItemReader.open(in, jsonFactory)) {
+            render(items, style, result -> {
+                QrBatchItem item = result.item();
+                json.writeStartObject();
+                json.writeNumberField("index", item.index());
+                if (item.name() != null) json.writeStringField("name", item.name());
+                json.writeStringField("text", item.text());
+                json.writeStringField("format", style.format());
+                json.writeNumberField("size", style.size());
+                json.writeStringField("darkColor", hex(style.darkRgb()));
+                json.writeStringField("lightColor", hex(style.lightRgb()));
+                if (result.error() != null) {
+                    json.writeStringField("error", "Error generating QR: " + result.error());
+                } else {
+                    json.writeBinaryField("imageBase64", result.image());
+                }
+                json.writeEndObject();
+                json.writeRaw('\n');
+            });
+        }
+        json.close();
+    }
+
+    // Keeps at most maxInFlight items between reading and writing. On failure the
+    // window is cancelled, so rendered but unwritten items are lost with it.
+    private void render(ItemReader items, QrSpec style, ResultSink sink) throws Exception {
+        ArrayDeque<Future<Rendered>> window = new ArrayDeque<>();
+        try {
+            QrBatchItem item;
+            while ((item = items.next()) != null) {
+                QrBatchItem current = item;
+                window.add(executor.submit(() -> renderItem(current, style)));
+
+                if (window.size() >= maxInFlight) sink.write(await(window.poll()));
+            }
+            while (!window.isEmpty()) sink.write(await(window.poll()));
+        } finally {
+            for (Future<Rendered> pending : window) pending.cancel(true);
+        }
+    }
+
+    private Rendered renderItem(QrBatchItem item, QrSpec style) {
+        try {
+            byte[] image = renderer.render(style.withText(item.text()));
+            CRC32 crc = new CRC32();
+            crc.update(image);
+            return new Rendered(item, image, crc.getValue(), null);
+        } catch (Exception e) {
+            return new Rendered(item, null, 0, e.getMessage());
+        }
+    }
+
+    private static Rendered await(Future<Rendered> result) throws Exception {
+        try {
+            return result.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception cause) throw cause;
+            throw e;
+        }
+    }
+
+    // As the colour parameters are usually given
+    private static String hex(int rgb) {
+        return String.format("#%06X", rgb);
+    }
+
+    private static String extensionOf(String format) {
+        return format.equals("jpeg") ? ".jpg" : "." + format;
+    }
+
+    /**
+     * Pulls batch items from an upload: a JSON array of strings / {@code {"text", "name"}}
+     * objects, or CSV with the text in the first column and an optional name in the second.
+     */
+    private interface ItemReader extends Closeable {
+
+        /** @return the next item, or {@code null} at the end */
+        QrBatchItem next() throws IOException;
+
+        static ItemReader open(InputStream in, JsonFactory jsonFactory) throws IOException {
+            BufferedInputStream buffered = new BufferedInputStream(in);
+            return startsWithJson(buffered)
+                    ? new JsonItems(jsonFactory.createParser(buffered))
+                    : new CsvItems(new CsvReader(new InputStreamReader(buffered, StandardCharsets.UTF_8)));
+        }
+
+        // First character other than whitespace or a UTF-8 BOM opens a JSON array / object
+        private static boolean startsWithJson(BufferedInputStream in) throws IOException {
+            in.mark(1024);
+            try {
+                for (int i = 0, b; i < 1024 && (b = in.read()) != -1; i++) {
+                    if (b == '[' || b == '{') return true;
+                    if (!Character.isWhitespace(b) && b != 0xEF && b != 0xBB && b != 0xBF) return false;
+                }
+                return false;
+            } finally {
+                in.reset();
+            }
+        }
+    }
+
+    private static final class JsonItems implements ItemReader {
+
+        private final JsonParser parser;
+        private int index;
+
+        JsonItems(JsonParser parser) throws IOException {
+            this.parser = parser;
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new IOException("Expected a JSON array of QR payloads");
+            }
+        }
+
+        @Override
+        public QrBatchItem next() throws IOException {
+            JsonToken token = parser.nextToken();
+            if (token == null) throw new IOException("Unexpected end of JSON input");
+            if (token == JsonToken.END_ARRAY) return null;
+
+            if (token.isScalarValue() && token != JsonToken.VALUE_NULL) {
+                return new QrBatchItem(index++, null, parser.getText());
+            }
+            if (token != JsonToken.START_OBJECT) {
+                throw new IOException("Item " + index + ": expected a string or an object with a \"text\" field");
+            }
+
+            String text = null;
+            String name = null;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                parser.nextToken();
+                switch (field) {
+                    case "text" -> text = parser.getValueAsString();
+                    case "name" -> name = parser.getValueAsString();
+                    default -> parser.skipChildren();
+                }
+            }
+            if (text == null) throw new IOException("Item " + index + ": missing \"text\"");
+            return new QrBatchItem(index++, name, text);
+        }
+
+        @Override
+        public void close() throws IOException {
+            parser.close();
+        }
+    }
+
+    private static final class CsvItems implements ItemReader {
+
+        private final CsvReader csv;
+        private int index;
+
+        CsvItems(CsvReader csv) {
+            this.csv = csv;
+        }
+
+        @Override
+        public QrBatchItem next() throws IOException {
+            while (csv.next()) {
+                CsvRecord record = csv.record();
+                String text = record.get(0);
+                // Optional header row, and blank lines
+                if (record.number() == 1 && text.equalsIgnoreCase("text")) continue;
+                if (text.isEmpty() && record.size() == 1) continue;
+
+                String name = record.size() > 1 && record.length(1) > 0 ? record.get(1) : null;
+                return new QrBatchItem(index++, name, text);
+            }
+            return null;
+        }
+
+        @Override
+        public void close() throws IOException {
+            csv.close();
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package com.stackconverter.service.qr;
+
+import com.google.zxing.EncodeHintType;
+import com.google.zxing.WriterException;
+import com.google.zxing.qrcode.decoder.ErrorCorrectionLevel;
+import com.google.zxing.qrcode.encoder.ByteMatrix;
+import com.google.zxing.qrcode.encoder.Encoder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferInt;
+import java.awt.image.IndexColorModel;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Encodes text into a QR image file.
+ * <p>
+ * Works per module rather than per pixel: each module row is expanded into one pixel
+ * row, which is then copied straight into the image's backing array as many times as
+ * the module is tall. Palette formats (PNG, GIF) get a 1-bit two-colour image, which
+ * is 32 times smaller in memory and encodes to a much smaller file.
+ * <p>
+ * Module size, padding and cropping are identical to ZXing's {@code QRCodeWriter}.
+ */
+@Component
+public class QrCodeRenderer {
+
+    // Bump whenever the bytes rendered for a spec change: cache keys and ETags include it
+    private static final int VERSION = 1;
+
+    // Quiet zone in modules
+    private static final int MARGIN = 1;
+
+    private static final Map<EncodeHintType, Object> HINTS = Map.of(
+            EncodeHintType.CHARACTER_SET, "UTF-8",
+            EncodeHintType.MARGIN, MARGIN
+    );
+
+    private final int pngCompressionLevel;
+
+    public QrCodeRenderer(@Value("${stackconverter.qr.png-compression-level:4}") int pngCompressionLevel) {
+        if (pngCompressionLevel < 0 || pngCompressionLevel > 9) {
+            throw new IllegalArgumentException("PNG compression level must be 0-9, got " + pngCompressionLevel);
+        }
+        this.pngCompressionLevel = pngCompressionLevel;
+
+        // Encoded images are a few KB: write them in memory, not through a temp file cache
+        ImageIO.setUseCache(false);
+    }
+
+    /**
+     * Identifies the bytes {@link #render} produces for a given spec: the renderer
+     * version and the settings that affect its output.
+     */
+    public String version() {
+        return VERSION + "/png" + pngCompressionLevel;
+    }
+
+    public byte[] render(QrSpec spec) throws WriterException, IOException {
+        return encode(renderImage(spec), spec.format());
+    }
+
+    /**
+     * Rasterise {@code spec} without encoding it to a file format.
+     */
+    public BufferedImage renderImage(QrSpec spec) throws WriterException {
+        if (spec.text().isEmpty()) throw new IllegalArgumentException("Found empty contents");
+        int size = spec.size();
+        if (size < 0) throw new IllegalArgumentException("Requested dimensions are too small: " + size + 'x' + size);
+
+        ByteMatrix modules = Encoder.encode(spec.text(), ErrorCorrectionLevel.L, HINTS).getMatrix();
+        Layout layout = Layout.of(modules.getWidth(), size);
+
+        return isPalette(spec.format())
+                ? paintIndexed(modules, layout, size, spec.darkRgb(), spec.lightRgb())
+                : paintRgb(modules, layout, size, spec.darkRgb(), spec.lightRgb());
+    }
+
+    private static boolean isPalette(String format) {
+        return format.equals("png") || format.equals("gif");
+    }
+
+    /**
+     * Placement of the module grid in the output square, as computed by
+     * {@code QRCodeWriter.renderResult}. The grid may extend past {@code size} when the
+     * requested size is smaller than the code itself; the image is then cropped.
+     *
+     * @param multiple pixels per module
+     * @param padding  offset of the first module (quiet zone excluded) from the top/left edge
+     */
+    private record Layout(int modules, int multiple, int padding) {
+
+        static Layout of(int modules, int size) {
+            int withQuietZone = modules + 2 * MARGIN;
+            int output = Math.max(size, withQuietZone);
+            int multiple = output / withQuietZone;
+            return new Layout(modules, multiple, (output - modules * multiple) / 2);
+        }
+
+        /** First pixel of module {@code m}. */
+        int start(int m) {
+            return padding + m * multiple;
+        }
+    }
+
+    private static BufferedImage paintRgb(ByteMatrix modules, Layout layout, int size, int dark, int light) {
+        BufferedImage image = new BufferedImage(size, size, BufferedImage.TYPE_INT_RGB);
+        int[] pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        Arrays.fill(pixels, light);
+
+        int[] row = new int[size];
+        for (int my = 0; my < layout.modules(); my++) {
+            Arrays.fill(row, light);
+            for (int mx = 0; mx < layout.modules(); mx++) {
+                if (modules.get(mx, my) == 1) {
+                    int from = Math.min(layout.start(mx), size);
+                    Arrays.fill(row, from, Math.min(from + layout.multiple(), size), dark);
+                }
+            }
+            copyRows(row, pixels, size, size, layout, my);
+        }
+        return image;
+    }
+
+    private static BufferedImage paintIndexed(ByteMatrix modules, Layout layout, int size, int dark, int light) {
+        // index 0 = light, 1 = dark
+        IndexColorModel palette = new IndexColorModel(1, 2,
+                new byte[] {(byte) (light >> 16), (byte) (dark >> 16)},
+                new byte[] {(byte) (light >> 8), (byte) (dark >> 8)},
+                new byte[] {(byte) light, (byte) dark});
+        BufferedImage image = new BufferedImage(size, size, BufferedImage.TYPE_BYTE_BINARY, palette);
+        byte[] pixels = ((DataBufferByte) image.getRaster().getDataBuffer()).getData();
+
+        // 8 pixels per byte, most significant bit first; the array starts all light
+        int stride = (size + 7) / 8;
+        byte[] row = new byte[stride];
+        for (int my = 0; my < layout.modules(); my++) {
+            Arrays.fill(row, (byte) 0);
+            for (int mx = 0; mx < layout.modules(); mx++) {
+                if (modules.get(mx, my) == 1) {
+                    int from = Math.min(layout.start(mx), size);
+                    setBits(row, from, Math.min(from + layout.multiple(), size));
+                }
+            }
+            copyRows(row, pixels, stride, size, layout, my);
+        }
+        return image;
+    }
+
+    // Replicate one pixel row over all pixel rows of module row my that fall inside the image
+    private static void copyRows(Object row, Object pixels, int stride, int size, Layout layout, int my) {
+        int first = layout.start(my);
+        int last = Math.min(first + layout.multiple(), size);
+        for (int y = first; y < last; y++) {
+            System.arraycopy(row, 0, pixels, y * stride, stride);
+        }
+    }
+
+    // Set bits [from, to) of a packed MSB-first row
+    private static void setBits(byte[] row, int from, int to) {
+        while (from < to && (from & 7) != 0) {
+            row[from >> 3] |= (byte) (0x80 >>> (from & 7));
+            from++;
+        }
+        int wholeBytesEnd = from + ((to - from) & ~7);
+        if (wholeBytesEnd > from) {
+            Arrays.fill(row, from >> 3, wholeBytesEnd >> 3, (byte) 0xFF);
+            from = wholeBytesEnd;
+        }
+        while (from < to) {
+            row[from >> 3] |= (byte) (0x80 >>> (from & 7));
+            from++;
+        }
+    }
+
+    private byte[] encode(BufferedImage image, String format) throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+
+        Iterator<ImageWriter> writers = ImageIO.getImageWritersByFormatName(format);
+        if (!format.equals("png") || !writers.hasNext()) {
+            ImageIO.write(image, format, baos);
+            return baos.toByteArray();
+        }
+
+        ImageWriter writer = writers.next();
+        try (ImageOutputStream out = ImageIO.createImageOutputStream(baos)) {
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            // The JDK writer uses deflate level 9 - round(9 * quality)
+            param.setCompressionQuality((9 - pngCompressionLevel) / 9f);
+
+            writer.setOutput(out);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return baos.toByteArray();
+    }
+}
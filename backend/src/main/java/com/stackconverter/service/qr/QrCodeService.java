@@ -0,0 +1,92 @@
+package com.stackconverter.service.qr;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+
+/**
+ * QR images with an in-process result cache in front of the renderer.
+ * <p>
+ * Entries are keyed by {@link QrSpec#cacheKey} for the current renderer, weighed by their encoded size and
+ * expire a fixed time after rendering. A miss renders on the calling thread; two
+ * concurrent misses for the same spec may both render, which is harmless since the
+ * result is identical.
+ */
+@Service
+public class QrCodeService {
+
+    // Approximate per-entry overhead beyond the image bytes (key, record, etag, node)
+    private static final int ENTRY_OVERHEAD = 256;
+
+    private final QrCodeRenderer renderer;
+    private final Cache<String, QrImage> cache;
+
+    public QrCodeService(
+            QrCodeRenderer renderer,
+            @Value("${stackconverter.qr.cache.max-bytes:67108864}") long maxBytes,
+            @Value("${stackconverter.qr.cache.ttl:1h}") Duration ttl,
+            MeterRegistry registry) {
+        this.renderer = renderer;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((String key, QrImage image) -> image.bytes().length + ENTRY_OVERHEAD)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        // cache.gets{cache="qr-images",result="hit|miss"}, evictions, size
+        CaffeineCacheMetrics.monitor(registry, cache, "qr-images");
+    }
+
+    public QrImage image(QrSpec spec) throws Exception {
+        QrImage image = cached(spec);
+        return image != null ? image : render(spec);
+    }
+
+    /** The cached image for {@code spec}, or {@code null} if it has to be {@link #render rendered}. */
+    public QrImage cached(QrSpec spec) {
+        return cache.getIfPresent(spec.cacheKey(renderer.version()));
+    }
+
+    /** Render {@code spec} without looking at the cache, and cache the result. */
+    public QrImage render(QrSpec spec) throws Exception {
+        String key = spec.cacheKey(renderer.version());
+        QrImage image = new QrImage(spec.format(), renderer.render(spec), etagOf(key));
+        cache.put(key, image);
+        return image;
+    }
+
+    /**
+     * The strong entity tag (quoted) of the image for {@code spec}, known without
+     * rendering it: the renderer produces the same bytes for the same spec and version.
+     */
+    public String etag(QrSpec spec) {
+        return etagOf(spec.cacheKey(renderer.version()));
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    /** Number of cached images. */
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    /** Total weight of cached entries in bytes. */
+    public long weightBytes() {
+        return cache.policy().eviction()
+                .map(eviction -> eviction.weightedSize().orElse(0))
+                .orElse(0L);
+    }
+
+    // 128 bits of the key is plenty to tell images apart
+    private static String etagOf(String key) {
+        return "\"" + key.substring(0, 32) + "\"";
+    }
+}
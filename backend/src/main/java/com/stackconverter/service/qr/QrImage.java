@@ -0,0 +1,15 @@
+package com.stackconverter.service.qr;
+
+/**
+ * An encoded QR image.
+ *
+ * @param bytes image file contents; never modified after creation
+ * @param etag  strong entity tag (quoted), see {@link QrCodeService#etag}
+ */
+public record QrImage(String format, byte[] bytes, String etag) {
+
+    /** Media type for the {@code Content-Type} header. */
+    public String contentType() {
+        return "image/" + format;
+    }
+}
@@ -0,0 +1,55 @@
+package com.stackconverter.service.qr;
+
+import java.awt.Color;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Locale;
+
+/**
+ * Everything that determines a rendered QR image.
+ *
+ * @param format    ImageIO format name, lower case ({@code jpg} is normalised to {@code jpeg})
+ * @param darkRgb   RGB of dark modules
+ * @param lightRgb  RGB of light modules and the quiet zone
+ */
+public record QrSpec(String text, String format, int size, int darkRgb, int lightRgb) {
+
+    /**
+     * Parse request parameters the way the QR endpoints accept them.
+     *
+     * @throws NumberFormatException if a colour is not a valid hex / decimal colour
+     */
+    public static QrSpec of(String text, String format, int size, String darkColorHex, String lightColorHex) {
+        String imageFormat = format.toLowerCase(Locale.ROOT);
+        if (imageFormat.equals("jpg")) imageFormat = "jpeg";
+
+        return new QrSpec(text, imageFormat, size,
+                Color.decode(darkColorHex).getRGB() & 0xFFFFFF,
+                Color.decode(lightColorHex).getRGB() & 0xFFFFFF);
+    }
+
+    /** Same styling, different content. */
+    public QrSpec withText(String text) {
+        return new QrSpec(text, format, size, darkRgb, lightRgb);
+    }
+
+    /**
+     * SHA-256 over all parameters and {@code rendererVersion}, hex encoded. Equal specs
+     * always produce equal images from the same renderer, so this addresses the
+     * rendered result.
+     */
+    public String cacheKey(String rendererVersion) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            // Fixed-width fields first; the text goes last so no separator is needed
+            digest.update((rendererVersion + '\0' + format + '\0' + size + '\0' + darkRgb + '\0' + lightRgb + '\0')
+                    .getBytes(StandardCharsets.UTF_8));
+            digest.update(text.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.stackconverter.service.sniff;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * The parts of a payload the sniffer looks at: its first and last bytes.
+ * For payloads shorter than either window the two arrays overlap.
+ *
+ * @param head   the first bytes of the payload
+ * @param tail   the last bytes of the payload, where a ZIP keeps its central directory
+ * @param length total payload length
+ */
+public record ContentSample(byte[] head, byte[] tail, long length) {
+
+    public static ContentSample of(byte[] content, int headSize, int tailSize) {
+        return new ContentSample(
+                Arrays.copyOf(content, Math.min(content.length, headSize)),
+                Arrays.copyOfRange(content, Math.max(0, content.length - tailSize), content.length),
+                content.length);
+    }
+
+    /** The same windows of the remaining bytes of {@code content}, copying nothing else. */
+    public static ContentSample of(ByteBuffer content, int headSize, int tailSize) {
+        int length = content.remaining();
+        byte[] head = new byte[Math.min(length, headSize)];
+        byte[] tail = new byte[Math.min(length, tailSize)];
+        content.get(content.position(), head);
+        content.get(content.limit() - tail.length, tail);
+        return new ContentSample(head, tail, length);
+    }
+
+    /** Absolute payload offset of {@code tail[0]}. */
+    long tailOffset() {
+        return length - tail.length;
+    }
+}
@@ -0,0 +1,138 @@
+package com.stackconverter.service.sniff;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Detects the type of a payload from a fixed-size sample of it.
+ * <p>
+ * Text is recognised first (mostly printable bytes, CSV if it also has commas and
+ * line breaks but no JSON / XML markup). Otherwise the earliest signature in the
+ * head wins, found by walking a trie of all {@link FormatPlugin} signatures once per
+ * offset. ZIP archives are refined into OOXML documents from their entry names,
+ * read from the central directory in the tail without inflating anything.
+ * <p>
+ * Only {@link ContentSample}s are inspected, so callers streaming a payload can
+ * decide the type from its first and last few KB before writing the body.
+ */
+@Component
+public class ContentSniffer {
+
+    /** How far into the head {@link FormatRegistry#embedded embedded} signatures are looked for. */
+    public static final int EMBEDDED_SCAN_LIMIT = 512;
+
+    private static final int TEXT_SCAN_LIMIT = 2048;
+
+    private final SignatureTrie leading;
+    private final SignatureTrie embedded;
+    private final List<FormatRegistry.ZipRule> zipRules;
+    private final int headSize;
+    private final int tailSize;
+
+    public ContentSniffer(
+            List<FormatPlugin> plugins,
+            @Value("${stackconverter.sniff.head-size:4096}") int headSize,
+            @Value("${stackconverter.sniff.tail-size:16384}") int tailSize) {
+        if (headSize < TEXT_SCAN_LIMIT) {
+            throw new IllegalArgumentException("stackconverter.sniff.head-size must be at least " + TEXT_SCAN_LIMIT);
+        }
+        if (tailSize < 0) throw new IllegalArgumentException("stackconverter.sniff.tail-size must not be negative");
+
+        FormatRegistry formats = new FormatRegistry();
+        plugins.forEach(plugin -> plugin.register(formats));
+
+        this.leading = formats.leading;
+        this.embedded = formats.embedded;
+        this.zipRules = List.copyOf(formats.zipRules);
+        this.headSize = headSize;
+        this.tailSize = tailSize;
+    }
+
+    /** Bytes from the start of a payload the sniffer looks at. */
+    public int headSize() {
+        return headSize;
+    }
+
+    /** Bytes from the end of a payload the sniffer looks at. */
+    public int tailSize() {
+        return tailSize;
+    }
+
+    public FileType sniff(byte[] content) {
+        return sniff(ContentSample.of(content, headSize, tailSize));
+    }
+
+    /** Sniffs the remaining bytes of {@code content}, e.g. a mapped file, without moving it. */
+    public FileType sniff(ByteBuffer content) {
+        return sniff(ContentSample.of(content, headSize, tailSize));
+    }
+
+    /**
+     * @return the detected type, {@link FileType#TXT} when nothing matches
+     */
+    public FileType sniff(ContentSample sample) {
+        byte[] head = sample.head();
+
+        if (looksLikeText(head)) {
+            return looksLikeCsv(head) ? FileType.CSV : FileType.TXT;
+        }
+
+        int limit = Math.min(head.length, EMBEDDED_SCAN_LIMIT);
+        for (int offset = 0; offset < limit; offset++) {
+            SignatureTrie.Match match = embedded.match(head, offset);
+            if (offset == 0) {
+                SignatureTrie.Match atStart = leading.match(head, 0);
+                if (atStart != null) match = atStart.or(match);
+            }
+            if (match != null) {
+                return match.type().equals(FileType.ZIP) ? refineZip(sample, offset) : match.type();
+            }
+        }
+
+        return FileType.TXT;
+    }
+
+    private FileType refineZip(ContentSample sample, int offset) {
+        if (zipRules.isEmpty()) return FileType.ZIP;
+
+        for (String name : ZipDirectory.entryNames(sample, offset)) {
+            String lower = name.toLowerCase(Locale.ROOT);
+            for (FormatRegistry.ZipRule rule : zipRules) {
+                if (lower.startsWith(rule.prefix())) return rule.type();
+            }
+        }
+        return FileType.ZIP;
+    }
+
+    // Over 90% printable ASCII / whitespace in the first 2 KB
+    private static boolean looksLikeText(byte[] head) {
+        int total = Math.min(head.length, TEXT_SCAN_LIMIT);
+        int printable = 0;
+
+        for (int i = 0; i < total; i++) {
+            byte b = head[i];
+            if (b == '\n' || b == '\r' || b == '\t' || (b >= 32 && b <= 126)) printable++;
+        }
+
+        return ((double) printable / total) > 0.90;
+    }
+
+    private static boolean looksLikeCsv(byte[] head) {
+        boolean comma = false, newline = false;
+        for (byte b : head) {
+            switch (b) {
+                case ',' -> comma = true;
+                case '\n' -> newline = true;
+                case '{', '<' -> {
+                    return false;
+                }
+                default -> {}
+            }
+        }
+        return comma && newline;
+    }
+}
@@ -0,0 +1,32 @@
+package com.stackconverter.service.sniff;
+
+/**
+ * A detected content type: the extension used for download file names and the
+ * matching {@code Content-Type}.
+ *
+ * @param extension including the dot, e.g. {@code ".png"}
+ */
+public record FileType(String extension, String mimeType) {
+
+    public static final FileType TXT = new FileType(".txt", "text/plain");
+    public static final FileType CSV = new FileType(".csv", "text/csv");
+    public static final FileType PNG = new FileType(".png", "image/png");
+    public static final FileType JPG = new FileType(".jpg", "image/jpeg");
+    public static final FileType GIF = new FileType(".gif", "image/gif");
+    public static final FileType WEBP = new FileType(".webp", "image/webp");
+    public static final FileType PDF = new FileType(".pdf", "application/pdf");
+    public static final FileType MP3 = new FileType(".mp3", "audio/mpeg");
+    public static final FileType MP4 = new FileType(".mp4", "video/mp4");
+    public static final FileType GZIP = new FileType(".gz", "application/gzip");
+    public static final FileType WASM = new FileType(".wasm", "application/wasm");
+    public static final FileType XLS = new FileType(".xls", "application/vnd.ms-excel");
+
+    /** Plain ZIP archive; refined through the entry rules when an OOXML package is recognised. */
+    public static final FileType ZIP = new FileType(".zip", "application/zip");
+    public static final FileType XLSX = new FileType(".xlsx",
+            "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet");
+    public static final FileType DOCX = new FileType(".docx",
+            "application/vnd.openxmlformats-officedocument.wordprocessingml.document");
+    public static final FileType PPTX = new FileType(".pptx",
+            "application/vnd.openxmlformats-officedocument.presentationml.presentation");
+}
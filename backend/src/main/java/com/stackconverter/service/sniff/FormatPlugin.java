@@ -0,0 +1,12 @@
+package com.stackconverter.service.sniff;
+
+/**
+ * Contributes signatures to the {@link ContentSniffer}. Every plugin bean is applied
+ * once at startup, in {@code @Order}; for matches at the same offset, signatures
+ * registered earlier win.
+ */
+@FunctionalInterface
+public interface FormatPlugin {
+
+    void register(FormatRegistry formats);
+}
@@ -0,0 +1,67 @@
+package com.stackconverter.service.sniff;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Collects magic-number signatures and ZIP entry rules from {@link FormatPlugin}s.
+ * <p>
+ * Patterns are byte values with {@link #ANY} as a single-byte wildcard, so
+ * {@code "RIFF", ANY x4, "WEBP"} style signatures need no custom code.
+ */
+public final class FormatRegistry {
+
+    /** Matches any byte at this position of a pattern. */
+    public static final int ANY = -1;
+
+    record ZipRule(String prefix, FileType type) {}
+
+    final SignatureTrie leading = new SignatureTrie();
+    final SignatureTrie embedded = new SignatureTrie();
+    final List<ZipRule> zipRules = new ArrayList<>();
+
+    private int priority;
+
+    FormatRegistry() {}
+
+    /** A signature that must start at the first byte. */
+    public FormatRegistry leading(FileType type, int... pattern) {
+        leading.add(pattern, type, priority++);
+        return this;
+    }
+
+    public FormatRegistry leading(FileType type, String ascii) {
+        return leading(type, bytes(ascii));
+    }
+
+    /**
+     * A signature that may start anywhere in the first
+     * {@value ContentSniffer#EMBEDDED_SCAN_LIMIT} bytes (e.g. behind a junk prefix).
+     */
+    public FormatRegistry embedded(FileType type, int... pattern) {
+        embedded.add(pattern, type, priority++);
+        return this;
+    }
+
+    public FormatRegistry embedded(FileType type, String ascii) {
+        return embedded(type, bytes(ascii));
+    }
+
+    /**
+     * Refine a {@link FileType#ZIP} match: an archive with an entry whose name starts
+     * with {@code prefix} (case-insensitive) is reported as {@code type}.
+     */
+    public FormatRegistry zipEntry(String prefix, FileType type) {
+        zipRules.add(new ZipRule(prefix.toLowerCase(Locale.ROOT), type));
+        return this;
+    }
+
+    private static int[] bytes(String ascii) {
+        byte[] raw = ascii.getBytes(StandardCharsets.US_ASCII);
+        int[] pattern = new int[raw.length];
+        for (int i = 0; i < raw.length; i++) pattern[i] = raw[i] & 0xFF;
+        return pattern;
+    }
+}
@@ -0,0 +1,63 @@
+package com.stackconverter.service.sniff;
+
+/**
+ * Byte trie over all registered signatures, with a wildcard edge per node.
+ * Matching at one offset walks the trie once instead of comparing every signature.
+ */
+final class SignatureTrie {
+
+    /** A matched signature; a lower priority was registered earlier and wins ties. */
+    record Match(FileType type, int priority) {
+
+        Match or(Match other) {
+            if (other == null) return this;
+            return other.priority < priority ? other : this;
+        }
+    }
+
+    private static final class Node {
+        Node[] next;
+        Node any;
+        Match match;
+    }
+
+    private final Node root = new Node();
+
+    void add(int[] pattern, FileType type, int priority) {
+        if (pattern.length == 0) throw new IllegalArgumentException("Empty signature for " + type);
+
+        Node node = root;
+        for (int b : pattern) {
+            if (b == FormatRegistry.ANY) {
+                if (node.any == null) node.any = new Node();
+                node = node.any;
+            } else {
+                if (b < 0 || b > 0xFF) throw new IllegalArgumentException("Not a byte: " + b);
+                if (node.next == null) node.next = new Node[256];
+                if (node.next[b] == null) node.next[b] = new Node();
+                node = node.next[b];
+            }
+        }
+        // The first registration of a pattern keeps precedence
+        if (node.match == null) node.match = new Match(type, priority);
+    }
+
+    /**
+     * @return the highest-priority signature starting at {@code offset}, or {@code null}
+     */
+    Match match(byte[] data, int offset) {
+        return walk(root, data, offset, null);
+    }
+
+    private static Match walk(Node node, byte[] data, int pos, Match best) {
+        if (node.match != null) best = node.match.or(best);
+        if (pos >= data.length) return best;
+
+        if (node.next != null) {
+            Node child = node.next[data[pos] & 0xFF];
+            if (child != null) best = walk(child, data, pos + 1, best);
+        }
+        if (node.any != null) best = walk(node.any, data, pos + 1, best);
+        return best;
+    }
+}
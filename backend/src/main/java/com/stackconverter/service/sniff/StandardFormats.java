@@ -0,0 +1,42 @@
+package com.stackconverter.service.sniff;
+
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import static com.stackconverter.service.sniff.FormatRegistry.ANY;
+
+/**
+ * The formats recognised out of the box. Registration order is precedence for
+ * signatures matching at the same offset.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class StandardFormats implements FormatPlugin {
+
+    @Override
+    public void register(FormatRegistry formats) {
+        formats
+                // OLE2 compound document (legacy Excel)
+                .leading(FileType.XLS, 0xD0, 0xCF, 0x11, 0xE0, 0xA1, 0xB1, 0x1A, 0xE1)
+                .leading(FileType.WEBP, 'R', 'I', 'F', 'F', ANY, ANY, ANY, ANY, 'W', 'E', 'B', 'P')
+                .leading(FileType.GZIP, 0x1F, 0x8B, 0x08)
+                .leading(FileType.WASM, 0x00, 'a', 's', 'm')
+                .leading(FileType.MP3, "ID3")
+
+                // Also found behind a prefix, e.g. an image appended to other data
+                .embedded(FileType.JPG, 0xFF, 0xD8)
+                .embedded(FileType.PNG, 0x89, 'P', 'N', 'G')
+                .embedded(FileType.GIF, "GIF89a")
+                .embedded(FileType.GIF, "GIF87a")
+                .embedded(FileType.PDF, "%PDF")
+                .embedded(FileType.ZIP, 'P', 'K', 0x03, 0x04)
+                .embedded(FileType.MP3, 0xFF, 0xFB)
+                .embedded(FileType.MP4, ANY, ANY, ANY, ANY, 'f', 't', 'y', 'p')
+
+                // Office Open XML packages, by their main part's folder
+                .zipEntry("xl/", FileType.XLSX)
+                .zipEntry("word/", FileType.DOCX)
+                .zipEntry("ppt/", FileType.PPTX);
+    }
+}
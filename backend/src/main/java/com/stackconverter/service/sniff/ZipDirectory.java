@@ -0,0 +1,111 @@
+package com.stackconverter.service.sniff;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Lists ZIP entry names from a {@link ContentSample} without inflating anything.
+ * <p>
+ * The central directory at the end of the archive is preferred: it names every
+ * entry, including ones written with data descriptors (as {@code ZipOutputStream}
+ * and POI do), whose local headers carry no size to skip by. When the directory
+ * is not inside the sample, local file headers in the head are walked instead.
+ */
+final class ZipDirectory {
+
+    private static final int LOCAL_HEADER = 0x04034b50;
+    private static final int CENTRAL_HEADER = 0x02014b50;
+    private static final int END_OF_DIRECTORY = 0x06054b50;
+
+    private static final int END_OF_DIRECTORY_SIZE = 22;
+    private static final int MAX_COMMENT = 0xFFFF;
+
+    private ZipDirectory() {}
+
+    /**
+     * @param start offset of the first local file header in the payload
+     */
+    static List<String> entryNames(ContentSample sample, int start) {
+        List<String> names = centralDirectory(sample);
+        return names != null ? names : localHeaders(sample.head(), start);
+    }
+
+    private static List<String> centralDirectory(ContentSample sample) {
+        byte[] tail = sample.tail();
+
+        int end = -1;
+        for (int i = tail.length - END_OF_DIRECTORY_SIZE;
+             i >= 0 && i >= tail.length - END_OF_DIRECTORY_SIZE - MAX_COMMENT; i--) {
+            if (int32(tail, i) == END_OF_DIRECTORY) {
+                end = i;
+                break;
+            }
+        }
+        if (end < 0) return null;
+
+        long size = int32(tail, end + 12) & 0xFFFFFFFFL;
+        if (size == 0xFFFFFFFFL) return null; // ZIP64
+
+        // Located relative to the end record, so data prepended to the archive does not matter
+        long start = end - size;
+        if (start >= 0) return directoryEntries(tail, (int) start, end);
+
+        // The directory begins before the sample, which then holds nothing but directory
+        // headers up to the end record: resume at the first header that chains to it
+        for (int i = 0; i < end; i++) {
+            if (int32(tail, i) == CENTRAL_HEADER) {
+                List<String> names = directoryEntries(tail, i, end);
+                if (names != null) return names;
+            }
+        }
+        return null;
+    }
+
+    // null unless the headers chain exactly from start to end
+    private static List<String> directoryEntries(byte[] data, int start, int end) {
+        List<String> names = new ArrayList<>();
+        int pos = start;
+        while (pos < end) {
+            if (pos + 46 > end || int32(data, pos) != CENTRAL_HEADER) return null;
+            int nameLength = int16(data, pos + 28);
+            int extraLength = int16(data, pos + 30);
+            int commentLength = int16(data, pos + 32);
+            if (pos + 46 + nameLength > end) return null;
+
+            names.add(new String(data, pos + 46, nameLength, StandardCharsets.UTF_8));
+            pos += 46 + nameLength + extraLength + commentLength;
+        }
+        return pos == end ? names : null;
+    }
+
+    private static List<String> localHeaders(byte[] head, int start) {
+        List<String> names = new ArrayList<>();
+        int pos = start;
+        while (pos + 30 <= head.length && int32(head, pos) == LOCAL_HEADER) {
+            int flags = int16(head, pos + 6);
+            long compressedSize = int32(head, pos + 18) & 0xFFFFFFFFL;
+            int nameLength = int16(head, pos + 26);
+            int extraLength = int16(head, pos + 28);
+            if (pos + 30 + nameLength > head.length) break;
+
+            names.add(new String(head, pos + 30, nameLength, StandardCharsets.UTF_8));
+
+            // Size deferred to a data descriptor: the next header cannot be found without inflating
+            if ((flags & 0x08) != 0 && compressedSize == 0) break;
+            long next = pos + 30L + nameLength + extraLength + compressedSize;
+            if (next > head.length) break;
+            pos = (int) next;
+        }
+        return names;
+    }
+
+    private static int int16(byte[] data, int pos) {
+        return (data[pos] & 0xFF) | (data[pos + 1] & 0xFF) << 8;
+    }
+
+    private static int int32(byte[] data, int pos) {
+        return (data[pos] & 0xFF) | (data[pos + 1] & 0xFF) << 8
+                | (data[pos + 2] & 0xFF) << 16 | (data[pos + 3] & 0xFF) << 24;
+    }
+}
@@ -0,0 +1,418 @@
+package com.stackconverter.service.time;
+
+import com.stackconverter.service.csv.CsvReader;
+import com.stackconverter.service.csv.CsvRecord;
+import com.stackconverter.service.csv.CsvWriter;
+import com.stackconverter.service.exec.ConversionExecutor;
+import com.stackconverter.service.time.TimestampConversion.Source;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/**
+ * Rewrites timestamp columns of a CSV upload (epoch seconds / millis or date text)
+ * into one target representation, streaming the whole file back with every other
+ * field unchanged.
+ * <p>
+ * Records are copied into blocks of {@code block-rows}. Each block is converted on
+ * the conversion pool, at most {@code max-in-flight} at a time, in two passes: every
+ * selected column is first parsed into primitive {@code long} seconds / {@code int}
+ * nanos arrays, then the block is written out as CSV. Numbers are parsed and ISO-8601
+ * text is written straight from the char buffers by an {@link IsoTimestampWriter}, so
+ * the common log formats allocate nothing per value.
+ * Custom patterns go through the (cached) {@link DateTimeFormatter}.
+ * <p>
+ * Values that cannot be converted are kept as they are or written empty, as the
+ * {@link TimestampConversion} asks; a bad row never fails the batch.
+ */
+@Service
+public class BatchTimestampConverter {
+
+    /** Auto-detected millis start here: 10^11 seconds would be past the year 5138. */
+    private static final long AUTO_MILLIS_FROM = 100_000_000_000L;
+
+    private static final long MIN_SECOND = Instant.MIN.getEpochSecond();
+    private static final long MAX_SECOND = Instant.MAX.getEpochSecond();
+
+    private final ConversionExecutor executor;
+    private final int blockRows;
+    private final int maxInFlight;
+
+    public BatchTimestampConverter(
+            ConversionExecutor executor,
+            @Value("${stackconverter.timestamp.batch.block-rows:8192}") int blockRows,
+            @Value("${stackconverter.timestamp.batch.max-in-flight:0}") int maxInFlight) {
+        if (blockRows <= 0) throw new IllegalArgumentException("stackconverter.timestamp.batch.block-rows must be positive");
+        this.executor = executor;
+        this.blockRows = blockRows;
+        this.maxInFlight = maxInFlight > 0 ? maxInFlight : 2 * executor.parallelism();
+    }
+
+    /**
+     * Resolve a comma-separated list of column names (with a header row) or 0-based
+     * indexes against the first record of {@code in}.
+     *
+     * @throws IllegalArgumentException if a column is unknown
+     */
+    public int[] columns(InputStream in, char delimiter, String spec, boolean header) throws IOException {
+        String[] names = new String[0];
+        if (header) {
+            CsvReader csv = new CsvReader(new InputStreamReader(in, StandardCharsets.UTF_8), delimiter);
+            if (csv.next()) names = csv.record().toArray();
+        }
+
+        Set<Integer> columns = new LinkedHashSet<>();
+        for (String part : spec.split(",")) {
+            String name = part.trim();
+            if (name.isEmpty()) continue;
+            int index = Arrays.asList(names).indexOf(name);
+            if (index < 0 && name.chars().allMatch(c -> c >= '0' && c <= '9') && name.length() < 10) {
+                index = Integer.parseInt(name);
+            }
+            if (index < 0) throw new IllegalArgumentException("Unknown column: " + name);
+            columns.add(index);
+        }
+        if (columns.isEmpty()) throw new IllegalArgumentException("No timestamp columns selected");
+        return columns.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * Stream {@code in} to {@code out} as CSV with the given columns converted. A header
+     * row is copied unchanged. {@code out} is left open.
+     *
+     * @return number of records converted, header excluded
+     */
+    public long write(InputStream in, char delimiter, boolean header, int[] columns,
+                      TimestampConversion conversion, OutputStream out) throws Exception {
+        CsvReader csv = new CsvReader(new InputStreamReader(in, StandardCharsets.UTF_8), delimiter);
+
+        if (header && csv.next()) {
+            CsvWriter names = new CsvWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), delimiter);
+            CsvRecord record = csv.record();
+            for (int i = 0; i < record.size(); i++) names.field(record.get(i));
+            names.endRecord();
+            names.flush();
+        }
+
+        long rows = 0;
+        ArrayDeque<Future<byte[]>> window = new ArrayDeque<>();
+        try {
+            RowBlock block = new RowBlock(blockRows);
+            while (csv.next()) {
+                rows++;
+                block.add(csv.record());
+                if (block.rows == blockRows) {
+                    RowBlock full = block;
+                    window.add(executor.submit(() -> convertBlock(full, delimiter, columns, conversion)));
+                    block = new RowBlock(blockRows);
+
+                    if (window.size() >= maxInFlight) out.write(await(window.poll()));
+                }
+            }
+            if (block.rows > 0) {
+                RowBlock last = block;
+                window.add(executor.submit(() -> convertBlock(last, delimiter, columns, conversion)));
+            }
+            while (!window.isEmpty()) out.write(await(window.poll()));
+        } finally {
+            for (Future<byte[]> pending : window) pending.cancel(true);
+        }
+        out.flush();
+        return rows;
+    }
+
+    // Runs on a worker: parse all selected columns, then write the block
+    private static byte[] convertBlock(RowBlock block, char delimiter, int[] columns, TimestampConversion conversion)
+            throws IOException {
+        int rows = block.rows;
+        char[] chars = block.chars;
+
+        // Pass 1: selected columns → epoch seconds + nanos
+        long[][] seconds = new long[columns.length][rows];
+        int[][] nanos = new int[columns.length][rows];
+        boolean[][] valid = new boolean[columns.length][rows];
+        for (int k = 0; k < columns.length; k++) {
+            for (int row = 0; row < rows; row++) {
+                int field = block.firstField(row) + columns[k];
+                if (field >= block.rowEnd(row)) continue;
+
+                int start = block.start(field);
+                int end = block.ends[field];
+                while (start < end && chars[start] <= ' ') start++;
+                while (end > start && chars[end - 1] <= ' ') end--;
+                if (start == end) continue;
+
+                valid[k][row] = parse(chars, start, end, conversion, seconds[k], nanos[k], row);
+            }
+        }
+
+        // Field index → position in columns, or -1
+        int[] slots = new int[Arrays.stream(columns).max().orElse(0) + 1];
+        Arrays.fill(slots, -1);
+        for (int k = 0; k < columns.length; k++) slots[columns[k]] = k;
+
+        // Pass 2: write every record, substituting converted values
+        BlockWriter buffer = new BlockWriter(block.length * 2);
+        CsvWriter csv = new CsvWriter(buffer, delimiter);
+        IsoTimestampWriter iso = new IsoTimestampWriter(conversion.zone());
+        StringBuilder text = new StringBuilder(64);
+        char[] value = new char[64];
+
+        for (int row = 0; row < rows; row++) {
+            int first = block.firstField(row);
+            for (int field = first; field < block.rowEnd(row); field++) {
+                int column = field - first;
+                int k = column < slots.length ? slots[column] : -1;
+
+                if (k >= 0 && valid[k][row]) {
+                    int length = format(seconds[k][row], nanos[k][row], conversion, iso, text, value);
+                    if (length > value.length) {
+                        value = new char[length];
+                        length = format(seconds[k][row], nanos[k][row], conversion, iso, text, value);
+                    }
+                    if (length >= 0) {
+                        csv.field(value, 0, length);
+                        continue;
+                    }
+                }
+                if (k >= 0 && !conversion.keepInvalid() && block.start(field) < block.ends[field]) {
+                    csv.field((String) null);
+                } else {
+                    csv.field(chars, block.start(field), block.ends[field] - block.start(field));
+                }
+            }
+            csv.endRecord();
+        }
+        csv.close();
+        // One bulk encode rather than an encoder call per field
+        return buffer.toUtf8();
+    }
+
+    /**
+     * Parse one trimmed value into {@code seconds[row]} / {@code nanos[row]}.
+     *
+     * @return {@code false} if the value is not a timestamp of the expected kind
+     */
+    private static boolean parse(char[] chars, int start, int end, TimestampConversion conversion,
+                                 long[] seconds, int[] nanos, int row) {
+        Source source = conversion.source();
+        if (source != Source.TEXT && parseNumber(chars, start, end, source, seconds, nanos, row)) return true;
+        if (source != Source.TEXT && source != Source.AUTO) return false;
+
+        try {
+            Instant instant = Instant.from(conversion.parser().parse(CharBuffer.wrap(chars, start, end - start)));
+            seconds[row] = instant.getEpochSecond();
+            nanos[row] = instant.getNano();
+            return true;
+        } catch (DateTimeException e) {
+            return false;
+        }
+    }
+
+    // [+-]digits[.fraction]; a fraction only for seconds, digits past nanoseconds are dropped
+    private static boolean parseNumber(char[] chars, int start, int end, Source source,
+                                       long[] seconds, int[] nanos, int row) {
+        int i = start;
+        boolean negative = false;
+        if (chars[i] == '-' || chars[i] == '+') {
+            negative = chars[i] == '-';
+            i++;
+        }
+
+        int digitsStart = i;
+        long value = 0;
+        while (i < end && chars[i] >= '0' && chars[i] <= '9') {
+            if (value > (Long.MAX_VALUE - 9) / 10) return false;
+            value = value * 10 + (chars[i++] - '0');
+        }
+        if (i == digitsStart) return false;
+
+        boolean hasFraction = false;
+        int fraction = 0;
+        int fractionDigits = 0;
+        if (i < end && chars[i] == '.') {
+            hasFraction = true;
+            int fractionStart = ++i;
+            for (; i < end && chars[i] >= '0' && chars[i] <= '9'; i++) {
+                if (fractionDigits < 9) {
+                    fraction = fraction * 10 + (chars[i] - '0');
+                    fractionDigits++;
+                }
+            }
+            if (i == fractionStart) return false;
+        }
+        if (i != end) return false;
+
+        long signed = negative ? -value : value;
+        if (source == Source.MILLIS || (source == Source.AUTO && value >= AUTO_MILLIS_FROM)) {
+            if (hasFraction) return false;
+            seconds[row] = Math.floorDiv(signed, 1000);
+            nanos[row] = (int) Math.floorMod(signed, 1000) * 1_000_000;
+            return true;
+        }
+
+        for (int d = fractionDigits; d < 9; d++) fraction *= 10;
+        if (negative && fraction > 0) {
+            signed--;
+            fraction = 1_000_000_000 - fraction;
+        }
+        if (signed < MIN_SECOND || signed > MAX_SECOND) return false;
+        seconds[row] = signed;
+        nanos[row] = fraction;
+        return true;
+    }
+
+    /**
+     * Write one converted value into {@code out}.
+     *
+     * @return its length (which may exceed {@code out.length}; retry with a larger array),
+     *         or {@code -1} if it cannot be represented
+     */
+    private static int format(long second, int nano, TimestampConversion conversion,
+                              IsoTimestampWriter iso, StringBuilder text, char[] out) {
+        switch (conversion.target()) {
+            case SECONDS -> {
+                return IsoTimestampWriter.writeLong(second, out, 0);
+            }
+            case MILLIS -> {
+                if (second > Long.MAX_VALUE / 1000 - 1 || second < Long.MIN_VALUE / 1000 + 1) return -1;
+                return IsoTimestampWriter.writeLong(second * 1000 + nano / 1_000_000, out, 0);
+            }
+            default -> {
+                DateTimeFormatter printer = conversion.printer();
+                if (printer == null) {
+                    int end = iso.write(second, nano, out, 0);
+                    if (end >= 0) return end;
+                    printer = DateTimeFormatter.ISO_OFFSET_DATE_TIME.withZone(conversion.zone());
+                }
+                text.setLength(0);
+                try {
+                    printer.formatTo(Instant.ofEpochSecond(second, nano), text);
+                } catch (DateTimeException e) {
+                    return -1;
+                }
+                if (text.length() <= out.length) text.getChars(0, text.length(), out, 0);
+                return text.length();
+            }
+        }
+    }
+
+    private static <T> T await(Future<T> result) throws Exception {
+        try {
+            return result.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception cause) throw cause;
+            throw e;
+        }
+    }
+
+    /**
+     * A run of records copied out of the reader's reused buffers: the chars of all
+     * fields back to back, each field's end offset, and each row's end field.
+     */
+    private static final class RowBlock {
+
+        char[] chars;
+        int length;
+        int[] ends;
+        int fields;
+        final int[] rowEnds;
+        int rows;
+
+        RowBlock(int capacity) {
+            chars = new char[capacity * 32];
+            ends = new int[capacity * 4];
+            rowEnds = new int[capacity];
+        }
+
+        void add(CsvRecord record) {
+            for (int i = 0; i < record.size(); i++) {
+                int count = record.length(i);
+                if (length + count > chars.length) chars = Arrays.copyOf(chars, Math.max(length + count, chars.length * 2));
+                record.getChars(i, chars, length);
+                length += count;
+
+                if (fields == ends.length) ends = Arrays.copyOf(ends, fields * 2);
+                ends[fields++] = length;
+            }
+            rowEnds[rows++] = fields;
+        }
+
+        int firstField(int row) {
+            return row == 0 ? 0 : rowEnds[row - 1];
+        }
+
+        int rowEnd(int row) {
+            return rowEnds[row];
+        }
+
+        int start(int field) {
+            return field == 0 ? 0 : ends[field - 1];
+        }
+    }
+
+    /**
+     * Collects a block's CSV text. Unlike {@code StringWriter} / {@code CharArrayWriter}
+     * it takes no lock per call, which is most of the cost of a field this short.
+     */
+    private static final class BlockWriter extends Writer {
+
+        private char[] chars;
+        private int length;
+
+        BlockWriter(int capacity) {
+            chars = new char[capacity];
+        }
+
+        byte[] toUtf8() {
+            return new String(chars, 0, length).getBytes(StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public void write(int c) {
+            if (length == chars.length) grow(1);
+            chars[length++] = (char) c;
+        }
+
+        @Override
+        public void write(char[] value, int offset, int count) {
+            if (length + count > chars.length) grow(count);
+            System.arraycopy(value, offset, chars, length, count);
+            length += count;
+        }
+
+        @Override
+        public void write(String value, int offset, int count) {
+            if (length + count > chars.length) grow(count);
+            value.getChars(offset, offset + count, chars, length);
+            length += count;
+        }
+
+        private void grow(int count) {
+            chars = Arrays.copyOf(chars, Math.max(length + count, chars.length * 2));
+        }
+
+        @Override
+        public void flush() {}
+
+        @Override
+        public void close() {}
+    }
+}
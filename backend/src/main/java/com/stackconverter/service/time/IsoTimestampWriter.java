@@ -0,0 +1,136 @@
+package com.stackconverter.service.time;
+
+import java.time.ZoneId;
+
+/**
+ * Writes {@link java.time.format.DateTimeFormatter#ISO_OFFSET_DATE_TIME} text in one
+ * zone straight from epoch seconds, without the {@code Instant} / {@code ZonedDateTime}
+ * objects and field lookups the formatter needs for every value.
+ * <p>
+ * Log timestamps come in runs: the offset is looked up through a {@link ZoneOffsetCache}
+ * and the date part is only recomputed when the local day changes. Years 0000-9999 and
+ * offsets in whole minutes are covered, which is every real log timestamp; anything
+ * else is left to the formatter.
+ * <p>
+ * Not thread-safe: use one instance per batch block.
+ */
+final class IsoTimestampWriter {
+
+    /** Longest output: {@code 2024-01-02T03:04:05.123456789+05:30}. */
+    static final int MAX_LENGTH = 35;
+
+    private static final long DAYS_0000_TO_1970 = 719_468;
+
+    private final ZoneOffsetCache offsets;
+
+    // "yyyy-MM-dd" of the last local day written
+    private final char[] date = new char[10];
+    private long dateDay = Long.MIN_VALUE;
+
+    IsoTimestampWriter(ZoneId zone) {
+        this.offsets = new ZoneOffsetCache(zone);
+    }
+
+    /**
+     * @param out needs {@link #MAX_LENGTH} chars from {@code pos}
+     * @return end position in {@code out}, or {@code -1} if the value needs the formatter
+     */
+    int write(long epochSecond, int nanos, char[] out, int pos) {
+        int offset = offsets.offsetAt(epochSecond);
+        if (offset % 60 != 0) return -1;
+        long local = epochSecond + offset;
+        long day = Math.floorDiv(local, 86_400);
+        int secondOfDay = (int) Math.floorMod(local, 86_400);
+
+        if (day != dateDay && !civilDate(day)) return -1;
+        System.arraycopy(date, 0, out, pos, date.length);
+        pos += date.length;
+
+        out[pos++] = 'T';
+        pos = digits2(secondOfDay / 3600, out, pos);
+        out[pos++] = ':';
+        pos = digits2(secondOfDay / 60 % 60, out, pos);
+        out[pos++] = ':';
+        pos = digits2(secondOfDay % 60, out, pos);
+
+        // As many fraction digits as needed, like the formatter
+        if (nanos > 0) {
+            out[pos++] = '.';
+            int digits = 9;
+            int fraction = nanos;
+            while (fraction % 10 == 0) {
+                fraction /= 10;
+                digits--;
+            }
+            for (int i = pos + digits - 1; i >= pos; i--) {
+                out[i] = (char) ('0' + fraction % 10);
+                fraction /= 10;
+            }
+            pos += digits;
+        }
+
+        if (offset == 0) {
+            out[pos++] = 'Z';
+        } else {
+            out[pos++] = offset < 0 ? '-' : '+';
+            int minutes = Math.abs(offset) / 60;
+            pos = digits2(minutes / 60, out, pos);
+            out[pos++] = ':';
+            pos = digits2(minutes % 60, out, pos);
+        }
+        return pos;
+    }
+
+    // Proleptic Gregorian date of a day count, in 400-year eras starting March 1st
+    private boolean civilDate(long day) {
+        long z = day + DAYS_0000_TO_1970;
+        long era = Math.floorDiv(z, 146_097);
+        long dayOfEra = z - era * 146_097;
+        long yearOfEra = (dayOfEra - dayOfEra / 1_460 + dayOfEra / 36_524 - dayOfEra / 146_096) / 365;
+        long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        long mp = (5 * dayOfYear + 2) / 153;
+        int dayOfMonth = (int) (dayOfYear - (153 * mp + 2) / 5 + 1);
+        int month = (int) (mp < 10 ? mp + 3 : mp - 9);
+        long year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+        if (year < 0 || year > 9999) return false;
+
+        digits2((int) year / 100, date, 0);
+        digits2((int) year % 100, date, 2);
+        date[4] = '-';
+        digits2(month, date, 5);
+        date[7] = '-';
+        digits2(dayOfMonth, date, 8);
+        dateDay = day;
+        return true;
+    }
+
+    /** Decimal digits of {@code value}, like {@link Long#toString(long)}; {@code out} needs 20 chars. */
+    static int writeLong(long value, char[] out, int pos) {
+        if (value == 0) {
+            out[pos] = '0';
+            return pos + 1;
+        }
+        if (value == Long.MIN_VALUE) {
+            String text = Long.toString(value);
+            text.getChars(0, text.length(), out, pos);
+            return pos + text.length();
+        }
+        if (value < 0) {
+            out[pos++] = '-';
+            value = -value;
+        }
+        int length = 0;
+        for (long v = value; v > 0; v /= 10) length++;
+        for (int i = pos + length - 1; i >= pos; i--) {
+            out[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+        return pos + length;
+    }
+
+    private static int digits2(int value, char[] out, int pos) {
+        out[pos] = (char) ('0' + value / 10);
+        out[pos + 1] = (char) ('0' + value % 10);
+        return pos + 2;
+    }
+}
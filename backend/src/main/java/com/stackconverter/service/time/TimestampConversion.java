@@ -0,0 +1,81 @@
+package com.stackconverter.service.time;
+
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+
+/**
+ * How one batch converts its timestamp columns.
+ *
+ * @param source      how input values are read
+ * @param parser      for {@link Source#TEXT} values, with the input zone applied to values without an offset
+ * @param target      what is written back
+ * @param printer     custom output pattern with the target zone applied, or {@code null} for ISO-8601
+ * @param zone        target zone of text output
+ * @param keepInvalid write values that cannot be converted unchanged, rather than as empty fields
+ */
+public record TimestampConversion(
+        Source source, DateTimeFormatter parser, Target target, DateTimeFormatter printer,
+        ZoneId zone, boolean keepInvalid) {
+
+    public enum Source {
+        /** Numbers are epoch seconds, or milliseconds from 10^11 on (past year 5138 as seconds); anything else is text. */
+        AUTO,
+        /** Epoch seconds, optionally with a fraction ({@code 1700000000.25}). */
+        SECONDS,
+        MILLIS,
+        TEXT;
+
+        public static Source of(String name) {
+            return switch (name.toLowerCase(Locale.ROOT)) {
+                case "auto" -> AUTO;
+                case "seconds" -> SECONDS;
+                case "millis" -> MILLIS;
+                case "text" -> TEXT;
+                default -> throw new IllegalArgumentException("from must be auto, seconds, millis or text");
+            };
+        }
+    }
+
+    public enum Target {
+        TEXT, SECONDS, MILLIS;
+
+        public static Target of(String name) {
+            return switch (name.toLowerCase(Locale.ROOT)) {
+                case "text" -> TEXT;
+                case "seconds" -> SECONDS;
+                case "millis" -> MILLIS;
+                default -> throw new IllegalArgumentException("to must be text, seconds or millis");
+            };
+        }
+    }
+
+    /**
+     * Resolve request parameters.
+     *
+     * @param inputPattern pattern of text input, or {@code null} for ISO-8601 with an optional offset
+     * @param inputZone    zone of text input without an offset
+     * @param pattern      pattern of text output, or {@code null} for ISO-8601 with offset
+     * @param invalid      {@code keep} or {@code empty}
+     * @throws IllegalArgumentException on an unknown option, zone or invalid pattern
+     */
+    public static TimestampConversion of(
+            TimestampFormats formats, String from, String inputPattern, String inputZone,
+            String to, String pattern, String zone, String invalid) {
+        if (!invalid.equalsIgnoreCase("keep") && !invalid.equalsIgnoreCase("empty")) {
+            throw new IllegalArgumentException("invalid must be keep or empty");
+        }
+        ZoneId targetZone = TimestampFormats.zone(zone);
+
+        DateTimeFormatter parser = inputPattern == null || inputPattern.isEmpty()
+                ? DateTimeFormatter.ISO_DATE_TIME
+                : formats.formatter(inputPattern);
+        DateTimeFormatter printer = pattern == null || pattern.isEmpty()
+                ? null
+                : formats.formatter(pattern).withZone(targetZone);
+
+        return new TimestampConversion(
+                Source.of(from), parser.withZone(TimestampFormats.zone(inputZone)),
+                Target.of(to), printer, targetZone, invalid.equalsIgnoreCase("keep"));
+    }
+}
@@ -0,0 +1,58 @@
+package com.stackconverter.service.time;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.DateTimeException;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+
+/**
+ * Compiled {@link DateTimeFormatter}s by pattern, and zone lookup with friendly errors.
+ * <p>
+ * Compiling a pattern costs far more than using the result, and formatters are
+ * immutable, so every request asking for the same pattern shares one instance.
+ * Patterns use {@link Locale#ROOT}, so month and day names do not depend on the server.
+ */
+@Component
+public class TimestampFormats {
+
+    private final Cache<String, DateTimeFormatter> formatters;
+
+    public TimestampFormats(
+            @Value("${stackconverter.timestamp.pattern-cache-size:1000}") long cacheSize,
+            MeterRegistry registry) {
+        this.formatters = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(registry, formatters, "timestamp-patterns");
+    }
+
+    /**
+     * @throws IllegalArgumentException if the pattern is invalid
+     */
+    public DateTimeFormatter formatter(String pattern) {
+        return formatters.get(pattern, p -> DateTimeFormatter.ofPattern(p, Locale.ROOT));
+    }
+
+    /**
+     * Resolve a zone request parameter: a region ({@code Europe/Paris}), an offset
+     * ({@code +05:30}) or {@code UTC}; {@code null} or blank means the server's zone.
+     *
+     * @throws IllegalArgumentException if the zone is unknown
+     */
+    public static ZoneId zone(String id) {
+        if (id == null || id.isBlank()) return ZoneId.systemDefault();
+        try {
+            return ZoneId.of(id.trim());
+        } catch (DateTimeException e) {
+            throw new IllegalArgumentException("Unknown time zone: " + id);
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.stackconverter.service.time;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
+
+/**
+ * Offset of one zone at a given epoch second, remembering the range between the
+ * surrounding transitions. Timestamps in a log file are close together, so almost
+ * every lookup is two comparisons instead of a search through the zone rules.
+ * <p>
+ * Not thread-safe: use one instance per batch block.
+ */
+final class ZoneOffsetCache {
+
+    private final ZoneRules rules;
+    private long validFrom = Long.MAX_VALUE;
+    private long validTo = Long.MIN_VALUE;
+    private int offset;
+
+    ZoneOffsetCache(ZoneId zone) {
+        this.rules = zone.getRules();
+        if (rules.isFixedOffset()) {
+            offset = rules.getOffset(Instant.EPOCH).getTotalSeconds();
+            validFrom = Long.MIN_VALUE;
+            validTo = Long.MAX_VALUE;
+        }
+    }
+
+    /** Offset in seconds at {@code epochSecond}, which must be a valid {@link Instant} second. */
+    int offsetAt(long epochSecond) {
+        if (epochSecond >= validFrom && epochSecond < validTo) return offset;
+
+        Instant instant = Instant.ofEpochSecond(epochSecond);
+        offset = rules.getOffset(instant).getTotalSeconds();
+
+        // The latest transition at or before epochSecond (none can fall on the last second),
+        // and the first one after it
+        ZoneOffsetTransition previous = rules.previousTransition(
+                epochSecond < Instant.MAX.getEpochSecond() ? instant.plusSeconds(1) : instant);
+        ZoneOffsetTransition next = rules.nextTransition(instant);
+        validFrom = previous != null ? previous.toEpochSecond() : Long.MIN_VALUE;
+        validTo = next != null ? next.toEpochSecond() : Long.MAX_VALUE;
+        return offset;
+    }
+}
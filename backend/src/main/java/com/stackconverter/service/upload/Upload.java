@@ -0,0 +1,55 @@
+package com.stackconverter.service.upload;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Read-only view of an uploaded (or spooled) payload: a heap buffer for small parts,
+ * a {@link java.nio.MappedByteBuffer} over a spool file for large ones. Closing it
+ * deletes the spool file; the mapping itself is released by the garbage collector,
+ * so views must not be used after {@link #close()}.
+ */
+public final class Upload implements AutoCloseable {
+
+    private final ByteBuffer content;
+    private final Path file;
+
+    Upload(ByteBuffer content, Path file) {
+        this.content = content.asReadOnlyBuffer();
+        this.file = file;
+    }
+
+    public long size() {
+        return content.capacity();
+    }
+
+    /** Whether the content is mapped from a spool file rather than held on the heap. */
+    public boolean mapped() {
+        return file != null;
+    }
+
+    /** A fresh read-only view of the whole content, positioned at its start. */
+    public ByteBuffer content() {
+        return content.duplicate();
+    }
+
+    /** Write the whole content to {@code out}, leaving it open. */
+    public void writeTo(OutputStream out) throws IOException {
+        WritableByteChannel channel = Channels.newChannel(out);
+        ByteBuffer view = content();
+        while (view.hasRemaining()) channel.write(view);
+    }
+
+    @Override
+    public void close() {
+        if (file == null) return;
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException ignored) {}
+    }
+}
@@ -0,0 +1,103 @@
+package com.stackconverter.service.upload;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Gives handlers an {@link Upload} instead of {@link MultipartFile#getBytes()}.
+ * <p>
+ * Parts up to {@code memory-threshold} are read onto the heap. Larger ones, which the
+ * servlet container has already written to disk (its {@code file-size-threshold} is
+ * set to the same value), are moved into {@code dir} and mapped read-only, so their
+ * bytes live in the page cache and never in the Java heap. The same goes for
+ * intermediate results a handler produces, see {@link #spool}.
+ * Leftover spool files from a previous run are deleted at startup.
+ */
+@Component
+public class UploadSpool {
+
+    /** Produces content for {@link #spool}. */
+    public interface ContentWriter {
+        void writeTo(OutputStream out) throws IOException;
+    }
+
+    private final Path dir;
+    private final long memoryThreshold;
+
+    public UploadSpool(
+            @Value("${stackconverter.upload.dir:${java.io.tmpdir}/stackconverter-uploads}") Path dir,
+            @Value("${stackconverter.upload.memory-threshold:1MB}") DataSize memoryThreshold) throws IOException {
+        this.dir = dir;
+        this.memoryThreshold = memoryThreshold.toBytes();
+
+        Files.createDirectories(dir);
+        try (DirectoryStream<Path> leftovers = Files.newDirectoryStream(dir, "*.part")) {
+            for (Path file : leftovers) Files.deleteIfExists(file);
+        }
+    }
+
+    public Upload open(MultipartFile file) throws IOException {
+        if (file.getSize() <= memoryThreshold) return new Upload(ByteBuffer.wrap(file.getBytes()), null);
+
+        Path spooled = newFile();
+        try {
+            // A rename when the container's temp file is on the same file system
+            file.transferTo(spooled);
+            return map(spooled);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(spooled);
+            throw e;
+        }
+    }
+
+    /**
+     * Collect what {@code writer} writes: on the heap if about {@code expectedBytes} fit
+     * under the memory threshold, else in a spool file that is then mapped.
+     */
+    public Upload spool(long expectedBytes, ContentWriter writer) throws IOException {
+        if (expectedBytes <= memoryThreshold) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream((int) expectedBytes);
+            writer.writeTo(out);
+            return new Upload(ByteBuffer.wrap(out.toByteArray()), null);
+        }
+
+        Path spooled = newFile();
+        try {
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(spooled))) {
+                writer.writeTo(out);
+            }
+            return map(spooled);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(spooled);
+            throw e;
+        }
+    }
+
+    private Path newFile() throws IOException {
+        return Files.createTempFile(dir, "upload-", ".part");
+    }
+
+    // The returned upload deletes the file when closed
+    private static Upload map(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            // A single mapping covers at most 2 GB, far above the multipart limit
+            if (size > Integer.MAX_VALUE) throw new IOException("Too large to map: " + size + " bytes");
+            // The mapping stays valid after the channel is closed
+            return new Upload(channel.map(FileChannel.MapMode.READ_ONLY, 0, size), file);
+        }
+    }
+}
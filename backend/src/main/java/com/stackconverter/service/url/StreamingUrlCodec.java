@@ -0,0 +1,140 @@
+package com.stackconverter.service.url;
+
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * {@code application/x-www-form-urlencoded} percent-encoding between streams, the
+ * byte-level equivalent of {@link java.net.URLEncoder} / {@link java.net.URLDecoder}
+ * with UTF-8.
+ * <p>
+ * Input is processed in fixed blocks: every byte is looked up in a table and written
+ * into a reusable output block, so there is no per-value {@code String},
+ * {@code StringBuilder} or charset coder. Text is treated as the UTF-8 bytes it was
+ * uploaded as; only malformed UTF-8 differs from the JDK classes, which replace it.
+ */
+@Component
+public class StreamingUrlCodec {
+
+    private static final int BUFFER_SIZE = 16 * 1024;
+
+    private static final byte[] HEX = "0123456789ABCDEF".getBytes();
+
+    // Bytes URLEncoder leaves as they are
+    private static final boolean[] UNRESERVED = new boolean[256];
+    // Hex digit values, -1 for anything else
+    private static final int[] HEX_VALUES = new int[256];
+
+    static {
+        for (int c = 'a'; c <= 'z'; c++) UNRESERVED[c] = true;
+        for (int c = 'A'; c <= 'Z'; c++) UNRESERVED[c] = true;
+        for (int c = '0'; c <= '9'; c++) UNRESERVED[c] = true;
+        for (char c : ".-*_".toCharArray()) UNRESERVED[c] = true;
+
+        Arrays.fill(HEX_VALUES, -1);
+        for (int c = '0'; c <= '9'; c++) HEX_VALUES[c] = c - '0';
+        for (int c = 'a'; c <= 'f'; c++) HEX_VALUES[c] = c - 'a' + 10;
+        for (int c = 'A'; c <= 'F'; c++) HEX_VALUES[c] = c - 'A' + 10;
+    }
+
+    /**
+     * Percent-encode {@code in} onto {@code out}. {@code out} is left open.
+     *
+     * @param lines keep {@code \r} and {@code \n} as they are, encoding each line as a
+     *              separate value; otherwise the whole input is one value
+     */
+    public void encode(InputStream in, OutputStream out, boolean lines) throws IOException {
+        byte[] input = new byte[BUFFER_SIZE];
+        byte[] output = new byte[3 * BUFFER_SIZE];
+
+        int read;
+        while ((read = in.read(input)) >= 0) {
+            int length = 0;
+            for (int i = 0; i < read; i++) {
+                int b = input[i] & 0xFF;
+                if (UNRESERVED[b] || (lines && (b == '\n' || b == '\r'))) {
+                    output[length++] = (byte) b;
+                } else if (b == ' ') {
+                    output[length++] = '+';
+                } else {
+                    output[length++] = '%';
+                    output[length++] = HEX[b >> 4];
+                    output[length++] = HEX[b & 0xF];
+                }
+            }
+            out.write(output, 0, length);
+        }
+        out.flush();
+    }
+
+    /**
+     * Check that every {@code %} is followed by two hex digits, as {@link #decode} requires.
+     *
+     * @throws IllegalArgumentException naming the first bad line
+     */
+    public void validate(InputStream in) throws IOException {
+        byte[] input = new byte[BUFFER_SIZE];
+        long line = 1;
+        int pendingDigits = 0;
+
+        int read;
+        while ((read = in.read(input)) >= 0) {
+            for (int i = 0; i < read; i++) {
+                int b = input[i] & 0xFF;
+                if (pendingDigits > 0) {
+                    if (HEX_VALUES[b] < 0) throw invalid(line);
+                    pendingDigits--;
+                } else if (b == '%') {
+                    pendingDigits = 2;
+                } else if (b == '\n') {
+                    line++;
+                }
+            }
+        }
+        if (pendingDigits > 0) throw invalid(line);
+    }
+
+    /**
+     * Decode {@code +} and {@code %XX} escapes of {@code in} onto {@code out}; line
+     * breaks pass through. Input must have passed {@link #validate}.
+     * {@code out} is left open.
+     */
+    public void decode(InputStream in, OutputStream out) throws IOException {
+        byte[] input = new byte[BUFFER_SIZE];
+        byte[] output = new byte[BUFFER_SIZE];
+
+        // An escape may span two blocks
+        int pendingDigits = 0;
+        int value = 0;
+
+        int read;
+        while ((read = in.read(input)) >= 0) {
+            int length = 0;
+            for (int i = 0; i < read; i++) {
+                int b = input[i] & 0xFF;
+                if (pendingDigits > 0) {
+                    int digit = HEX_VALUES[b];
+                    if (digit < 0) throw new IllegalArgumentException("Invalid URL encoded input");
+                    value = value << 4 | digit;
+                    if (--pendingDigits == 0) output[length++] = (byte) value;
+                } else if (b == '%') {
+                    pendingDigits = 2;
+                    value = 0;
+                } else {
+                    output[length++] = (byte) (b == '+' ? ' ' : b);
+                }
+            }
+            out.write(output, 0, length);
+        }
+        if (pendingDigits > 0) throw new IllegalArgumentException("Invalid URL encoded input");
+        out.flush();
+    }
+
+    private static IllegalArgumentException invalid(long line) {
+        return new IllegalArgumentException("Invalid URL encoded input at line " + line);
+    }
+}
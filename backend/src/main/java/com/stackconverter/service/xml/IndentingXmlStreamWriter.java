@@ -0,0 +1,217 @@
+package com.stackconverter.service.xml;
+
+import javax.xml.namespace.NamespaceContext;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import java.util.BitSet;
+
+/**
+ * {@link XMLStreamWriter} decorator that pretty-prints element structure as it is written.
+ * <p>
+ * Elements containing other elements get their children on separate, indented lines;
+ * elements with only text stay on one line. State is one bit per open element, so the
+ * cost is bounded by nesting depth rather than document size.
+ */
+public class IndentingXmlStreamWriter implements XMLStreamWriter {
+
+    private final XMLStreamWriter delegate;
+    private final String indentUnit;
+
+    private int depth;
+    // bit d set = the element open at depth d already has child elements
+    private final BitSet hasChildren = new BitSet();
+
+    public IndentingXmlStreamWriter(XMLStreamWriter delegate, int indent) {
+        this.delegate = delegate;
+        this.indentUnit = " ".repeat(indent);
+    }
+
+    private void beforeElement() throws XMLStreamException {
+        if (depth > 0) {
+            hasChildren.set(depth - 1);
+            newline(depth);
+        }
+    }
+
+    private void newline(int level) throws XMLStreamException {
+        delegate.writeCharacters("\n");
+        for (int i = 0; i < level; i++) delegate.writeCharacters(indentUnit);
+    }
+
+    @Override
+    public void writeStartDocument() throws XMLStreamException {
+        delegate.writeStartDocument();
+        newline(0);
+    }
+
+    @Override
+    public void writeStartDocument(String version) throws XMLStreamException {
+        delegate.writeStartDocument(version);
+        newline(0);
+    }
+
+    @Override
+    public void writeStartDocument(String encoding, String version) throws XMLStreamException {
+        delegate.writeStartDocument(encoding, version);
+        newline(0);
+    }
+
+    @Override
+    public void writeStartElement(String localName) throws XMLStreamException {
+        beforeElement();
+        delegate.writeStartElement(localName);
+        hasChildren.clear(depth++);
+    }
+
+    @Override
+    public void writeStartElement(String namespaceURI, String localName) throws XMLStreamException {
+        beforeElement();
+        delegate.writeStartElement(namespaceURI, localName);
+        hasChildren.clear(depth++);
+    }
+
+    @Override
+    public void writeStartElement(String prefix, String localName, String namespaceURI) throws XMLStreamException {
+        beforeElement();
+        delegate.writeStartElement(prefix, localName, namespaceURI);
+        hasChildren.clear(depth++);
+    }
+
+    @Override
+    public void writeEmptyElement(String localName) throws XMLStreamException {
+        beforeElement();
+        delegate.writeEmptyElement(localName);
+    }
+
+    @Override
+    public void writeEmptyElement(String namespaceURI, String localName) throws XMLStreamException {
+        beforeElement();
+        delegate.writeEmptyElement(namespaceURI, localName);
+    }
+
+    @Override
+    public void writeEmptyElement(String prefix, String localName, String namespaceURI) throws XMLStreamException {
+        beforeElement();
+        delegate.writeEmptyElement(prefix, localName, namespaceURI);
+    }
+
+    @Override
+    public void writeEndElement() throws XMLStreamException {
+        depth--;
+        if (hasChildren.get(depth)) newline(depth);
+        delegate.writeEndElement();
+    }
+
+    @Override
+    public void writeEndDocument() throws XMLStreamException {
+        delegate.writeCharacters("\n");
+        delegate.writeEndDocument();
+    }
+
+    // ---- pass-through ----
+
+    @Override
+    public void close() throws XMLStreamException {
+        delegate.close();
+    }
+
+    @Override
+    public void flush() throws XMLStreamException {
+        delegate.flush();
+    }
+
+    @Override
+    public void writeAttribute(String localName, String value) throws XMLStreamException {
+        delegate.writeAttribute(localName, value);
+    }
+
+    @Override
+    public void writeAttribute(String prefix, String namespaceURI, String localName, String value) throws XMLStreamException {
+        delegate.writeAttribute(prefix, namespaceURI, localName, value);
+    }
+
+    @Override
+    public void writeAttribute(String namespaceURI, String localName, String value) throws XMLStreamException {
+        delegate.writeAttribute(namespaceURI, localName, value);
+    }
+
+    @Override
+    public void writeNamespace(String prefix, String namespaceURI) throws XMLStreamException {
+        delegate.writeNamespace(prefix, namespaceURI);
+    }
+
+    @Override
+    public void writeDefaultNamespace(String namespaceURI) throws XMLStreamException {
+        delegate.writeDefaultNamespace(namespaceURI);
+    }
+
+    @Override
+    public void writeComment(String data) throws XMLStreamException {
+        delegate.writeComment(data);
+    }
+
+    @Override
+    public void writeProcessingInstruction(String target) throws XMLStreamException {
+        delegate.writeProcessingInstruction(target);
+    }
+
+    @Override
+    public void writeProcessingInstruction(String target, String data) throws XMLStreamException {
+        delegate.writeProcessingInstruction(target, data);
+    }
+
+    @Override
+    public void writeCData(String data) throws XMLStreamException {
+        delegate.writeCData(data);
+    }
+
+    @Override
+    public void writeDTD(String dtd) throws XMLStreamException {
+        delegate.writeDTD(dtd);
+    }
+
+    @Override
+    public void writeEntityRef(String name) throws XMLStreamException {
+        delegate.writeEntityRef(name);
+    }
+
+    @Override
+    public void writeCharacters(String text) throws XMLStreamException {
+        delegate.writeCharacters(text);
+    }
+
+    @Override
+    public void writeCharacters(char[] text, int start, int len) throws XMLStreamException {
+        delegate.writeCharacters(text, start, len);
+    }
+
+    @Override
+    public String getPrefix(String uri) throws XMLStreamException {
+        return delegate.getPrefix(uri);
+    }
+
+    @Override
+    public void setPrefix(String prefix, String uri) throws XMLStreamException {
+        delegate.setPrefix(prefix, uri);
+    }
+
+    @Override
+    public void setDefaultNamespace(String uri) throws XMLStreamException {
+        delegate.setDefaultNamespace(uri);
+    }
+
+    @Override
+    public void setNamespaceContext(NamespaceContext context) throws XMLStreamException {
+        delegate.setNamespaceContext(context);
+    }
+
+    @Override
+    public NamespaceContext getNamespaceContext() {
+        return delegate.getNamespaceContext();
+    }
+
+    @Override
+    public Object getProperty(String name) throws IllegalArgumentException {
+        return delegate.getProperty(name);
+    }
+}
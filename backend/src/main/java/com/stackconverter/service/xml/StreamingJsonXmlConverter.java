@@ -0,0 +1,576 @@
+package com.stackconverter.service.xml;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.springframework.stereotype.Service;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.*;
+
+import static javax.xml.stream.XMLStreamConstants.*;
+
+/**
+ * Token-streaming JSON ⇄ XML conversion.
+ * <p>
+ * Both directions follow the same mapping as the DOM based converter in
+ * {@code JsonXmlController}: {@code @name} keys are attributes, {@code #text} is
+ * element text, array items repeat the element, a single-key root object names the
+ * root element and anything else is wrapped in {@code <root>}.
+ * <p>
+ * Each conversion runs in two passes over the upload. The first pass validates the
+ * document and records the few layout decisions a forward-only writer cannot make
+ * on its own; the second replays the input straight into the output writer.
+ * Errors therefore surface before any output is written, and memory scales with
+ * nesting depth rather than document size, except for:
+ * <ul>
+ *   <li>XML → JSON: two bits per element (see {@link XmlLayout}), about 256 KB per
+ *       million elements, plus the subtrees of elements whose children repeat a
+ *       name non-adjacently, which are grouped in memory as the DOM converter does.</li>
+ *   <li>JSON → XML: the attributes and text of elements whose {@code @attr} or
+ *       {@code #text} keys follow child elements, kept from the first pass so the
+ *       second can write them first; at most {@value #MAX_HOISTED_CHARS_PER_ELEMENT}
+ *       characters per element and {@value #MAX_HOISTED_CHARS} per document.</li>
+ * </ul>
+ */
+@Service
+public class StreamingJsonXmlConverter {
+
+    /**
+     * Result of the inspection pass.
+     *
+     * @param rootName   name of the root element
+     * @param unwrapRoot the document is a single-key object whose key names the root
+     * @param hoisted    by the byte offset of their object: the {@code @attr} and
+     *                   {@code #text} fields of elements where one of them follows
+     *                   {@code #text} or child elements, which a forward-only writer must
+     *                   know before it reaches them to put them where the DOM mapping does
+     */
+    public record JsonLayout(String rootName, boolean unwrapRoot, Map<Long, List<String[]>> hoisted) {}
+
+    /**
+     * Result of the XML inspection pass. Elements are identified by their 0-based
+     * position in document order. Each set costs one bit per element up to the last
+     * one it marks, so memory grows with the element count, at 2 bits per element.
+     *
+     * @param arrayStarts first element of every run of same-named siblings that is
+     *                    written as a JSON array
+     * @param buffered    elements whose children repeat a name non-adjacently; these
+     *                    subtrees are grouped in memory, as the DOM converter does
+     * @param arrayNames  element names always written as arrays, even when they occur once
+     */
+    public record XmlLayout(BitSet arrayStarts, BitSet buffered, Set<String> arrayNames) {}
+
+    /** Characters of {@code @attr} / {@code #text} keys and values kept for one hoisted element. */
+    static final int MAX_HOISTED_CHARS_PER_ELEMENT = 64 * 1024;
+    /** Characters kept for all hoisted elements of one document. */
+    static final long MAX_HOISTED_CHARS = 16L * 1024 * 1024;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final JsonFactory jsonFactory = mapper.getFactory();
+    private final XMLOutputFactory xmlOutputFactory;
+    private final XMLInputFactory xmlInputFactory;
+
+    public StreamingJsonXmlConverter(XmlInfrastructure xml) {
+        this.xmlInputFactory = xml.xmlInputFactory();
+        this.xmlOutputFactory = xml.xmlOutputFactory();
+    }
+
+    // =====================================================================================
+    // JSON → XML, pass 1: validate and find the root element
+    // =====================================================================================
+
+    /**
+     * Read the first JSON value in {@code in} completely, checking syntax and element
+     * names, without building any tree.
+     *
+     * @throws IOException              on malformed JSON
+     * @throws IllegalArgumentException if a key cannot be used as an XML name, or the
+     *                                  fields to hoist exceed their limits
+     */
+    public JsonLayout inspectJson(InputStream in) throws IOException {
+        try (JsonParser p = jsonFactory.createParser(in)) {
+            JsonToken first = p.nextToken();
+            if (first == null) throw new IllegalArgumentException("No JSON content");
+
+            String firstKey = null;
+            int rootFields = 0;
+            Map<Long, List<String[]>> hoisted = new HashMap<>();
+            long hoistedChars = 0;
+
+            // Reused per nesting level
+            List<ObjectFields> levels = new ArrayList<>();
+            int depth = 0;
+
+            JsonToken t = first;
+            while (true) {
+                boolean advance = true;
+                switch (t) {
+                    case START_OBJECT, START_ARRAY -> {
+                        if (levels.size() == depth) levels.add(new ObjectFields());
+                        levels.get(depth++).reset(p.currentTokenLocation().getByteOffset());
+                    }
+                    case END_OBJECT -> {
+                        ObjectFields object = levels.get(--depth);
+                        if (object.late) {
+                            if (object.overflow) {
+                                throw new IllegalArgumentException("Attributes and #text after child elements are limited to "
+                                        + MAX_HOISTED_CHARS_PER_ELEMENT + " characters per element");
+                            }
+                            hoistedChars += object.chars;
+                            if (hoistedChars > MAX_HOISTED_CHARS) {
+                                throw new IllegalArgumentException("Attributes and #text after child elements are limited to "
+                                        + MAX_HOISTED_CHARS + " characters per document");
+                            }
+                            hoisted.put(object.offset, List.copyOf(object.fields));
+                        }
+                    }
+                    case END_ARRAY -> depth--;
+                    case FIELD_NAME -> {
+                        String key = p.currentName();
+                        ObjectFields object = levels.get(depth - 1);
+
+                        if (depth == 1) {
+                            if (rootFields++ == 0) firstKey = key;
+                        }
+
+                        if (key.startsWith("@") || key.equals("#text")) {
+                            // Attributes must precede all content, and text must precede children
+                            if (key.startsWith("@")) {
+                                requireXmlName(key.substring(1));
+                                if (object.contentSeen) object.late = true;
+                            } else {
+                                if (object.childSeen) object.late = true;
+                                object.contentSeen = true;
+                            }
+                            // Kept until the object ends, in case it turns out to need hoisting
+                            t = p.nextToken();
+                            object.add(key, t.isScalarValue() ? scalarText(p) : "");
+                            // A container value is still walked for syntax and names
+                            advance = t.isScalarValue();
+                        } else {
+                            requireXmlName(key);
+                            object.childSeen = true;
+                            object.contentSeen = true;
+                        }
+                    }
+                    default -> { }
+                }
+                if (depth == 0) break;
+                if (advance && (t = p.nextToken()) == null) throw new IOException("Unexpected end of JSON input");
+            }
+
+            if (first == JsonToken.START_OBJECT && rootFields == 1) {
+                requireXmlName(firstKey);
+                return new JsonLayout(firstKey, true, hoisted);
+            }
+            return new JsonLayout("root", false, hoisted);
+        }
+    }
+
+    /**
+     * The {@code @attr} and {@code #text} fields of one open object during inspection,
+     * kept up to {@link #MAX_HOISTED_CHARS_PER_ELEMENT} until the object ends.
+     */
+    private static final class ObjectFields {
+
+        private long offset;
+        private boolean childSeen;
+        private boolean contentSeen;
+        private boolean late;
+        private boolean overflow;
+        private final List<String[]> fields = new ArrayList<>();
+        private int chars;
+
+        void reset(long offset) {
+            this.offset = offset;
+            childSeen = false;
+            contentSeen = false;
+            late = false;
+            overflow = false;
+            fields.clear();
+            chars = 0;
+        }
+
+        void add(String key, String value) {
+            if (overflow) return;
+            chars += key.length() + value.length();
+            if (chars > MAX_HOISTED_CHARS_PER_ELEMENT) {
+                overflow = true;
+                fields.clear();
+            } else {
+                fields.add(new String[] {key, value});
+            }
+        }
+    }
+
+    // =====================================================================================
+    // JSON → XML, pass 2: JsonParser → XMLStreamWriter
+    // =====================================================================================
+
+    /**
+     * Convert the JSON document in {@code in} to pretty-printed XML on {@code out}.
+     */
+    public void writeJsonAsXml(InputStream in, JsonLayout layout, OutputStream out) throws IOException {
+        try (JsonParser p = jsonFactory.createParser(in)) {
+            XMLStreamWriter xml = new IndentingXmlStreamWriter(
+                    xmlOutputFactory.createXMLStreamWriter(out, "UTF-8"), 4);
+
+            xml.writeStartDocument("UTF-8", "1.0");
+
+            p.nextToken();
+            if (layout.unwrapRoot()) {
+                p.nextToken(); // root key
+                p.nextToken(); // its value
+            }
+            writeElement(p, xml, layout, layout.rootName());
+
+            xml.writeEndDocument();
+            xml.flush();
+            xml.close();
+        } catch (XMLStreamException e) {
+            throw new IOException("Error writing XML: " + e.getMessage(), e);
+        }
+    }
+
+    // Parser is positioned on the value that becomes element <tag>
+    private void writeElement(JsonParser p, XMLStreamWriter xml, JsonLayout layout, String tag)
+            throws IOException, XMLStreamException {
+        switch (p.currentToken()) {
+            case START_OBJECT -> {
+                xml.writeStartElement(tag);
+                List<String[]> hoisted = layout.hoisted().get(p.currentTokenLocation().getByteOffset());
+                if (hoisted != null) {
+                    // Where the DOM mapping puts them: attributes, then the text ahead of all children
+                    for (String[] field : hoisted) {
+                        if (field[0].startsWith("@")) xml.writeAttribute(field[0].substring(1), field[1]);
+                    }
+                    for (String[] field : hoisted) {
+                        if (!field[0].startsWith("@")) xml.writeCharacters(field[1]);
+                    }
+                }
+                writeObjectContent(p, xml, layout, hoisted != null);
+                xml.writeEndElement();
+            }
+            case START_ARRAY -> {
+                // Only arrays held by an object key repeat the element; nested / root arrays stay empty
+                xml.writeEmptyElement(tag);
+                p.skipChildren();
+            }
+            case VALUE_NULL -> xml.writeEmptyElement(tag);
+            default -> {
+                String text = scalarText(p);
+                if (text.isEmpty()) {
+                    xml.writeEmptyElement(tag);
+                } else {
+                    xml.writeStartElement(tag);
+                    xml.writeCharacters(text);
+                    xml.writeEndElement();
+                }
+            }
+        }
+    }
+
+    private void writeObjectContent(JsonParser p, XMLStreamWriter xml, JsonLayout layout, boolean hoisted)
+            throws IOException, XMLStreamException {
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String key = p.currentName();
+            JsonToken value = p.nextToken();
+
+            if (hoisted && (key.startsWith("@") || key.equals("#text"))) {
+                p.skipChildren();
+            } else if (key.startsWith("@")) {
+                xml.writeAttribute(key.substring(1), valueText(p));
+            } else if (key.equals("#text")) {
+                xml.writeCharacters(valueText(p));
+            } else if (value == JsonToken.START_ARRAY) {
+                while (p.nextToken() != JsonToken.END_ARRAY) {
+                    writeElement(p, xml, layout, key);
+                }
+            } else {
+                writeElement(p, xml, layout, key);
+            }
+        }
+    }
+
+    // JsonNode.asText() semantics: containers read as "", null as "null"
+    private String valueText(JsonParser p) throws IOException {
+        if (p.currentToken().isStructStart()) {
+            p.skipChildren();
+            return "";
+        }
+        return scalarText(p);
+    }
+
+    private String scalarText(JsonParser p) throws IOException {
+        if (p.currentToken() == JsonToken.VALUE_NUMBER_FLOAT) {
+            // Same rendering as the DoubleNode produced by ObjectMapper.readTree
+            return String.valueOf(p.getDoubleValue());
+        }
+        return p.getText();
+    }
+
+    // =====================================================================================
+    // XML → JSON, pass 1: validate and find the arrays
+    // =====================================================================================
+
+    /**
+     * Read the XML document in {@code in} completely, checking well-formedness and
+     * deciding which sibling runs become arrays, without building any tree.
+     *
+     * @param arrayNames element names that are always written as arrays
+     * @throws XMLStreamException on malformed XML or a DOCTYPE declaration
+     */
+    public XmlLayout inspectXml(InputStream in, Set<String> arrayNames) throws XMLStreamException {
+        XmlLayout layout = new XmlLayout(new BitSet(), new BitSet(), Set.copyOf(arrayNames));
+
+        XMLStreamReader xml = xmlInputFactory.createXMLStreamReader(in);
+        try {
+            // Reused per nesting level
+            List<SiblingRuns> levels = new ArrayList<>();
+            int depth = 0;
+            int ordinal = -1;
+
+            while (xml.hasNext()) {
+                switch (xml.next()) {
+                    case DTD -> throw new XMLStreamException("DOCTYPE is disallowed");
+                    case START_ELEMENT -> {
+                        ordinal++;
+                        if (depth > 0) levels.get(depth - 1).child(xml.getLocalName(), ordinal, layout);
+
+                        if (levels.size() == depth) levels.add(new SiblingRuns());
+                        levels.get(depth++).reset(ordinal);
+                    }
+                    case END_ELEMENT -> depth--;
+                    default -> { }
+                }
+            }
+            return layout;
+        } finally {
+            xml.close();
+        }
+    }
+
+    /**
+     * Tracks the children of one open element during inspection.
+     */
+    private static final class SiblingRuns {
+
+        private int parent;
+        private String runName;
+        private int runStart;
+        private int runLength;
+        // Names of earlier, already finished runs; only allocated for mixed children
+        private Set<String> finished;
+
+        void reset(int parent) {
+            this.parent = parent;
+            runName = null;
+            runLength = 0;
+            if (finished != null) finished.clear();
+        }
+
+        void child(String name, int ordinal, XmlLayout layout) {
+            if (name.equals(runName)) {
+                if (++runLength == 2) layout.arrayStarts().set(runStart);
+                return;
+            }
+
+            if (runName != null) {
+                if (finished == null) finished = new HashSet<>();
+                finished.add(runName);
+            }
+            // <a/><b/><a/>: both <a> belong in one array ahead of <b>, which needs look-back
+            if (finished != null && finished.contains(name)) layout.buffered().set(parent);
+
+            runName = name;
+            runStart = ordinal;
+            runLength = 1;
+            if (layout.arrayNames().contains(name)) layout.arrayStarts().set(ordinal);
+        }
+    }
+
+    // =====================================================================================
+    // XML → JSON, pass 2: XMLStreamReader → JsonGenerator
+    // =====================================================================================
+
+    /**
+     * Convert the XML document in {@code in} to pretty-printed JSON on {@code out}.
+     */
+    public void writeXmlAsJson(InputStream in, XmlLayout layout, OutputStream out) throws IOException {
+        try {
+            XMLStreamReader xml = xmlInputFactory.createXMLStreamReader(in);
+            try {
+                JsonGenerator json = jsonFactory.createGenerator(out);
+                json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                json.useDefaultPrettyPrinter();
+
+                while (xml.next() != START_ELEMENT) {
+                    // prolog: declaration, comments, processing instructions
+                }
+
+                json.writeStartObject();
+                json.writeFieldName(xml.getLocalName());
+                new XmlToJson(xml, json, layout).element();
+                json.writeEndObject();
+                json.close();
+            } finally {
+                xml.close();
+            }
+        } catch (XMLStreamException e) {
+            throw new IOException("Error reading XML: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * One replay of the document. Mirrors {@code JsonXmlController.elementToJson}: every
+     * element is an object with sorted {@code @attributes} first, then children grouped by
+     * name, then the trimmed text nodes joined as {@code #text}.
+     */
+    private final class XmlToJson {
+
+        private final XMLStreamReader xml;
+        private final JsonGenerator json;
+        private final XmlLayout layout;
+
+        private int ordinal = -1;
+        // Current run of character data; comments, CDATA and elements end a text node
+        private final StringBuilder textNode = new StringBuilder();
+
+        XmlToJson(XMLStreamReader xml, JsonGenerator json, XmlLayout layout) {
+            this.xml = xml;
+            this.json = json;
+            this.layout = layout;
+        }
+
+        // Reader is positioned on the element's START_ELEMENT
+        void element() throws XMLStreamException, IOException {
+            if (layout.buffered().get(++ordinal)) {
+                mapper.writeTree(json, tree());
+                return;
+            }
+
+            json.writeStartObject();
+            for (String[] attribute : attributes()) {
+                json.writeStringField("@" + attribute[0], attribute[1]);
+            }
+
+            StringBuilder text = new StringBuilder();
+            String arrayName = null;
+
+            while (true) {
+                switch (xml.next()) {
+                    case CHARACTERS, SPACE -> textNode.append(xml.getTextCharacters(), xml.getTextStart(), xml.getTextLength());
+                    case START_ELEMENT -> {
+                        endTextNode(text);
+                        String name = xml.getLocalName();
+                        if (!name.equals(arrayName)) {
+                            if (arrayName != null) json.writeEndArray();
+                            arrayName = null;
+
+                            json.writeFieldName(name);
+                            if (layout.arrayStarts().get(ordinal + 1)) {
+                                json.writeStartArray();
+                                arrayName = name;
+                            }
+                        }
+                        element();
+                    }
+                    case END_ELEMENT -> {
+                        endTextNode(text);
+                        if (arrayName != null) json.writeEndArray();
+                        if (!text.isEmpty()) json.writeStringField("#text", text.toString());
+                        json.writeEndObject();
+                        return;
+                    }
+                    default -> endTextNode(text);
+                }
+            }
+        }
+
+        // Same grouping as the DOM converter, for subtrees whose siblings are out of order
+        private ObjectNode tree() throws XMLStreamException {
+            ObjectNode node = mapper.createObjectNode();
+            for (String[] attribute : attributes()) {
+                node.put("@" + attribute[0], attribute[1]);
+            }
+
+            StringBuilder text = new StringBuilder();
+            Map<String, List<JsonNode>> grouped = new LinkedHashMap<>();
+
+            while (true) {
+                switch (xml.next()) {
+                    case CHARACTERS, SPACE -> textNode.append(xml.getTextCharacters(), xml.getTextStart(), xml.getTextLength());
+                    case START_ELEMENT -> {
+                        endTextNode(text);
+                        ordinal++;
+                        grouped.computeIfAbsent(xml.getLocalName(), k -> new ArrayList<>()).add(tree());
+                    }
+                    case END_ELEMENT -> {
+                        endTextNode(text);
+                        for (var entry : grouped.entrySet()) {
+                            List<JsonNode> children = entry.getValue();
+                            if (children.size() == 1 && !layout.arrayNames().contains(entry.getKey())) {
+                                node.set(entry.getKey(), children.get(0));
+                            } else {
+                                ArrayNode array = node.putArray(entry.getKey());
+                                children.forEach(array::add);
+                            }
+                        }
+                        if (!text.isEmpty()) node.put("#text", text.toString());
+                        return node;
+                    }
+                    default -> endTextNode(text);
+                }
+            }
+        }
+
+        private void endTextNode(StringBuilder text) {
+            if (textNode.isEmpty()) return;
+            text.append(textNode.toString().trim());
+            textNode.setLength(0);
+        }
+
+        // Name/value pairs in the order a DOM NamedNodeMap keeps them: sorted by name
+        private List<String[]> attributes() {
+            int count = xml.getAttributeCount();
+            if (count == 0) return List.of();
+
+            List<String[]> attributes = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                attributes.add(new String[] {xml.getAttributeLocalName(i), xml.getAttributeValue(i)});
+            }
+            if (count > 1) attributes.sort(Comparator.comparing(a -> a[0]));
+            return attributes;
+        }
+    }
+
+    private static void requireXmlName(String name) {
+        if (!isXmlName(name)) throw new IllegalArgumentException("Invalid XML name: '" + name + "'");
+    }
+
+    static boolean isXmlName(String name) {
+        if (name.isEmpty()) return false;
+
+        char first = name.charAt(0);
+        if (!Character.isLetter(first) && first != '_' && first != ':') return false;
+
+        for (int i = 1; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (!Character.isLetterOrDigit(c) && c != '.' && c != '-' && c != '_' && c != ':') return false;
+        }
+        return true;
+    }
+}
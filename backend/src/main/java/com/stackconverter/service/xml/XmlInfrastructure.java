@@ -0,0 +1,136 @@
+package com.stackconverter.service.xml;
+
+import com.stackconverter.service.pool.ObjectPool;
+import org.codehaus.stax2.XMLOutputFactory2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.w3c.dom.Document;
+
+import javax.xml.XMLConstants;
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.transform.*;
+
+/**
+ * Shared, pre-configured XML machinery.
+ * <p>
+ * Factory lookup ({@code newInstance()} walks the service loader) and secure-processing
+ * setup happen once here. Factories are thread-safe once configured; the
+ * {@link DocumentBuilder}s and pretty-printing {@link Transformer}s they create are not,
+ * so those are pooled and reset between uses.
+ */
+@Component
+public class XmlInfrastructure {
+
+    private final DocumentBuilderFactory documentBuilderFactory;
+    private final TransformerFactory transformerFactory;
+    private final XMLInputFactory xmlInputFactory;
+    private final XMLOutputFactory xmlOutputFactory;
+
+    private final ObjectPool<DocumentBuilder> documentBuilders;
+    private final ObjectPool<Transformer> prettyTransformers;
+
+    public XmlInfrastructure(@Value("${stackconverter.xml.pool-size:0}") int poolSize) {
+        int capacity = poolSize > 0 ? poolSize : 2 * Runtime.getRuntime().availableProcessors();
+
+        documentBuilderFactory = DocumentBuilderFactory.newInstance();
+        secureXml(documentBuilderFactory);
+
+        transformerFactory = TransformerFactory.newInstance();
+        transformerFactory.setAttribute(XMLConstants.ACCESS_EXTERNAL_DTD, "");
+        transformerFactory.setAttribute(XMLConstants.ACCESS_EXTERNAL_STYLESHEET, "");
+
+        xmlInputFactory = XMLInputFactory.newInstance();
+        // Same view of the document as the (non namespace-aware) DocumentBuilders: qualified
+        // names as-is and xmlns declarations as ordinary attributes
+        xmlInputFactory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, false);
+        xmlInputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        xmlInputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+
+        xmlOutputFactory = XMLOutputFactory.newInstance();
+        if (xmlOutputFactory.isPropertySupported(XMLOutputFactory2.P_AUTOMATIC_EMPTY_ELEMENTS)) {
+            // <tag/> instead of <tag></tag>, matching the Transformer output
+            xmlOutputFactory.setProperty(XMLOutputFactory2.P_AUTOMATIC_EMPTY_ELEMENTS, true);
+        }
+
+        documentBuilders = new ObjectPool<>(capacity, this::newDocumentBuilder, DocumentBuilder::reset);
+        prettyTransformers = new ObjectPool<>(capacity, this::newPrettyTransformer, t -> {
+            // reset() also drops the output properties, so put them back
+            t.reset();
+            prettyPrint(t);
+        });
+
+        // Fail at startup rather than on the first request if the JAXP setup is broken
+        documentBuilders.release(documentBuilders.borrow());
+        prettyTransformers.release(prettyTransformers.borrow());
+    }
+
+    /**
+     * Run {@code work} with a pooled, secure {@link DocumentBuilder}.
+     */
+    public <R, E extends Exception> R withDocumentBuilder(ObjectPool.Work<DocumentBuilder, R, E> work) throws E {
+        return documentBuilders.with(work);
+    }
+
+    /**
+     * Run {@code work} with a pooled identity {@link Transformer} set up to indent by 4 spaces.
+     */
+    public <R, E extends Exception> R withPrettyTransformer(ObjectPool.Work<Transformer, R, E> work) throws E {
+        return prettyTransformers.with(work);
+    }
+
+    /**
+     * A new, empty DOM document.
+     */
+    public Document newDocument() {
+        return withDocumentBuilder(DocumentBuilder::newDocument);
+    }
+
+    /**
+     * StAX input factory; DTDs and external entities are not processed.
+     */
+    public XMLInputFactory xmlInputFactory() {
+        return xmlInputFactory;
+    }
+
+    public XMLOutputFactory xmlOutputFactory() {
+        return xmlOutputFactory;
+    }
+
+    private DocumentBuilder newDocumentBuilder() {
+        try {
+            return documentBuilderFactory.newDocumentBuilder();
+        } catch (ParserConfigurationException e) {
+            throw new IllegalStateException("Cannot create XML parser", e);
+        }
+    }
+
+    private Transformer newPrettyTransformer() {
+        try {
+            Transformer t = transformerFactory.newTransformer();
+            prettyPrint(t);
+            return t;
+        } catch (TransformerConfigurationException e) {
+            throw new IllegalStateException("Cannot create XML transformer", e);
+        }
+    }
+
+    private static void prettyPrint(Transformer t) {
+        t.setOutputProperty(OutputKeys.INDENT, "yes");
+        t.setOutputProperty("{http://xml.apache.org/xslt}indent-amount", "4");
+        t.setOutputProperty(OutputKeys.OMIT_XML_DECLARATION, "no");
+        t.setOutputProperty(OutputKeys.METHOD, "xml");
+    }
+
+    // Secure XML parser
+    private static void secureXml(DocumentBuilderFactory dbf) {
+        try {
+            dbf.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
+            dbf.setFeature("http://xml.org/sax/features/external-general-entities", false);
+            dbf.setFeature("http://xml.org/sax/features/external-parameter-entities", false);
+        } catch (Exception ignored) {}
+    }
+}
@@ -0,0 +1,36 @@
+package com.stackconverter.service.zip;
+
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Turns user-supplied names (sheet names, batch item names) into unique,
+ * file-system safe ZIP entry names.
+ */
+public class ZipEntryNames {
+
+    private final String extension;
+    private final String fallback;
+    private final Set<String> used = new HashSet<>();
+
+    /**
+     * @param extension appended to every name, e.g. {@code ".csv"}
+     * @param fallback  base name used when a name is blank after sanitising
+     */
+    public ZipEntryNames(String extension, String fallback) {
+        this.extension = extension;
+        this.fallback = fallback;
+    }
+
+    public String next(String name) {
+        String base = name.replaceAll("[\\\\/:*?\"<>|]", "_").trim();
+        if (base.isEmpty()) base = fallback;
+
+        String entry = base + extension;
+        for (int n = 2; !used.add(entry.toLowerCase(Locale.ROOT)); n++) {
+            entry = base + "-" + n + extension;
+        }
+        return entry;
+    }
+}
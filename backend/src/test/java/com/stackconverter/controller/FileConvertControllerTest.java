@@ -0,0 +1,120 @@
+package com.stackconverter.controller;
+
+import com.stackconverter.service.columnar.ArrowExporter;
+import com.stackconverter.service.csv.CsvReader;
+import com.stackconverter.service.excel.ExcelFormat;
+import com.stackconverter.service.excel.StreamingExcelConverter;
+import com.stackconverter.service.exec.ConversionAdmission;
+import com.stackconverter.service.exec.ConversionExecutor;
+import com.stackconverter.service.json.JsonArrayFlattener;
+import com.stackconverter.service.metrics.ConversionMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayOutputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FileConvertControllerTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final ConversionExecutor executor = new ConversionExecutor(4, 16);
+    private final ConversionAdmission admission = new ConversionAdmission(2, 4, DataSize.ofMegabytes(1), registry);
+    private final StreamingExcelConverter streamingExcel = new StreamingExcelConverter(executor, 100, false);
+    private final FileConvertController controller = new FileConvertController(streamingExcel,
+            new ArrowExporter(streamingExcel, 2, 100, "zstd"),
+            new JsonArrayFlattener(streamingExcel, 2, "extra", 100),
+            admission, new ConversionMetrics(registry));
+
+    @TempDir
+    Path dir;
+
+    @AfterEach
+    void shutDown() {
+        admission.destroy();
+        executor.destroy();
+    }
+
+    /*
+     * Every kind of cell, in rows around the .xls row block boundaries (32 rows per
+     * block), with gaps between cells and rows that do not exist at all.
+     */
+    private Path workbook(String name, Supplier<Workbook> factory) throws Exception {
+        Path file = dir.resolve(name);
+        try (Workbook wb = factory.get()) {
+            CellStyle dateStyle = wb.createCellStyle();
+            dateStyle.setDataFormat(wb.getCreationHelper().createDataFormat().getFormat("yyyy-mm-dd hh:mm"));
+
+            Sheet sheet = wb.createSheet("Data");
+            for (int i = 0; i < 130; i++) {
+                if (i % 7 == 5) continue; // missing row
+                Row row = sheet.createRow(i);
+                row.createCell(0).setCellValue(i);
+                row.createCell(1).setCellValue(i * 0.25);
+                row.createCell(2).setCellFormula(i % 2 == 0 ? "A" + (i + 1) + "+B" + (i + 1) : "SUM(A1:B" + (i + 1) + ")");
+                if (i % 3 == 0) row.createCell(3).setCellValue(i % 2 == 0);
+                // Columns 4 and 5 stay empty in between
+                if (i % 4 != 1) {
+                    row.createCell(6).setCellValue(LocalDateTime.of(2024, 1 + i % 12, 1 + i % 28, i % 24, 30));
+                    row.getCell(6).setCellStyle(dateStyle);
+                }
+                if (i % 5 == 0) row.createCell(9).setCellValue(i % 10 == 0 ? "plain" : "with, comma \"quoted\"");
+            }
+            wb.getCreationHelper().createFormulaEvaluator().evaluateAll();
+            try (var out = Files.newOutputStream(file)) {
+                wb.write(out);
+            }
+        }
+        return file;
+    }
+
+    private static List<List<String>> records(String csv) throws Exception {
+        List<List<String>> records = new ArrayList<>();
+        try (CsvReader reader = new CsvReader(new StringReader(csv))) {
+            while (reader.next()) records.add(List.of(reader.record().toArray()));
+        }
+        return records;
+    }
+
+    private void assertStreamsLikeInMemory(Path file, ExcelFormat format) throws Exception {
+        ResponseEntity<byte[]> inMemory = controller.convertExcelToCsv(
+                new MockMultipartFile("file", file.getFileName().toString(), null, Files.readAllBytes(file)));
+        assertThat(inMemory.getStatusCode().value()).isEqualTo(200);
+
+        ByteArrayOutputStream streamed = new ByteArrayOutputStream();
+        long rows = streamingExcel.writeFirstSheetAsCsv(file, format, streamed);
+
+        List<List<String>> expected = records(new String(inMemory.getBody(), StandardCharsets.UTF_8));
+        assertThat(records(streamed.toString(StandardCharsets.UTF_8))).isEqualTo(expected);
+        assertThat(rows).isEqualTo(expected.size());
+    }
+
+    @Test
+    void streamsXlsxLikeTheInMemoryConverter() throws Exception {
+        assertStreamsLikeInMemory(workbook("data.xlsx", XSSFWorkbook::new), ExcelFormat.XLSX);
+    }
+
+    @Test
+    void streamsXlsLikeTheInMemoryConverter() throws Exception {
+        assertStreamsLikeInMemory(workbook("data.xls", HSSFWorkbook::new), ExcelFormat.XLS);
+    }
+}
@@ -0,0 +1,127 @@
+package com.stackconverter.controller;
+
+import com.stackconverter.service.exec.ConversionAdmission;
+import com.stackconverter.service.exec.ConversionAdmission.Permit;
+import com.stackconverter.service.exec.ConversionExecutor;
+import com.stackconverter.service.exec.ConversionRejectedException;
+import com.stackconverter.service.hash.BatchHasher;
+import com.stackconverter.service.hash.DigestEngine;
+import com.stackconverter.service.hash.FileHasher;
+import com.stackconverter.service.metrics.ConversionMetrics;
+import com.stackconverter.service.upload.UploadSpool;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class HashControllerTest {
+
+    private static final byte[] LINES = "alpha\nbeta\ngamma\n".getBytes(StandardCharsets.UTF_8);
+
+    @TempDir
+    Path dir;
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    // One slot, so a single held permit turns everything else away
+    private final ConversionAdmission admission = new ConversionAdmission(1, 0, DataSize.ofMegabytes(1), registry);
+    private final ConversionExecutor executor = new ConversionExecutor(4, 16);
+    private HashController controller;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        controller = new HashController(new DigestEngine(0), new FileHasher(executor, 64, 1000),
+                new BatchHasher(new DigestEngine(0), executor, 64, 0), new UploadSpool(dir, DataSize.ofKilobytes(1)),
+                admission, new ConversionMetrics(registry));
+    }
+
+    @AfterEach
+    void shutDown() {
+        admission.destroy();
+        executor.destroy();
+    }
+
+    private static MockMultipartFile upload(byte[] content) {
+        return new MockMultipartFile("file", "in.txt", "text/plain", content);
+    }
+
+    private static String sha256(String text) throws Exception {
+        return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(text.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + 5_000_000_000L;
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("timed out").isLessThan(deadline);
+            Thread.sleep(5);
+        }
+    }
+
+    // Streams the body, then waits for its slot to come back
+    private String written(ResponseEntity<?> response) throws Exception {
+        assertThat(response.getStatusCode().value()).isEqualTo(200);
+        assertThat(admission.inFlight()).isEqualTo(1);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ((StreamingResponseBody) response.getBody()).writeTo(out);
+        await(() -> admission.inFlight() == 0);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void hashesFilesInBothModesOnlyWhenAdmitted() throws Exception {
+        byte[] content = new byte[5000];
+        for (String mode : new String[] {"sequential", "tree"}) {
+            assertThat(controller.hashFile(upload(content), "sha256", mode).getStatusCode().value()).isEqualTo(200);
+            assertThat(admission.inFlight()).isZero();
+
+            try (Permit held = admission.admit()) {
+                assertThatThrownBy(() -> controller.hashFile(upload(content), "sha256", mode))
+                        .isInstanceOf(ConversionRejectedException.class);
+            }
+        }
+        // Bad parameters are answered without taking a slot
+        try (Permit held = admission.admit()) {
+            assertThat(controller.hashFile(upload(content), "sha256", "other").getStatusCode().value()).isEqualTo(400);
+        }
+    }
+
+    @Test
+    void streamsBatchesUnderAPermit() throws Exception {
+        String fromFile = written(controller.hashBatchFile(upload(LINES), "sha256", null, "ndjson"));
+        assertThat(fromFile).contains(sha256("alpha"), sha256("beta"), sha256("gamma"));
+
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setContent(LINES);
+        assertThat(written(controller.hashBatchBody(request, "sha256", null, "ndjson"))).isEqualTo(fromFile);
+    }
+
+    @Test
+    void rejectsBatchesWhenSaturated() throws Exception {
+        try (Permit held = admission.admit()) {
+            assertThatThrownBy(() -> controller.hashBatchFile(upload(LINES), "sha256", null, "ndjson"))
+                    .isInstanceOf(ConversionRejectedException.class);
+            assertThat(controller.hashBatchFile(upload(LINES), "sha256", null, "xml").getStatusCode().value())
+                    .isEqualTo(400);
+        }
+        // A response Spring never sends gives its slot back once closed
+        ResponseEntity<?> response = controller.hashBatchFile(upload(LINES), "sha256", null, "csv");
+        assertThat(admission.inFlight()).isEqualTo(1);
+        ((AutoCloseable) response.getBody()).close();
+        assertThat(admission.inFlight()).isZero();
+    }
+}
@@ -0,0 +1,114 @@
+package com.stackconverter.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.stackconverter.service.exec.ConversionAdmission;
+import com.stackconverter.service.metrics.ConversionMetrics;
+import com.stackconverter.service.xml.StreamingJsonXmlConverter;
+import com.stackconverter.service.xml.XmlInfrastructure;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JsonXmlControllerTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final ConversionAdmission admission = new ConversionAdmission(2, 4, DataSize.ofMegabytes(1), registry);
+    private final XmlInfrastructure xml = new XmlInfrastructure(1);
+    private final JsonXmlController controller = new JsonXmlController(
+            xml, new StreamingJsonXmlConverter(xml), admission, new ConversionMetrics(registry));
+
+    @AfterEach
+    void shutDown() {
+        admission.destroy();
+    }
+
+    private static MockMultipartFile upload(String text) {
+        return new MockMultipartFile("file", "in.xml", "application/xml", text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // What the DOM endpoint produces
+    private JsonNode dom(String text) throws Exception {
+        ResponseEntity<?> response = controller.xmlToJson(upload(text));
+        assertThat(response.getStatusCode().value()).isEqualTo(200);
+        return mapper.readTree((byte[]) response.getBody());
+    }
+
+    private JsonNode streamed(String text, String arrays) throws Exception {
+        ResponseEntity<?> response = controller.xmlToJsonStreaming(upload(text), arrays);
+        assertThat(response.getStatusCode().value()).isEqualTo(200);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ((StreamingResponseBody) response.getBody()).writeTo(out);
+        return mapper.readTree(out.toByteArray());
+    }
+
+    // Compared as text, so field order counts too
+    private void assertSameAsDom(String text) throws Exception {
+        assertThat(mapper.writeValueAsString(streamed(text, null))).isEqualTo(mapper.writeValueAsString(dom(text)));
+    }
+
+    // The DOM result with every single value under one of names wrapped in an array
+    private static JsonNode withArrays(JsonNode node, Set<String> names) {
+        if (node instanceof ObjectNode object) {
+            for (Map.Entry<String, JsonNode> field : object.properties()) {
+                JsonNode value = withArrays(field.getValue(), names);
+                if (names.contains(field.getKey()) && !value.isArray()) {
+                    ArrayNode array = object.arrayNode();
+                    array.add(value);
+                    value = array;
+                }
+                field.setValue(value);
+            }
+        } else if (node instanceof ArrayNode array) {
+            for (int i = 0; i < array.size(); i++) array.set(i, withArrays(array.get(i), names));
+        }
+        return node;
+    }
+
+    @Test
+    void groupsRepeatedSiblingsIntoArrays() throws Exception {
+        assertSameAsDom("<r><a>1</a><a>2</a><a>3</a><b>x</b></r>");
+        // Non-adjacent repeats are grouped ahead of what came between them
+        assertSameAsDom("<r><a>1</a><b>x</b><a>2</a><c/><b>y</b><a>3</a></r>");
+        assertSameAsDom("<r><g><a>1</a><b/><a><a>2</a><c/><a>3</a></a></g><g><a>4</a></g></r>");
+    }
+
+    @Test
+    void sortsAttributesLikeTheDom() throws Exception {
+        assertSameAsDom("<r z=\"1\" a=\"2\" m=\"3\"><c b=\"x\" a=\"y\">t</c></r>");
+    }
+
+    @Test
+    void joinsMixedText() throws Exception {
+        assertSameAsDom("<r>one <b>bold</b> two\n  <i>it</i>  three </r>");
+        assertSameAsDom("<r id=\"1\">  <a>x</a>  </r>");
+    }
+
+    @Test
+    void writesEmptyElementsAsObjects() throws Exception {
+        assertSameAsDom("<r><a/><b></b><c>   </c><d x=\"1\"/></r>");
+        assertSameAsDom("<r/>");
+    }
+
+    @Test
+    void wrapsHintedNamesInArrays() throws Exception {
+        String text = "<r><a>1</a><b><a>2</a><a>3</a></b><c><d/></c></r>";
+        JsonNode expected = withArrays(dom(text), Set.of("a", "d"));
+
+        assertThat(mapper.writeValueAsString(streamed(text, "a, d,,"))).isEqualTo(mapper.writeValueAsString(expected));
+    }
+}
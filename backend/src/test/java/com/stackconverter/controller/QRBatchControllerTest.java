@@ -0,0 +1,77 @@
+package com.stackconverter.controller;
+
+import com.stackconverter.service.exec.ConversionAdmission;
+import com.stackconverter.service.exec.ConversionAdmission.Permit;
+import com.stackconverter.service.exec.ConversionExecutor;
+import com.stackconverter.service.exec.ConversionRejectedException;
+import com.stackconverter.service.metrics.ConversionMetrics;
+import com.stackconverter.service.qr.QrBatchService;
+import com.stackconverter.service.qr.QrCodeRenderer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class QRBatchControllerTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    // One slot, so a single held permit turns everything else away
+    private final ConversionAdmission admission = new ConversionAdmission(1, 0, DataSize.ofMegabytes(1), registry);
+    private final ConversionExecutor executor = new ConversionExecutor(4, 16);
+    private final QRBatchController controller = new QRBatchController(
+            new QrBatchService(new QrCodeRenderer(4), executor, 100, 2), admission, new ConversionMetrics(registry));
+
+    @AfterEach
+    void shutDown() {
+        admission.destroy();
+        executor.destroy();
+    }
+
+    private ResponseEntity<?> batch(String json, String output) {
+        MockMultipartFile file = new MockMultipartFile("file", "batch.json", "application/json",
+                json.getBytes(StandardCharsets.UTF_8));
+        return controller.generateBatch(file, "png", 60, "#000000", "#FFFFFF", output);
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + 5_000_000_000L;
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("timed out").isLessThan(deadline);
+            Thread.sleep(5);
+        }
+    }
+
+    @Test
+    void rendersUnderAPermit() throws Exception {
+        ResponseEntity<?> response = batch("[\"a\", \"b\", \"c\"]", "ndjson");
+        assertThat(response.getStatusCode().value()).isEqualTo(200);
+        assertThat(admission.inFlight()).isEqualTo(1);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ((StreamingResponseBody) response.getBody()).writeTo(out);
+        assertThat(out.toString(StandardCharsets.UTF_8).lines()).hasSize(3);
+        await(() -> admission.inFlight() == 0);
+    }
+
+    @Test
+    void releasesTheSlotOfRejectedBatches() {
+        assertThat(batch("[\"a\", ", "zip").getStatusCode().value()).isEqualTo(400);
+        assertThat(admission.inFlight()).isZero();
+
+        try (Permit held = admission.admit()) {
+            assertThatThrownBy(() -> batch("[\"a\"]", "zip")).isInstanceOf(ConversionRejectedException.class);
+            // Bad parameters are answered without taking a slot
+            assertThat(batch("[\"a\"]", "tar").getStatusCode().value()).isEqualTo(400);
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.stackconverter.controller;
+
+import com.stackconverter.service.exec.ConversionAdmission;
+import com.stackconverter.service.metrics.ConversionMetrics;
+import com.stackconverter.service.qr.QrCodeRenderer;
+import com.stackconverter.service.qr.QrCodeService;
+import com.stackconverter.service.qr.QrSpec;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class QRCodeControllerTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final ConversionAdmission admission = new ConversionAdmission(2, 4, DataSize.ofMegabytes(1), registry);
+    private final QrCodeService service = new QrCodeService(new QrCodeRenderer(4), 1 << 20, Duration.ofHours(1), registry);
+    private final QRCodeController controller = new QRCodeController(service, admission, new ConversionMetrics(registry));
+
+    @AfterEach
+    void shutDown() {
+        admission.destroy();
+    }
+
+    private ResponseEntity<byte[]> get(String text, String ifNoneMatch) {
+        return controller.generateQr(text, "png", 200, "#000000", "#FFFFFF", ifNoneMatch);
+    }
+
+    @Test
+    void answersIfNoneMatchWithoutRendering() {
+        String etag = get("hello", null).getHeaders().getETag();
+        assertThat(service.size()).isEqualTo(1);
+
+        ResponseEntity<byte[]> notModified = get("hello", "W/\"other\", " + etag);
+        assertThat(notModified.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        assertThat(notModified.getHeaders().getETag()).isEqualTo(etag);
+        assertThat(notModified.getBody()).isNull();
+
+        // Known from the spec alone: nothing cached or rendered for a 304
+        String other = service.etag(QrSpec.of("other", "png", 200, "#000000", "#FFFFFF"));
+        assertThat(get("other", other).getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        assertThat(service.size()).isEqualTo(1);
+        assertThat(service.stats().requestCount()).isEqualTo(1);
+
+        ResponseEntity<byte[]> changed = get("hello", "\"stale\"");
+        assertThat(changed.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(changed.getHeaders().getETag()).isEqualTo(etag);
+        assertThat(changed.getBody()).isNotEmpty();
+    }
+}
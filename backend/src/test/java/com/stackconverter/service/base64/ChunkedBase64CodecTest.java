@@ -0,0 +1,90 @@
+package com.stackconverter.service.base64;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Checks {@link ChunkedBase64Codec} with two-line chunks against {@link java.util.Base64}
+ * on the whole payload: same output, and the same accept / reject decision for
+ * corrupted input.
+ */
+class ChunkedBase64CodecTest {
+
+    private static final int ROUNDS = 2000;
+
+    private final ChunkedBase64Codec chunked = new ChunkedBase64Codec(2 * 57);
+
+    private static byte[] randomBytes(Random random) {
+        byte[] data = new byte[random.nextInt(1000)];
+        random.nextBytes(data);
+        return data;
+    }
+
+    private byte[] encode(byte[] data, Base64Variant variant) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        chunked.encode(ByteBuffer.wrap(data).asReadOnlyBuffer(), new JdkBase64Codec(variant), out);
+        return out.toByteArray();
+    }
+
+    private byte[] decode(byte[] text, Base64Variant variant) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        chunked.decode(ByteBuffer.wrap(text).asReadOnlyBuffer(), new JdkBase64Codec(variant), out);
+        return out.toByteArray();
+    }
+
+    @Test
+    void encodesAndDecodesLikeTheJdk() throws IOException {
+        Random random = new Random(1);
+        for (int round = 0; round < ROUNDS; round++) {
+            byte[] data = randomBytes(random);
+            for (Base64Variant variant : Base64Variant.values()) {
+                byte[] encoded = variant.jdkEncoder().encode(data);
+                assertThat(encode(data, variant)).as("%s, %d bytes", variant, data.length).isEqualTo(encoded);
+                assertThat(decode(encoded, variant)).as("%s, %d bytes", variant, data.length).isEqualTo(data);
+            }
+        }
+    }
+
+    @Test
+    void rejectsAndAcceptsCorruptedInputLikeTheJdk() throws IOException {
+        byte[] noise = "=\r\n \t-_+/.!A0".getBytes(StandardCharsets.ISO_8859_1);
+        Random random = new Random(3);
+
+        for (int round = 0; round < ROUNDS; round++) {
+            byte[] data = randomBytes(random);
+            for (Base64Variant variant : Base64Variant.values()) {
+                byte[] corrupted = variant.jdkEncoder().encode(data);
+                if (corrupted.length == 0) continue;
+
+                int edits = 1 + random.nextInt(3);
+                for (int i = 0; i < edits; i++) {
+                    corrupted[random.nextInt(corrupted.length)] = noise[random.nextInt(noise.length)];
+                }
+                if (random.nextBoolean()) corrupted = Arrays.copyOf(corrupted, random.nextInt(corrupted.length + 1));
+
+                byte[] expected;
+                try {
+                    expected = variant.jdkDecoder().decode(corrupted);
+                } catch (IllegalArgumentException e) {
+                    byte[] input = corrupted;
+                    assertThatThrownBy(() -> decode(input, variant))
+                            .as("%s should reject %s", variant, new String(input, StandardCharsets.ISO_8859_1))
+                            .isInstanceOf(IllegalArgumentException.class);
+                    continue;
+                }
+                assertThat(decode(corrupted, variant))
+                        .as("%s should accept %s", variant, new String(corrupted, StandardCharsets.ISO_8859_1))
+                        .isEqualTo(expected);
+            }
+        }
+    }
+}
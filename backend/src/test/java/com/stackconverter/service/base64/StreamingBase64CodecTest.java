@@ -0,0 +1,157 @@
+package com.stackconverter.service.base64;
+
+import com.stackconverter.service.base64.StreamingBase64Codec.Base64Layout;
+import com.stackconverter.service.sniff.ContentSample;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Checks {@link StreamingBase64Codec#inspect} and {@link StreamingBase64Codec#decode}
+ * against what the in-memory endpoint did: trim the text, strip a {@code ...base64,}
+ * prefix and hand the rest to {@code Base64.getDecoder()}. Same output and samples,
+ * and the same accept / reject decision.
+ */
+class StreamingBase64CodecTest {
+
+    private static final int ROUNDS = 2000;
+
+    // Small windows, so most payloads run past them and wrap the tail ring
+    private static final int HEAD = 5;
+    private static final int TAIL = 7;
+
+    private static final String DATA_URI = "data:application/octet-stream;base64,";
+
+    private final StreamingBase64Codec codec = new StreamingBase64Codec();
+
+    // The decode endpoint before it streamed
+    private static byte[] legacyDecode(byte[] upload) {
+        String text = new String(upload, StandardCharsets.UTF_8).trim();
+        if (text.contains(",")) {
+            String[] parts = text.split(",", 2);
+            if (parts[0].contains("base64")) text = parts[1];
+        }
+        return Base64.getDecoder().decode(text);
+    }
+
+    private byte[] decode(byte[] upload, int headSize, int tailSize) throws IOException {
+        Base64Layout layout = codec.inspect(new ByteArrayInputStream(upload), headSize, tailSize);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        codec.decode(new ByteArrayInputStream(upload), layout, out);
+        byte[] decoded = out.toByteArray();
+
+        ContentSample expected = ContentSample.of(decoded, headSize, tailSize);
+        assertThat(layout.sample().head()).isEqualTo(expected.head());
+        assertThat(layout.sample().tail()).isEqualTo(expected.tail());
+        assertThat(layout.sample().length()).isEqualTo(decoded.length);
+        return decoded;
+    }
+
+    private byte[] decode(String upload) throws IOException {
+        return decode(upload.getBytes(StandardCharsets.ISO_8859_1), HEAD, TAIL);
+    }
+
+    @Test
+    void decodesLikeTheInMemoryEndpoint() throws IOException {
+        assertThat(decode("QUJD")).asString().isEqualTo("ABC");
+        assertThat(decode("QUI=")).asString().isEqualTo("AB");
+        assertThat(decode("QQ==")).asString().isEqualTo("A");
+        // Padding is optional
+        assertThat(decode("QUI")).asString().isEqualTo("AB");
+        assertThat(decode("QQ")).asString().isEqualTo("A");
+        assertThat(decode("")).isEmpty();
+        assertThat(decode(" \r\n\t")).isEmpty();
+
+        assertThat(decode("\n  QUJD \r\n")).asString().isEqualTo("ABC");
+        assertThat(decode(" data:text/plain;base64,QUJD\n")).asString().isEqualTo("ABC");
+        assertThat(decode("base64,QUJD")).asString().isEqualTo("ABC");
+        assertThat(decode(DATA_URI)).isEmpty();
+    }
+
+    @Test
+    void rejectsWhatTheInMemoryEndpointRejected() {
+        for (String upload : new String[] {
+                "QU JD", "QU\nJD", "QUJD\n=", "QUI =",      // inner whitespace
+                "Q", "QUJDR", "QQ=", "QQ===", "QUJD=", "QUI==", "QQ=A", "=QQ=", "===",  // padding
+                "QUJD!", "QU-D", "QU_D", "éQUJD",      // outside the alphabet
+                "data:text/plain,QUJD", ",QUJD",            // not a Base64 prefix
+                DATA_URI + " QUJD", DATA_URI + "QU,JD",     // after the prefix
+        }) {
+            byte[] bytes = upload.getBytes(StandardCharsets.UTF_8);
+            assertThatThrownBy(() -> legacyDecode(bytes)).as(upload).isInstanceOf(IllegalArgumentException.class);
+            assertThatThrownBy(() -> decode(bytes, HEAD, TAIL)).as(upload).isInstanceOf(IllegalArgumentException.class);
+        }
+    }
+
+    @Test
+    void samplesPayloadsShorterAndLongerThanTheWindows() throws IOException {
+        Random random = new Random(1);
+        // Every remainder modulo 3 and 4 around each window size and around the tail ring
+        for (int length = 0; length < 64; length++) {
+            byte[] data = new byte[length];
+            random.nextBytes(data);
+            for (Base64.Encoder encoder : new Base64.Encoder[] {
+                    Base64.getEncoder(), Base64.getEncoder().withoutPadding()}) {
+                byte[] text = encoder.encode(data);
+                for (int headSize : new int[] {1, 3, HEAD, 4096}) {
+                    for (int tailSize : new int[] {1, 3, TAIL, 12, 4096}) {
+                        assertThat(decode(text, headSize, tailSize))
+                                .as("%d bytes, windows %d / %d", length, headSize, tailSize)
+                                .isEqualTo(data);
+                    }
+                }
+            }
+        }
+
+        // Far beyond the ring and the 8 KB read buffer
+        byte[] data = new byte[100_000];
+        random.nextBytes(data);
+        assertThat(decode(Base64.getEncoder().encode(data), 4096, 4096)).isEqualTo(data);
+        assertThat(decode(Base64.getEncoder().encode(data), HEAD, TAIL)).isEqualTo(data);
+    }
+
+    @Test
+    void acceptsAndRejectsCorruptedInputLikeTheInMemoryEndpoint() throws IOException {
+        String[] prefixes = {"", "", DATA_URI, "data:text/plain,", "base64,"};
+        String[] spaces = {"", "", " ", "\r\n", "\t \n"};
+        byte[] noise = "=\r\n \t,-_+/.!A0é".getBytes(StandardCharsets.ISO_8859_1);
+        Random random = new Random(3);
+
+        for (int round = 0; round < ROUNDS; round++) {
+            byte[] data = new byte[random.nextInt(200)];
+            random.nextBytes(data);
+            String encoded = random.nextBoolean()
+                    ? Base64.getEncoder().encodeToString(data)
+                    : Base64.getEncoder().withoutPadding().encodeToString(data);
+            byte[] upload = (spaces[random.nextInt(spaces.length)] + prefixes[random.nextInt(prefixes.length)]
+                    + encoded + spaces[random.nextInt(spaces.length)]).getBytes(StandardCharsets.ISO_8859_1);
+
+            // Leave some rounds intact, so accepted decorations are covered too
+            int edits = random.nextInt(3);
+            for (int i = 0; i < edits && upload.length > 0; i++) {
+                upload[random.nextInt(upload.length)] = noise[random.nextInt(noise.length)];
+            }
+
+            byte[] input = upload;
+            String shown = new String(input, StandardCharsets.ISO_8859_1);
+            byte[] expected;
+            try {
+                expected = legacyDecode(input);
+            } catch (IllegalArgumentException e) {
+                assertThatThrownBy(() -> decode(input, HEAD, TAIL))
+                        .as("should reject %s", shown)
+                        .isInstanceOf(IllegalArgumentException.class);
+                continue;
+            }
+            assertThat(decode(input, HEAD, TAIL)).as("should accept %s", shown).isEqualTo(expected);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.stackconverter.service.base64;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assumptions.assumeThat;
+
+/**
+ * Fuzzes {@link VectorBase64} against {@link java.util.Base64}: same output for every
+ * variant and length, and the same accept / reject decision for corrupted input.
+ */
+class VectorBase64Test {
+
+    private static final int ROUNDS = 3000;
+
+    @BeforeAll
+    static void requireVectorSupport() {
+        assumeThat(new Base64Codecs("auto", 0).vectorAvailable())
+                .as("jdk.incubator.vector with 128-bit vectors")
+                .isTrue();
+    }
+
+    private static byte[] randomBytes(Random random) {
+        // Mostly around vector block boundaries, sometimes large
+        int length = random.nextInt(10) == 0 ? random.nextInt(200_000) : random.nextInt(600);
+        byte[] data = new byte[length];
+        random.nextBytes(data);
+        return data;
+    }
+
+    @Test
+    void encodesLikeTheJdk() {
+        Random random = new Random(1);
+        for (int round = 0; round < ROUNDS; round++) {
+            byte[] data = randomBytes(random);
+            for (Base64Variant variant : Base64Variant.values()) {
+                assertThat(VectorBase64.encode(data, variant))
+                        .as("%s, %d bytes", variant, data.length)
+                        .isEqualTo(variant.jdkEncoder().encode(data));
+            }
+        }
+    }
+
+    @Test
+    void decodesLikeTheJdk() {
+        Random random = new Random(2);
+        for (int round = 0; round < ROUNDS; round++) {
+            byte[] data = randomBytes(random);
+            for (Base64Variant variant : Base64Variant.values()) {
+                byte[] encoded = variant.jdkEncoder().encode(data);
+                assertThat(VectorBase64.decode(encoded, variant))
+                        .as("%s, %d bytes", variant, data.length)
+                        .isEqualTo(data);
+
+                // Without padding, as the JDK decoders also accept
+                int end = encoded.length;
+                while (end > 0 && encoded[end - 1] == '=') end--;
+                assertThat(VectorBase64.decode(Arrays.copyOf(encoded, end), variant)).isEqualTo(data);
+            }
+        }
+    }
+
+    @Test
+    void rejectsAndAcceptsCorruptedInputLikeTheJdk() {
+        byte[] noise = "=\r\n \t-_+/.!\u0080ÿA0".getBytes(java.nio.charset.StandardCharsets.ISO_8859_1);
+        Random random = new Random(3);
+
+        for (int round = 0; round < ROUNDS; round++) {
+            byte[] data = randomBytes(random);
+            for (Base64Variant variant : Base64Variant.values()) {
+                byte[] encoded = variant.jdkEncoder().encode(data);
+                if (encoded.length == 0) continue;
+
+                byte[] corrupted = encoded.clone();
+                int edits = 1 + random.nextInt(3);
+                for (int i = 0; i < edits; i++) {
+                    corrupted[random.nextInt(corrupted.length)] = noise[random.nextInt(noise.length)];
+                }
+                if (random.nextBoolean()) corrupted = Arrays.copyOf(corrupted, random.nextInt(corrupted.length + 1));
+
+                byte[] expected;
+                try {
+                    expected = variant.jdkDecoder().decode(corrupted);
+                } catch (IllegalArgumentException e) {
+                    byte[] input = corrupted;
+                    assertThatThrownBy(() -> VectorBase64.decode(input, variant))
+                            .as("%s should reject %s", variant, new String(input, java.nio.charset.StandardCharsets.ISO_8859_1))
+                            .isInstanceOf(IllegalArgumentException.class);
+                    continue;
+                }
+                assertThat(VectorBase64.decode(corrupted, variant)).isEqualTo(expected);
+            }
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.stackconverter.service.columnar;
+
+import com.stackconverter.service.csv.CsvReader;
+import com.stackconverter.service.excel.ExcelFormat;
+import com.stackconverter.service.excel.StreamingExcelConverter;
+import com.stackconverter.service.exec.ConversionExecutor;
+import org.apache.arrow.memory.RootAllocator;
+import org.apache.arrow.vector.FieldVector;
+import org.apache.arrow.vector.ValueVector;
+import org.apache.arrow.vector.VectorSchemaRoot;
+import org.apache.arrow.vector.dictionary.DictionaryEncoder;
+import org.apache.arrow.vector.ipc.ArrowStreamReader;
+import org.apache.arrow.vector.types.pojo.ArrowType;
+import org.apache.arrow.vector.types.pojo.Field;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ArrowExporterTest {
+
+    private final ConversionExecutor executor = new ConversionExecutor(2, 16);
+    private final ArrowExporter exporter = new ArrowExporter(new StreamingExcelConverter(executor, 100, false), 2, 100, "zstd");
+
+    @AfterEach
+    void shutDown() {
+        exporter.destroy();
+        executor.destroy();
+    }
+
+    private record Table(List<Field> fields, List<List<Object>> rows, int batches) {}
+
+    // Every batch decoded back to plain values, dictionary columns included
+    private static Table read(byte[] stream) throws Exception {
+        try (RootAllocator allocator = new RootAllocator();
+             ArrowStreamReader reader = new ArrowStreamReader(new ByteArrayInputStream(stream), allocator)) {
+            VectorSchemaRoot root = reader.getVectorSchemaRoot();
+            List<List<Object>> rows = new ArrayList<>();
+            int batches = 0;
+            while (reader.loadNextBatch()) {
+                batches++;
+                List<ValueVector> columns = new ArrayList<>();
+                for (FieldVector vector : root.getFieldVectors()) {
+                    var encoding = vector.getField().getDictionary();
+                    columns.add(encoding == null ? vector
+                            : DictionaryEncoder.decode(vector, reader.getDictionaryVectors().get(encoding.getId())));
+                }
+                for (int row = 0; row < root.getRowCount(); row++) {
+                    List<Object> values = new ArrayList<>();
+                    for (ValueVector column : columns) {
+                        Object value = column.getObject(row);
+                        values.add(value == null ? null : value.toString());
+                    }
+                    rows.add(values);
+                }
+                for (int i = 0; i < columns.size(); i++) {
+                    if (columns.get(i) != root.getVector(i)) columns.get(i).close();
+                }
+            }
+            return new Table(root.getSchema().getFields(), rows, batches);
+        }
+    }
+
+    @Test
+    void infersCsvTypesAndEncodesRepeatedStrings() throws Exception {
+        String csv = "id,price,active,city,note\n"
+                + "1,2.5,true,Oslo,a\n"
+                + "2,3,FALSE,Oslo,b\n"
+                + "3,,true,Rome,c\n"
+                + "4,1e3,false,Oslo,d\n"
+                + "5,7,true,,e\n";
+
+        TableProfile profile;
+        try (CsvReader reader = new CsvReader(new StringReader(csv))) {
+            profile = exporter.profileCsv(reader, true);
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (CsvReader reader = new CsvReader(new StringReader(csv))) {
+            assertThat(exporter.writeCsv(reader, profile, ArrowCompression.ZSTD, out)).isEqualTo(5);
+        }
+
+        Table table = read(out.toByteArray());
+        assertThat(table.fields()).extracting(Field::getName).containsExactly("id", "price", "active", "city", "note");
+        assertThat(table.fields()).extracting(Field::getType).containsExactly(
+                ColumnType.INT64.arrowType(), ColumnType.FLOAT64.arrowType(), ArrowType.Bool.INSTANCE,
+                new ArrowType.Int(32, true), ArrowType.Utf8.INSTANCE);
+        assertThat(table.fields().get(3).getDictionary()).isNotNull();
+        assertThat(table.fields().get(4).getDictionary()).isNull();
+
+        assertThat(table.batches()).isEqualTo(3);
+        assertThat(table.rows()).containsExactly(
+                List.of("1", "2.5", "true", "Oslo", "a"),
+                List.of("2", "3.0", "false", "Oslo", "b"),
+                Arrays.asList("3", null, "true", "Rome", "c"),
+                List.of("4", "1000.0", "false", "Oslo", "d"),
+                Arrays.asList("5", "7.0", "true", null, "e"));
+    }
+
+    @Test
+    void infersSheetTypesFromCellTypes(@TempDir Path dir) throws Exception {
+        Path workbook = dir.resolve("table.xlsx");
+        try (Workbook wb = new XSSFWorkbook(); OutputStream out = Files.newOutputStream(workbook)) {
+            CellStyle dateStyle = wb.createCellStyle();
+            dateStyle.setDataFormat(wb.getCreationHelper().createDataFormat().getFormat("yyyy-mm-dd"));
+            Sheet sheet = wb.createSheet();
+
+            Row header = sheet.createRow(0);
+            header.createCell(0).setCellValue("count");
+            header.createCell(1).setCellValue("when");
+            header.createCell(2).setCellValue("code");
+            header.createCell(3).setCellValue("flag");
+
+            for (int i = 1; i <= 3; i++) {
+                Row row = sheet.createRow(i);
+                row.createCell(0).setCellValue(i * 10);
+                row.createCell(1).setCellValue(LocalDateTime.of(2024, 1, i, 12, 0));
+                row.getCell(1).setCellStyle(dateStyle);
+                // Numbers stored as text stay text
+                row.createCell(2).setCellValue(String.valueOf(i));
+                row.createCell(3).setCellValue(i % 2 == 0);
+            }
+            wb.write(out);
+        }
+
+        TableProfile profile = exporter.profileSheet(workbook, ExcelFormat.XLSX, true);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertThat(exporter.writeSheet(workbook, ExcelFormat.XLSX, profile, ArrowCompression.NONE, out)).isEqualTo(3);
+
+        Table table = read(out.toByteArray());
+        assertThat(table.fields()).extracting(Field::getType).containsExactly(
+                ColumnType.INT64.arrowType(), ColumnType.TIMESTAMP.arrowType(),
+                ArrowType.Utf8.INSTANCE, ArrowType.Bool.INSTANCE);
+        assertThat(table.rows().get(1)).containsExactly("20", "2024-01-02T12:00", "2", "true");
+    }
+}
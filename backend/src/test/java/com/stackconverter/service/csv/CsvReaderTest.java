@@ -0,0 +1,89 @@
+package com.stackconverter.service.csv;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CsvReaderTest {
+
+    private List<List<String>> parse(String csv, char delimiter) throws IOException {
+        return parse(new StringReader(csv), delimiter);
+    }
+
+    private List<List<String>> parse(Reader reader, char delimiter) throws IOException {
+        List<List<String>> rows = new ArrayList<>();
+        try (CsvReader csv = new CsvReader(reader, delimiter)) {
+            csv.read(record -> rows.add(List.of(record.toArray())));
+        }
+        return rows;
+    }
+
+    @Test
+    void parsesPlainAndQuotedFields() throws IOException {
+        assertThat(parse("a,b,c\n1,\"x, y\",3\n", ','))
+                .containsExactly(List.of("a", "b", "c"), List.of("1", "x, y", "3"));
+    }
+
+    @Test
+    void unescapesDoubledQuotes() throws IOException {
+        assertThat(parse("\"say \"\"hi\"\"\",\"\"\"\"\n", ','))
+                .containsExactly(List.of("say \"hi\"", "\""));
+    }
+
+    @Test
+    void keepsLineBreaksInsideQuotedFields() throws IOException {
+        assertThat(parse("\"line 1\r\nline 2\",x\r\nnext,row", ','))
+                .containsExactly(List.of("line 1\r\nline 2", "x"), List.of("next", "row"));
+    }
+
+    @Test
+    void handlesAllLineEndingsAndEmptyFields() throws IOException {
+        assertThat(parse("a,,\rb\r\n\nc", ','))
+                .containsExactly(List.of("a", "", ""), List.of("b"), List.of(""), List.of("c"));
+    }
+
+    @Test
+    void supportsCustomDelimiters() throws IOException {
+        assertThat(parse("a;\"b;c\"\n", ';')).containsExactly(List.of("a", "b;c"));
+        assertThat(parse("a\tb,c\n", '\t')).containsExactly(List.of("a", "b,c"));
+    }
+
+    @Test
+    void stripsByteOrderMark() throws IOException {
+        assertThat(parse("\uFEFFid,name\n", ',')).containsExactly(List.of("id", "name"));
+    }
+
+    @Test
+    void parsesRecordsAcrossBufferBoundaries() throws IOException {
+        StringBuilder csv = new StringBuilder();
+        for (int i = 0; i < 20_000; i++) {
+            csv.append(i).append(",\"quoted ").append(i).append("\"\r\n");
+        }
+
+        // Short reads split quotes, CRLF pairs and fields across buffer fills
+        Reader trickle = new StringReader(csv.toString()) {
+            @Override
+            public int read(char[] cbuf, int off, int len) throws IOException {
+                return super.read(cbuf, off, Math.min(len, 7));
+            }
+        };
+
+        List<List<String>> rows = parse(trickle, ',');
+        assertThat(rows).hasSize(20_000);
+        assertThat(rows.get(19_999)).containsExactly("19999", "quoted 19999");
+    }
+
+    @Test
+    void rejectsUnterminatedQuotes() {
+        assertThatThrownBy(() -> parse("a,\"open\n", ','))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("record 1");
+    }
+}
@@ -0,0 +1,165 @@
+package com.stackconverter.service.excel;
+
+import com.stackconverter.service.csv.CsvReader;
+import com.stackconverter.service.exec.ConversionExecutor;
+import org.apache.poi.hssf.record.BOFRecord;
+import org.apache.poi.hssf.record.BoundSheetRecord;
+import org.apache.poi.hssf.record.EOFRecord;
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class StreamingExcelConverterTest {
+
+    private final ConversionExecutor executor = new ConversionExecutor(4, 16);
+    private final StreamingExcelConverter converter = new StreamingExcelConverter(executor, 100, false);
+
+    @AfterEach
+    void shutDown() {
+        executor.destroy();
+    }
+
+    // Sheets "A", "B", "C" with rows 0..rows-1 holding (index, index * 1.5, sheet name)
+    private static Path workbook(Path dir, String name, Supplier<Workbook> factory, int rows) throws Exception {
+        Path file = dir.resolve(name);
+        try (Workbook wb = factory.get(); OutputStream out = Files.newOutputStream(file)) {
+            for (String sheetName : List.of("A", "B", "C")) {
+                Sheet sheet = wb.createSheet(sheetName);
+                for (int i = 0; i < rows; i++) {
+                    Row row = sheet.createRow(i);
+                    row.createCell(0).setCellValue(i);
+                    row.createCell(1).setCellValue(i * 1.5);
+                    row.createCell(2).setCellValue(sheetName);
+                }
+            }
+            wb.write(out);
+        }
+        return file;
+    }
+
+    private static Map<String, List<String>> unzip(byte[] zip) throws Exception {
+        Map<String, List<String>> entries = new LinkedHashMap<>();
+        try (ZipInputStream in = new ZipInputStream(new ByteArrayInputStream(zip))) {
+            ZipEntry entry;
+            while ((entry = in.getNextEntry()) != null) {
+                entries.put(entry.getName(), new String(in.readAllBytes(), StandardCharsets.UTF_8).lines().toList());
+            }
+        }
+        return entries;
+    }
+
+    private void assertSheetsZip(Path file, ExcelFormat format, int rows) throws Exception {
+        assertThat(converter.sheetNames(file, format)).containsExactly("A", "B", "C");
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertThat(converter.writeSheetsAsCsvZip(file, format, List.of(0, 2), out)).isEqualTo(2L * rows);
+
+        Map<String, List<String>> entries = unzip(out.toByteArray());
+        assertThat(entries.keySet()).containsExactly("A.csv", "C.csv");
+        assertThat(entries.get("C.csv")).hasSize(rows);
+        assertThat(entries.get("C.csv").get(3)).isEqualTo("3.0,4.5,C");
+    }
+
+    @Test
+    void writesSelectedXlsxSheetsInParallel(@TempDir Path dir) throws Exception {
+        assertSheetsZip(workbook(dir, "book.xlsx", XSSFWorkbook::new, 2000), ExcelFormat.XLSX, 2000);
+    }
+
+    @Test
+    void writesSelectedXlsSheets(@TempDir Path dir) throws Exception {
+        // Past the 32-row blocks of the BIFF stream
+        assertSheetsZip(workbook(dir, "book.xls", HSSFWorkbook::new, 200), ExcelFormat.XLS, 200);
+    }
+
+    @Test
+    void continuesOnNewSheetsPastTheRowLimit() throws Exception {
+        String csv = "a,1\nb,2\nc,3\nd,4\ne,5\nf,6\ng,7\n";
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (CsvReader reader = new CsvReader(new StringReader(csv))) {
+            assertThat(converter.writeCsvAsXlsx(reader, out, 3)).isEqualTo(7);
+        }
+
+        try (Workbook wb = new XSSFWorkbook(new ByteArrayInputStream(out.toByteArray()))) {
+            assertThat(wb.getNumberOfSheets()).isEqualTo(3);
+            assertThat(wb.getSheet("Sheet2").getRow(0).getCell(0).getStringCellValue()).isEqualTo("d");
+            assertThat(wb.getSheet("Sheet3").getLastRowNum()).isZero();
+        }
+    }
+
+    @Test
+    void rejectsRecordsWiderThanASheet() throws Exception {
+        String wide = "x,".repeat(StreamingExcelConverter.MAX_COLUMNS) + "x\n";
+        try (CsvReader reader = new CsvReader(new StringReader(wide))) {
+            assertThatThrownBy(() -> converter.writeCsvAsXlsx(reader, new ByteArrayOutputStream()))
+                    .isInstanceOf(IllegalArgumentException.class);
+        }
+    }
+
+    @Test
+    void skipsChartAndMacroSubstreams() {
+        List<BoundSheetRecord> bound = new ArrayList<>();
+        for (String name : List.of("Data", "Chart1", "Macro1", "Summary")) {
+            BoundSheetRecord sheet = new BoundSheetRecord(name);
+            sheet.setPositionOfBof(100 * (bound.size() + 1));
+            bound.add(sheet);
+        }
+
+        List<org.apache.poi.hssf.record.Record> records = new ArrayList<>();
+        records.add(bof(BOFRecord.TYPE_WORKBOOK));
+        records.addAll(bound);
+        records.add(EOFRecord.instance);
+        // Data, with an embedded chart of its own
+        records.add(bof(BOFRecord.TYPE_WORKSHEET));
+        records.add(bof(BOFRecord.TYPE_CHART));
+        records.add(EOFRecord.instance);
+        records.add(EOFRecord.instance);
+        records.add(bof(BOFRecord.TYPE_CHART));
+        records.add(EOFRecord.instance);
+        records.add(bof(BOFRecord.TYPE_EXCEL_4_MACRO));
+        records.add(EOFRecord.instance);
+        records.add(bof(BOFRecord.TYPE_WORKSHEET));
+        records.add(EOFRecord.instance);
+
+        XlsSheetReader.Substreams substreams = new XlsSheetReader.Substreams();
+        List<String> names = new ArrayList<>();
+        List<Boolean> topLevel = new ArrayList<>();
+        for (org.apache.poi.hssf.record.Record record : records) {
+            String name = substreams.worksheetStarting(record);
+            if (name != null) names.add(name);
+            if (record instanceof EOFRecord) topLevel.add(substreams.atTopLevel());
+        }
+
+        assertThat(names).containsExactly("Data", "Summary");
+        // The embedded chart's EOF does not end the worksheet
+        assertThat(topLevel).containsExactly(true, false, true, true, true, true);
+    }
+
+    private static BOFRecord bof(int type) {
+        BOFRecord bof = BOFRecord.createSheetBOF();
+        bof.setType(type);
+        return bof;
+    }
+}
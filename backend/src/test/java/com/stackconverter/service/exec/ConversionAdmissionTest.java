@@ -0,0 +1,118 @@
+package com.stackconverter.service.exec;
+
+import com.stackconverter.service.exec.ConversionAdmission.Permit;
+import com.stackconverter.service.exec.ConversionAdmission.StreamedConversion;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ConversionAdmissionTest {
+
+    private final ConversionAdmission admission =
+            new ConversionAdmission(1, 1, DataSize.ofKilobytes(64), new SimpleMeterRegistry());
+
+    @AfterEach
+    void shutDown() {
+        admission.destroy();
+    }
+
+    @Test
+    void rejectsPastRunningAndQueuedSlots() {
+        Permit first = admission.admit();
+        Permit second = admission.admit();
+        assertThatThrownBy(admission::admit).isInstanceOf(ConversionRejectedException.class);
+
+        first.close();
+        first.close();
+        assertThat(admission.inFlight()).isEqualTo(1);
+        admission.admit();
+        second.close();
+    }
+
+    @Test
+    void streamsAndThenReleasesTheSlot() throws Exception {
+        StreamedConversion body = admission.admit().stream(out -> out.write("converted".getBytes()));
+        assertThat(admission.inFlight()).isEqualTo(1);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        body.writeTo(out);
+        assertThat(out.toString()).isEqualTo("converted");
+        assertThat(admission.inFlight()).isZero();
+    }
+
+    @Test
+    void releasesTheSlotOfABodyThatNeverRuns() {
+        StreamedConversion body = admission.admit().stream(out -> out.write(1));
+        assertThat(admission.inFlight()).isEqualTo(1);
+
+        // The request timed out or failed before Spring ran the body
+        body.close();
+        assertThat(admission.inFlight()).isZero();
+
+        // Running it late afterwards does not convert, nor release the slot twice
+        Permit other = admission.admit();
+        assertThatThrownBy(() -> body.writeTo(new ByteArrayOutputStream())).isInstanceOf(IOException.class);
+        assertThat(admission.inFlight()).isEqualTo(1);
+        other.close();
+    }
+
+    @Test
+    void stopsAConversionWhoseRequestIsOver() throws Exception {
+        CountDownLatch writing = new CountDownLatch(1);
+        CompletableFuture<Throwable> stopped = new CompletableFuture<>();
+        StreamedConversion body = admission.admit().stream(out -> {
+            writing.countDown();
+            try {
+                // Ignores interrupts, as most parsers do
+                while (true) out.write(0);
+            } catch (IOException e) {
+                stopped.complete(e);
+                throw e;
+            }
+        });
+
+        // A client that never reads: the sending thread sits on the first chunk
+        CountDownLatch clientGone = new CountDownLatch(1);
+        Thread sending = new Thread(() -> {
+            try {
+                body.writeTo(new ByteArrayOutputStream() {
+                    @Override
+                    public void write(byte[] b, int off, int len) {
+                        try {
+                            clientGone.await();
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                    }
+                });
+            } catch (IOException ignored) {
+                // The request is over
+            }
+        });
+        sending.start();
+        assertThat(writing.await(5, TimeUnit.SECONDS)).isTrue();
+
+        // The request timed out
+        body.close();
+        assertThat(stopped.get(5, TimeUnit.SECONDS)).hasMessage("Client went away");
+        clientGone.countDown();
+        sending.join(5000);
+        assertThat(sending.isAlive()).isFalse();
+
+        long deadline = System.nanoTime() + 5_000_000_000L;
+        while (admission.inFlight() != 0) {
+            assertThat(System.nanoTime()).as("timed out").isLessThan(deadline);
+            Thread.sleep(5);
+        }
+    }
+}
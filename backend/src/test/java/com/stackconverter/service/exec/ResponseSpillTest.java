@@ -0,0 +1,89 @@
+package com.stackconverter.service.exec;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ResponseSpillTest {
+
+    private static byte[] content(int size) {
+        byte[] bytes = new byte[size];
+        new Random(42).nextBytes(bytes);
+        return bytes;
+    }
+
+    @Test
+    void deliversEverythingWhileTheReaderIsBehind() throws Exception {
+        byte[] expected = content(1_000_003);
+        ResponseSpill spill = new ResponseSpill(128 * 1024);
+        CountDownLatch written = new CountDownLatch(1);
+
+        CompletableFuture<Void> writer = CompletableFuture.runAsync(() -> {
+            try (OutputStream out = spill.output()) {
+                for (int i = 0; i < expected.length; i += 1000) {
+                    out.write(expected, i, Math.min(1000, expected.length - i));
+                }
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+            spill.finish(null);
+            written.countDown();
+        });
+
+        // The writer never waits for the reader, even past the memory limit
+        written.await();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        spill.drainTo(out);
+        writer.get();
+
+        assertThat(out.toByteArray()).isEqualTo(expected);
+    }
+
+    @Test
+    void rethrowsTheFailureAfterWhatWasWritten() throws Exception {
+        ResponseSpill spill = new ResponseSpill(1024);
+        try (OutputStream out = spill.output()) {
+            out.write("partial".getBytes());
+        }
+        spill.finish(new IllegalStateException("boom"));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertThatThrownBy(() -> spill.drainTo(out))
+                .isInstanceOf(IOException.class)
+                .hasCauseInstanceOf(IllegalStateException.class);
+        assertThat(out.toString()).isEqualTo("partial");
+    }
+
+    @Test
+    void stopsTheWriterOnceTheReaderGivesUp() throws Exception {
+        ResponseSpill spill = new ResponseSpill(1024);
+        OutputStream converted = spill.output();
+        converted.write(content(4096));
+        converted.flush();
+
+        OutputStream broken = new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                throw new IOException("Broken pipe");
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                throw new IOException("Broken pipe");
+            }
+        };
+        assertThatThrownBy(() -> spill.drainTo(broken)).hasMessage("Broken pipe");
+
+        // Right away, not only once a whole chunk is handed over
+        assertThatThrownBy(() -> converted.write(1)).isInstanceOf(IOException.class);
+        assertThatThrownBy(() -> converted.write(new byte[10], 0, 10)).isInstanceOf(IOException.class);
+    }
+}
@@ -0,0 +1,128 @@
+package com.stackconverter.service.hash;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.stackconverter.service.csv.CsvReader;
+import com.stackconverter.service.exec.ConversionExecutor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BatchHasherTest {
+
+    // Blank lines, CRLF and a bare \r line, quotes, commas, multi-byte text, and lines past the chunk size
+    private static final String INPUT = "alpha\r\n"
+            + "\n"
+            + "beta, \"quoted\"\n"
+            + "\r\n"
+            + "\r\n"
+            + "café 日本 😀\n"
+            + "x".repeat(300) + "\r\n"
+            + "  spaces  \n"
+            + "\n\n"
+            + "y".repeat(150) + "\n"
+            + "last line without break";
+
+    private static final byte[] KEY = "secret key".getBytes(StandardCharsets.UTF_8);
+
+    private final ConversionExecutor executor = new ConversionExecutor(4, 16);
+    // Small chunks, so lines are spread over many of them and some span several blocks
+    private final BatchHasher hasher = new BatchHasher(new DigestEngine(0), executor, 64, 0);
+
+    @AfterEach
+    void shutDown() {
+        executor.destroy();
+    }
+
+    // Non-blank lines without the trailing \r, as the hasher sees them
+    private static List<String> lines() {
+        List<String> lines = new ArrayList<>();
+        for (String line : INPUT.split("\n", -1)) {
+            if (line.endsWith("\r")) line = line.substring(0, line.length() - 1);
+            if (!line.isEmpty()) lines.add(line);
+        }
+        return lines;
+    }
+
+    private static String expected(HashAlgorithm algorithm, byte[] key, String line) throws Exception {
+        byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+        if (key == null) return HexFormat.of().formatHex(MessageDigest.getInstance(algorithm.displayName()).digest(bytes));
+        Mac mac = Mac.getInstance(algorithm.hmacName());
+        mac.init(new SecretKeySpec(key, algorithm.hmacName()));
+        return HexFormat.of().formatHex(mac.doFinal(bytes));
+    }
+
+    private String hash(HashAlgorithm algorithm, byte[] key, BatchHasher.Format format) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        hasher.write(new ByteArrayInputStream(INPUT.getBytes(StandardCharsets.UTF_8)), algorithm, key, format, out);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    private static List<Map.Entry<String, String>> ndjson(String output) throws Exception {
+        ObjectMapper mapper = new ObjectMapper();
+        List<Map.Entry<String, String>> results = new ArrayList<>();
+        for (String line : output.split("\n")) {
+            JsonNode node = mapper.readTree(line);
+            assertThat(node.size()).isEqualTo(2);
+            results.add(Map.entry(node.get("input").asText(), node.get("hash").asText()));
+        }
+        return results;
+    }
+
+    private static List<Map.Entry<String, String>> csv(String output) throws Exception {
+        List<Map.Entry<String, String>> results = new ArrayList<>();
+        try (CsvReader reader = new CsvReader(new StringReader(output))) {
+            assertThat(reader.next()).isTrue();
+            assertThat(reader.record().toArray()).containsExactly("input", "hash");
+            while (reader.next()) {
+                assertThat(reader.record().size()).isEqualTo(2);
+                results.add(Map.entry(reader.record().get(0), reader.record().get(1)));
+            }
+        }
+        return results;
+    }
+
+    private void assertMatchesJdk(HashAlgorithm algorithm, byte[] key) throws Exception {
+        List<Map.Entry<String, String>> expected = new ArrayList<>();
+        for (String line : lines()) expected.add(Map.entry(line, expected(algorithm, key, line)));
+
+        assertThat(ndjson(hash(algorithm, key, BatchHasher.Format.NDJSON))).as("NDJSON").isEqualTo(expected);
+        assertThat(csv(hash(algorithm, key, BatchHasher.Format.CSV))).as("CSV").isEqualTo(expected);
+    }
+
+    @Test
+    void digestsEveryLineLikeMessageDigest() throws Exception {
+        for (HashAlgorithm algorithm : HashAlgorithm.values()) {
+            if (algorithm != HashAlgorithm.CRC32C) assertMatchesJdk(algorithm, null);
+        }
+    }
+
+    @Test
+    void hmacsEveryLineLikeMac() throws Exception {
+        for (HashAlgorithm algorithm : HashAlgorithm.values()) {
+            if (algorithm.hmacName() != null) assertMatchesJdk(algorithm, KEY);
+        }
+    }
+
+    @Test
+    void skipsBlankLinesAndCarriageReturns() throws Exception {
+        List<Map.Entry<String, String>> results = ndjson(hash(HashAlgorithm.SHA_256, null, BatchHasher.Format.NDJSON));
+
+        assertThat(results).hasSize(7);
+        assertThat(results.get(0).getKey()).isEqualTo("alpha");
+        assertThat(results).noneMatch(result -> result.getKey().isEmpty() || result.getKey().contains("\r"));
+    }
+}
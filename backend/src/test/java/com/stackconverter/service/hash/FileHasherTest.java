@@ -0,0 +1,102 @@
+package com.stackconverter.service.hash;
+
+import com.stackconverter.service.exec.ConversionExecutor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.CRC32C;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FileHasherTest {
+
+    private static final int LEAF_SIZE = 1000;
+
+    private final ConversionExecutor executor = new ConversionExecutor(4, 16);
+    private final FileHasher hasher = new FileHasher(executor, 64, LEAF_SIZE);
+
+    @AfterEach
+    void shutDown() {
+        executor.destroy();
+    }
+
+    private static byte[] data(int length) {
+        byte[] data = new byte[length];
+        new Random(length).nextBytes(data);
+        return data;
+    }
+
+    private static byte[] crc32c(byte[] data, int from, int to) {
+        CRC32C crc = new CRC32C();
+        crc.update(data, from, to - from);
+        return Crc32c.toBytes((int) crc.getValue());
+    }
+
+    @Test
+    void computesStandardDigestsInOneRead() throws Exception {
+        List<HashAlgorithm> all = List.of(HashAlgorithm.values());
+        for (int length : new int[]{0, 1, 63, 64, 65, 10_000}) {
+            byte[] data = data(length);
+            var result = hasher.hash(new ByteArrayInputStream(data), all);
+
+            assertThat(result.size()).isEqualTo(length);
+            for (HashAlgorithm algorithm : all) {
+                byte[] expected = algorithm == HashAlgorithm.CRC32C
+                        ? crc32c(data, 0, length)
+                        : MessageDigest.getInstance(algorithm.displayName()).digest(data);
+                assertThat(result.digests().get(algorithm)).as("%s of %d bytes", algorithm, length).isEqualTo(expected);
+            }
+        }
+    }
+
+    @Test
+    void treeModeHashesTheLeafDigests() throws Exception {
+        byte[] data = data(3 * LEAF_SIZE + 17);
+        var result = hasher.hashTree(new ByteArrayInputStream(data), List.of(HashAlgorithm.SHA_256));
+
+        MessageDigest root = MessageDigest.getInstance("SHA-256");
+        for (int from = 0; from < data.length; from += LEAF_SIZE) {
+            byte[] leaf = Arrays.copyOfRange(data, from, Math.min(data.length, from + LEAF_SIZE));
+            root.update(MessageDigest.getInstance("SHA-256").digest(leaf));
+        }
+        assertThat(result.size()).isEqualTo(data.length);
+        assertThat(result.digests().get(HashAlgorithm.SHA_256)).isEqualTo(root.digest());
+    }
+
+    @Test
+    void treeModeCrc32cEqualsTheSequentialOne() throws Exception {
+        for (int length : new int[]{0, 1, LEAF_SIZE, LEAF_SIZE + 1, 50 * LEAF_SIZE + 3}) {
+            byte[] data = data(length);
+            var result = hasher.hashTree(new ByteArrayInputStream(data), List.of(HashAlgorithm.CRC32C, HashAlgorithm.MD5));
+            assertThat(result.digests().get(HashAlgorithm.CRC32C)).isEqualTo(crc32c(data, 0, length));
+        }
+    }
+
+    @Test
+    void buffersHashLikeStreams() throws Exception {
+        List<HashAlgorithm> all = List.of(HashAlgorithm.values());
+        for (int length : new int[]{0, 1, LEAF_SIZE, 3 * LEAF_SIZE + 17}) {
+            byte[] data = data(length);
+            ByteBuffer direct = ByteBuffer.allocateDirect(length).put(data).flip();
+
+            var sequential = hasher.hash(direct, all);
+            var tree = hasher.hashTree(direct, all);
+            var sequentialStream = hasher.hash(new ByteArrayInputStream(data), all);
+            var treeStream = hasher.hashTree(new ByteArrayInputStream(data), all);
+
+            assertThat(sequential.size()).isEqualTo(length);
+            assertThat(tree.size()).isEqualTo(length);
+            assertThat(direct.position()).isZero();
+            for (HashAlgorithm algorithm : all) {
+                assertThat(sequential.digests().get(algorithm)).isEqualTo(sequentialStream.digests().get(algorithm));
+                assertThat(tree.digests().get(algorithm)).isEqualTo(treeStream.digests().get(algorithm));
+            }
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package com.stackconverter.service.job;
+
+import com.stackconverter.service.exec.ConversionRejectedException;
+import com.stackconverter.service.metrics.ConversionMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ConversionJobsTest {
+
+    @TempDir
+    Path dir;
+
+    private ConversionJobs jobs;
+
+    @AfterEach
+    void shutDown() {
+        if (jobs != null) jobs.destroy();
+    }
+
+    private ConversionJobs jobs(Duration ttl, long maxBytes) throws Exception {
+        return jobs(ttl, maxBytes, 8);
+    }
+
+    private ConversionJobs jobs(Duration ttl, long maxBytes, int maxQueued) throws Exception {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        jobs = new ConversionJobs(dir, ttl, maxBytes, 2, maxQueued, 1024, 1, new ConversionMetrics(registry), registry);
+        return jobs;
+    }
+
+    private static MockMultipartFile upload(int bytes) {
+        return new MockMultipartFile("file", "in.bin", "application/octet-stream", new byte[bytes]);
+    }
+
+    // A job that runs until released
+    private ConversionJob blocked(int uploadBytes, CountDownLatch release) throws Exception {
+        return jobs.submit("test", upload(uploadBytes), (input, out, progress) -> {
+            release.await();
+            return new JobOutput("application/octet-stream", "out.bin");
+        });
+    }
+
+    private long spooledInputs() throws Exception {
+        try (var files = Files.list(dir)) {
+            return files.filter(file -> file.toString().endsWith(".in")).count();
+        }
+    }
+
+    private static void awaitStatus(ConversionJob job, JobStatus status) throws InterruptedException {
+        long deadline = System.nanoTime() + 5_000_000_000L;
+        while (job.status() != status) {
+            assertThat(System.nanoTime()).as("timed out").isLessThan(deadline);
+            Thread.sleep(5);
+        }
+    }
+
+    // A job writing resultBytes bytes, waited for until it has succeeded
+    private ConversionJob finished(int resultBytes) throws Exception {
+        MockMultipartFile upload = new MockMultipartFile("file", "in.csv", "text/csv", "a,b\n".getBytes());
+        ConversionJob job = jobs.submit("test", upload, (input, out, progress) -> {
+            out.write(new byte[resultBytes]);
+            return new JobOutput("application/octet-stream", "out.bin");
+        });
+        long deadline = System.nanoTime() + 5_000_000_000L;
+        while (job.status() != JobStatus.SUCCEEDED) {
+            assertThat(job.status().finished()).as(job.error()).isFalse();
+            assertThat(System.nanoTime()).as("timed out").isLessThan(deadline);
+            Thread.sleep(5);
+        }
+        // Distinct finish times, so the oldest is well defined
+        Thread.sleep(5);
+        return job;
+    }
+
+    @Test
+    void dropsJobsPastTheirTtl() throws Exception {
+        jobs(Duration.ofMillis(200), Long.MAX_VALUE);
+        ConversionJob old = finished(10);
+        Thread.sleep(300);
+        ConversionJob recent = finished(10);
+
+        jobs.cleanUp();
+
+        assertThat(jobs.find(old.id())).isEmpty();
+        assertThat(old.result()).doesNotExist();
+        assertThat(jobs.find(recent.id())).contains(recent);
+        assertThat(recent.result()).hasSize(10);
+    }
+
+    @Test
+    void dropsTheOldestResultsPastMaxBytes() throws Exception {
+        jobs(Duration.ofHours(1), 250);
+        ConversionJob first = finished(100);
+        ConversionJob second = finished(100);
+        ConversionJob third = finished(100);
+
+        jobs.cleanUp();
+
+        assertThat(jobs.find(first.id())).isEmpty();
+        assertThat(first.result()).doesNotExist();
+        assertThat(jobs.find(second.id())).isPresent();
+        assertThat(jobs.find(third.id())).isPresent();
+
+        // Within the limit again: nothing more to drop
+        jobs.cleanUp();
+        assertThat(jobs.find(second.id())).isPresent();
+        assertThat(Files.list(dir).filter(file -> file.toString().endsWith(".out"))).hasSize(2);
+    }
+
+    @Test
+    void rejectsBeforeSpoolingOnceTheQueueIsFull() throws Exception {
+        jobs(Duration.ofHours(1), Long.MAX_VALUE, 1);
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            awaitStatus(blocked(10, release), JobStatus.RUNNING);
+            awaitStatus(blocked(10, release), JobStatus.RUNNING);
+            ConversionJob queued = blocked(10, release);
+            assertThat(queued.status()).isEqualTo(JobStatus.QUEUED);
+            assertThat(spooledInputs()).isEqualTo(3);
+
+            MockMultipartFile upload = new MockMultipartFile("file", "in.bin", "application/octet-stream", new byte[10]) {
+                @Override
+                public void transferTo(Path dest) {
+                    throw new AssertionError("spooled a rejected upload");
+                }
+            };
+            assertThatThrownBy(() -> jobs.submit("test", upload, (input, out, progress) -> null))
+                    .isInstanceOf(ConversionRejectedException.class);
+            assertThat(spooledInputs()).isEqualTo(3);
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    void countsPendingInputsAgainstMaxBytes() throws Exception {
+        jobs(Duration.ofHours(1), 250);
+        ConversionJob done = finished(100);
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            ConversionJob first = blocked(100, release);
+            // 100 of results, 200 of inputs: the finished result makes room
+            ConversionJob second = blocked(100, release);
+            assertThat(jobs.find(done.id())).isEmpty();
+            assertThat(done.result()).doesNotExist();
+
+            // Nothing left to drop, and pending inputs are never dropped
+            assertThatThrownBy(() -> blocked(100, release)).isInstanceOf(ConversionRejectedException.class);
+            assertThat(spooledInputs()).isEqualTo(2);
+            assertThat(jobs.find(first.id())).isPresent();
+            assertThat(jobs.find(second.id())).isPresent();
+
+            // Once they are done, only their (empty) results count
+            release.countDown();
+            awaitStatus(first, JobStatus.SUCCEEDED);
+            awaitStatus(second, JobStatus.SUCCEEDED);
+            assertThat(jobs.submit("test", upload(100), (input, out, progress) -> null)).isNotNull();
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    void rejectsUploadsLargerThanMaxBytes() throws Exception {
+        jobs(Duration.ofHours(1), 250);
+        assertThatThrownBy(() -> jobs.submit("test", upload(251), (input, out, progress) -> null))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(spooledInputs()).isZero();
+    }
+}
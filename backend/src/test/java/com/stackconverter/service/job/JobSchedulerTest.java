@@ -0,0 +1,121 @@
+package com.stackconverter.service.job;
+
+import com.stackconverter.service.exec.ConversionRejectedException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JobSchedulerTest {
+
+    private JobScheduler scheduler;
+
+    // Jobs in the order they started; each runs until released
+    private final List<String> started = new CopyOnWriteArrayList<>();
+    private final Map<String, CountDownLatch> releases = new ConcurrentHashMap<>();
+
+    @AfterEach
+    void shutDown() {
+        releases.values().forEach(CountDownLatch::countDown);
+        if (scheduler != null) scheduler.shutdown();
+    }
+
+    private ConversionJob submit(String id, JobLane lane) {
+        ConversionJob job = new ConversionJob(id, "test", lane, 0, Path.of(id + ".in"), Path.of(id + ".out"));
+        CountDownLatch release = new CountDownLatch(1);
+        releases.put(id, release);
+        scheduler.submit(job, () -> {
+            started.add(id);
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        return job;
+    }
+
+    private void release(String id) {
+        releases.get(id).countDown();
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + 5_000_000_000L;
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("timed out").isLessThan(deadline);
+            Thread.sleep(5);
+        }
+    }
+
+    @Test
+    void keepsReservedWorkersForInteractiveJobs() throws Exception {
+        scheduler = new JobScheduler(3, 1, 10);
+        submit("bulk-1", JobLane.BULK);
+        submit("bulk-2", JobLane.BULK);
+        submit("bulk-3", JobLane.BULK);
+        await(() -> started.size() == 2);
+
+        // The third worker is idle, but reserved
+        assertThat(scheduler.running(JobLane.BULK)).isEqualTo(2);
+        assertThat(scheduler.queued(JobLane.BULK)).isEqualTo(1);
+
+        submit("small-1", JobLane.INTERACTIVE);
+        await(() -> started.contains("small-1"));
+        assertThat(scheduler.running(JobLane.INTERACTIVE)).isEqualTo(1);
+    }
+
+    @Test
+    void servesTheInteractiveLaneFirst() throws Exception {
+        scheduler = new JobScheduler(2, 1, 10);
+        submit("small-1", JobLane.INTERACTIVE);
+        submit("small-2", JobLane.INTERACTIVE);
+        await(() -> started.size() == 2);
+
+        // Waiting on both lanes: the bulk job was queued first, but interactive goes first
+        submit("bulk-1", JobLane.BULK);
+        submit("small-3", JobLane.INTERACTIVE);
+        release("small-1");
+        await(() -> started.size() == 3);
+        assertThat(started.get(2)).isEqualTo("small-3");
+
+        release("small-2");
+        await(() -> started.size() == 4);
+        // The first two started together, in either order
+        assertThat(started.subList(2, 4)).containsExactly("small-3", "bulk-1");
+    }
+
+    @Test
+    void rejectsSubmissionsPastMaxQueued() throws Exception {
+        scheduler = new JobScheduler(1, 0, 2);
+        submit("running", JobLane.BULK);
+        await(() -> started.size() == 1);
+        ConversionJob waiting = submit("waiting-1", JobLane.BULK);
+        submit("waiting-2", JobLane.INTERACTIVE);
+
+        assertThatThrownBy(() -> submit("rejected", JobLane.INTERACTIVE))
+                .isInstanceOfSatisfying(ConversionRejectedException.class,
+                        e -> assertThat(e.retryAfterSeconds()).isPositive());
+
+        // A removed job frees its place in the queue
+        scheduler.remove(waiting);
+        assertThat(scheduler.queued(JobLane.BULK)).isZero();
+        submit("accepted", JobLane.BULK);
+        assertThat(scheduler.queued(JobLane.BULK) + scheduler.queued(JobLane.INTERACTIVE)).isEqualTo(2);
+    }
+
+    @Test
+    void needsAWorkerLeftForBulkJobs() {
+        assertThatThrownBy(() -> new JobScheduler(1, 1, 0)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new JobScheduler(2, -1, 0)).isInstanceOf(IllegalArgumentException.class);
+        scheduler = new JobScheduler(2, 1, 0);
+    }
+}
@@ -0,0 +1,105 @@
+package com.stackconverter.service.json;
+
+import com.stackconverter.service.excel.StreamingExcelConverter;
+import com.stackconverter.service.exec.ConversionExecutor;
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JsonArrayFlattenerTest {
+
+    private static final String RECORDS = """
+            [
+              {"id": 1, "name": "Ann", "address": {"city": "Oslo", "zip": "0150"}, "tags": ["a", "b"]},
+              {"id": 2, "name": null, "address": {"city": "Rome"}, "active": true},
+              {"id": 3, "name": "Cy, Jr.", "score": 9.5, "address": {"geo": {"lat": 1.5}}}
+            ]
+            """;
+
+    private final ConversionExecutor executor = new ConversionExecutor(2, 16);
+    private final JsonArrayFlattener flattener =
+            new JsonArrayFlattener(new StreamingExcelConverter(executor, 100, false), 2, "extra", 100);
+
+    @AfterEach
+    void shutDown() {
+        executor.destroy();
+    }
+
+    private static InputStream json(String text) {
+        return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private String csv(String text, int sample, LateColumns late) throws IOException {
+        JsonTableSchema schema = flattener.inspect(json(text), sample, late);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        flattener.writeCsv(json(text), schema, out);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void flattensSampledColumnsAndKeepsLateOnesAsExtra() throws Exception {
+        assertThat(csv(RECORDS, 2, LateColumns.EXTRA)).isEqualTo("""
+                id,name,address.city,address.zip,tags,active,_extra
+                1,Ann,Oslo,0150,"[""a"",""b""]",,
+                2,,Rome,,,true,
+                3,"Cy, Jr.",,,,,"{""score"":9.5,""address.geo.lat"":1.5}"
+                """);
+    }
+
+    @Test
+    void lateColumnPolicies() throws Exception {
+        assertThat(csv(RECORDS, 2, LateColumns.IGNORE)).endsWith("\n3,\"Cy, Jr.\",,,,\n");
+
+        assertThat(csv(RECORDS, 0, LateColumns.IGNORE).lines().findFirst()).hasValue(
+                "id,name,address.city,address.zip,tags,active,score,address.geo.lat");
+
+        assertThatThrownBy(() -> flattener.inspect(json(RECORDS), 2, LateColumns.FAIL))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Record 2")
+                .hasMessageContaining("'score'");
+    }
+
+    @Test
+    void rejectsAnythingButAnArray() {
+        assertThatThrownBy(() -> flattener.inspect(json("{\"id\": 1}"), 0, LateColumns.EXTRA))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> flattener.inspect(json("[{\"id\": 1}] []"), 0, LateColumns.EXTRA))
+                .isInstanceOf(IllegalArgumentException.class);
+        // Malformed past the sample still fails in the first pass
+        assertThatThrownBy(() -> flattener.inspect(json("[{\"id\": 1}, {\"id\": 2}, {\"id\": }]"), 1,
+                LateColumns.EXTRA))
+                .isInstanceOf(IOException.class);
+    }
+
+    @Test
+    void writesTypedCells() throws Exception {
+        String text = "[{\"n\": 42, \"x\": 2.5, \"ok\": false, \"big\": 12345678901234567890, \"s\": \"7\"}, 5]";
+        JsonTableSchema schema = flattener.inspect(json(text), 0, LateColumns.IGNORE);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertThat(flattener.writeXlsx(json(text), schema, out)).isEqualTo(2);
+
+        try (XSSFWorkbook workbook = new XSSFWorkbook(new ByteArrayInputStream(out.toByteArray()))) {
+            Row header = workbook.getSheetAt(0).getRow(0);
+            assertThat(header.getCell(5).getStringCellValue()).isEqualTo(JsonArrayFlattener.VALUE_COLUMN);
+
+            Row row = workbook.getSheetAt(0).getRow(1);
+            assertThat(row.getCell(0).getNumericCellValue()).isEqualTo(42);
+            assertThat(row.getCell(1).getNumericCellValue()).isEqualTo(2.5);
+            assertThat(row.getCell(2).getBooleanCellValue()).isFalse();
+            assertThat(row.getCell(3).getStringCellValue()).isEqualTo("12345678901234567890");
+            assertThat(row.getCell(4).getCellType()).isEqualTo(CellType.STRING);
+            assertThat(workbook.getSheetAt(0).getRow(2).getCell(5).getNumericCellValue()).isEqualTo(5);
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package com.stackconverter.service.qr;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.stackconverter.service.exec.ConversionExecutor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class QrBatchServiceTest {
+
+    private static final QrSpec STYLE = QrSpec.of("", "png", 60, "#000000", "#FFFFFF");
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final ConversionExecutor executor = new ConversionExecutor(4, 16);
+    private final QrCodeRenderer renderer = new QrCodeRenderer(4);
+    // A window smaller than every batch below
+    private final QrBatchService service = new QrBatchService(renderer, executor, 100, 2);
+
+    @AfterEach
+    void shutDown() {
+        executor.destroy();
+    }
+
+    private static InputStream upload(String text) {
+        return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private List<JsonNode> ndjson(String upload) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        service.writeNdjson(upload(upload), STYLE, out);
+        List<JsonNode> lines = new ArrayList<>();
+        for (String line : out.toString(StandardCharsets.UTF_8).split("\n")) lines.add(mapper.readTree(line));
+        return lines;
+    }
+
+    // "index:name:text" per item
+    private List<String> items(String upload) throws Exception {
+        List<String> items = new ArrayList<>();
+        for (JsonNode line : ndjson(upload)) {
+            items.add(line.get("index").asInt() + ":" + line.path("name").asText("-") + ":" + line.get("text").asText());
+        }
+        return items;
+    }
+
+    @Test
+    void readsJsonArrays() throws Exception {
+        assertThat(items("[\"a\", {\"text\": \"b\", \"name\": \"B\", \"extra\": [1]}, 3, {\"name\": null, \"text\": \"d\"}]"))
+                .containsExactly("0:-:a", "1:B:b", "2:-:3", "3:-:d");
+        assertThat(service.countItems(upload("\uFEFF  [\"a\",\"b\"]"))).isEqualTo(2);
+
+        assertThatThrownBy(() -> service.countItems(upload("{\"text\": \"a\"}")))
+                .isInstanceOf(IOException.class).hasMessageContaining("JSON array");
+        assertThatThrownBy(() -> service.countItems(upload("[{\"name\": \"x\"}]")))
+                .isInstanceOf(IOException.class).hasMessageContaining("missing \"text\"");
+        assertThatThrownBy(() -> service.countItems(upload("[\"a\", [\"b\"]]"))).isInstanceOf(IOException.class);
+        assertThatThrownBy(() -> service.countItems(upload("[\"a\""))).isInstanceOf(IOException.class);
+    }
+
+    @Test
+    void readsCsv() throws Exception {
+        // Header skipped, blank lines skipped, optional name, quoted commas
+        assertThat(items("text,name\n\na,A\nb\n\"c, d\",\n"))
+                .containsExactly("0:A:a", "1:-:b", "2:-:c, d");
+        // A BOM before the header, and no header at all
+        assertThat(items("\uFEFFText\r\nx,X\r\n")).containsExactly("0:X:x");
+        assertThat(items("\uFEFFx\ny\n")).containsExactly("0:-:x", "1:-:y");
+        // "text" is only a header on the first line
+        assertThat(items("a\ntext\n")).containsExactly("0:-:a", "1:-:text");
+    }
+
+    @Test
+    void limitsTheBatchSize() throws Exception {
+        assertThat(service.countItems(upload("x\n".repeat(100)))).isEqualTo(100);
+        assertThatThrownBy(() -> service.countItems(upload("x\n".repeat(101))))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void writesResultsInInputOrder() throws Exception {
+        // Long and short payloads finish out of order; the window is 2
+        StringBuilder upload = new StringBuilder();
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            String text = i % 3 == 0 ? "long-" + i + "-" + "x".repeat(500) : "s" + i;
+            upload.append(text).append('\n');
+            expected.add(i + ":-:" + text);
+        }
+        assertThat(items(upload.toString())).isEqualTo(expected);
+    }
+
+    @Test
+    void writesNdjsonLikeTheBase64Endpoint() throws Exception {
+        List<JsonNode> lines = ndjson("[\"hello\", {\"text\": \"\", \"name\": \"empty\"}]");
+
+        JsonNode ok = lines.get(0);
+        assertThat(ok.get("text").asText()).isEqualTo("hello");
+        assertThat(ok.get("format").asText()).isEqualTo("png");
+        assertThat(ok.get("size").asInt()).isEqualTo(60);
+        assertThat(ok.get("darkColor").asText()).isEqualTo("#000000");
+        assertThat(ok.get("lightColor").asText()).isEqualTo("#FFFFFF");
+        assertThat(ok.get("imageBase64").binaryValue()).isEqualTo(renderer.render(STYLE.withText("hello")));
+
+        JsonNode failed = lines.get(1);
+        assertThat(failed.get("name").asText()).isEqualTo("empty");
+        assertThat(failed.has("imageBase64")).isFalse();
+        assertThat(failed.get("error").asText()).startsWith("Error generating QR: ");
+    }
+
+    @Test
+    void storesImagesAndListsErrorsLast() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        service.writeZip(upload("[{\"text\": \"a\", \"name\": \"first\"}, \"\", \"b\", {\"text\": \"c\", \"name\": \"first\"}]"),
+                STYLE, out);
+
+        List<String> names = new ArrayList<>();
+        String errors = null;
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry()) != null) {
+                byte[] content = zip.readAllBytes();
+                names.add(entry.getName());
+                if (entry.getName().equals("errors.csv")) {
+                    errors = new String(content, StandardCharsets.UTF_8);
+                    continue;
+                }
+                assertThat(entry.getMethod()).isEqualTo(ZipEntry.STORED);
+                assertThat(entry.getSize()).isEqualTo(content.length);
+                CRC32 crc = new CRC32();
+                crc.update(content);
+                assertThat(entry.getCrc()).isEqualTo(crc.getValue());
+                assertThat(content).isEqualTo(renderer.render(STYLE.withText(
+                        entry.getName().startsWith("first") ? (names.size() == 1 ? "a" : "c") : "b")));
+            }
+        }
+
+        // Unique names, in input order, with errors.csv last
+        assertThat(names).hasSize(4).endsWith("errors.csv");
+        assertThat(names.get(0)).isEqualTo("first.png");
+        assertThat(names.get(1)).isEqualTo("qr-3.png");
+        assertThat(names.get(2)).startsWith("first").endsWith(".png").isNotEqualTo("first.png");
+        assertThat(errors).startsWith("index,text,error").contains("\n1,,");
+    }
+
+    @Test
+    void leavesOutErrorsCsvWhenEveryItemRenders() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        service.writeZip(upload("a\nb\n"), STYLE, out);
+
+        List<String> names = new ArrayList<>();
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+            for (ZipEntry entry; (entry = zip.getNextEntry()) != null; ) names.add(entry.getName());
+        }
+        assertThat(names).containsExactly("qr-1.png", "qr-2.png");
+    }
+
+    @Test
+    void endsWithoutErrorsCsvWhenTheBatchFails() throws Exception {
+        // Truncated after a failed item: the batch fails, and the error list with it
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertThatThrownBy(() -> service.writeZip(upload("[\"\", \"a\", \"b\""), STYLE, out))
+                .isInstanceOf(IOException.class);
+
+        List<String> names = new ArrayList<>();
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+            for (ZipEntry entry; (entry = zip.getNextEntry()) != null; ) names.add(entry.getName());
+        }
+        assertThat(names).doesNotContain("errors.csv");
+    }
+}
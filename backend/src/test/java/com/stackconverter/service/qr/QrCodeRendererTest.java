@@ -0,0 +1,108 @@
+package com.stackconverter.service.qr;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.BinaryBitmap;
+import com.google.zxing.DecodeHintType;
+import com.google.zxing.EncodeHintType;
+import com.google.zxing.MultiFormatWriter;
+import com.google.zxing.client.j2se.BufferedImageLuminanceSource;
+import com.google.zxing.common.BitMatrix;
+import com.google.zxing.common.HybridBinarizer;
+import com.google.zxing.qrcode.QRCodeReader;
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class QrCodeRendererTest {
+
+    // 21 modules (version 1) and 57 modules (version 10) plus the quiet zone
+    private static final String SHORT = "hello";
+    private static final String LONG = "https://stackconverter.com/" + "0123456789".repeat(17);
+
+    private static final String[] FORMATS = {"png", "gif", "jpeg"};
+
+    private final QrCodeRenderer renderer = new QrCodeRenderer(4);
+
+    // The ZXing path the endpoints used before: MultiFormatWriter, then one pixel at a time
+    private static BitMatrix zxing(String text, int size) throws Exception {
+        return new MultiFormatWriter().encode(text, BarcodeFormat.QR_CODE, size, size,
+                Map.of(EncodeHintType.CHARACTER_SET, "UTF-8", EncodeHintType.MARGIN, 1));
+    }
+
+    private static void assertSamePixels(BufferedImage image, BitMatrix matrix, int size, int dark, int light) {
+        assertThat(image.getWidth()).isEqualTo(size);
+        assertThat(image.getHeight()).isEqualTo(size);
+        for (int y = 0; y < size; y++) {
+            for (int x = 0; x < size; x++) {
+                int expected = matrix.get(x, y) ? dark : light;
+                if ((image.getRGB(x, y) & 0xFFFFFF) != expected) {
+                    throw new AssertionError("pixel " + x + "," + y + " of " + size + ": expected "
+                            + Integer.toHexString(expected) + ", got " + Integer.toHexString(image.getRGB(x, y)));
+                }
+            }
+        }
+    }
+
+    // A clean, axis-aligned render with a one-module quiet zone: what PURE_BARCODE is for
+    private static String decode(byte[] file) throws Exception {
+        BufferedImage image = ImageIO.read(new ByteArrayInputStream(file));
+        BinaryBitmap bitmap = new BinaryBitmap(new HybridBinarizer(new BufferedImageLuminanceSource(image)));
+        return new QRCodeReader().decode(bitmap, Map.of(DecodeHintType.PURE_BARCODE, true)).getText();
+    }
+
+    @Test
+    void paintsTheSamePixelsAsZxing() throws Exception {
+        // Smaller than the code (cropped), exactly the code, and sizes that leave padding
+        for (String text : new String[] {SHORT, LONG}) {
+            for (int size : new int[] {1, 10, 23, 24, 59, 100, 101, 299, 300, 333}) {
+                BitMatrix matrix = zxing(text, size);
+                for (String format : FORMATS) {
+                    QrSpec spec = QrSpec.of(text, format, size, "#000000", "#FFFFFF");
+                    assertSamePixels(renderer.renderImage(spec), matrix, size, 0x000000, 0xFFFFFF);
+                }
+            }
+        }
+    }
+
+    @Test
+    void paintsCustomColours() throws Exception {
+        for (int size : new int[] {10, 100, 301}) {
+            BitMatrix matrix = zxing(LONG, size);
+            for (String format : FORMATS) {
+                // Palette formats go through the 1-bit IndexColorModel
+                QrSpec spec = QrSpec.of(LONG, format, size, "#1A2B3C", "#F0E0D0");
+                assertSamePixels(renderer.renderImage(spec), matrix, size, 0x1A2B3C, 0xF0E0D0);
+            }
+        }
+    }
+
+    @Test
+    void keepsLosslessFilesPixelExact() throws Exception {
+        for (String format : new String[] {"png", "gif"}) {
+            for (int size : new int[] {10, 101, 300}) {
+                QrSpec spec = QrSpec.of(LONG, format, size, "#1A2B3C", "#F0E0D0");
+                BufferedImage read = ImageIO.read(new ByteArrayInputStream(renderer.render(spec)));
+                assertSamePixels(read, zxing(LONG, size), size, 0x1A2B3C, 0xF0E0D0);
+            }
+        }
+    }
+
+    @Test
+    void writesReadableCodesInEveryFormat() throws Exception {
+        for (String text : new String[] {SHORT, LONG, "café 日本 😀"}) {
+            for (int size : new int[] {61, 100, 301}) {
+                for (String format : FORMATS) {
+                    for (String[] colours : new String[][] {{"#000000", "#FFFFFF"}, {"#1A2B3C", "#F0E0D0"}}) {
+                        QrSpec spec = QrSpec.of(text, format, size, colours[0], colours[1]);
+                        assertThat(decode(renderer.render(spec))).as(format + " " + size).isEqualTo(text);
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.stackconverter.service.qr;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class QrCodeServiceTest {
+
+    private static final QrSpec SPEC = QrSpec.of("https://example.com", "png", 200, "#000000", "#FFFFFF");
+
+    private static QrCodeService service(int pngCompressionLevel, long maxBytes) {
+        return new QrCodeService(new QrCodeRenderer(pngCompressionLevel), maxBytes, Duration.ofHours(1),
+                new SimpleMeterRegistry());
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + 5_000_000_000L;
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("timed out").isLessThan(deadline);
+            Thread.sleep(5);
+        }
+    }
+
+    @Test
+    void servesRenderedImagesFromTheCache() throws Exception {
+        QrCodeService service = service(4, 1 << 20);
+        assertThat(service.cached(SPEC)).isNull();
+
+        QrImage rendered = service.image(SPEC);
+        assertThat(service.cached(SPEC)).isSameAs(rendered);
+        assertThat(service.image(SPEC)).isSameAs(rendered);
+        // Different styling is a different image
+        assertThat(service.cached(QrSpec.of("https://example.com", "png", 201, "#000000", "#FFFFFF"))).isNull();
+
+        assertThat(service.stats().hitCount()).isEqualTo(2);
+        assertThat(service.stats().missCount()).isEqualTo(3);
+        assertThat(service.size()).isEqualTo(1);
+        // Weights are settled by the cache's asynchronous maintenance
+        await(() -> service.weightBytes() > rendered.bytes().length);
+    }
+
+    @Test
+    void evictsByWeight() throws Exception {
+        int imageBytes = service(4, 1 << 20).render(SPEC).bytes().length;
+        // Room for about three images
+        QrCodeService service = service(4, 3L * (imageBytes + 256) + 100);
+        for (int i = 0; i < 20; i++) service.render(SPEC.withText("https://example.com/" + i));
+
+        await(() -> service.stats().evictionCount() >= 17);
+        assertThat(service.size()).isLessThanOrEqualTo(3);
+        assertThat(service.weightBytes()).isLessThanOrEqualTo(3L * (imageBytes + 256) + 100);
+    }
+
+    @Test
+    void knowsTheEtagWithoutRendering() throws Exception {
+        QrCodeService service = service(4, 1 << 20);
+        String etag = service.etag(SPEC);
+        assertThat(etag).matches("\"[0-9a-f]{32}\"");
+        assertThat(service.size()).isZero();
+
+        // Stable across instances and restarts, and the one the rendered image carries
+        assertThat(service(4, 1 << 20).etag(SPEC)).isEqualTo(etag);
+        assertThat(service.render(SPEC).etag()).isEqualTo(etag);
+        assertThat(service.render(SPEC).bytes()).isEqualTo(service(4, 1 << 20).render(SPEC).bytes());
+
+        // Anything that changes the bytes changes the tag
+        assertThat(service.etag(SPEC.withText("other"))).isNotEqualTo(etag);
+        assertThat(service.etag(QrSpec.of("https://example.com", "gif", 200, "#000000", "#FFFFFF"))).isNotEqualTo(etag);
+        assertThat(service(9, 1 << 20).etag(SPEC)).isNotEqualTo(etag);
+    }
+}
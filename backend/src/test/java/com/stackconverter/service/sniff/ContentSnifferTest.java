@@ -0,0 +1,155 @@
+package com.stackconverter.service.sniff;
+
+import org.apache.poi.xslf.usermodel.XMLSlideShow;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.apache.poi.xwpf.usermodel.XWPFDocument;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ContentSnifferTest {
+
+    private final ContentSniffer sniffer = new ContentSniffer(List.of(new StandardFormats()), 4096, 16384);
+
+    private static byte[] bytes(int... values) {
+        byte[] data = new byte[values.length];
+        for (int i = 0; i < values.length; i++) data[i] = (byte) values[i];
+        return data;
+    }
+
+    private static byte[] withNoise(byte[] prefix, int length) {
+        byte[] data = new byte[length];
+        new Random(42).nextBytes(data);
+        // Keep the noise from accidentally matching a signature
+        for (int i = 0; i < data.length; i++) data[i] = (byte) (0x80 | (data[i] & 0x3F));
+        System.arraycopy(prefix, 0, data, 0, prefix.length);
+        return data;
+    }
+
+    @Test
+    void detectsTextAndCsv() {
+        assertThat(sniffer.sniff("a,b,c\n1,2,3\n".getBytes(StandardCharsets.US_ASCII))).isEqualTo(FileType.CSV);
+        assertThat(sniffer.sniff("{\"a\": 1,\n\"b\": 2}".getBytes(StandardCharsets.US_ASCII))).isEqualTo(FileType.TXT);
+        assertThat(sniffer.sniff("plain words".getBytes(StandardCharsets.US_ASCII))).isEqualTo(FileType.TXT);
+        assertThat(sniffer.sniff(new byte[0])).isEqualTo(FileType.TXT);
+    }
+
+    @Test
+    void matchesLeadingSignatures() {
+        assertThat(sniffer.sniff(withNoise(bytes(0xD0, 0xCF, 0x11, 0xE0, 0xA1, 0xB1, 0x1A, 0xE1), 100)))
+                .isEqualTo(FileType.XLS);
+        assertThat(sniffer.sniff(withNoise("RIFF\u0080\u0080\u0080\u0080WEBPVP8 ".getBytes(StandardCharsets.ISO_8859_1), 100)))
+                .isEqualTo(FileType.WEBP);
+        assertThat(sniffer.sniff(withNoise(bytes(0x00, 'a', 's', 'm', 0x01, 0, 0, 0), 100)))
+                .isEqualTo(FileType.WASM);
+        assertThat(sniffer.sniff(withNoise(bytes(0x89, 'P', 'N', 'G', 0x0D, 0x0A, 0x1A, 0x0A), 100)))
+                .isEqualTo(FileType.PNG);
+    }
+
+    @Test
+    void leadingSignaturesDoNotMatchLater() {
+        byte[] data = withNoise(new byte[0], 100);
+        System.arraycopy(bytes(0x1F, 0x8B, 0x08), 0, data, 10, 3);
+        assertThat(sniffer.sniff(data)).isEqualTo(FileType.TXT);
+    }
+
+    @Test
+    void findsEmbeddedSignaturesBehindAPrefix() {
+        byte[] data = withNoise(new byte[0], 1000);
+        System.arraycopy("%PDF-1.7".getBytes(StandardCharsets.US_ASCII), 0, data, 100, 8);
+        assertThat(sniffer.sniff(data)).isEqualTo(FileType.PDF);
+
+        byte[] mp4 = withNoise(bytes(0, 0, 0, 0x20, 'f', 't', 'y', 'p', 'i', 's', 'o', 'm'), 100);
+        assertThat(sniffer.sniff(mp4)).isEqualTo(FileType.MP4);
+
+        // Beyond the scan window
+        byte[] late = withNoise(new byte[0], 1000);
+        System.arraycopy("%PDF-1.7".getBytes(StandardCharsets.US_ASCII), 0, late, 600, 8);
+        assertThat(sniffer.sniff(late)).isEqualTo(FileType.TXT);
+    }
+
+    @Test
+    void detectsGzip() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write("a,b\n1,2\n".repeat(1000).getBytes(StandardCharsets.US_ASCII));
+        }
+        assertThat(sniffer.sniff(out.toByteArray())).isEqualTo(FileType.GZIP);
+    }
+
+    @Test
+    void refinesZipArchivesFromTheirEntries() throws IOException {
+        assertThat(sniffer.sniff(zip("readme.txt", "data/values.bin"))).isEqualTo(FileType.ZIP);
+        assertThat(sniffer.sniff(zip("[Content_Types].xml", "word/document.xml"))).isEqualTo(FileType.DOCX);
+
+        ByteArrayOutputStream docx = new ByteArrayOutputStream();
+        try (XWPFDocument document = new XWPFDocument()) {
+            document.createParagraph().createRun().setText("hello");
+            document.write(docx);
+        }
+        assertThat(sniffer.sniff(docx.toByteArray())).isEqualTo(FileType.DOCX);
+
+        ByteArrayOutputStream pptx = new ByteArrayOutputStream();
+        try (XMLSlideShow slides = new XMLSlideShow()) {
+            slides.createSlide();
+            slides.write(pptx);
+        }
+        assertThat(sniffer.sniff(pptx.toByteArray())).isEqualTo(FileType.PPTX);
+    }
+
+    @Test
+    void readsTheCentralDirectoryOfLargeArchives() throws IOException {
+        // Streamed workbooks use data descriptors and put the sheet far beyond the head
+        ByteArrayOutputStream xlsx = new ByteArrayOutputStream();
+        try (SXSSFWorkbook workbook = new SXSSFWorkbook()) {
+            var sheet = workbook.createSheet("data");
+            Random random = new Random(7);
+            for (int r = 0; r < 20_000; r++) {
+                var row = sheet.createRow(r);
+                for (int c = 0; c < 5; c++) row.createCell(c).setCellValue(random.nextDouble());
+            }
+            workbook.write(xlsx);
+        }
+        byte[] content = xlsx.toByteArray();
+        assertThat(content.length).isGreaterThan(100_000);
+
+        assertThat(sniffer.sniff(content)).isEqualTo(FileType.XLSX);
+        // Only the tail ends up in the sample: the entry names still come from there
+        assertThat(new ContentSniffer(List.of(new StandardFormats()), 4096, 512).sniff(content))
+                .isEqualTo(FileType.XLSX);
+    }
+
+    @Test
+    void appliesPluginFormatsAfterTheStandardOnes() {
+        FileType custom = new FileType(".abc", "application/x-abc");
+        ContentSniffer extended = new ContentSniffer(
+                List.of(new StandardFormats(), formats -> formats.leading(custom, 0xAB, 0xC0)
+                        .leading(FileType.TXT, 0xD0, 0xCF)),
+                4096, 16384);
+
+        assertThat(extended.sniff(withNoise(bytes(0xAB, 0xC0), 100))).isEqualTo(custom);
+        assertThat(extended.sniff(withNoise(bytes(0xD0, 0xCF, 0x11, 0xE0, 0xA1, 0xB1, 0x1A, 0xE1), 100)))
+                .isEqualTo(FileType.XLS);
+    }
+
+    private static byte[] zip(String... names) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(out)) {
+            for (String name : names) {
+                zip.putNextEntry(new ZipEntry(name));
+                zip.write(name.getBytes(StandardCharsets.US_ASCII));
+                zip.closeEntry();
+            }
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,234 @@
+package com.stackconverter.service.time;
+
+import com.stackconverter.service.exec.ConversionExecutor;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BatchTimestampConverterTest {
+
+    private static final List<ZoneId> ZONES = List.of(
+            ZoneOffset.UTC, ZoneId.of("America/New_York"), ZoneId.of("Europe/London"),
+            ZoneId.of("Australia/Lord_Howe"), ZoneId.of("Asia/Kolkata"), ZoneId.of("Pacific/Chatham"),
+            ZoneOffset.ofHoursMinutes(-9, -30));
+
+    private static final ZoneId NEW_YORK = ZoneId.of("America/New_York");
+    private static final ZoneId LORD_HOWE = ZoneId.of("Australia/Lord_Howe");
+
+    private final ConversionExecutor executor = new ConversionExecutor(2, 16);
+    // Two rows per block, so every test spans several blocks
+    private final BatchTimestampConverter converter = new BatchTimestampConverter(executor, 2, 0);
+    private final TimestampFormats formats = new TimestampFormats(100, new SimpleMeterRegistry());
+
+    @AfterEach
+    void shutDown() {
+        executor.destroy();
+    }
+
+    private static String iso(long second, int nano, ZoneId zone) {
+        return DateTimeFormatter.ISO_OFFSET_DATE_TIME.format(Instant.ofEpochSecond(second, nano).atZone(zone));
+    }
+
+    private static List<Long> secondsAroundTransitions(ZoneId zone, int fromYear, int toYear) {
+        ZoneRules rules = zone.getRules();
+        List<Long> seconds = new ArrayList<>();
+        Instant at = LocalDateTime.of(fromYear, 1, 1, 0, 0).toInstant(ZoneOffset.UTC);
+        Instant until = LocalDateTime.of(toYear, 1, 1, 0, 0).toInstant(ZoneOffset.UTC);
+        ZoneOffsetTransition transition;
+        while ((transition = rules.nextTransition(at)) != null && transition.getInstant().isBefore(until)) {
+            long t = transition.toEpochSecond();
+            for (long delta : new long[] {-3601, -1, 0, 1, 1799, 1800, 3600}) seconds.add(t + delta);
+            at = transition.getInstant();
+        }
+        return seconds;
+    }
+
+    // ---- ZoneOffsetCache ----
+
+    @Test
+    void cachedOffsetsMatchTheZoneRulesAcrossTransitions() {
+        for (ZoneId zone : ZONES) {
+            List<Long> seconds = secondsAroundTransitions(zone, 1880, 2040);
+            seconds.addAll(List.of(Instant.MIN.getEpochSecond(), -1L, 0L, Instant.MAX.getEpochSecond()));
+
+            // In order, as in a log, then shuffled so the cached range keeps moving back and forth
+            ZoneOffsetCache ordered = new ZoneOffsetCache(zone);
+            for (long second : seconds) {
+                assertThat(ordered.offsetAt(second)).as("%s at %d", zone, second)
+                        .isEqualTo(zone.getRules().getOffset(Instant.ofEpochSecond(second)).getTotalSeconds());
+            }
+            Collections.shuffle(seconds, new Random(7));
+            ZoneOffsetCache shuffled = new ZoneOffsetCache(zone);
+            for (long second : seconds) {
+                assertThat(shuffled.offsetAt(second)).as("%s at %d", zone, second)
+                        .isEqualTo(zone.getRules().getOffset(Instant.ofEpochSecond(second)).getTotalSeconds());
+            }
+        }
+    }
+
+    @Test
+    void followsLordHowesHalfHourShifts() {
+        ZoneOffsetCache offsets = new ZoneOffsetCache(LORD_HOWE);
+        // 2024-04-07 02:00 +11:00 → 01:30 +10:30, 2024-10-06 02:00 +10:30 → 02:30 +11:00
+        long autumn = Instant.parse("2024-04-06T15:00:00Z").getEpochSecond();
+        long spring = Instant.parse("2024-10-05T15:30:00Z").getEpochSecond();
+
+        assertThat(offsets.offsetAt(autumn - 1)).isEqualTo(11 * 3600);
+        assertThat(offsets.offsetAt(autumn)).isEqualTo(10 * 3600 + 1800);
+        assertThat(offsets.offsetAt(spring - 1)).isEqualTo(10 * 3600 + 1800);
+        assertThat(offsets.offsetAt(spring)).isEqualTo(11 * 3600);
+    }
+
+    // ---- IsoTimestampWriter ----
+
+    @Test
+    void writesWhatTheFormatterWrites() {
+        Random random = new Random(42);
+        int[] nanos = {0, 1, 10, 100_000_000, 120_000_000, 123_456_789, 999_999_999};
+        long min = LocalDateTime.of(0, 1, 1, 0, 0).toEpochSecond(ZoneOffset.UTC);
+        long max = LocalDateTime.of(9999, 12, 31, 23, 59, 59).toEpochSecond(ZoneOffset.UTC);
+
+        for (ZoneId zone : ZONES) {
+            List<Long> seconds = secondsAroundTransitions(zone, 1970, 2040);
+            for (int i = 0; i < 2000; i++) seconds.add(min + (long) (random.nextDouble() * (max - min)));
+            seconds.addAll(List.of(-1L, 0L, 1L, 86_399L, 86_400L, 951_782_400L /* 2000-02-29 */));
+
+            IsoTimestampWriter writer = new IsoTimestampWriter(zone);
+            char[] out = new char[IsoTimestampWriter.MAX_LENGTH];
+            for (long second : seconds) {
+                int nano = nanos[random.nextInt(nanos.length)];
+                String expected = iso(second, nano, zone);
+                int end = writer.write(second, nano, out, 0);
+                if (end < 0) {
+                    // Left to the formatter: only for offsets with seconds or years past 4 digits
+                    int offset = zone.getRules().getOffset(Instant.ofEpochSecond(second)).getTotalSeconds();
+                    int year = Instant.ofEpochSecond(second).atZone(zone).getYear();
+                    assertThat(offset % 60 != 0 || year < 0 || year > 9999).as(expected).isTrue();
+                } else {
+                    assertThat(new String(out, 0, end)).isEqualTo(expected);
+                }
+            }
+        }
+    }
+
+    @Test
+    void leavesYearsPastFourDigitsToTheFormatter() {
+        IsoTimestampWriter writer = new IsoTimestampWriter(ZoneOffset.UTC);
+        char[] out = new char[IsoTimestampWriter.MAX_LENGTH];
+
+        long first = LocalDateTime.of(0, 1, 1, 0, 0).toEpochSecond(ZoneOffset.UTC);
+        long last = LocalDateTime.of(9999, 12, 31, 23, 59, 59).toEpochSecond(ZoneOffset.UTC);
+        assertThat(new String(out, 0, writer.write(first, 0, out, 0))).isEqualTo("0000-01-01T00:00:00Z");
+        assertThat(new String(out, 0, writer.write(last, 999_999_999, out, 0)))
+                .isEqualTo("9999-12-31T23:59:59.999999999Z");
+        assertThat(writer.write(first - 1, 0, out, 0)).isEqualTo(-1);
+        assertThat(writer.write(last + 1, 0, out, 0)).isEqualTo(-1);
+        // Year 9999 in UTC, 10000 at +01:00
+        assertThat(new IsoTimestampWriter(ZoneOffset.ofHours(1)).write(last, 0, out, 0)).isEqualTo(-1);
+    }
+
+    // ---- BatchTimestampConverter ----
+
+    private List<String> convert(String csv, String from, String inputZone, String to, String zone, String invalid)
+            throws Exception {
+        TimestampConversion conversion = TimestampConversion.of(formats, from, null, inputZone, to, null, zone, invalid);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        converter.write(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), ',', false,
+                new int[] {0}, conversion, out);
+        return out.toString(StandardCharsets.UTF_8).lines().toList();
+    }
+
+    @Test
+    void resolvesLocalTimesInGapsAndOverlapsLikeJavaTime() throws Exception {
+        // 02:30 does not exist on 2024-03-10 and 01:30 happens twice on 2024-11-03
+        List<String> lines = convert("2024-03-10T02:30:00,gap\n2024-11-03T01:30:00,overlap\n"
+                + "2024-11-03T01:30:00-05:00,later\n", "text", "America/New_York", "text", "UTC", "keep");
+
+        assertThat(lines).containsExactly(
+                "2024-03-10T07:30:00Z,gap",
+                "2024-11-03T05:30:00Z,overlap",
+                "2024-11-03T06:30:00Z,later");
+        for (String local : List.of("2024-03-10T02:30:00", "2024-11-03T01:30:00")) {
+            Instant expected = LocalDateTime.parse(local).atZone(NEW_YORK).toInstant();
+            assertThat(lines).anyMatch(line -> line.startsWith(expected.toString()));
+        }
+    }
+
+    @Test
+    void writesBothSidesOfAnOverlapWithTheirOwnOffset() throws Exception {
+        long first = Instant.parse("2024-11-03T05:30:00Z").getEpochSecond();
+        long second = first + 3600;
+        assertThat(convert(first + "\n" + second + "\n", "seconds", null, "text", "America/New_York", "keep"))
+                .containsExactly("2024-11-03T01:30:00-04:00", "2024-11-03T01:30:00-05:00");
+
+        long autumn = Instant.parse("2024-04-06T15:00:00Z").getEpochSecond();
+        assertThat(convert((autumn - 1) + "\n" + autumn + "\n", "seconds", null, "text", "Australia/Lord_Howe", "keep"))
+                .containsExactly("2024-04-07T01:59:59+11:00", "2024-04-07T01:30:00+10:30");
+    }
+
+    @Test
+    void convertsNegativeAndFractionalEpochs() throws Exception {
+        assertThat(convert("-1\n-1.5\n-0.000000001\n1700000000.1234567891\n0.25\n", "seconds", null, "text", "UTC", "keep"))
+                .containsExactly(
+                        "1969-12-31T23:59:59Z",
+                        "1969-12-31T23:59:58.5Z",
+                        "1969-12-31T23:59:59.999999999Z",
+                        "2023-11-14T22:13:20.123456789Z",
+                        "1970-01-01T00:00:00.25Z");
+        assertThat(convert("-1\n-1001\n1700000000123\n", "millis", null, "text", "UTC", "keep"))
+                .containsExactly(
+                        "1969-12-31T23:59:59.999Z",
+                        "1969-12-31T23:59:58.999Z",
+                        "2023-11-14T22:13:20.123Z");
+        // Back to numbers: floor seconds and millis, like Instant
+        assertThat(convert("-1.5\n", "seconds", null, "millis", "UTC", "keep")).containsExactly("-1500");
+        assertThat(convert("-1001\n", "millis", null, "seconds", "UTC", "keep")).containsExactly("-2");
+        // Auto: millis from 10^11 on, either sign
+        assertThat(convert("-100000000000\n99999999999\n", "auto", null, "text", "UTC", "keep"))
+                .containsExactly(iso(-100_000_000, 0, ZoneOffset.UTC), iso(99_999_999_999L, 0, ZoneOffset.UTC));
+    }
+
+    @Test
+    void formatsYearsOutsideFourDigitsThroughTheFormatter() throws Exception {
+        long year10000 = LocalDateTime.of(10000, 1, 1, 0, 0).toEpochSecond(ZoneOffset.UTC);
+        long yearMinus1 = LocalDateTime.of(-1, 6, 1, 12, 0).toEpochSecond(ZoneOffset.UTC);
+        assertThat(convert(year10000 + "\n" + yearMinus1 + "\n" + Instant.MAX.getEpochSecond() + "\n",
+                "seconds", null, "text", "UTC", "keep"))
+                .containsExactly(
+                        "+10000-01-01T00:00:00Z",
+                        "-0001-06-01T12:00:00Z",
+                        // A valid Instant, but past the last LocalDateTime
+                        Long.toString(Instant.MAX.getEpochSecond()));
+    }
+
+    @Test
+    void keepsOrEmptiesInvalidValues() throws Exception {
+        String csv = "abc,1\n,2\n1.5,3\n99999999999999999999,4\n" + (Instant.MAX.getEpochSecond() + 1) + ",5\n0,6\n";
+
+        assertThat(convert(csv, "seconds", null, "text", "UTC", "keep")).containsExactly(
+                "abc,1", ",2", "1970-01-01T00:00:01.5Z,3", "99999999999999999999,4",
+                (Instant.MAX.getEpochSecond() + 1) + ",5", "1970-01-01T00:00:00Z,6");
+        assertThat(convert(csv, "seconds", null, "text", "UTC", "empty")).containsExactly(
+                ",1", ",2", "1970-01-01T00:00:01.5Z,3", ",4", ",5", "1970-01-01T00:00:00Z,6");
+        // A fraction is not a valid millisecond value
+        assertThat(convert("1.5\n", "millis", null, "text", "UTC", "empty")).containsExactly("");
+        assertThat(convert("1.5\n", "millis", null, "text", "UTC", "keep")).containsExactly("1.5");
+    }
+}
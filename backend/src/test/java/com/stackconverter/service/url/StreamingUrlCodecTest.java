@@ -0,0 +1,112 @@
+package com.stackconverter.service.url;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class StreamingUrlCodecTest {
+
+    private static final int BLOCK = 16 * 1024;
+
+    private final StreamingUrlCodec codec = new StreamingUrlCodec();
+
+    private String encode(String text, boolean lines) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        codec.encode(new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8)), out, lines);
+        return out.toString(StandardCharsets.US_ASCII);
+    }
+
+    private String decode(String encoded) throws Exception {
+        byte[] bytes = encoded.getBytes(StandardCharsets.US_ASCII);
+        codec.validate(new ByteArrayInputStream(bytes));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        codec.decode(new ByteArrayInputStream(bytes), out);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    // Random text over ASCII, reserved characters and 2-, 3- and 4-byte UTF-8
+    private static String text(int codePoints, long seed) {
+        int[] pool = " azAZ09.-*_~+%&=/?#éß€日本😀".codePoints().toArray();
+        Random random = new Random(seed);
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < codePoints; i++) text.appendCodePoint(pool[random.nextInt(pool.length)]);
+        return text.toString();
+    }
+
+    // An ASCII prefix that puts the first byte of tail at offset
+    private static String at(int offset, String tail) {
+        return "a".repeat(offset) + tail;
+    }
+
+    @Test
+    void encodesLikeUrlEncoder() throws Exception {
+        for (long seed = 0; seed < 20; seed++) {
+            String text = text(20_000, seed);
+            assertThat(encode(text, false)).isEqualTo(URLEncoder.encode(text, StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    void encodesMultiByteCharactersAcrossBlocks() throws Exception {
+        // Every split of a 2-, 3- and 4-byte sequence over the block boundary
+        for (String character : new String[] {"é", "€", "😀"}) {
+            int bytes = character.getBytes(StandardCharsets.UTF_8).length;
+            for (int before = 1; before < bytes; before++) {
+                String text = at(BLOCK - before, character + " tail");
+                assertThat(encode(text, false)).isEqualTo(URLEncoder.encode(text, StandardCharsets.UTF_8));
+            }
+        }
+    }
+
+    @Test
+    void encodesEachLineSeparately() throws Exception {
+        String text = text(3000, 1) + "\n" + text(3000, 2) + "\r\n\n" + at(BLOCK, "€ end") + "\n";
+        StringBuilder expected = new StringBuilder();
+        int start = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '\r' || c == '\n') {
+                expected.append(URLEncoder.encode(text.substring(start, i), StandardCharsets.UTF_8)).append(c);
+                start = i + 1;
+            }
+        }
+        expected.append(URLEncoder.encode(text.substring(start), StandardCharsets.UTF_8));
+
+        assertThat(encode(text, true)).isEqualTo(expected.toString());
+    }
+
+    @Test
+    void decodesLikeUrlDecoder() throws Exception {
+        for (long seed = 0; seed < 20; seed++) {
+            String encoded = URLEncoder.encode(text(20_000, seed), StandardCharsets.UTF_8);
+            assertThat(decode(encoded)).isEqualTo(URLDecoder.decode(encoded, StandardCharsets.UTF_8));
+        }
+        // Lower-case hex digits, and '+' as well as %20 for spaces
+        String mixed = "caf%c3%a9+au%20lait%2b%E2%82%ac";
+        assertThat(decode(mixed)).isEqualTo(URLDecoder.decode(mixed, StandardCharsets.UTF_8)).isEqualTo("café au lait+€");
+    }
+
+    @Test
+    void decodesEscapesSplitAcrossBlocks() throws Exception {
+        // "%E2%82%AC" is 9 chars: try every split point, including inside one %XX
+        for (int before = 1; before < 9; before++) {
+            String encoded = at(BLOCK - before, "%E2%82%AC+end");
+            assertThat(decode(encoded)).isEqualTo(URLDecoder.decode(encoded, StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    void rejectsMalformedEscapes() {
+        assertThatThrownBy(() -> decode("ok\nbad %G1\n")).hasMessage("Invalid URL encoded input at line 2");
+        assertThatThrownBy(() -> decode("trailing %4")).hasMessage("Invalid URL encoded input at line 1");
+        assertThatThrownBy(() -> decode(at(BLOCK - 1, "%zz"))).isInstanceOf(IllegalArgumentException.class);
+    }
+}
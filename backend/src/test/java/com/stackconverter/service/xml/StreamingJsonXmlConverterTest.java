@@ -0,0 +1,64 @@
+package com.stackconverter.service.xml;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class StreamingJsonXmlConverterTest {
+
+    private final StreamingJsonXmlConverter converter = new StreamingJsonXmlConverter(new XmlInfrastructure(1));
+
+    private static InputStream json(String text) {
+        return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private String toXml(String text) throws IOException {
+        StreamingJsonXmlConverter.JsonLayout layout = converter.inspectJson(json(text));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        converter.writeJsonAsXml(json(text), layout, out);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void streamsAttributesBeforeTextAndChildren() throws IOException {
+        assertThat(toXml("{\"a\":{\"@id\":\"1\",\"#text\":\"x\"}}")).contains("<a id=\"1\">x</a>");
+        assertThat(toXml("{\"a\":{\"@id\":\"1\",\"b\":\"y\"}}")).contains("<a id=\"1\">").contains("<b>y</b>");
+    }
+
+    @Test
+    void hoistsAttributesAndTextThatFollowChildren() throws IOException {
+        // Where the DOM path puts them: attributes on the start tag, text ahead of the children
+        assertThat(toXml("{\"a\":{\"#text\":\"x\",\"@id\":\"1\"}}")).contains("<a id=\"1\">x</a>");
+        assertThat(toXml("{\"a\":{\"b\":\"y\",\"@id\":\"1\"}}")).contains("<a id=\"1\">").contains("<b>y</b>");
+        assertThat(toXml("{\"a\":{\"b\":\"y\",\"#text\":\"x\",\"@id\":\"1\"}}")).contains("<a id=\"1\">x");
+    }
+
+    @Test
+    void hoistsOnlyTheElementsThatNeedIt() throws IOException {
+        assertThat(converter.inspectJson(json("{\"a\":{\"@id\":\"1\",\"#text\":\"x\"}}")).hoisted()).isEmpty();
+        // Only the object's own content counts, not a nested one's
+        assertThat(converter.inspectJson(json("{\"a\":{\"b\":{\"#text\":\"x\"}},\"c\":{\"@id\":\"1\"}}")).hoisted())
+                .isEmpty();
+
+        // Identical objects are told apart by position, so each keeps its own values
+        String text = "{\"r\":{\"i\":[{\"b\":\"y\",\"@id\":\"1\"},{\"b\":\"y\",\"@id\":\"2\"},{\"@id\":\"3\",\"b\":\"y\"}]}}";
+        assertThat(converter.inspectJson(json(text)).hoisted()).hasSize(2);
+        assertThat(toXml(text)).contains("<i id=\"1\">", "<i id=\"2\">", "<i id=\"3\">");
+    }
+
+    @Test
+    void limitsWhatIsHoisted() throws IOException {
+        String large = "z".repeat(StreamingJsonXmlConverter.MAX_HOISTED_CHARS_PER_ELEMENT);
+        assertThatThrownBy(() -> converter.inspectJson(json("{\"a\":{\"b\":\"y\",\"@id\":\"" + large + "\"}}")))
+                .isInstanceOf(IllegalArgumentException.class);
+        // In order, the same value is streamed without being kept
+        assertThat(converter.inspectJson(json("{\"a\":{\"@id\":\"" + large + "\",\"b\":\"y\"}}")).hoisted()).isEmpty();
+    }
+}